@@ -0,0 +1,52 @@
+package org.nateorlow;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Main class of benchmarks.jar (build it with mvn -P jmh package)
+ *
+ * Takes the usual JMH command line, but unless told otherwise it runs every benchmark in this project,
+ * writes the results as JSON to jmh-result.json, and runs the GC profiler so each result
+ * comes with its allocation rate (gc.alloc.rate.norm is bytes allocated per operation).
+ * Asking for help or a listing (-h, -l, -lp, -lrf, -lprof) is handed to JMH's own Main, e.g.
+ *     java -jar target/benchmarks.jar
+ *     java -jar target/benchmarks.jar CheckoutBenchmark -p toolCode=LADW -rff checkout.json
+ *     java -jar target/benchmarks.jar -l
+ */
+public class BenchmarkRunner {
+    private static final String ALL_BENCHMARKS = "org\\.nateorlow\\..*Benchmark";
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if(commandLineOptions.shouldHelp() || commandLineOptions.shouldList() || commandLineOptions.shouldListWithParams()
+                || commandLineOptions.shouldListProfilers() || commandLineOptions.shouldListResultFormats()){
+            Main.main(args);
+            return;
+        }
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+        if(commandLineOptions.getIncludes().isEmpty()){
+            options.include(ALL_BENCHMARKS);
+        }
+        if(!commandLineOptions.getResultFormat().hasValue()){
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if(!commandLineOptions.getResult().hasValue()){
+            options.result(DEFAULT_RESULT_FILE);
+        }
+        if(commandLineOptions.getProfilers().isEmpty()){
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+}
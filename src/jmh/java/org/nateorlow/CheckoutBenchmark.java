@@ -0,0 +1,58 @@
+package org.nateorlow;
+
+import org.nateorlow.contract.ContractRecord;
+import org.nateorlow.contract.ToolRentalContract;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole checkout (validation, lookups, date parsing, day counting and pricing) with a printer that
+ * throws the text away, so printing doesn't hide the rest.
+ * Contracts only work out their charges when printed, so the printer still records the charges
+ * (as a ContractRecord) and the benchmark returns them
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckoutBenchmark {
+    @Param({"LADW", "CHNS", "JAKR"})
+    String toolCode;
+    @Param({"3", "30"})
+    int rentalDayCount;
+    //years are written in full, since "7/2/20" is the year 20
+    @Param({"7/2/2020", "9/3/2015"})
+    String checkoutDate;
+
+    Checkout checkout;
+    ContractRecord lastContractRecord;
+
+    @Setup
+    public void setUp(){
+        checkout = Checkout.sampleCheckout(contract -> lastContractRecord = ContractRecord.fromContract((ToolRentalContract) contract));
+    }
+
+    @Benchmark
+    public ContractRecord checkoutUsingInput(){
+        checkout.checkoutUsingInput(toolCode, rentalDayCount, 10, checkoutDate);
+        return lastContractRecord;
+    }
+
+    @Benchmark
+    public Object createContract(){
+        return checkout.createContract(toolCode, rentalDayCount, 10, checkoutDate);
+    }
+}
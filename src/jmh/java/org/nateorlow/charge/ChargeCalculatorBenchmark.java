@@ -0,0 +1,93 @@
+package org.nateorlow.charge;
+
+import org.nateorlow.contract.ToolRentalContract;
+import org.nateorlow.pricing.RuleBasedChargeCalculator;
+import org.nateorlow.tool.Tool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pricing one quote (base charge, discount and final charge, rounded to cents like a contract does)
+ * with the BigDecimal calculator, and with the fixed point one for comparison
+ *
+ * The rule based cases price the listing the calculator has, and a listing it doesn't have
+ * (like one a contract kept from before a reprice), which is compiled once and then looked up
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChargeCalculatorBenchmark {
+    @Param({"1.99", "2.99"})
+    String dailyCharge;
+    @Param({"3", "250"})
+    int chargeableDays;
+    @Param({"0", "10", "55"})
+    int discountPercent;
+
+    ChargeListing chargeListing;
+    UnroundedChargeCalculator unroundedChargeCalculator;
+    FixedPointChargeCalculator fixedPointChargeCalculator;
+    RuleBasedChargeCalculator ruleBasedChargeCalculator;
+    RentalPeriod rentalPeriod;
+    ChargeListing replacedChargeListing;
+
+    @Setup
+    public void setUp(){
+        chargeListing = ChargeListing.builder().toolType(Tool.LADDER).dailyCharge(new BigDecimal(dailyCharge))
+                                     .weekdayChargeable(true).weekendChargeable(true).build();
+        unroundedChargeCalculator = new UnroundedChargeCalculator();
+        unroundedChargeCalculator.addChargeListing(chargeListing);
+        fixedPointChargeCalculator = new FixedPointChargeCalculator();
+        fixedPointChargeCalculator.addChargeListing(chargeListing);
+        ruleBasedChargeCalculator = new RuleBasedChargeCalculator();
+        ruleBasedChargeCalculator.addChargeListing(chargeListing);
+        rentalPeriod = new RentalPeriod("7/2/2020", chargeableDays);
+        replacedChargeListing = ChargeListing.builder().toolType(Tool.LADDER).dailyCharge(new BigDecimal(dailyCharge))
+                                             .weekdayChargeable(true).weekendChargeable(true).build();
+    }
+
+    @Benchmark
+    public BigDecimal unroundedFinalCharge(){
+        final BigDecimal baseCharge = unroundedChargeCalculator.calculateBaseCharge(chargeableDays, chargeListing)
+                                                               .setScale(ToolRentalContract.ROUND_TO_PLACES, ToolRentalContract.HALF_UP);
+        final BigDecimal discountCharge = unroundedChargeCalculator.calculateDiscountCharge(baseCharge, discountPercent)
+                                                                   .setScale(ToolRentalContract.ROUND_TO_PLACES, ToolRentalContract.HALF_UP);
+        return baseCharge.subtract(discountCharge);
+    }
+
+    @Benchmark
+    public long fixedPointFinalChargeInCents(){
+        final long baseChargeInCents = fixedPointChargeCalculator.calculateBaseChargeInCents(chargeableDays, chargeListing);
+        return baseChargeInCents - fixedPointChargeCalculator.calculateDiscountChargeInCents(baseChargeInCents, discountPercent);
+    }
+
+    @Benchmark
+    public long ruleBasedFinalChargeInCents(){
+        return ruleBasedFinalChargeInCents(chargeListing);
+    }
+
+    @Benchmark
+    public long ruleBasedReplacedListingFinalChargeInCents(){
+        return ruleBasedFinalChargeInCents(replacedChargeListing);
+    }
+
+    private long ruleBasedFinalChargeInCents(ChargeListing listing){
+        final long baseChargeInCents = ruleBasedChargeCalculator.calculateBaseChargeInCents(rentalPeriod, chargeableDays, listing);
+        return baseChargeInCents - ruleBasedChargeCalculator.calculateDiscountChargeInCents(baseChargeInCents, discountPercent);
+    }
+}
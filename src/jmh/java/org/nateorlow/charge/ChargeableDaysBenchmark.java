@@ -0,0 +1,62 @@
+package org.nateorlow.charge;
+
+import org.nateorlow.tool.Tool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counting chargeable days. HolidayChargeableDayCounter works from the holiday calendar's yearly counts,
+ * so its cost barely grows with the rental length; the indexed counter looks up running totals instead.
+ * The index is built around the checkout year, so every rental here is answered from it and not its fallback
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChargeableDaysBenchmark {
+    @Param({"1", "5", "30", "365"})
+    int rentalDayCount;
+    //covers the 4th of July (on a Saturday, observed on the Friday) and Labor Day;
+    //the year is written in full, since "7/2/20" is the year 20
+    @Param({"7/2/2020"})
+    String checkoutDate;
+
+    RentalPeriod rentalPeriod;
+    ChargeListing chainsawChargeListing;
+    HolidayChargeableDayCounter holidayChargeableDayCounter;
+    IndexedChargeableDayCounter indexedChargeableDayCounter;
+
+    @Setup
+    public void setUp(){
+        rentalPeriod = new RentalPeriod(checkoutDate, rentalDayCount);
+        chainsawChargeListing = ChargeListing.builder().toolType(Tool.CHAINSAW).dailyCharge(new BigDecimal("1.49"))
+                                             .weekdayChargeable(true).weekendChargeable(false).holidayChargeable(true).build();
+        holidayChargeableDayCounter = new HolidayChargeableDayCounter();
+        final int checkoutYear = rentalPeriod.getStartDate().getYear();
+        indexedChargeableDayCounter = new IndexedChargeableDayCounter(holidayChargeableDayCounter, checkoutYear, checkoutYear + 2);
+    }
+
+    @Benchmark
+    public Integer holidayChargeableDays(){
+        return holidayChargeableDayCounter.chargeableDaysForListing(rentalPeriod, chainsawChargeListing);
+    }
+
+    @Benchmark
+    public Integer indexedChargeableDays(){
+        return indexedChargeableDayCounter.chargeableDaysForListing(rentalPeriod, chainsawChargeListing);
+    }
+}
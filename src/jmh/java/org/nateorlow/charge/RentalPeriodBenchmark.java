@@ -0,0 +1,57 @@
+package org.nateorlow.charge;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Making a RentalPeriod from each kind of start date. The String constructor parses the m/d/yy input,
+ * which is what a checkout does with every request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RentalPeriodBenchmark {
+    @Param({"7/2/20", "12/31/2024"})
+    String checkoutDate;
+    @Param({"5"})
+    int rentalDayCount;
+
+    LocalDate checkoutLocalDate;
+    long checkoutEpochDay;
+
+    @Setup
+    public void setUp(){
+        checkoutLocalDate = new RentalPeriod(checkoutDate, rentalDayCount).getStartDate();
+        checkoutEpochDay = checkoutLocalDate.toEpochDay();
+    }
+
+    @Benchmark
+    public RentalPeriod fromString(){
+        return new RentalPeriod(checkoutDate, rentalDayCount);
+    }
+
+    @Benchmark
+    public RentalPeriod fromLocalDate(){
+        return new RentalPeriod(checkoutLocalDate, rentalDayCount);
+    }
+
+    @Benchmark
+    public RentalPeriod fromEpochDay(){
+        return new RentalPeriod(checkoutEpochDay, rentalDayCount);
+    }
+}
@@ -0,0 +1,89 @@
+package org.nateorlow.contract;
+
+import org.nateorlow.charge.ChargeListing;
+import org.nateorlow.charge.HolidayChargeableDayCounter;
+import org.nateorlow.charge.RentalPeriod;
+import org.nateorlow.charge.UnroundedChargeCalculator;
+import org.nateorlow.tool.Tool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering a contract as text, which also counts its chargeable days and prices it.
+ * toStringList is what the log printer uses; appendTo into a reused StringBuilder is here to compare against.
+ * The template cases price the contract once and write it as text, JSON and CSV bytes into a reused buffer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToolRentalContractBenchmark {
+    @Param({"5", "30"})
+    int rentalDayCount;
+
+    ToolRentalContract toolRentalContract;
+    StringBuilder stringBuilder;
+    ByteBuffer byteBuffer;
+
+    @Setup
+    public void setUp(){
+        final ChargeListing jackhammerChargeListing = ChargeListing.builder().toolType(Tool.JACKHAMMER)
+                                                                   .dailyCharge(new BigDecimal("2.99"))
+                                                                   .weekdayChargeable(true).weekendChargeable(false).holidayChargeable(false).build();
+        toolRentalContract = ToolRentalContract.builder()
+                                               .tool(Tool.builder().code("JAKR").type(Tool.JACKHAMMER).brand("Ridgid").build())
+                                               .rentalPeriod(new RentalPeriod("7/2/2020", rentalDayCount))
+                                               .chargeListing(jackhammerChargeListing).discountPercent(10)
+                                               .chargeableDayCounter(new HolidayChargeableDayCounter())
+                                               .chargeCalculator(new UnroundedChargeCalculator())
+                                               .build();
+        stringBuilder = new StringBuilder(512);
+        byteBuffer = ByteBuffer.allocate(4096);
+    }
+
+    @Benchmark
+    public List<String> toStringList(){
+        return toolRentalContract.toStringList();
+    }
+
+    @Benchmark
+    public StringBuilder appendTo() throws IOException {
+        stringBuilder.setLength(0);
+        toolRentalContract.appendTo(stringBuilder);
+        return stringBuilder;
+    }
+
+    @Benchmark
+    public ByteBuffer textTemplate(){
+        byteBuffer.clear();
+        ContractTemplate.TEXT.writeTo(byteBuffer, ContractRecord.fromContract(toolRentalContract));
+        return byteBuffer;
+    }
+
+    @Benchmark
+    public ByteBuffer textJsonCsvTemplates(){
+        byteBuffer.clear();
+        final ContractRecord contractRecord = ContractRecord.fromContract(toolRentalContract);
+        ContractTemplate.TEXT.writeTo(byteBuffer, contractRecord);
+        ContractTemplate.JSON.writeTo(byteBuffer, contractRecord);
+        ContractTemplate.CSV.writeTo(byteBuffer, contractRecord);
+        return byteBuffer;
+    }
+}
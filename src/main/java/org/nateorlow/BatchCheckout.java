@@ -0,0 +1,201 @@
+package org.nateorlow;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.nateorlow.contract.Contract;
+import org.nateorlow.contract.AsyncContractPrinter;
+import org.nateorlow.contract.RenderedContract;
+import org.nateorlow.metrics.CheckoutMetrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Run many checkouts from a file in one process
+ *
+ * Each row is a tool code, rental day count, discount percent and check out date,
+ * separated by commas or whitespace (e.g. "LADW,3,10,7/2/20"). Blank lines and lines starting with # are skipped,
+ * and a header on the first line is skipped if its rental day count is not a number.
+ *
+ * The file is read as a stream, and contracts are computed on a pool of threads.
+ * Only a bounded number of rows are in flight at once, so large files are never held in memory.
+ * Contracts are printed in the same order as the rows; rows that fail are reported with their line number
+ */
+@Builder
+public class BatchCheckout {
+    private static final Pattern FIELD_SEPARATOR = Pattern.compile("\\s*,\\s*|\\s+");
+    private static final int FIELDS_PER_ROW = 4;
+
+    Checkout checkout;
+    @Builder.Default
+    int threadCount = Runtime.getRuntime().availableProcessors();
+    @Builder.Default
+    int maxRowsInFlight = 1024;
+
+    public static void main(String[] args) throws IOException {
+        final int threadCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        //printing on its own thread keeps the output from holding up the rows
+        final CheckoutMetrics checkoutMetrics = new CheckoutMetrics();
+        final BatchSummary batchSummary;
+        final BatchCheckout batchCheckout;
+        try(AsyncContractPrinter asyncContractPrinter = AsyncContractPrinter.builder().build();
+            BufferedReader reader = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)){
+            batchCheckout = BatchCheckout.builder()
+                                         .checkout(Checkout.sampleCheckout(asyncContractPrinter, checkoutMetrics))
+                                         .threadCount(threadCount)
+                                         .build();
+            batchSummary = batchCheckout.checkoutRows(reader);
+        }
+        //closing the printer waits for the contracts to be written, so the summary comes last
+        batchCheckout.outputToErrorLog(batchSummary.toString());
+        batchCheckout.outputToErrorLog(checkoutMetrics.dumpText());
+    }
+
+    /**
+     * Check out every row from the reader, printing contracts with the checkout's ContractPrinter
+     * @param reader rows to check out
+     * @return counts and timing for the batch
+     */
+    public BatchSummary checkoutRows(BufferedReader reader){
+        if(checkout == null){
+            throw new IllegalStateException("System error -- batch checkout needs a configured checkout");
+        }else if(threadCount < 1 || maxRowsInFlight < 1){
+            throw new IllegalArgumentException("Batch checkout needs at least one thread and one row in flight");
+        }
+        final long startNanos = System.nanoTime();
+        long rowCount = 0;
+        long errorCount = 0;
+        final Deque<Future<RowOutcome>> rowsInFlight = new ArrayDeque<>();
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try{
+            int lineNumber = 0;
+            String line;
+            while((line = reader.readLine()) != null){
+                lineNumber += 1;
+                final String trimmedLine = line.trim();
+                if(trimmedLine.isEmpty() || trimmedLine.startsWith("#") || (lineNumber == 1 && isHeader(trimmedLine))){
+                    continue;
+                }
+                final int rowLineNumber = lineNumber;
+                rowsInFlight.addLast(executorService.submit(() -> checkoutRow(rowLineNumber, trimmedLine)));
+                rowCount += 1;
+                //the oldest row is printed before reading further, which keeps the output in order
+                if(rowsInFlight.size() >= maxRowsInFlight){
+                    errorCount += printOutcome(rowsInFlight.removeFirst());
+                }
+            }
+            while(!rowsInFlight.isEmpty()){
+                errorCount += printOutcome(rowsInFlight.removeFirst());
+            }
+        }catch(IOException e){
+            throw new UncheckedIOException("Unable to read batch checkout rows", e);
+        }finally{
+            executorService.shutdownNow();
+        }
+        return new BatchSummary(rowCount, errorCount, System.nanoTime() - startNanos);
+    }
+
+    //This can be spied on in unit tests
+    public void outputToErrorLog(String message){
+        System.err.println(message);
+    }
+
+    private RowOutcome checkoutRow(int lineNumber, String row){
+        try{
+            final String[] fields = FIELD_SEPARATOR.split(row);
+            if(fields.length != FIELDS_PER_ROW){
+                throw new IllegalArgumentException("Row must have tool code, rental days, discount percent and check out date");
+            }
+            final int rentalDayCount = parseNumber(fields[1], "Rental day count");
+            final int discountPercent = parseNumber(fields[2], "Discount percent");
+            final Contract contract = checkout.createContract(fields[0], rentalDayCount, discountPercent, fields[3]);
+            return new RowOutcome(lineNumber, RenderedContract.renderedFrom(contract), null);
+        }catch(RuntimeException e){
+            return new RowOutcome(lineNumber, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Wait for a row to finish, then print its contract or report its error
+     * @return 1 if the row failed, otherwise 0
+     */
+    private int printOutcome(Future<RowOutcome> rowOutcomeFuture){
+        final RowOutcome rowOutcome;
+        try{
+            rowOutcome = rowOutcomeFuture.get();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("System error -- batch checkout was interrupted", e);
+        }catch(ExecutionException e){
+            throw new IllegalStateException("System error -- batch checkout row failed unexpectedly", e.getCause());
+        }
+        if(rowOutcome.errorMessage != null){
+            outputToErrorLog("Row " + rowOutcome.lineNumber + ": " + rowOutcome.errorMessage);
+            return 1;
+        }
+        checkout.printContract(rowOutcome.contract);
+        return 0;
+    }
+
+    private static boolean isHeader(String row){
+        final String[] fields = FIELD_SEPARATOR.split(row);
+        return fields.length > 1 && !fields[1].chars().allMatch(Character::isDigit);
+    }
+
+    private static int parseNumber(String field, String fieldName){
+        try{
+            return Integer.parseInt(field);
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException(fieldName + " must be a whole number, not " + field);
+        }
+    }
+
+    private static class RowOutcome {
+        final int lineNumber;
+        final Contract contract;
+        final String errorMessage;
+
+        RowOutcome(int lineNumber, Contract contract, String errorMessage){
+            this.lineNumber = lineNumber;
+            this.contract = contract;
+            this.errorMessage = errorMessage;
+        }
+    }
+
+    /**
+     * Totals reported at the end of a batch
+     */
+    @Getter
+    public static class BatchSummary {
+        long rowCount;
+        long errorCount;
+        long elapsedNanos;
+
+        BatchSummary(long rowCount, long errorCount, long elapsedNanos){
+            this.rowCount = rowCount;
+            this.errorCount = errorCount;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public double getRowsPerSecond(){
+            return elapsedNanos == 0 ? 0 : rowCount * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("Processed %d rows (%d errors) in %.1f ms, %.0f rows/second",
+                    rowCount, errorCount, elapsedNanos / 1_000_000.0, getRowsPerSecond());
+        }
+    }
+}
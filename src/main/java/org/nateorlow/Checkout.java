@@ -2,13 +2,22 @@ package org.nateorlow;
 
 import lombok.Builder;
 import org.nateorlow.charge.*;
+import org.nateorlow.contract.Contract;
 import org.nateorlow.contract.ContractPrinter;
+import org.nateorlow.contract.ContractRecord;
 import org.nateorlow.contract.LogContractPrinter;
 import org.nateorlow.contract.ToolRentalContract;
+import org.nateorlow.holiday.HolidayCalendar;
+import org.nateorlow.holiday.HolidayCalendars;
+import org.nateorlow.metrics.CheckoutMetrics;
+import org.nateorlow.metrics.CheckoutStage;
+import org.nateorlow.metrics.ValidationFailure;
 import org.nateorlow.tool.Inventory;
 import org.nateorlow.tool.Tool;
 
 import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.util.concurrent.atomic.AtomicReference;
 
 //For classes with several components, create them with builders instead of constructors
 //this avoids having many constructors if component classes keep getting added
@@ -20,24 +29,52 @@ public class Checkout {
     ChargeableDayCounter chargeableDayCounter;
     ChargeCalculator chargeCalculator;
     ContractPrinter contractPrinter;
+    //When given, chargeable days follow the holidays of the inventory's region, counted by chargeableDayCounter
+    //(with its caching or indexing) or by a HolidayChargeableDayCounter if there isn't one
+    HolidayCalendars holidayCalendars;
+    //Stage timings and error counts; these are only kept when metrics are given
+    @Builder.Default
+    CheckoutMetrics checkoutMetrics = CheckoutMetrics.DISABLED;
+    //the day counter given to contracts, worked out on first use and then shared by every contract
+    private final AtomicReference<ChargeableDayCounter> contractDayCounter = new AtomicReference<>();
 
     public static void main(String[] args) {
+        Checkout checkout = sampleCheckout(new LogContractPrinter());
+        //checkout.checkoutUsingInput("LADW", 3, 10, "7/2/20");
+        checkout.checkoutUsingInput(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]), args[3]);
+    }
+
+    /**
+     * Create a checkout with the sample tools and charge listings
+     * @param contractPrinter where contracts will be printed
+     * @return checkout ready to use
+     */
+    static Checkout sampleCheckout(ContractPrinter contractPrinter) {
+        return sampleCheckout(contractPrinter, CheckoutMetrics.DISABLED);
+    }
+
+    /**
+     * Create a checkout with the sample tools and charge listings, that records its stage timings
+     * @param contractPrinter where contracts will be printed
+     * @param checkoutMetrics where timings and error counts go
+     * @return checkout ready to use
+     */
+    static Checkout sampleCheckout(ContractPrinter contractPrinter, CheckoutMetrics checkoutMetrics) {
         //Maybe these could be injected using a dependency injection framework
         Inventory inventory = new Inventory();
         ChargeableDayCounter holidayChargeableDayCounter = new HolidayChargeableDayCounter();
         UnroundedChargeCalculator unroundedChargeCalculator = new UnroundedChargeCalculator();
-        ContractPrinter logContractPrinter = new LogContractPrinter();
         Checkout checkout = Checkout.builder()
                                     .inventory(inventory)
                                     .chargeableDayCounter(holidayChargeableDayCounter)
                                     .chargeCalculator(unroundedChargeCalculator)
-                                    .contractPrinter(logContractPrinter)
+                                    .contractPrinter(contractPrinter)
+                                    .checkoutMetrics(checkoutMetrics)
                                     .build();
 
         addSampleTools(inventory);
         addSampleChargeListings(unroundedChargeCalculator);
-        //checkout.checkoutUsingInput("LADW", 3, 10, "7/2/20");
-        checkout.checkoutUsingInput(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]), args[3]);
+        return checkout;
     }
 
     //This was the order mentioned under Checkout
@@ -51,19 +88,123 @@ public class Checkout {
      * @param checkoutDateStringMDY
      */
     void checkoutUsingInput(String toolCode, int rentalDayCount, int discountPercent, String checkoutDateStringMDY) {
+        ToolRentalContract toolRentalContract = createContract(toolCode, rentalDayCount, discountPercent, checkoutDateStringMDY);
+        printContract(toolRentalContract);
+    }
+
+    /**
+     * Checkout the tool only if it is free for the whole rental --
+     * Reserve the tool in the inventory, then print the contract
+     * The charges are worked out once, into the record that is printed and returned
+     * If pricing or printing fails, the reservation is released so the tool isn't left held
+     * @param toolCode
+     * @param rentalDayCount
+     * @param discountPercent
+     * @param checkoutDateStringMDY
+     * @return record of the printed contract, or null if the tool is already reserved for some of those days
+     */
+    ContractRecord reserveAndCheckout(String toolCode, int rentalDayCount, int discountPercent, String checkoutDateStringMDY) {
+        final ToolRentalContract toolRentalContract = createContract(toolCode, rentalDayCount, discountPercent, checkoutDateStringMDY);
+        final long reserveStartNanos = checkoutMetrics.startNanos();
+        final boolean reserved = inventory.reserveTool(toolCode, toolRentalContract.getRentalPeriod());
+        checkoutMetrics.recordStage(CheckoutStage.RESERVATION, reserveStartNanos);
+        if(!reserved){
+            return null;
+        }
+        try{
+            final ContractRecord contractRecord = ContractRecord.fromContract(toolRentalContract);
+            printContract(contractRecord);
+            return contractRecord;
+        }catch(RuntimeException e){
+            inventory.releaseTool(toolCode, toolRentalContract.getRentalPeriod());
+            throw e;
+        }
+    }
+
+    /**
+     * Validate the input and create the rental contract, without printing it
+     * @param toolCode
+     * @param rentalDayCount
+     * @param discountPercent
+     * @param checkoutDateStringMDY
+     * @return contract for the rental
+     */
+    ToolRentalContract createContract(String toolCode, int rentalDayCount, int discountPercent, String checkoutDateStringMDY) {
+        long startNanos = checkoutMetrics.startNanos();
         validateInputArguments(toolCode, rentalDayCount, discountPercent, checkoutDateStringMDY);
-        final Tool tool = inventory.lookupToolByCode(toolCode);
-        final RentalPeriod rentalPeriod = new RentalPeriod(checkoutDateStringMDY, rentalDayCount);
-        final ChargeListing chargeListingForTool = chargeCalculator.lookupChargeListingByToolType(tool.getType());
-        ToolRentalContract toolRentalContract = ToolRentalContract.builder()
-                                                                  .tool(tool)
-                                                                  .rentalPeriod(rentalPeriod)
-                                                                  .chargeListing(chargeListingForTool)
-                                                                  .discountPercent(discountPercent)
-                                                                  .chargeableDayCounter(chargeableDayCounter)
-                                                                  .chargeCalculator(chargeCalculator)
-                                                                  .build();
-        contractPrinter.printContract(toolRentalContract);
+        checkoutMetrics.recordStage(CheckoutStage.VALIDATION, startNanos);
+
+        startNanos = checkoutMetrics.startNanos();
+        //one hash to find the tool's id, then the tool and its listing are array reads
+        final int toolCodeId = inventory.lookupToolCodeId(toolCode);
+        final Tool tool = inventory.lookupToolById(toolCodeId);
+        //the listing is looked up in one price book, so the contract's version matches its price even during a reprice
+        final PriceBook priceBook = chargeCalculator.getPriceBook();
+        final ChargeListing chargeListingForTool = tool == null ? null
+                : lookupChargeListing(priceBook, inventory.lookupToolTypeId(toolCodeId), tool.getType());
+        checkoutMetrics.recordStage(CheckoutStage.INVENTORY_LOOKUP, startNanos);
+        if(tool == null){
+            checkoutMetrics.recordValidationFailure(ValidationFailure.UNKNOWN_TOOL_CODE);
+            throw new IllegalArgumentException("Input tool code " + toolCode + " is not in the inventory");
+        }
+
+        startNanos = checkoutMetrics.startNanos();
+        final RentalPeriod rentalPeriod;
+        try{
+            rentalPeriod = new RentalPeriod(checkoutDateStringMDY, rentalDayCount);
+        }catch(DateTimeException e){
+            checkoutMetrics.recordValidationFailure(ValidationFailure.INVALID_CHECKOUT_DATE);
+            throw e;
+        }
+        checkoutMetrics.recordStage(CheckoutStage.DATE_PARSING, startNanos);
+
+        final ToolRentalContract toolRentalContract = ToolRentalContract.builder()
+                                 .tool(tool)
+                                 .rentalPeriod(rentalPeriod)
+                                 .chargeListing(chargeListingForTool)
+                                 .discountPercent(discountPercent)
+                                 .priceBookVersion(priceBook == null ? PriceBook.NO_VERSION : priceBook.getVersion())
+                                 .chargeableDayCounter(contractDayCounter())
+                                 .chargeCalculator(checkoutMetrics.meteredChargeCalculator(chargeCalculator))
+                                 .build();
+        checkoutMetrics.recordContract();
+        return toolRentalContract;
+    }
+
+    //visible for testing
+    ChargeableDayCounter contractDayCounter(){
+        final ChargeableDayCounter resolvedDayCounter = contractDayCounter.get();
+        if(resolvedDayCounter != null){
+            return resolvedDayCounter;
+        }
+        //if two checkouts race here they build the same counter, and both use whichever was set first
+        contractDayCounter.compareAndSet(null, checkoutMetrics.meteredDayCounter(chargeableDayCounterForInventory()));
+        return contractDayCounter.get();
+    }
+
+    //each store's inventory picks its region, so checkouts for stores in different regions can share everything else
+    private ChargeableDayCounter chargeableDayCounterForInventory(){
+        if(holidayCalendars == null){
+            return chargeableDayCounter;
+        }
+        final HolidayCalendar holidayCalendar = holidayCalendars.calendarFor(inventory.getHolidayRegion());
+        return chargeableDayCounter == null ? new HolidayChargeableDayCounter(holidayCalendar)
+                : chargeableDayCounter.withHolidayCalendar(holidayCalendar);
+    }
+
+    private ChargeListing lookupChargeListing(PriceBook priceBook, int toolTypeId, String toolType){
+        return priceBook == null ? chargeCalculator.lookupChargeListingByToolTypeId(toolTypeId, toolType)
+                : priceBook.lookupChargeListingByToolTypeId(toolTypeId);
+    }
+
+    /**
+     * Print a contract with this checkout's printer, timing it as the printing stage
+     * @param contract
+     */
+    void printContract(Contract contract){
+        final long startNanos = checkoutMetrics.startNanos();
+        contractPrinter.printContract(contract);
+        checkoutMetrics.recordStage(CheckoutStage.PRINTING, startNanos);
     }
 
     /**
@@ -75,12 +216,16 @@ public class Checkout {
      */
     void validateInputArguments(String toolCode, int rentalDayCount, int discountPercent, String checkoutDateStringMDY){
         if(toolCode == null || toolCode.isEmpty()) {
+            checkoutMetrics.recordValidationFailure(ValidationFailure.MISSING_TOOL_CODE);
             throw new IllegalArgumentException("Input tool code must not be null or empty");
         }else if(checkoutDateStringMDY == null || checkoutDateStringMDY.isEmpty()) {
+            checkoutMetrics.recordValidationFailure(ValidationFailure.MISSING_CHECKOUT_DATE);
             throw new IllegalArgumentException("Input check out date must not be null or empty");
         }else if(rentalDayCount <= 0){
+            checkoutMetrics.recordValidationFailure(ValidationFailure.INVALID_RENTAL_DAY_COUNT);
             throw new IllegalArgumentException("Rental day count must be at least 1");
         }else if(discountPercent < 0 || discountPercent > 100){
+            checkoutMetrics.recordValidationFailure(ValidationFailure.INVALID_DISCOUNT_PERCENT);
             throw new IllegalArgumentException("Discount percentage must be in range 0 to 100");
         }
     }
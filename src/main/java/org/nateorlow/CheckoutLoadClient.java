@@ -0,0 +1,174 @@
+package org.nateorlow;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends many quote (or checkout) requests to a CheckoutServer and reports throughput and latency
+ *
+ * Each of the concurrent workers sends one request, waits for the answer and sends the next,
+ * until requestCount requests have been sent. Requests cycle through the sample tools and a spread of dates,
+ * so checkouts mostly hit dates that are still free until the calendar fills up.
+ * Since each worker waits for its answer, a slow server also slows the requests down;
+ * this measures what the server can sustain rather than how it behaves under a fixed arrival rate
+ * (CheckoutWorkload can drive the server with generated requests at a fixed rate)
+ */
+@Builder
+public class CheckoutLoadClient {
+    private static final String[] SAMPLE_TOOL_CODES = {"LADW", "CHNS", "JAKD", "JAKR"};
+
+    @Builder.Default
+    String baseUrl = "http://localhost:8080";
+    //quote or checkout
+    @Builder.Default
+    String endpoint = "quote";
+    @Builder.Default
+    int concurrency = 64;
+    @Builder.Default
+    int requestCount = 100_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        final CheckoutLoadClient checkoutLoadClient = CheckoutLoadClient.builder()
+                .baseUrl(args.length > 0 ? args[0] : "http://localhost:8080")
+                .endpoint(args.length > 1 ? args[1] : "quote")
+                .concurrency(args.length > 2 ? Integer.parseInt(args[2]) : 64)
+                .requestCount(args.length > 3 ? Integer.parseInt(args[3]) : 100_000)
+                .build();
+        //a short warm up, so the numbers aren't mostly JIT compilation
+        CheckoutLoadClient.builder().baseUrl(checkoutLoadClient.baseUrl).endpoint("quote")
+                          .concurrency(checkoutLoadClient.concurrency).requestCount(5_000).build().run();
+        System.out.println(checkoutLoadClient.run());
+    }
+
+    /**
+     * Send the requests and wait for every answer
+     * @return counts and latencies for the run
+     */
+    public LoadSummary run() throws InterruptedException {
+        if(concurrency < 1 || requestCount < 1){
+            throw new IllegalArgumentException("Load test needs at least one worker and one request");
+        }
+        final long[] latencyNanos = new long[requestCount];
+        final AtomicLong nextRequest = new AtomicLong();
+        final AtomicLong successCount = new AtomicLong();
+        final AtomicLong rejectedCount = new AtomicLong();
+        final AtomicLong failedCount = new AtomicLong();
+        final long startNanos;
+        try(HttpClient httpClient = HttpClient.newHttpClient();
+            ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()){
+            startNanos = System.nanoTime();
+            for(int worker = 0; worker < concurrency; worker++){
+                workers.submit(() -> {
+                    long request;
+                    while((request = nextRequest.getAndIncrement()) < requestCount){
+                        final long sentNanos = System.nanoTime();
+                        try{
+                            final int status = httpClient.send(requestNumber(request), HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if(status == 200){
+                                successCount.incrementAndGet();
+                            }else if(status < 500){
+                                rejectedCount.incrementAndGet();
+                            }else{
+                                failedCount.incrementAndGet();
+                            }
+                        }catch(IOException e){
+                            failedCount.incrementAndGet();
+                        }catch(InterruptedException e){
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        latencyNanos[(int) request] = System.nanoTime() - sentNanos;
+                    }
+                });
+            }
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        Arrays.sort(latencyNanos);
+        return new LoadSummary(requestCount, successCount.get(), rejectedCount.get(), failedCount.get(), elapsedNanos, latencyNanos);
+    }
+
+    private HttpRequest requestNumber(long request){
+        final String toolCode = SAMPLE_TOOL_CODES[(int) (request % SAMPLE_TOOL_CODES.length)];
+        //walk forward through the calendar a few days at a time, so checkouts of one tool don't overlap
+        final long dayOffset = (request / SAMPLE_TOOL_CODES.length) * 6;
+        final int month = (int) (dayOffset / 28 % 12) + 1;
+        final int day = (int) (dayOffset % 28) + 1;
+        final long year = 2000 + dayOffset / (28 * 12);
+        return httpRequest(baseUrl, endpoint, toolCode, 5, (int) (request % 5) * 10, month + "/" + day + "/" + year);
+    }
+
+    /**
+     * @param baseUrl
+     * @param endpoint quote or checkout
+     * @param toolCode
+     * @param rentalDayCount
+     * @param discountPercent
+     * @param checkoutDateMDY
+     * @return request for a CheckoutServer
+     */
+    static HttpRequest httpRequest(String baseUrl, String endpoint, String toolCode, int rentalDayCount, int discountPercent, String checkoutDateMDY){
+        final String query = "tool=" + URLEncoder.encode(toolCode, StandardCharsets.UTF_8) + "&days=" + rentalDayCount
+                + "&discount=" + discountPercent + "&date=" + URLEncoder.encode(checkoutDateMDY, StandardCharsets.UTF_8);
+        final URI uri = URI.create(baseUrl + "/" + endpoint + "?" + query);
+        return "checkout".equals(endpoint)
+                ? HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody()).build()
+                : HttpRequest.newBuilder(uri).GET().build();
+    }
+
+    @Getter
+    public static class LoadSummary {
+        final long requestCount;
+        final long successCount;
+        //4xx answers, e.g. a checkout of a tool that was already reserved
+        final long rejectedCount;
+        final long failedCount;
+        final long elapsedNanos;
+        final long[] sortedLatencyNanos;
+
+        LoadSummary(long requestCount, long successCount, long rejectedCount, long failedCount, long elapsedNanos, long[] sortedLatencyNanos){
+            this.requestCount = requestCount;
+            this.successCount = successCount;
+            this.rejectedCount = rejectedCount;
+            this.failedCount = failedCount;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencyNanos = sortedLatencyNanos;
+        }
+
+        public double getRequestsPerSecond(){
+            return elapsedNanos == 0 ? 0 : requestCount * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        /**
+         * @param percentile e.g. 99 for the 99th percentile
+         * @return latency in microseconds
+         */
+        public long latencyMicros(double percentile){
+            final int index = (int) Math.ceil(percentile / 100 * sortedLatencyNanos.length) - 1;
+            return sortedLatencyNanos[Math.max(0, Math.min(index, sortedLatencyNanos.length - 1))] / 1000;
+        }
+
+        @Override
+        public String toString(){
+            final List<String> lines = new ArrayList<>();
+            lines.add(String.format("%d requests (%d ok, %d rejected, %d failed) in %.2f s: %.0f requests/s",
+                    requestCount, successCount, rejectedCount, failedCount, elapsedNanos / 1e9, getRequestsPerSecond()));
+            lines.add(String.format("latency us: p50 %d, p90 %d, p99 %d, p99.9 %d, max %d",
+                    latencyMicros(50), latencyMicros(90), latencyMicros(99), latencyMicros(99.9), latencyMicros(100)));
+            return String.join("\n", lines);
+        }
+    }
+}
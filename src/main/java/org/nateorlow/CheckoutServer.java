@@ -0,0 +1,258 @@
+package org.nateorlow;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Builder;
+import org.nateorlow.contract.AsyncContractPrinter;
+import org.nateorlow.contract.Contract;
+import org.nateorlow.contract.ContractJson;
+import org.nateorlow.contract.ContractRecord;
+import org.nateorlow.contract.ToolRentalContract;
+import org.nateorlow.metrics.CheckoutMetrics;
+import org.nateorlow.metrics.PeriodicMetricsDump;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A long-running HTTP service for quotes and checkouts, so terminals don't start a new process for each rental
+ *
+ * GET or POST /quote?tool=LADW&days=3&discount=10&date=7/2/20 returns the contract without reserving the tool.
+ * POST /checkout with the same parameters reserves the tool in the inventory and prints the contract,
+ * or answers 409 if the tool is already reserved for some of those days.
+ * Parameters can be in the query string or a form-encoded body.
+ * The contract comes back as text, or as JSON with format=json or an Accept header of application/json.
+ * Bad input is a 400 with the validation message, and configuration problems are a 500.
+ *
+ * Each request runs on its own virtual thread. The checkout's components must not be changed once
+ * the server is started; the inventory handles concurrent reservations itself
+ */
+public class CheckoutServer implements AutoCloseable {
+    private static final String JSON_CONTENT_TYPE = "application/json";
+    private static final String TEXT_CONTENT_TYPE = "text/plain; charset=utf-8";
+    //a form with a tool code, date and two numbers is well under this, so bigger bodies are refused unread
+    static final int MAX_REQUEST_BODY_BYTES = 8 * 1024;
+
+    private final Checkout checkout;
+    private final HttpServer httpServer;
+    private final ExecutorService requestExecutor;
+
+    /**
+     * @param checkout checkout used for every request
+     * @param port port to listen on (8080 if not set, 0 for any free port)
+     * @param backlog most connections waiting to be accepted (1024 if not set)
+     * @throws IOException if the port can't be bound
+     */
+    @Builder
+    private CheckoutServer(Checkout checkout, Integer port, Integer backlog) throws IOException {
+        if(checkout == null){
+            throw new IllegalStateException("System error -- checkout server needs a configured checkout");
+        }
+        this.checkout = checkout;
+        this.httpServer = HttpServer.create(new InetSocketAddress(port == null ? 8080 : port), backlog == null ? 1024 : backlog);
+        this.requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        httpServer.setExecutor(requestExecutor);
+        httpServer.createContext("/quote", exchange -> handleContractRequest(exchange, false));
+        httpServer.createContext("/checkout", exchange -> handleContractRequest(exchange, true));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        //The JDK server writes the headers and body separately, and with Nagle's algorithm on the body waits
+        //for the client's delayed ACK, adding ~40ms to every response. It reads this once, when the first server starts,
+        //so it is set here before anything else, unless it was given on the command line
+        if(System.getProperty("sun.net.httpserver.nodelay") == null){
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        final AsyncContractPrinter asyncContractPrinter = AsyncContractPrinter.builder().build();
+        //stage timings are shown over JMX, and written to the error log every minute
+        final CheckoutMetrics checkoutMetrics = new CheckoutMetrics();
+        checkoutMetrics.registerMBean("CheckoutServer");
+        final PeriodicMetricsDump periodicMetricsDump = checkoutMetrics.startPeriodicDump(60_000, System.err::print);
+        final CheckoutServer checkoutServer = CheckoutServer.builder()
+                                                            .checkout(Checkout.sampleCheckout(asyncContractPrinter, checkoutMetrics))
+                                                            .port(port)
+                                                            .build();
+        final CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            //stop taking requests before the printer, so every checkout's contract is written
+            checkoutServer.close();
+            try{
+                //throws if any contract couldn't be printed
+                asyncContractPrinter.close();
+            }finally{
+                periodicMetricsDump.close();
+                stopped.countDown();
+            }
+        }));
+        checkoutServer.start();
+        System.err.println("Checkout server listening on port " + checkoutServer.getPort());
+        stopped.await();
+    }
+
+    public void start(){
+        httpServer.start();
+    }
+
+    public int getPort(){
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Stop accepting requests, and wait for the ones in progress to finish
+     */
+    @Override
+    public void close(){
+        httpServer.stop(0);
+        requestExecutor.close();
+    }
+
+    private void handleContractRequest(HttpExchange exchange, boolean reserve) throws IOException {
+        try(exchange){
+            final Map<String,String> parameters;
+            try{
+                parameters = requestParameters(exchange);
+            }catch(RequestBodyTooLargeException e){
+                sendError(exchange, 413, e.getMessage(), false);
+                return;
+            }catch(IllegalArgumentException e){
+                sendError(exchange, 400, "Badly encoded parameters: " + e.getMessage(), false);
+                return;
+            }
+            final boolean json = wantsJson(exchange, parameters);
+            final String method = exchange.getRequestMethod();
+            if(reserve ? !"POST".equals(method) : !("GET".equals(method) || "POST".equals(method))){
+                exchange.getResponseHeaders().set("Allow", reserve ? "POST" : "GET, POST");
+                sendError(exchange, 405, "Method " + method + " is not allowed", json);
+                return;
+            }
+            try{
+                final String toolCode = parameters.get("tool");
+                final int rentalDayCount = intParameter(parameters, "days");
+                final int discountPercent = intParameter(parameters, "discount");
+                final String checkoutDateStringMDY = parameters.get("date");
+                if(reserve){
+                    //the checkout prices the contract once, and the record it printed is sent back
+                    final ContractRecord contractRecord =
+                            checkout.reserveAndCheckout(toolCode, rentalDayCount, discountPercent, checkoutDateStringMDY);
+                    if(contractRecord == null){
+                        sendError(exchange, 409, "Tool " + toolCode + " is already reserved during that rental", json);
+                    }else{
+                        sendContract(exchange, contractRecord, contractRecord, json);
+                    }
+                }else{
+                    final ToolRentalContract toolRentalContract =
+                            checkout.createContract(toolCode, rentalDayCount, discountPercent, checkoutDateStringMDY);
+                    //a quote is only recorded for JSON, otherwise its text is written straight from the contract
+                    sendContract(exchange, toolRentalContract, json ? ContractRecord.fromContract(toolRentalContract) : null, json);
+                }
+            }catch(IllegalArgumentException | DateTimeException e){
+                sendError(exchange, 400, e.getMessage(), json);
+            }catch(RuntimeException e){
+                //configuration problems already say they are a system error
+                sendError(exchange, 500, e.getMessage() == null ? "System error" : e.getMessage(), json);
+            }
+        }
+    }
+
+    //contractRecord is only needed for JSON
+    private void sendContract(HttpExchange exchange, Contract contract, ContractRecord contractRecord, boolean json) throws IOException {
+        final StringBuilder body = new StringBuilder(512);
+        if(json){
+            ContractJson.appendJson(body, contractRecord).append('\n');
+        }else{
+            contract.appendTo(body);
+        }
+        send(exchange, 200, body, json);
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message, boolean json) throws IOException {
+        final StringBuilder body = new StringBuilder();
+        if(json){
+            ContractJson.appendString(body.append("{\"error\":"), message).append("}\n");
+        }else{
+            body.append(message).append('\n');
+        }
+        send(exchange, status, body, json);
+    }
+
+    private void send(HttpExchange exchange, int status, CharSequence body, boolean json) throws IOException {
+        final byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", json ? JSON_CONTENT_TYPE : TEXT_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try(OutputStream responseBody = exchange.getResponseBody()){
+            responseBody.write(bytes);
+        }
+    }
+
+    private static boolean wantsJson(HttpExchange exchange, Map<String,String> parameters){
+        final String format = parameters.get("format");
+        if(format != null){
+            return "json".equalsIgnoreCase(format);
+        }
+        final String accept = exchange.getRequestHeaders().getFirst("Accept");
+        return accept != null && accept.contains(JSON_CONTENT_TYPE);
+    }
+
+    private static int intParameter(Map<String,String> parameters, String name){
+        final String value = parameters.get(name);
+        if(value == null || value.isEmpty()){
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        try{
+            return Integer.parseInt(value);
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException("Parameter " + name + " must be a whole number, not " + value);
+        }
+    }
+
+    //Query string parameters, plus any form-encoded body parameters (the body wins if both are given)
+    private static Map<String,String> requestParameters(HttpExchange exchange) throws IOException {
+        final Map<String,String> parameters = new HashMap<>();
+        addFormParameters(parameters, exchange.getRequestURI().getRawQuery());
+        try(InputStream requestBody = exchange.getRequestBody()){
+            //one byte past the limit is enough to tell the body is too big, without buffering the rest of it
+            final byte[] bytes = requestBody.readNBytes(MAX_REQUEST_BODY_BYTES + 1);
+            if(bytes.length > MAX_REQUEST_BODY_BYTES){
+                throw new RequestBodyTooLargeException();
+            }
+            if(bytes.length > 0){
+                addFormParameters(parameters, new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static void addFormParameters(Map<String,String> parameters, String encoded){
+        if(encoded == null){
+            return;
+        }
+        for(String pair : encoded.split("&")){
+            if(pair.isEmpty()){
+                continue;
+            }
+            final int equals = pair.indexOf('=');
+            final String name = equals < 0 ? pair : pair.substring(0, equals);
+            final String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    //only thrown and caught inside the server, never serialized
+    @SuppressWarnings("serial")
+    private static class RequestBodyTooLargeException extends IOException {
+        RequestBodyTooLargeException(){
+            super("Request body is larger than " + MAX_REQUEST_BODY_BYTES + " bytes");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.nateorlow;
+
+import org.nateorlow.contract.ContractRecord;
+import org.nateorlow.load.LoadDriver;
+import org.nateorlow.load.LoadReport;
+import org.nateorlow.load.LoadTarget;
+import org.nateorlow.load.RentalRequest;
+import org.nateorlow.load.WorkloadGenerator;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.DateTimeException;
+import java.util.List;
+
+/**
+ * Load test with generated rental requests (see WorkloadGenerator), against a Checkout in this process
+ * or a CheckoutServer over HTTP
+ *
+ *     CheckoutWorkload closed 4 200000                 4 workers, as fast as the checkout answers
+ *     CheckoutWorkload open 50000 200000               50000 requests/s whatever the checkout is doing
+ *     CheckoutWorkload open 2000 100000 http://localhost:8080
+ *
+ * The arguments are the mode, the workers (closed) or arrival rate (open), the request count and optionally a server URL.
+ * A tenth of the requests (at most 20000) warm up first and aren't measured
+ */
+public class CheckoutWorkload {
+    //most popular first
+    private static final List<String> SAMPLE_TOOL_CODES = List.of("LADW", "JAKR", "CHNS", "JAKD");
+    private static final int OPEN_LOOP_WORKERS = 64;
+
+    public static void main(String[] args){
+        final boolean openLoop = "open".equals(args[0]);
+        final int requestCount = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+        final LoadTarget loadTarget = args.length > 3 ? httpTarget(HttpClient.newHttpClient(), args[3], "quote")
+                : inProcessTarget(Checkout.sampleCheckout(contract -> { }), false);
+        final List<RentalRequest> rentalRequests = WorkloadGenerator.builder().toolCodes(SAMPLE_TOOL_CODES).seed(24L).build()
+                                                                    .generate(requestCount);
+        final LoadReport loadReport = LoadDriver.builder()
+                                                .loadTarget(loadTarget)
+                                                .rentalRequests(rentalRequests)
+                                                .concurrency(openLoop ? OPEN_LOOP_WORKERS : Integer.parseInt(args[1]))
+                                                .arrivalsPerSecond(openLoop ? Double.parseDouble(args[1]) : null)
+                                                .warmupRequestCount(Math.min(requestCount / 10, 20_000))
+                                                .build()
+                                                .run();
+        System.out.println(loadReport);
+    }
+
+    /**
+     * Quote (or check out) each request with a checkout in this process, working out its charges like the server does
+     * @param checkout
+     * @param reserve true to reserve the tool, which rejects requests for tools already reserved
+     * @return target for a LoadDriver
+     */
+    static LoadTarget inProcessTarget(Checkout checkout, boolean reserve){
+        return rentalRequest -> {
+            try{
+                //a checkout is priced once, into the record it prints
+                final ContractRecord contractRecord = reserve
+                        ? checkout.reserveAndCheckout(rentalRequest.toolCode(), rentalRequest.rentalDayCount(),
+                                                      rentalRequest.discountPercent(), rentalRequest.checkoutDateMDY())
+                        : ContractRecord.fromContract(checkout.createContract(rentalRequest.toolCode(), rentalRequest.rentalDayCount(),
+                                                      rentalRequest.discountPercent(), rentalRequest.checkoutDateMDY()));
+                return contractRecord == null ? LoadTarget.Outcome.REJECTED : LoadTarget.Outcome.OK;
+            }catch(IllegalArgumentException | DateTimeException e){
+                return LoadTarget.Outcome.REJECTED;
+            }
+        };
+    }
+
+    /**
+     * Send each request to a CheckoutServer
+     * @param httpClient
+     * @param baseUrl e.g. http://localhost:8080
+     * @param endpoint quote or checkout
+     * @return target for a LoadDriver
+     */
+    static LoadTarget httpTarget(HttpClient httpClient, String baseUrl, String endpoint){
+        return rentalRequest -> {
+            final int status = httpClient.send(CheckoutLoadClient.httpRequest(baseUrl, endpoint, rentalRequest.toolCode(),
+                    rentalRequest.rentalDayCount(), rentalRequest.discountPercent(), rentalRequest.checkoutDateMDY()),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+            if(status == 200){
+                return LoadTarget.Outcome.OK;
+            }
+            return status < 500 ? LoadTarget.Outcome.REJECTED : LoadTarget.Outcome.FAILED;
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package org.nateorlow.charge;
+
+/**
+ * Prices a whole QuoteBatch at once, e.g. to reprice the fleet
+ * The results match a contract priced by UnroundedChargeCalculator: the base charge is rounded HALF_UP to cents,
+ * and the discount is worked out on that rounded base charge and rounded HALF_UP to cents
+ */
+public interface BulkQuoteCalculator {
+    String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * Fill in the base charge, discount and final charge of every quote in the batch
+     * @param quoteBatch
+     * @throws ArithmeticException if a charge has too many cents for a long
+     */
+    void calculateQuotes(QuoteBatch quoteBatch);
+
+    /**
+     * @return the SIMD calculator if the JVM was started with --add-modules jdk.incubator.vector,
+     * and otherwise the scalar one
+     */
+    static BulkQuoteCalculator create(){
+        if(ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()){
+            return new VectorBulkQuoteCalculator();
+        }
+        return new ScalarBulkQuoteCalculator();
+    }
+}
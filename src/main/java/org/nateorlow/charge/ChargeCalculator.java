@@ -1,12 +1,83 @@
 package org.nateorlow.charge;
 
+import org.nateorlow.contract.ToolRentalContract;
+
 import java.math.BigDecimal;
 
 public interface ChargeCalculator {
     void addChargeListing(ChargeListing chargeListing);
     ChargeListing lookupChargeListingByToolType(String toolType);
 
+    /**
+     * Look up a listing by the id an inventory gave its tool type (see tool.ToolTypeIds)
+     * Calculators that keep their listings by type id can answer this without hashing the type,
+     * and the rest look the type up by name, so only calculators that use the ids depend on them
+     * @param toolTypeId
+     * @param toolType the same type, by name
+     * @return listing for the type, or null if there isn't one
+     */
+    default ChargeListing lookupChargeListingByToolTypeId(int toolTypeId, String toolType){
+        return lookupChargeListingByToolType(toolType);
+    }
+
+    /**
+     * The versioned price book listings are looked up in, for calculators that keep one
+     * Looking a listing up in the returned book gives the listing and the book's version from the same moment,
+     * even if the calculator's prices are being changed
+     * @return current price book, or null if this calculator doesn't keep its listings in a price book
+     */
+    default PriceBook getPriceBook(){
+        return null;
+    }
+
     BigDecimal calculateBaseCharge(int chargeableDays, ChargeListing chargeListing);
 
+    /**
+     * Base charge for a particular rental, for calculators whose prices depend on more than the chargeable day count
+     * (such as the rental's length or season). Contracts price through this method
+     * @param rentalPeriod
+     * @param chargeableDays
+     * @param chargeListing
+     * @return base charge
+     */
+    default BigDecimal calculateBaseCharge(RentalPeriod rentalPeriod, int chargeableDays, ChargeListing chargeListing){
+        return calculateBaseCharge(chargeableDays, chargeListing);
+    }
+
+    //true if calculateBaseCharge with a rental period can differ from the day count alone, so it can't be cached by day count
+    default boolean pricesByRentalPeriod(){
+        return false;
+    }
+
     BigDecimal calculateDiscountCharge(BigDecimal baseCharge, int discountPercentage);
+
+    //true if the InCents methods are done on longs, so contracts can be priced without BigDecimal arithmetic
+    default boolean pricesInCents(){
+        return false;
+    }
+
+    /**
+     * Base charge for a rental, rounded HALF_UP to cents like the contract's pre-discount charge
+     * @param rentalPeriod
+     * @param chargeableDays
+     * @param chargeListing
+     * @return base charge in cents
+     * @throws ArithmeticException if the charge in cents doesn't fit in a long
+     */
+    default long calculateBaseChargeInCents(RentalPeriod rentalPeriod, int chargeableDays, ChargeListing chargeListing){
+        return calculateBaseCharge(rentalPeriod, chargeableDays, chargeListing)
+                .setScale(ToolRentalContract.ROUND_TO_PLACES, ToolRentalContract.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Discount on a base charge in cents, rounded HALF_UP to cents like the contract's discount amount
+     * @param baseChargeInCents
+     * @param discountPercentage
+     * @return discount in cents
+     * @throws ArithmeticException if the discount doesn't fit in a long
+     */
+    default long calculateDiscountChargeInCents(long baseChargeInCents, int discountPercentage){
+        return calculateDiscountCharge(BigDecimal.valueOf(baseChargeInCents, ToolRentalContract.ROUND_TO_PLACES), discountPercentage)
+                .setScale(ToolRentalContract.ROUND_TO_PLACES, ToolRentalContract.HALF_UP).unscaledValue().longValueExact();
+    }
 }
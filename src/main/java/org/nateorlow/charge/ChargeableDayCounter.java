@@ -1,5 +1,17 @@
 package org.nateorlow.charge;
 
+import org.nateorlow.holiday.HolidayCalendar;
+
 public interface ChargeableDayCounter {
     Integer chargeableDaysForListing(RentalPeriod rentalPeriod, ChargeListing chargeListing);
+
+    /**
+     * A counter that counts the same way, but with another holiday calendar (e.g. a store region's)
+     * Counters that wrap another counter pass the calendar on to it, so their caching or indexing is kept
+     * @param holidayCalendar
+     * @return the counter for that calendar (this, if it already uses it)
+     */
+    default ChargeableDayCounter withHolidayCalendar(HolidayCalendar holidayCalendar){
+        throw new IllegalStateException("System error -- " + getClass().getSimpleName() + " can't count with another holiday calendar");
+    }
 }
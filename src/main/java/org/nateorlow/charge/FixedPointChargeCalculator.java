@@ -0,0 +1,179 @@
+package org.nateorlow.charge;
+
+import org.nateorlow.contract.ToolRentalContract;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A charge calculator that does its arithmetic on scaled longs instead of BigDecimals
+ *
+ * The BigDecimal methods give exactly the same values (including scale) as UnroundedChargeCalculator,
+ * creating a BigDecimal only for the result. The InCents methods go further and also do the
+ * contract's HALF_UP rounding to cents, so a whole quote can be priced without any BigDecimals.
+ * ToolRentalContract prices through them, and goes back to BigDecimals if they throw ArithmeticException.
+ *
+ * Amounts too large for a long (or daily charges with unusual scales) fall back to BigDecimal arithmetic
+ */
+public class FixedPointChargeCalculator implements ChargeCalculator {
+    //The rounding done when printing contracts
+    public static final int CENTS_SCALE = ToolRentalContract.ROUND_TO_PLACES;
+    public static final RoundingMode HALF_UP = ToolRentalContract.HALF_UP;
+
+    private static final int PERCENT_DIVISOR = 100;
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L};
+
+    Map<String, ScaledDailyCharge> toolTypeToScaledDailyCharge;
+
+    public FixedPointChargeCalculator(){
+        this.toolTypeToScaledDailyCharge = new HashMap<>();
+    }
+
+    @Override
+    public void addChargeListing(ChargeListing chargeListing){
+        toolTypeToScaledDailyCharge.put(chargeListing.getToolType(), new ScaledDailyCharge(chargeListing));
+    }
+
+    @Override
+    public ChargeListing lookupChargeListingByToolType(String toolType){
+        final ScaledDailyCharge scaledDailyCharge = toolTypeToScaledDailyCharge.get(toolType);
+        return scaledDailyCharge == null ? null : scaledDailyCharge.chargeListing;
+    }
+
+    @Override
+    public BigDecimal calculateBaseCharge(int chargeableDays, ChargeListing chargeListing){
+        final ScaledDailyCharge dailyCharge = scaledDailyChargeFor(chargeListing);
+        if(!dailyCharge.fitsInLong){
+            return chargeListing.getDailyCharge().multiply(new BigDecimal(chargeableDays));
+        }
+        try{
+            return BigDecimal.valueOf(Math.multiplyExact(dailyCharge.unscaled, (long) chargeableDays), dailyCharge.scale);
+        }catch(ArithmeticException overflow){
+            return chargeListing.getDailyCharge().multiply(new BigDecimal(chargeableDays));
+        }
+    }
+
+    @Override
+    public BigDecimal calculateDiscountCharge(BigDecimal baseCharge, int discountPercentage){
+        //a base charge with up to 18 digits fits in a long; moving its point right gets the digits
+        //without the BigInteger unscaledValue makes
+        if(baseCharge.precision() >= POWERS_OF_TEN.length){
+            return baseCharge.multiply(new BigDecimal(discountPercentage)).divide(new BigDecimal(PERCENT_DIVISOR));
+        }
+        final long discountTimesHundred;
+        try{
+            discountTimesHundred = Math.multiplyExact(baseCharge.scaleByPowerOfTen(baseCharge.scale()).longValueExact(),
+                    (long) discountPercentage);
+        }catch(ArithmeticException overflow){
+            return baseCharge.multiply(new BigDecimal(discountPercentage)).divide(new BigDecimal(PERCENT_DIVISOR));
+        }
+        //Dividing by 100 keeps the base charge's scale when it can, and otherwise adds the one or two
+        //decimal places needed for an exact result -- the same as BigDecimal.divide
+        if(discountTimesHundred % 100 == 0){
+            return BigDecimal.valueOf(discountTimesHundred / 100, baseCharge.scale());
+        }else if(discountTimesHundred % 10 == 0){
+            return BigDecimal.valueOf(discountTimesHundred / 10, baseCharge.scale() + 1);
+        }
+        return BigDecimal.valueOf(discountTimesHundred, baseCharge.scale() + 2);
+    }
+
+    @Override
+    public boolean pricesInCents(){
+        return true;
+    }
+
+    @Override
+    public long calculateBaseChargeInCents(RentalPeriod rentalPeriod, int chargeableDays, ChargeListing chargeListing){
+        return calculateBaseChargeInCents(chargeableDays, chargeListing);
+    }
+
+    /**
+     * Base charge rounded to cents, the same as the contract's pre-discount charge
+     * @param chargeableDays
+     * @param chargeListing
+     * @return base charge in cents
+     */
+    public long calculateBaseChargeInCents(int chargeableDays, ChargeListing chargeListing){
+        final ScaledDailyCharge dailyCharge = scaledDailyChargeFor(chargeListing);
+        if(!dailyCharge.fitsInLong || dailyCharge.scale < 0 || dailyCharge.scale >= POWERS_OF_TEN.length){
+            return calculateBaseCharge(chargeableDays, chargeListing).setScale(CENTS_SCALE, HALF_UP)
+                                                                     .unscaledValue().longValueExact();
+        }
+        return rescaleHalfUp(Math.multiplyExact(dailyCharge.unscaled, (long) chargeableDays), dailyCharge.scale, CENTS_SCALE);
+    }
+
+    /**
+     * Discount on a base charge in cents, rounded to cents, the same as the contract's discount amount
+     * @param baseChargeInCents
+     * @param discountPercentage
+     * @return discount in cents
+     * @throws ArithmeticException if the discount doesn't fit in a long
+     */
+    @Override
+    public long calculateDiscountChargeInCents(long baseChargeInCents, int discountPercentage){
+        return discountInCents(baseChargeInCents, discountPercentage);
+    }
+
+    /**
+     * The discount both cents-based calculators use, base charge times percentage over 100, rounded HALF_UP to cents
+     * @param baseChargeInCents
+     * @param discountPercentage
+     * @return discount in cents
+     * @throws ArithmeticException if the discount doesn't fit in a long
+     */
+    public static long discountInCents(long baseChargeInCents, int discountPercentage){
+        //base cents times the percentage is in hundredths of a cent
+        return rescaleHalfUp(Math.multiplyExact(baseChargeInCents, (long) discountPercentage), CENTS_SCALE + 2, CENTS_SCALE);
+    }
+
+    /**
+     * Change the scale of an unscaled value, rounding HALF_UP (halves round away from zero) when dropping digits
+     */
+    public static long rescaleHalfUp(long unscaled, int fromScale, int toScale){
+        if(fromScale <= toScale){
+            return Math.multiplyExact(unscaled, POWERS_OF_TEN[toScale - fromScale]);
+        }
+        final long divisor = POWERS_OF_TEN[fromScale - toScale];
+        final long quotient = unscaled / divisor;
+        final long remainder = Math.abs(unscaled % divisor);
+        if(remainder >= divisor - remainder){
+            return unscaled < 0 ? quotient - 1 : quotient + 1;
+        }
+        return quotient;
+    }
+
+    private ScaledDailyCharge scaledDailyChargeFor(ChargeListing chargeListing){
+        if(chargeListing == null || chargeListing.getDailyCharge() == null){
+            throw new IllegalStateException("System error -- need charge listing to compute base charge");
+        }
+        //listings added to this calculator have their daily charge converted ahead of time
+        final ScaledDailyCharge registered = toolTypeToScaledDailyCharge.get(chargeListing.getToolType());
+        if(registered != null && registered.chargeListing == chargeListing){
+            return registered;
+        }
+        return new ScaledDailyCharge(chargeListing);
+    }
+
+    /**
+     * A listing's daily charge as an unscaled long and a scale (1.99 is 199 with scale 2)
+     */
+    static class ScaledDailyCharge {
+        final ChargeListing chargeListing;
+        final boolean fitsInLong;
+        final long unscaled;
+        final int scale;
+
+        ScaledDailyCharge(ChargeListing chargeListing){
+            this.chargeListing = chargeListing;
+            final BigDecimal dailyCharge = chargeListing.getDailyCharge();
+            this.fitsInLong = dailyCharge != null && dailyCharge.unscaledValue().bitLength() < Long.SIZE;
+            this.unscaled = fitsInLong ? dailyCharge.unscaledValue().longValue() : 0;
+            this.scale = fitsInLong ? dailyCharge.scale() : 0;
+        }
+    }
+}
@@ -1,17 +1,38 @@
 package org.nateorlow.charge;
 
-import java.time.DayOfWeek;
+import org.nateorlow.holiday.DayClassCounts;
+import org.nateorlow.holiday.HolidayCalendar;
+import org.nateorlow.holiday.StandardHolidays;
+
 import java.time.LocalDate;
-import java.time.Month;
 
 /**
  * Contains methods for counting chargeable days,
  * as well as what counts as chargeable based on holiday policy
  *
  * The main public facing method checks for null inputs
+ *
+ * Chargeable days are counted without walking the rental day by day:
+ * the holiday calendar keeps yearly counts of weekend days and holidays,
+ * so the time taken does not grow with the length of the rental
  */
 
 public class HolidayChargeableDayCounter implements ChargeableDayCounter {
+    private final HolidayCalendar holidayCalendar;
+
+    //Observed Independence Day and Labor Day are the holidays unless another calendar is given
+    public HolidayChargeableDayCounter(){
+        this(StandardHolidays.INDEPENDENCE_AND_LABOR_DAY);
+    }
+
+    public HolidayChargeableDayCounter(HolidayCalendar holidayCalendar){
+        this.holidayCalendar = holidayCalendar;
+    }
+
+    @Override
+    public ChargeableDayCounter withHolidayCalendar(HolidayCalendar holidayCalendar){
+        return holidayCalendar == this.holidayCalendar ? this : new HolidayChargeableDayCounter(holidayCalendar);
+    }
 
     /**
      * Count number of chargeable days (from the rental period's total days), for a particular start date +
@@ -23,33 +44,45 @@ public class HolidayChargeableDayCounter implements ChargeableDayCounter {
 
     @Override
     public Integer chargeableDaysForListing(RentalPeriod rentalPeriod, ChargeListing chargeListing){
-        if(rentalPeriod == null || rentalPeriod.getRentalDayCount() == null || rentalPeriod.getFirstChargeDate() == null){
-            throw new IllegalStateException("System error -- missing rental period data to calculate chargeable days)");
-        }else if(chargeListing == null){
-            throw new IllegalStateException("System error -- Unable to compute chargeable days without charge listing policy");
+        validateCountInputs(rentalPeriod, chargeListing);
+        final int rentalDayCount = rentalPeriod.getRentalDayCount();
+        if(rentalDayCount <= 0){
+            return 0;
         }
+        final LocalDate firstDate = rentalPeriod.getFirstChargeDate();
+        final LocalDate lastDate = firstDate.plusDays(rentalDayCount - 1);
+        final DayClassCounts dayClassCounts = holidayCalendar.countDayClasses(firstDate, lastDate);
+
         int chargeableDays = 0;
-        for(int daysElapsed = 0; daysElapsed < rentalPeriod.getRentalDayCount(); daysElapsed++){
-            LocalDate checkDate = rentalPeriod.getFirstChargeDate().plusDays(daysElapsed);
-                if(isNonHolidayWeekday(checkDate) && chargeListing.isWeekdayChargeable()){
-                    chargeableDays += 1;
-                }else if(isNonHolidayWeekend(checkDate) && chargeListing.isWeekendChargeable()){
-                    chargeableDays += 1;
-                }else if(isHoliday(checkDate) && chargeListing.isHolidayChargeable()){
-                    chargeableDays += 1;
-                }
+        if(chargeListing.isWeekdayChargeable()){
+            chargeableDays += dayClassCounts.getNonHolidayWeekdays();
+        }
+        if(chargeListing.isWeekendChargeable()){
+            chargeableDays += dayClassCounts.getNonHolidayWeekends();
+        }
+        if(chargeListing.isHolidayChargeable()){
+            chargeableDays += dayClassCounts.getHolidays();
         }
         return chargeableDays;
     }
 
+    private void validateCountInputs(RentalPeriod rentalPeriod, ChargeListing chargeListing){
+        if(rentalPeriod == null || rentalPeriod.getRentalDayCount() == null){
+            throw new IllegalStateException("System error -- missing rental period data to calculate chargeable days)");
+        }else if(chargeListing == null){
+            throw new IllegalStateException("System error -- Unable to compute chargeable days without charge listing policy");
+        }
+    }
+
     //visible for testing
     /**
-     * Check if a date is Observed Independence Day or Labor Day
+     * Check if a date is a holiday in this counter's calendar
+     * (Observed Independence Day or Labor Day, unless another calendar was given)
      * @param localDate
      * @return true if it is one of those holidays
      */
     public boolean isHoliday(LocalDate localDate){
-        return isObservedIndependenceDay(localDate) || isLaborDay(localDate);
+        return holidayCalendar.isHoliday(localDate);
     }
 
     //visible for testing
@@ -59,18 +92,7 @@ public class HolidayChargeableDayCounter implements ChargeableDayCounter {
      * @return true if it is observed Independence Day
      */
     public boolean isObservedIndependenceDay(LocalDate localDate){
-        //Independence day is always observed in July. If the date is July, then check the day and date
-        if(Month.JULY != localDate.getMonth()){
-            return false;
-        }
-
-        //Dates in July that are observed independence day:
-        // Friday July 3 (since Saturday is July 4)
-        // Monday July 5 (since Sunday is July 4)
-        // [Weekday] July 4, since Saturday/Sunday July 4 are covered above
-        return ( ((DayOfWeek.FRIDAY == localDate.getDayOfWeek()) && (localDate.getDayOfMonth() == 3))
-            ||   ((DayOfWeek.MONDAY == localDate.getDayOfWeek()) && (localDate.getDayOfMonth() == 5))
-            ||   ( !isWeekend(localDate) && (localDate.getDayOfMonth() == 4)) );
+        return StandardHolidays.OBSERVED_INDEPENDENCE_DAY.isObservedOn(localDate);
     }
 
     //visible for testing
@@ -80,23 +102,7 @@ public class HolidayChargeableDayCounter implements ChargeableDayCounter {
      * @return
      */
     public boolean isLaborDay(LocalDate localDate){
-        //the first Monday in September is a Monday in September with number 1 to 7
-        return (Month.SEPTEMBER.equals(localDate.getMonth()))
-                && DayOfWeek.MONDAY.equals(localDate.getDayOfWeek())
-                && (localDate.getDayOfMonth() <= 7);
-    }
-
-    private boolean isWeekend(LocalDate localDate){
-        return (DayOfWeek.SATURDAY.equals(localDate.getDayOfWeek())
-                || DayOfWeek.SUNDAY.equals(localDate.getDayOfWeek()));
-    }
-
-    private boolean isNonHolidayWeekend(LocalDate localDate){
-        return ( !isHoliday(localDate) && isWeekend(localDate));
-    }
-
-    private boolean isNonHolidayWeekday(LocalDate localDate){
-        return ( !isHoliday(localDate) && !isNonHolidayWeekend(localDate));
+        return StandardHolidays.LABOR_DAY.isObservedOn(localDate);
     }
 
 }
@@ -0,0 +1,106 @@
+package org.nateorlow.charge;
+
+import org.nateorlow.holiday.HolidayCalendar;
+
+import java.time.LocalDate;
+
+/**
+ * Answers chargeable day counts from running totals that are computed ahead of time
+ *
+ * There are only eight combinations of weekday, weekend and holiday chargeability in a ChargeListing,
+ * so for each combination this keeps the number of chargeable days from the start of the indexed years
+ * up to each day. A rental's count is then the difference between the totals at its two ends.
+ * The totals are built by asking another ChargeableDayCounter about each day, so they follow the same policy.
+ * Rentals that reach outside the indexed years are passed to that counter instead
+ *
+ * After construction nothing is modified, so this can be shared between threads
+ */
+public class IndexedChargeableDayCounter implements ChargeableDayCounter {
+    private static final int WEEKDAY_CHARGEABLE = 1;
+    private static final int WEEKEND_CHARGEABLE = 2;
+    private static final int HOLIDAY_CHARGEABLE = 4;
+    private static final int POLICY_COUNT = 8;
+
+    private final ChargeableDayCounter fallbackDayCounter;
+    private final int firstYear;
+    private final int lastYear;
+    private final long firstIndexedEpochDay;
+    private final int indexedDayCount;
+    //chargeableDaysBefore[policy][i] is the number of chargeable days in the first i indexed days
+    private final int[][] chargeableDaysBefore;
+
+    /**
+     * @param chargeableDayCounter counter used to classify each indexed day, and for rentals outside the index
+     * @param firstYear first indexed year
+     * @param lastYear last indexed year (inclusive)
+     */
+    public IndexedChargeableDayCounter(ChargeableDayCounter chargeableDayCounter, int firstYear, int lastYear){
+        if(chargeableDayCounter == null){
+            throw new IllegalStateException("System error -- an indexed day counter needs a day counter to build from");
+        }else if(lastYear < firstYear){
+            throw new IllegalArgumentException("Last indexed year must not be before the first indexed year");
+        }
+        this.fallbackDayCounter = chargeableDayCounter;
+        this.firstYear = firstYear;
+        this.lastYear = lastYear;
+        final LocalDate firstIndexedDate = LocalDate.of(firstYear, 1, 1);
+        this.firstIndexedEpochDay = firstIndexedDate.toEpochDay();
+        this.indexedDayCount = Math.toIntExact(LocalDate.of(lastYear + 1, 1, 1).toEpochDay() - firstIndexedEpochDay);
+        this.chargeableDaysBefore = new int[POLICY_COUNT][indexedDayCount + 1];
+        buildRunningTotals(firstIndexedDate);
+    }
+
+    //The same years are indexed again for the other calendar
+    @Override
+    public ChargeableDayCounter withHolidayCalendar(HolidayCalendar holidayCalendar){
+        final ChargeableDayCounter calendarDayCounter = fallbackDayCounter.withHolidayCalendar(holidayCalendar);
+        return calendarDayCounter == fallbackDayCounter ? this : new IndexedChargeableDayCounter(calendarDayCounter, firstYear, lastYear);
+    }
+
+    @Override
+    public Integer chargeableDaysForListing(RentalPeriod rentalPeriod, ChargeListing chargeListing){
+        if(rentalPeriod == null || rentalPeriod.getRentalDayCount() == null || chargeListing == null){
+            //the fallback counter reports the missing data
+            return fallbackDayCounter.chargeableDaysForListing(rentalPeriod, chargeListing);
+        }
+        final long fromIndex = rentalPeriod.getFirstChargeEpochDay() - firstIndexedEpochDay;
+        final long toIndex = fromIndex + rentalPeriod.getRentalDayCount();
+        if(fromIndex < 0 || toIndex > indexedDayCount || toIndex < fromIndex){
+            return fallbackDayCounter.chargeableDaysForListing(rentalPeriod, chargeListing);
+        }
+        final int[] runningTotals = chargeableDaysBefore[policyIndex(chargeListing)];
+        return runningTotals[(int) toIndex] - runningTotals[(int) fromIndex];
+    }
+
+    /**
+     * Classify each indexed day with three single-day counts (one per class of day),
+     * then add it to the running total of every policy that charges for that class
+     */
+    private void buildRunningTotals(LocalDate firstIndexedDate){
+        final ChargeListing weekdayOnly = ChargeListing.builder().weekdayChargeable(true).build();
+        final ChargeListing weekendOnly = ChargeListing.builder().weekendChargeable(true).build();
+        final ChargeListing holidayOnly = ChargeListing.builder().holidayChargeable(true).build();
+        for(int dayIndex = 0; dayIndex < indexedDayCount; dayIndex++){
+            //the first charge date is the day after the start date
+            final RentalPeriod oneDay = new RentalPeriod(firstIndexedDate.plusDays(dayIndex - 1), 1);
+            int dayClass = 0;
+            if(fallbackDayCounter.chargeableDaysForListing(oneDay, weekdayOnly) > 0){
+                dayClass = WEEKDAY_CHARGEABLE;
+            }else if(fallbackDayCounter.chargeableDaysForListing(oneDay, weekendOnly) > 0){
+                dayClass = WEEKEND_CHARGEABLE;
+            }else if(fallbackDayCounter.chargeableDaysForListing(oneDay, holidayOnly) > 0){
+                dayClass = HOLIDAY_CHARGEABLE;
+            }
+            for(int policy = 0; policy < POLICY_COUNT; policy++){
+                final int chargeable = (policy & dayClass) != 0 ? 1 : 0;
+                chargeableDaysBefore[policy][dayIndex + 1] = chargeableDaysBefore[policy][dayIndex] + chargeable;
+            }
+        }
+    }
+
+    private static int policyIndex(ChargeListing chargeListing){
+        return (chargeListing.isWeekdayChargeable() ? WEEKDAY_CHARGEABLE : 0)
+                | (chargeListing.isWeekendChargeable() ? WEEKEND_CHARGEABLE : 0)
+                | (chargeListing.isHolidayChargeable() ? HOLIDAY_CHARGEABLE : 0);
+    }
+}
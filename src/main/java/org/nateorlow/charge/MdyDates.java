@@ -0,0 +1,166 @@
+package org.nateorlow.charge;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+/**
+ * Reads and writes M/d/y dates as epoch days (days since 1/1/1970), without making any objects
+ *
+ * This accepts and rejects the same text as DateTimeFormatter.ofPattern("M/d/y"):
+ * months 1-12 and days 1-31 with or without leading zeros, and years 1-999999999 written out in full
+ * (so "7/2/20" is the year 20, not 2020). Like that formatter, a day past the end of the month
+ * is moved back to the last day of the month, so 2/30/15 is read as 2/28/15.
+ * Anything else (signs, spaces, missing or extra fields) throws a DateTimeParseException
+ */
+public final class MdyDates {
+    private static final int MAX_FIELD_DIGITS = 19;
+    private static final long MAX_YEAR_OF_ERA = 999_999_999L;
+    //Days from 3/1/0000 to 1/1/1970, with the year starting in March so leap days fall at the end
+    private static final long DAYS_0000_TO_1970 = 719_468L;
+    private static final long DAYS_PER_400_YEARS = 146_097L;
+
+    private MdyDates(){
+    }
+
+    /**
+     * @param text date in M/d/y form
+     * @return the date as a LocalDate
+     */
+    public static LocalDate parse(CharSequence text){
+        return LocalDate.ofEpochDay(parseEpochDay(text));
+    }
+
+    /**
+     * Parse an M/d/y date
+     * @param text date in M/d/y form
+     * @return days since 1/1/1970
+     * @throws DateTimeParseException if the text is not a valid M/d/y date
+     */
+    public static long parseEpochDay(CharSequence text){
+        Objects.requireNonNull(text, "text");
+        final int monthEnd = digitsEnd(text, 0);
+        final int dayStart = expectSlash(text, monthEnd);
+        final int dayEnd = digitsEnd(text, dayStart);
+        final int yearStart = expectSlash(text, dayEnd);
+        final int yearEnd = digitsEnd(text, yearStart);
+        if(yearEnd != text.length()){
+            throw parseException(text, yearEnd, "unparsed text found");
+        }
+
+        final long month = fieldValue(text, 0, monthEnd);
+        final long day = fieldValue(text, dayStart, dayEnd);
+        final long yearOfEra = fieldValue(text, yearStart, yearEnd);
+        if(month < 1 || month > 12){
+            throw parseException(text, 0, "invalid month " + month);
+        }else if(day < 1 || day > 31){
+            throw parseException(text, dayStart, "invalid day of month " + day);
+        }else if(yearOfEra > MAX_YEAR_OF_ERA || yearOfEra < 1){
+            throw parseException(text, yearStart, "invalid year " + yearOfEra);
+        }
+        final int year = (int) yearOfEra;
+        final int lastDay = lengthOfMonth(year, (int) month);
+        return epochDay(year, (int) month, day > lastDay ? lastDay : (int) day);
+    }
+
+    /**
+     * Same as LocalDate.of(year, month, dayOfMonth).toEpochDay(), for a valid date
+     * @param year
+     * @param month 1-12
+     * @param dayOfMonth
+     * @return days since 1/1/1970
+     */
+    public static long epochDay(int year, int month, int dayOfMonth){
+        final long marchYear = month <= 2 ? (long) year - 1 : year;
+        final long era = Math.floorDiv(marchYear, 400);
+        final long yearOfEra = marchYear - era * 400;
+        final long dayOfMarchYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + dayOfMonth - 1;
+        final long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfMarchYear;
+        return era * DAYS_PER_400_YEARS + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Write a date the same way as DateTimeFormatter.ofPattern("M/d/y") would
+     * @param appendable where the date goes
+     * @param epochDay days since 1/1/1970
+     * @return the appendable
+     * @throws IOException if the appendable can't be written to
+     */
+    public static Appendable appendMdy(Appendable appendable, long epochDay) throws IOException {
+        final long shiftedDay = epochDay + DAYS_0000_TO_1970;
+        final long era = Math.floorDiv(shiftedDay, DAYS_PER_400_YEARS);
+        final long dayOfEra = shiftedDay - era * DAYS_PER_400_YEARS;
+        final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final long dayOfMarchYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final long marchMonth = (5 * dayOfMarchYear + 2) / 153;
+        final long dayOfMonth = dayOfMarchYear - (153 * marchMonth + 2) / 5 + 1;
+        final long month = marchMonth < 10 ? marchMonth + 3 : marchMonth - 9;
+        final long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        appendDigits(appendable, month).append('/');
+        appendDigits(appendable, dayOfMonth).append('/');
+        //The y pattern prints the year of era, so 1 BC is printed as 1
+        return appendDigits(appendable, year >= 1 ? year : 1 - year);
+    }
+
+    static int lengthOfMonth(int year, int month){
+        return switch(month){
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isLeapYear(int year){
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int digitsEnd(CharSequence text, int start){
+        int position = start;
+        while(position < text.length() && position - start < MAX_FIELD_DIGITS && isDigit(text.charAt(position))){
+            position++;
+        }
+        if(position == start){
+            throw parseException(text, start, "expected a number");
+        }
+        return position;
+    }
+
+    private static int expectSlash(CharSequence text, int position){
+        if(position >= text.length() || text.charAt(position) != '/'){
+            throw parseException(text, position, "expected '/'");
+        }
+        return position + 1;
+    }
+
+    //Values too big for a long can't be valid anyway, so they just stop at Long.MAX_VALUE
+    private static long fieldValue(CharSequence text, int start, int end){
+        long value = 0;
+        for(int position = start; position < end; position++){
+            final int digit = text.charAt(position) - '0';
+            value = value > (Long.MAX_VALUE - digit) / 10 ? Long.MAX_VALUE : value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c){
+        return c >= '0' && c <= '9';
+    }
+
+    private static Appendable appendDigits(Appendable appendable, long value) throws IOException {
+        long divisor = 1;
+        while(divisor <= value / 10){
+            divisor *= 10;
+        }
+        for(; divisor > 0; divisor /= 10){
+            appendable.append((char) ('0' + (value / divisor) % 10));
+        }
+        return appendable;
+    }
+
+    private static DateTimeParseException parseException(CharSequence text, int position, String reason){
+        return new DateTimeParseException("Text '" + text + "' could not be parsed at index " + position + ": " + reason,
+                text, position);
+    }
+}
@@ -0,0 +1,124 @@
+package org.nateorlow.charge;
+
+import lombok.Getter;
+import org.nateorlow.tool.IdTable;
+import org.nateorlow.tool.ToolTypeIds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A set of charge listings, at most one per tool type, with a version number
+ *
+ * A price book never changes once it is made. Repricing makes a new book with a higher version
+ * (withListing, withListings) and UnroundedChargeCalculator swaps it in with a single atomic write,
+ * so a reader holding a book sees every listing from that one version, however many listings changed.
+ *
+ * Listings are kept in an array indexed by tool type id (see ToolTypeIds), so a lookup by id is one array read
+ */
+public final class PriceBook {
+    //Contracts priced by calculators without a price book record this version, as does the empty book
+    public static final long NO_VERSION = 0;
+    public static final PriceBook EMPTY = new PriceBook(NO_VERSION, new ChargeListing[0], 0);
+
+    @Getter
+    private final long version;
+    private final ChargeListing[] chargeListingsByTypeId;
+    private final int listingCount;
+
+    private PriceBook(long version, ChargeListing[] chargeListingsByTypeId, int listingCount){
+        this.version = version;
+        this.chargeListingsByTypeId = chargeListingsByTypeId;
+        this.listingCount = listingCount;
+    }
+
+    /**
+     * @param version version of the book, which must be above NO_VERSION
+     * @param chargeListings listings with tool types; a later listing replaces an earlier one for the same type
+     * @return price book holding the listings
+     */
+    public static PriceBook of(long version, Collection<ChargeListing> chargeListings){
+        if(version <= NO_VERSION){
+            throw new IllegalArgumentException("Price book version must be positive");
+        }
+        return EMPTY.withListings(version, chargeListings);
+    }
+
+    /**
+     * @param chargeListing listing to add, replacing any listing for its tool type
+     * @return a new book with the listing, one version above this one
+     */
+    public PriceBook withListing(ChargeListing chargeListing){
+        return withListings(version + 1, Collections.singletonList(chargeListing));
+    }
+
+    /**
+     * @param chargeListings listings to add, replacing any listings for their tool types
+     * @return a new book with the listings, one version above this one
+     */
+    public PriceBook withListings(Collection<ChargeListing> chargeListings){
+        return withListings(version + 1, chargeListings);
+    }
+
+    //the same listings under another version; the listing array is shared, which is safe since it never changes
+    PriceBook withVersion(long newVersion){
+        return new PriceBook(newVersion, chargeListingsByTypeId, listingCount);
+    }
+
+    private PriceBook withListings(long newVersion, Collection<ChargeListing> chargeListings){
+        int highestTypeId = chargeListingsByTypeId.length - 1;
+        final int[] toolTypeIds = new int[chargeListings.size()];
+        int i = 0;
+        for(ChargeListing chargeListing : chargeListings){
+            if(chargeListing == null || chargeListing.getToolType() == null){
+                throw new IllegalArgumentException("Charge listing must have a tool type");
+            }
+            toolTypeIds[i] = ToolTypeIds.intern(chargeListing.getToolType());
+            highestTypeId = Math.max(highestTypeId, toolTypeIds[i]);
+            i++;
+        }
+        final ChargeListing[] newListingsByTypeId = Arrays.copyOf(chargeListingsByTypeId, highestTypeId + 1);
+        int newListingCount = listingCount;
+        i = 0;
+        for(ChargeListing chargeListing : chargeListings){
+            if(newListingsByTypeId[toolTypeIds[i]] == null){
+                newListingCount++;
+            }
+            newListingsByTypeId[toolTypeIds[i++]] = chargeListing;
+        }
+        return new PriceBook(newVersion, newListingsByTypeId, newListingCount);
+    }
+
+    public ChargeListing lookupChargeListingByToolType(String toolType){
+        return lookupChargeListingByToolTypeId(ToolTypeIds.idOf(toolType));
+    }
+
+    public ChargeListing lookupChargeListingByToolTypeId(int toolTypeId){
+        if(toolTypeId == IdTable.NO_ID || toolTypeId >= chargeListingsByTypeId.length){
+            return null;
+        }
+        return chargeListingsByTypeId[toolTypeId];
+    }
+
+    /**
+     * @return every listing in the book, in tool type id order
+     */
+    public List<ChargeListing> getChargeListings(){
+        final List<ChargeListing> chargeListings = new ArrayList<>(listingCount);
+        Arrays.stream(chargeListingsByTypeId).filter(Objects::nonNull).forEach(chargeListings::add);
+        return Collections.unmodifiableList(chargeListings);
+    }
+
+    public int size(){
+        return listingCount;
+    }
+
+    @Override
+    public String toString(){
+        return "Price book version " + version + " with " + listingCount + " listings";
+    }
+}
@@ -0,0 +1,95 @@
+package org.nateorlow.charge;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Reads charge listings from a price file
+ *
+ * Each row is a tool type, daily charge, and whether weekdays, weekends and holidays are chargeable,
+ * separated by commas (e.g. "Ladder,1.99,true,true,false"). Blank lines and lines starting with # are skipped,
+ * and a header on the first line is skipped if its daily charge is not a number.
+ * The whole file is read before anything is returned, so a bad row means none of the file is used
+ */
+public class PriceBookFile {
+    private static final Pattern FIELD_SEPARATOR = Pattern.compile("\\s*,\\s*");
+    private static final Pattern DAILY_CHARGE = Pattern.compile("\\d+(\\.\\d+)?");
+    private static final int FIELDS_PER_ROW = 5;
+
+    private PriceBookFile(){
+    }
+
+    /**
+     * @param priceFile
+     * @return the listings in the file, in file order
+     */
+    public static List<ChargeListing> readChargeListings(Path priceFile){
+        try(BufferedReader reader = Files.newBufferedReader(priceFile, StandardCharsets.UTF_8)){
+            return readChargeListings(reader);
+        }catch(IOException e){
+            throw new UncheckedIOException("Unable to read price file " + priceFile, e);
+        }
+    }
+
+    /**
+     * @param reader rows of the price file
+     * @return the listings, in row order
+     */
+    public static List<ChargeListing> readChargeListings(BufferedReader reader){
+        final List<ChargeListing> chargeListings = new ArrayList<>();
+        try{
+            int lineNumber = 0;
+            String line;
+            while((line = reader.readLine()) != null){
+                lineNumber += 1;
+                final String trimmedLine = line.trim();
+                if(trimmedLine.isEmpty() || trimmedLine.startsWith("#") || (lineNumber == 1 && isHeader(trimmedLine))){
+                    continue;
+                }
+                chargeListings.add(parseRow(lineNumber, trimmedLine));
+            }
+        }catch(IOException e){
+            throw new UncheckedIOException("Unable to read price file rows", e);
+        }
+        return chargeListings;
+    }
+
+    private static ChargeListing parseRow(int lineNumber, String row){
+        final String[] fields = FIELD_SEPARATOR.split(row);
+        if(fields.length != FIELDS_PER_ROW || fields[0].isEmpty()){
+            throw new IllegalArgumentException("Price file row " + lineNumber
+                    + " must have tool type, daily charge, and weekday, weekend and holiday chargeability");
+        }else if(!DAILY_CHARGE.matcher(fields[1]).matches()){
+            throw new IllegalArgumentException("Price file row " + lineNumber + " daily charge must be a number, not " + fields[1]);
+        }
+        return ChargeListing.builder()
+                            .toolType(fields[0])
+                            .dailyCharge(new BigDecimal(fields[1]))
+                            .weekdayChargeable(parseChargeable(lineNumber, fields[2]))
+                            .weekendChargeable(parseChargeable(lineNumber, fields[3]))
+                            .holidayChargeable(parseChargeable(lineNumber, fields[4]))
+                            .build();
+    }
+
+    private static boolean parseChargeable(int lineNumber, String field){
+        if(field.equalsIgnoreCase("true")){
+            return true;
+        }else if(field.equalsIgnoreCase("false")){
+            return false;
+        }
+        throw new IllegalArgumentException("Price file row " + lineNumber + " chargeability must be true or false, not " + field);
+    }
+
+    private static boolean isHeader(String row){
+        final String[] fields = FIELD_SEPARATOR.split(row);
+        return fields.length > 1 && !DAILY_CHARGE.matcher(fields[1]).matches();
+    }
+}
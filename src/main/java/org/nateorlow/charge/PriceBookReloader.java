@@ -0,0 +1,105 @@
+package org.nateorlow.charge;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches a price file (see PriceBookFile) and swaps its listings into a calculator whenever the file changes,
+ * so prices can be changed without restarting
+ *
+ * The file's modified time is checked on a timer, from a daemon thread so it never keeps the process running.
+ * Checkouts keep pricing from the old book while the file is read, and the new book is swapped in all at once.
+ * If the file can't be read, has a bad row or has no listings, the error goes to the output and the current prices are kept
+ */
+public class PriceBookReloader implements AutoCloseable {
+    private final UnroundedChargeCalculator unroundedChargeCalculator;
+    private final Path priceFile;
+    private final Consumer<String> output;
+    private final ScheduledExecutorService scheduler;
+    //modified time of the file last loaded, only set once its listings are in the calculator
+    private FileTime lastLoadedModifiedTime;
+    //modified time of the last file that couldn't be loaded, so a bad file is reported once rather than on every check
+    private FileTime lastFailedModifiedTime;
+
+    /**
+     * Load the price file now, then check it for changes every periodMillis
+     * @param unroundedChargeCalculator calculator whose listings are replaced
+     * @param priceFile
+     * @param periodMillis time between checks
+     * @param output where reloads and errors are reported
+     */
+    public PriceBookReloader(UnroundedChargeCalculator unroundedChargeCalculator, Path priceFile, long periodMillis, Consumer<String> output){
+        if(unroundedChargeCalculator == null || priceFile == null || output == null){
+            throw new IllegalStateException("System error -- price book reloader needs a calculator, price file and output");
+        }
+        this.unroundedChargeCalculator = unroundedChargeCalculator;
+        this.priceFile = priceFile;
+        this.output = output;
+        reload();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "price-book-reloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::reload, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Load the price file if it changed since it was last checked
+     * @return the new price book, or null if the file hadn't changed or couldn't be loaded
+     */
+    public PriceBook reloadIfChanged(){
+        return reload();
+    }
+
+    //Private, so the constructor and timer don't call a method a subclass could override
+    private synchronized PriceBook reload(){
+        //any exception would cancel every later check, so they are reported instead
+        FileTime modifiedTime = null;
+        try{
+            modifiedTime = Files.getLastModifiedTime(priceFile);
+            if(modifiedTime.equals(lastLoadedModifiedTime)){
+                return null;
+            }
+            final List<ChargeListing> chargeListings = PriceBookFile.readChargeListings(priceFile);
+            //an empty (or half written) file would take away every price
+            if(chargeListings.isEmpty()){
+                reportFailure(modifiedTime, priceFile + " has no charge listings");
+                return null;
+            }
+            final PriceBook priceBook = unroundedChargeCalculator.replaceChargeListings(chargeListings);
+            //a file that failed part way is tried again on the next check, even if its modified time hasn't changed
+            lastLoadedModifiedTime = modifiedTime;
+            lastFailedModifiedTime = null;
+            output.accept("Loaded " + priceBook + " from " + priceFile);
+            return priceBook;
+        }catch(IOException | RuntimeException e){
+            reportFailure(modifiedTime, "unable to load " + priceFile + ": " + e);
+            return null;
+        }
+    }
+
+    private void reportFailure(FileTime modifiedTime, String reason){
+        if(modifiedTime == null || !modifiedTime.equals(lastFailedModifiedTime)){
+            output.accept("Keeping current prices, " + reason);
+        }
+        lastFailedModifiedTime = modifiedTime;
+    }
+
+    @Override
+    public void close(){
+        scheduler.shutdown();
+        try{
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.nateorlow.charge;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * A batch of quotes to price in bulk, kept as columns of primitives
+ *
+ * Daily charges are unscaled longs at the batch's dailyChargeScale (at scale 2, 1.99 is 199).
+ * A BulkQuoteCalculator fills in the base charge, discount and final charge of each quote in cents,
+ * rounded the same way as a contract priced by UnroundedChargeCalculator
+ */
+@Getter
+public class QuoteBatch {
+    public static final int MAX_DAILY_CHARGE_SCALE = 18;
+
+    final int dailyChargeScale;
+    final long[] dailyCharges;
+    final int[] chargeableDays;
+    final int[] discountPercents;
+    final long[] baseChargeCents;
+    final long[] discountCents;
+    final long[] finalChargeCents;
+    int size;
+
+    /**
+     * @param capacity most quotes the batch can hold
+     * @param dailyChargeScale decimal places of the daily charges, 0-18
+     */
+    public QuoteBatch(int capacity, int dailyChargeScale){
+        if(dailyChargeScale < 0 || dailyChargeScale > MAX_DAILY_CHARGE_SCALE){
+            throw new IllegalArgumentException("Daily charge scale must be in the range 0-" + MAX_DAILY_CHARGE_SCALE
+                    + ", but got " + dailyChargeScale);
+        }
+        this.dailyChargeScale = dailyChargeScale;
+        this.dailyCharges = new long[capacity];
+        this.chargeableDays = new int[capacity];
+        this.discountPercents = new int[capacity];
+        this.baseChargeCents = new long[capacity];
+        this.discountCents = new long[capacity];
+        this.finalChargeCents = new long[capacity];
+    }
+
+    public int getCapacity(){
+        return dailyCharges.length;
+    }
+
+    /**
+     * Add a quote to price
+     * @param unscaledDailyCharge daily charge at the batch's scale
+     * @param chargeableDays
+     * @param discountPercent
+     * @return the quote's index in the batch
+     */
+    public int add(long unscaledDailyCharge, int chargeableDays, int discountPercent){
+        if(size == dailyCharges.length){
+            throw new IllegalStateException("System error -- quote batch is full at " + size + " quotes");
+        }
+        dailyCharges[size] = unscaledDailyCharge;
+        this.chargeableDays[size] = chargeableDays;
+        discountPercents[size] = discountPercent;
+        return size++;
+    }
+
+    /**
+     * Add a quote to price
+     * @param dailyCharge with at most the batch's scale
+     * @param chargeableDays
+     * @param discountPercent
+     * @return the quote's index in the batch
+     */
+    public int add(BigDecimal dailyCharge, int chargeableDays, int discountPercent){
+        final long unscaledDailyCharge;
+        try{
+            unscaledDailyCharge = dailyCharge.setScale(dailyChargeScale).unscaledValue().longValueExact();
+        }catch(ArithmeticException e){
+            throw new IllegalArgumentException("Daily charge " + dailyCharge + " doesn't fit the batch's scale of "
+                    + dailyChargeScale, e);
+        }
+        return add(unscaledDailyCharge, chargeableDays, discountPercent);
+    }
+
+    public void clear(){
+        size = 0;
+    }
+}
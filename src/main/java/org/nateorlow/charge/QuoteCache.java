@@ -0,0 +1,185 @@
+package org.nateorlow.charge;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.Builder;
+import org.nateorlow.holiday.HolidayCalendar;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers recent chargeable day counts and charges, so repeated quotes don't redo the work
+ *
+ * This wraps a ChargeableDayCounter and a ChargeCalculator, and can be used in place of both.
+ * Day counts are keyed on charge listing, first charge date and rental length; base charges on charge listing and chargeable days;
+ * discounts on the base charge and percentage. Each cache holds at most maximumSize entries, evicting the least
+ * recently used, and keeps hit, miss and eviction counts.
+ *
+ * Listings are compared by identity, so when a listing is replaced (including by a new price book swapped into the
+ * wrapped calculator) the old listing's entries are never used again, and they age out of the cache.
+ * Adding a charge listing through this class also drops the cached entries for that tool type straight away.
+ * Listings that aren't current in the wrapped calculator are never cached, so they can't fill the cache
+ */
+public class QuoteCache implements ChargeableDayCounter, ChargeCalculator {
+    private final ChargeableDayCounter chargeableDayCounter;
+    private final ChargeCalculator chargeCalculator;
+    private final long maximumSize;
+    private final Cache<DayCountKey, Integer> dayCounts;
+    private final Cache<BaseChargeKey, BigDecimal> baseCharges;
+    private final Cache<DiscountChargeKey, BigDecimal> discountCharges;
+
+    /**
+     * @param chargeableDayCounter counter used on a cache miss
+     * @param chargeCalculator calculator used on a cache miss, and for charge listings
+     * @param maximumSize most entries kept in each cache (10000 if not set)
+     */
+    @Builder
+    private QuoteCache(ChargeableDayCounter chargeableDayCounter, ChargeCalculator chargeCalculator, Long maximumSize){
+        if(chargeableDayCounter == null || chargeCalculator == null){
+            throw new IllegalStateException("System error -- quote cache needs a day counter and charge calculator");
+        }
+        this.chargeableDayCounter = chargeableDayCounter;
+        this.chargeCalculator = chargeCalculator;
+        final long cacheSize = maximumSize == null ? 10_000 : maximumSize;
+        this.maximumSize = cacheSize;
+        this.dayCounts = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+        this.baseCharges = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+        this.discountCharges = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+    }
+
+    @Override
+    public Integer chargeableDaysForListing(RentalPeriod rentalPeriod, ChargeListing chargeListing){
+        if(!isCacheable(chargeListing) || rentalPeriod == null
+                || rentalPeriod.getRentalDayCount() == null){
+            return chargeableDayCounter.chargeableDaysForListing(rentalPeriod, chargeListing);
+        }
+        final DayCountKey dayCountKey = new DayCountKey(chargeListing,
+                rentalPeriod.getFirstChargeEpochDay(), rentalPeriod.getRentalDayCount());
+        return getOrCompute(dayCounts, dayCountKey, () -> chargeableDayCounter.chargeableDaysForListing(rentalPeriod, chargeListing));
+    }
+
+    //Day counts differ between calendars, so the counter for another calendar gets caches of its own
+    @Override
+    public ChargeableDayCounter withHolidayCalendar(HolidayCalendar holidayCalendar){
+        final ChargeableDayCounter calendarDayCounter = chargeableDayCounter.withHolidayCalendar(holidayCalendar);
+        return calendarDayCounter == chargeableDayCounter ? this
+                : new QuoteCache(calendarDayCounter, chargeCalculator, maximumSize);
+    }
+
+    @Override
+    public void addChargeListing(ChargeListing chargeListing){
+        chargeCalculator.addChargeListing(chargeListing);
+        invalidateToolType(chargeListing.getToolType());
+    }
+
+    @Override
+    public ChargeListing lookupChargeListingByToolType(String toolType){
+        return chargeCalculator.lookupChargeListingByToolType(toolType);
+    }
+
+    @Override
+    public ChargeListing lookupChargeListingByToolTypeId(int toolTypeId, String toolType){
+        return chargeCalculator.lookupChargeListingByToolTypeId(toolTypeId, toolType);
+    }
+
+    @Override
+    public PriceBook getPriceBook(){
+        return chargeCalculator.getPriceBook();
+    }
+
+    @Override
+    public BigDecimal calculateBaseCharge(int chargeableDays, ChargeListing chargeListing){
+        if(!isCacheable(chargeListing)){
+            return chargeCalculator.calculateBaseCharge(chargeableDays, chargeListing);
+        }
+        final BaseChargeKey baseChargeKey = new BaseChargeKey(chargeListing, chargeableDays);
+        return getOrCompute(baseCharges, baseChargeKey, () -> chargeCalculator.calculateBaseCharge(chargeableDays, chargeListing));
+    }
+
+    @Override
+    public BigDecimal calculateBaseCharge(RentalPeriod rentalPeriod, int chargeableDays, ChargeListing chargeListing){
+        //charges that depend on the dates can't be cached by day count
+        if(chargeCalculator.pricesByRentalPeriod()){
+            return chargeCalculator.calculateBaseCharge(rentalPeriod, chargeableDays, chargeListing);
+        }
+        return calculateBaseCharge(chargeableDays, chargeListing);
+    }
+
+    @Override
+    public boolean pricesByRentalPeriod(){
+        return chargeCalculator.pricesByRentalPeriod();
+    }
+
+    @Override
+    public BigDecimal calculateDiscountCharge(BigDecimal baseCharge, int discountPercentage){
+        if(baseCharge == null){
+            return chargeCalculator.calculateDiscountCharge(baseCharge, discountPercentage);
+        }
+        //BigDecimal equality includes the scale, so 4.0 and 4.00 are cached separately (their discounts differ in scale too)
+        final DiscountChargeKey discountChargeKey = new DiscountChargeKey(baseCharge, discountPercentage);
+        return getOrCompute(discountCharges, discountChargeKey, () -> chargeCalculator.calculateDiscountCharge(baseCharge, discountPercentage));
+    }
+
+    /**
+     * Drop every cached day count and base charge for a tool type
+     * This is done automatically when a listing is added through this class
+     * @param toolType
+     */
+    public void invalidateToolType(String toolType){
+        dayCounts.asMap().keySet().removeIf(dayCountKey -> Objects.equals(dayCountKey.chargeListing().getToolType(), toolType));
+        baseCharges.asMap().keySet().removeIf(baseChargeKey -> Objects.equals(baseChargeKey.chargeListing().getToolType(), toolType));
+    }
+
+    public CacheStats getDayCountStats(){
+        return dayCounts.stats();
+    }
+
+    public CacheStats getBaseChargeStats(){
+        return baseCharges.stats();
+    }
+
+    public CacheStats getDiscountChargeStats(){
+        return discountCharges.stats();
+    }
+
+    @Override
+    public String toString(){
+        return "Quote cache day counts " + dayCounts.stats() + ", base charges " + baseCharges.stats()
+                + ", discounts " + discountCharges.stats();
+    }
+
+    //The value is computed and stored in one step, so threads asking for the same key wait for one computation.
+    //A listing replaced while its value is computed can't make that value stale, since the key holds the listing itself
+    //and the replaced listing is never looked up again. Exceptions from the computation are thrown as they were
+    private static <K, V> V getOrCompute(Cache<K, V> cache, K key, Supplier<V> computation){
+        try{
+            return cache.get(key, computation::get);
+        }catch(ExecutionException | UncheckedExecutionException | ExecutionError e){
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException("System error -- unable to compute a quote", e.getCause());
+        }
+    }
+
+    //Only the listing currently added for its tool type is cached, so replaced listings don't take up room
+    private boolean isCacheable(ChargeListing chargeListing){
+        return chargeListing != null && chargeListing.getToolType() != null
+                && chargeCalculator.lookupChargeListingByToolType(chargeListing.getToolType()) == chargeListing;
+    }
+
+    //ChargeListing doesn't override equals, so keys match only for the same listing object
+    private record DayCountKey(ChargeListing chargeListing, long firstChargeEpochDay, int rentalDayCount){
+    }
+
+    private record BaseChargeKey(ChargeListing chargeListing, int chargeableDays){
+    }
+
+    private record DiscountChargeKey(BigDecimal baseCharge, int discountPercentage){
+    }
+}
@@ -3,29 +3,48 @@ package org.nateorlow.charge;
 import lombok.Getter;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
+/**
+ * The dates of a rental, kept as epoch days (days since 1/1/1970)
+ * so day counting, booking and printing can work on plain numbers.
+ * The LocalDate getters build a date from those numbers when one is needed
+ */
 @Getter
 public class RentalPeriod {
-    LocalDate startDate;
+    long startEpochDay;
     Integer rentalDayCount;
-    LocalDate firstChargeDate; //next day after the start date
-    LocalDate endDate; //this is typically computed based on startDate and rentalDayCount
+    long endEpochDay; //this is typically computed based on startDate and rentalDayCount
 
     public RentalPeriod(String startDateStringMDY, Integer rentalDayCount){
-        this.startDate = LocalDate.parse(startDateStringMDY, DateTimeFormatter.ofPattern("M/d/y"));
+        this(MdyDates.parseEpochDay(startDateStringMDY), rentalDayCount);
+    }
+
+    public RentalPeriod(LocalDate startDate, Integer rentalDayCount){
+        this(startDate.toEpochDay(), rentalDayCount);
+    }
+
+    public RentalPeriod(long startEpochDay, Integer rentalDayCount){
+        this.startEpochDay = startEpochDay;
         this.rentalDayCount = rentalDayCount;
-        this.computeFirstChargeDate();
-        this.computeEndDate();
+        this.endEpochDay = startEpochDay + rentalDayCount;
+    }
+
+    //next day after the start date
+    public long getFirstChargeEpochDay(){
+        return startEpochDay + 1;
+    }
+
+    public LocalDate getStartDate(){
+        return LocalDate.ofEpochDay(startEpochDay);
     }
 
-    void computeFirstChargeDate(){
-        firstChargeDate = startDate.plusDays(1);
+    public LocalDate getFirstChargeDate(){
+        return LocalDate.ofEpochDay(getFirstChargeEpochDay());
     }
 
     //This can be used when printing contracts
-    void computeEndDate(){
-        endDate = startDate.plusDays(rentalDayCount);
+    public LocalDate getEndDate(){
+        return LocalDate.ofEpochDay(endEpochDay);
     }
 
 }
@@ -0,0 +1,54 @@
+package org.nateorlow.charge;
+
+import java.math.BigDecimal;
+
+/**
+ * Prices quotes one at a time with scaled longs, falling back to BigDecimals for products too big for a long
+ */
+public class ScalarBulkQuoteCalculator implements BulkQuoteCalculator {
+
+    @Override
+    public void calculateQuotes(QuoteBatch quoteBatch){
+        calculateQuotes(quoteBatch, 0, quoteBatch.size);
+    }
+
+    /**
+     * Price part of a batch
+     * @param quoteBatch
+     * @param fromIndex first quote to price
+     * @param toIndex one after the last quote to price
+     */
+    static void calculateQuotes(QuoteBatch quoteBatch, int fromIndex, int toIndex){
+        final int scale = quoteBatch.dailyChargeScale;
+        for(int i = fromIndex; i < toIndex; i++){
+            final long baseCents = baseChargeCents(quoteBatch.dailyCharges[i], scale, quoteBatch.chargeableDays[i]);
+            final long discountCents = discountCents(baseCents, quoteBatch.discountPercents[i]);
+            quoteBatch.baseChargeCents[i] = baseCents;
+            quoteBatch.discountCents[i] = discountCents;
+            quoteBatch.finalChargeCents[i] = Math.subtractExact(baseCents, discountCents);
+        }
+    }
+
+    static long baseChargeCents(long unscaledDailyCharge, int scale, int chargeableDays){
+        try{
+            return FixedPointChargeCalculator.rescaleHalfUp(Math.multiplyExact(unscaledDailyCharge, (long) chargeableDays),
+                    scale, FixedPointChargeCalculator.CENTS_SCALE);
+        }catch(ArithmeticException overflow){
+            return BigDecimal.valueOf(unscaledDailyCharge, scale).multiply(BigDecimal.valueOf(chargeableDays))
+                             .setScale(FixedPointChargeCalculator.CENTS_SCALE, FixedPointChargeCalculator.HALF_UP)
+                             .unscaledValue().longValueExact();
+        }
+    }
+
+    static long discountCents(long baseCents, int discountPercent){
+        try{
+            //base cents times the percentage is in hundredths of a cent
+            return FixedPointChargeCalculator.rescaleHalfUp(Math.multiplyExact(baseCents, (long) discountPercent),
+                    FixedPointChargeCalculator.CENTS_SCALE + 2, FixedPointChargeCalculator.CENTS_SCALE);
+        }catch(ArithmeticException overflow){
+            return BigDecimal.valueOf(baseCents).multiply(BigDecimal.valueOf(discountPercent))
+                             .divide(BigDecimal.valueOf(100), 0, FixedPointChargeCalculator.HALF_UP)
+                             .longValueExact();
+        }
+    }
+}
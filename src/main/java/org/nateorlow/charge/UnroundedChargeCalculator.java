@@ -1,29 +1,76 @@
 package org.nateorlow.charge;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * An unrounded charge calculator is useful if you want to do calculations,
  * and do rounding when it's time to print the results.
  *
  * Rounding early can cause roundoff errors, so it's plausible to round as late as possible
+ *
+ * Listings are kept in an immutable PriceBook behind an atomic reference. Lookups read the current book
+ * without locking; adding a listing, replacing every listing or publishing a new book swaps in a whole new book,
+ * so prices can be changed while other threads are pricing and they never see half of a change
  */
 public class UnroundedChargeCalculator implements ChargeCalculator {
-    Map<String, ChargeListing> toolTypeToChargeListing;
+    private final AtomicReference<PriceBook> priceBook;
 
     public UnroundedChargeCalculator(){
-        this.toolTypeToChargeListing = new HashMap<>();
+        this.priceBook = new AtomicReference<>(PriceBook.EMPTY);
     }
 
     @Override
     public void addChargeListing(ChargeListing chargeListing){
-        toolTypeToChargeListing.put(chargeListing.getToolType(), chargeListing);
+        if(chargeListing.getToolType() == null){
+            throw new IllegalArgumentException("Charge listing must have a tool type");
+        }
+        priceBook.updateAndGet(currentPriceBook -> currentPriceBook.withListing(chargeListing));
+    }
+
+    /**
+     * Swap in a new set of listings, e.g. a reloaded price file. Tool types missing from it lose their listing
+     * @param chargeListings every listing for the new book
+     * @return the new book, one version above the book it replaced
+     */
+    public PriceBook replaceChargeListings(Collection<ChargeListing> chargeListings){
+        //the listings are put in a book once, and only its version is redone if another change gets in first
+        final PriceBook newListings = PriceBook.EMPTY.withListings(chargeListings);
+        return priceBook.updateAndGet(currentPriceBook -> newListings.withVersion(currentPriceBook.getVersion() + 1));
+    }
+
+    /**
+     * Swap in a price book if it is newer than the current one
+     * A book made from getPriceBook() with withListings() is only published if no other change got in first,
+     * so concurrent repricing can't silently undo another change
+     * @param newPriceBook
+     * @return true if the book was published, false if the current book's version is the same or higher
+     */
+    public boolean publishPriceBook(PriceBook newPriceBook){
+        PriceBook currentPriceBook = priceBook.get();
+        while(newPriceBook.getVersion() > currentPriceBook.getVersion()){
+            final PriceBook witnessPriceBook = priceBook.compareAndExchange(currentPriceBook, newPriceBook);
+            if(witnessPriceBook == currentPriceBook){
+                return true;
+            }
+            currentPriceBook = witnessPriceBook;
+        }
+        return false;
+    }
+
+    @Override
+    public PriceBook getPriceBook(){
+        return priceBook.get();
     }
 
     public ChargeListing lookupChargeListingByToolType(String toolType){
-        return toolTypeToChargeListing.get(toolType);
+        return priceBook.get().lookupChargeListingByToolType(toolType);
+    }
+
+    @Override
+    public ChargeListing lookupChargeListingByToolTypeId(int toolTypeId, String toolType){
+        return priceBook.get().lookupChargeListingByToolTypeId(toolTypeId);
     }
 
     @Override
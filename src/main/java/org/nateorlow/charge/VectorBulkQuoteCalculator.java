@@ -0,0 +1,103 @@
+package org.nateorlow.charge;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Prices quotes several at a time in SIMD lanes with the incubating Vector API
+ * (the JVM has to be started with --add-modules jdk.incubator.vector; see BulkQuoteCalculator.create)
+ *
+ * There is no SIMD integer division, so rounding to cents divides in doubles and then corrects the quotient
+ * with an exact long remainder. That is only exact below 2^52, so a batch whose largest daily charge times
+ * its most days (times 100 for the discount) could go past that is priced by ScalarBulkQuoteCalculator instead.
+ * Quotes left over after the last full vector are priced the scalar way too
+ */
+public class VectorBulkQuoteCalculator implements BulkQuoteCalculator {
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    //ints with as many lanes as LONGS, so a day count lines up with its daily charge
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+    private static final long EXACT_DOUBLE_LIMIT = 1L << 52;
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L,
+            100_000_000L, 1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L,
+            100_000_000_000_000L, 1_000_000_000_000_000L};
+
+    @Override
+    public void calculateQuotes(QuoteBatch quoteBatch){
+        final int size = quoteBatch.size;
+        final int scale = quoteBatch.dailyChargeScale;
+        if(!fitsInDoubles(quoteBatch)){
+            ScalarBulkQuoteCalculator.calculateQuotes(quoteBatch, 0, size);
+            return;
+        }
+        final int vectorEnd = LONGS.loopBound(size);
+        for(int i = 0; i < vectorEnd; i += LONGS.length()){
+            final LongVector dailyCharges = LongVector.fromArray(LONGS, quoteBatch.dailyCharges, i);
+            final LongVector chargeableDays = (LongVector) IntVector.fromArray(INTS, quoteBatch.chargeableDays, i)
+                                                                    .convertShape(VectorOperators.I2L, LONGS, 0);
+            final LongVector discountPercents = (LongVector) IntVector.fromArray(INTS, quoteBatch.discountPercents, i)
+                                                                      .convertShape(VectorOperators.I2L, LONGS, 0);
+            final LongVector unscaledBase = dailyCharges.mul(chargeableDays);
+            final LongVector baseCents = scale <= FixedPointChargeCalculator.CENTS_SCALE
+                    ? unscaledBase.mul(POWERS_OF_TEN[FixedPointChargeCalculator.CENTS_SCALE - scale])
+                    : divideHalfUp(unscaledBase, POWERS_OF_TEN[scale - FixedPointChargeCalculator.CENTS_SCALE]);
+            //base cents times the percentage is in hundredths of a cent
+            final LongVector discountCents = divideHalfUp(baseCents.mul(discountPercents), 100);
+            baseCents.intoArray(quoteBatch.baseChargeCents, i);
+            discountCents.intoArray(quoteBatch.discountCents, i);
+            baseCents.sub(discountCents).intoArray(quoteBatch.finalChargeCents, i);
+        }
+        ScalarBulkQuoteCalculator.calculateQuotes(quoteBatch, vectorEnd, size);
+    }
+
+    /**
+     * Divide each lane, rounding halves up
+     * @param dividends each at least 0 and less than 2^52 - divisor
+     * @param divisor a power of ten, at least 10
+     */
+    private static LongVector divideHalfUp(LongVector dividends, long divisor){
+        //the divisor is even, so adding half of it turns rounding down into rounding half up
+        final LongVector shifted = dividends.add(divisor / 2);
+        final DoubleVector approximate = ((DoubleVector) shifted.convert(VectorOperators.L2D, 0)).div((double) divisor);
+        final LongVector quotients = (LongVector) approximate.convert(VectorOperators.D2L, 0);
+        //the double quotient can be one off either way when it lands near a whole number
+        final LongVector remainders = shifted.sub(quotients.mul(divisor));
+        final VectorMask<Long> tooBig = remainders.compare(VectorOperators.LT, 0);
+        final VectorMask<Long> tooSmall = remainders.compare(VectorOperators.GE, divisor);
+        return quotients.sub(1, tooBig).add(1, tooSmall);
+    }
+
+    //true if no lane can go negative or past what doubles hold exactly
+    private static boolean fitsInDoubles(QuoteBatch quoteBatch){
+        long maxDailyCharge = 0;
+        long maxChargeableDays = 0;
+        long minValue = 0;
+        for(int i = 0; i < quoteBatch.size; i++){
+            maxDailyCharge = Math.max(maxDailyCharge, quoteBatch.dailyCharges[i]);
+            maxChargeableDays = Math.max(maxChargeableDays, quoteBatch.chargeableDays[i]);
+            minValue = Math.min(minValue, Math.min(quoteBatch.dailyCharges[i],
+                    Math.min(quoteBatch.chargeableDays[i], quoteBatch.discountPercents[i])));
+            if(quoteBatch.discountPercents[i] > 100){
+                return false;
+            }
+        }
+        final int scale = quoteBatch.dailyChargeScale;
+        if(minValue < 0 || scale - FixedPointChargeCalculator.CENTS_SCALE >= POWERS_OF_TEN.length){
+            return false;
+        }
+        final long centsFactor = scale <= FixedPointChargeCalculator.CENTS_SCALE
+                ? POWERS_OF_TEN[FixedPointChargeCalculator.CENTS_SCALE - scale] : 1;
+        try{
+            //the largest discount dividend is the largest base (in cents when scaled up, or else unscaled) times 100
+            final long largest = Math.multiplyExact(Math.multiplyExact(Math.multiplyExact(maxDailyCharge, maxChargeableDays), centsFactor), 100L);
+            return largest < EXACT_DOUBLE_LIMIT / 2;
+        }catch(ArithmeticException overflow){
+            return false;
+        }
+    }
+}
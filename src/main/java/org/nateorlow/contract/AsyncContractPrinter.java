@@ -0,0 +1,273 @@
+package org.nateorlow.contract;
+
+import lombok.Builder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prints contracts on a separate writer thread, so checkout doesn't wait for a slow output stream
+ *
+ * printContract only puts the contract on a bounded queue. The writer thread renders queued contracts
+ * into one buffer and writes it when it reaches flushBytes, or when flushDelayMillis has passed since
+ * the first contract in it was queued -- so many contracts go out in each write.
+ * When the queue is full, the overflow policy decides whether printContract waits, drops the contract,
+ * or throws an IllegalStateException.
+ *
+ * Contracts are rendered on the writer thread, so they must not be changed after they are printed.
+ * close() stops accepting contracts, then waits for everything already queued to be written.
+ * Contracts that can't be rendered or written are counted, and the first such failure is thrown from close().
+ * If the writer thread itself dies, printContract and close() throw instead of waiting on a queue nobody drains
+ */
+public class AsyncContractPrinter implements ContractPrinter, AutoCloseable {
+    public enum OverflowPolicy {
+        //wait for room on the queue
+        BLOCK,
+        //drop the contract and count it
+        DROP,
+        //throw an IllegalStateException, so the caller can decide what to do
+        SIGNAL
+    }
+
+    //Put on the queue by close() to tell the writer thread to finish
+    private static final Contract END_OF_CONTRACTS = new RenderedContract(List.of());
+    //how often a caller waiting on a full queue checks that the writer thread is still running
+    private static final long WRITER_CHECK_MILLIS = 100;
+
+    private final OutputStream outputStream;
+    private final OverflowPolicy overflowPolicy;
+    private final int flushBytes;
+    private final long flushDelayNanos;
+    private final BlockingQueue<Contract> contractQueue;
+    private final Thread writerThread;
+    private ByteBuffer batchBuffer;
+    //when the batch being rendered must be written, set by the writer thread as each batch starts
+    private long batchDeadline;
+    //printContract checks closed and queues under the read lock, and close() sets closed under the write lock,
+    //so nothing can be queued after END_OF_CONTRACTS and then never be written
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    private final AtomicLong printedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong writeCount = new AtomicLong();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+    /**
+     * @param outputStream where contracts are written (System.out if not set)
+     * @param queueCapacity most contracts waiting to be written (1024 if not set)
+     * @param flushBytes batch size that triggers a write (64KB if not set)
+     * @param flushDelayMillis longest a contract waits in a batch before it is written (10ms if not set)
+     * @param overflowPolicy what to do when the queue is full (BLOCK if not set)
+     */
+    @Builder
+    private AsyncContractPrinter(OutputStream outputStream, Integer queueCapacity, Integer flushBytes,
+                                 Long flushDelayMillis, OverflowPolicy overflowPolicy){
+        this.outputStream = outputStream == null ? System.out : outputStream;
+        this.contractQueue = new ArrayBlockingQueue<>(queueCapacity == null ? 1024 : queueCapacity);
+        this.flushBytes = flushBytes == null ? 64 * 1024 : flushBytes;
+        this.flushDelayNanos = TimeUnit.MILLISECONDS.toNanos(flushDelayMillis == null ? 10 : flushDelayMillis);
+        this.overflowPolicy = overflowPolicy == null ? OverflowPolicy.BLOCK : overflowPolicy;
+        this.batchBuffer = ByteBuffer.allocate(Math.max(this.flushBytes, 1024) * 2);
+        this.writerThread = new Thread(this::runWriter, "contract-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public void printContract(Contract contract){
+        closeLock.readLock().lock();
+        try{
+            if(closed){
+                throw new IllegalStateException("System error -- contract printer is closed");
+            }
+            enqueue(contract);
+        }finally{
+            closeLock.readLock().unlock();
+        }
+    }
+
+    //A BLOCK caller waits here holding the read lock, which is fine since the writer thread keeps draining until close() gets in
+    private void enqueue(Contract contract){
+        switch(overflowPolicy){
+            case BLOCK -> {
+                try{
+                    putWhileWriterRuns(contract);
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("System error -- interrupted while waiting to print a contract", e);
+                }
+            }
+            case DROP -> {
+                if(!contractQueue.offer(contract)){
+                    droppedCount.incrementAndGet();
+                }
+            }
+            case SIGNAL -> {
+                if(!contractQueue.offer(contract)){
+                    throw new IllegalStateException("Contract printer queue is full");
+                }
+            }
+        }
+    }
+
+    //Like BlockingQueue.put, but gives up if the writer thread has died, since then the queue never drains
+    private void putWhileWriterRuns(Contract contract) throws InterruptedException {
+        while(!contractQueue.offer(contract, WRITER_CHECK_MILLIS, TimeUnit.MILLISECONDS)){
+            if(!writerThread.isAlive()){
+                throw new IllegalStateException("System error -- contract writer thread has stopped", firstFailure.get());
+            }
+        }
+    }
+
+    /**
+     * Stop accepting contracts, and wait until every queued contract has been written
+     * @throws IllegalStateException if any contract couldn't be rendered or written (with the first failure as its cause),
+     *                               or the writer thread stopped before writing everything
+     */
+    @Override
+    public void close(){
+        closeLock.writeLock().lock();
+        try{
+            if(closed){
+                return;
+            }
+            closed = true;
+        }finally{
+            closeLock.writeLock().unlock();
+        }
+        try{
+            putWhileWriterRuns(END_OF_CONTRACTS);
+            writerThread.join();
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return;
+        }
+        final Throwable failure = firstFailure.get();
+        if(failure != null){
+            throw new IllegalStateException("System error -- not every contract was printed (" + failedCount.get() + " failed)", failure);
+        }
+    }
+
+    public long getPrintedCount(){
+        return printedCount.get();
+    }
+
+    public long getDroppedCount(){
+        return droppedCount.get();
+    }
+
+    //Contracts that could not be rendered or written
+    public long getFailedCount(){
+        return failedCount.get();
+    }
+
+    //The first reason a contract couldn't be rendered or written, or null if none
+    public Throwable getFirstFailure(){
+        return firstFailure.get();
+    }
+
+    public long getWriteCount(){
+        return writeCount.get();
+    }
+
+    //Runs on the writer thread, and keeps whatever stopped it so close() can report it
+    private void runWriter(){
+        try{
+            writeContracts();
+        }catch(Throwable t){
+            recordFailure(t);
+            throw t;
+        }
+    }
+
+    private void writeContracts(){
+        int contractsInBatch = 0;
+        while(true){
+            final Contract contract;
+            try{
+                contract = contractsInBatch == 0
+                        ? contractQueue.take()
+                        : contractQueue.poll(batchDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }catch(InterruptedException e){
+                //only close() should stop the writer, so keep going
+                continue;
+            }
+            if(contract == END_OF_CONTRACTS){
+                writeBatch(contractsInBatch);
+                return;
+            }
+            if(contract != null){
+                contractsInBatch = renderIntoBatch(contract, contractsInBatch);
+            }
+            if(contractsInBatch > 0 && (batchBuffer.position() >= flushBytes || System.nanoTime() - batchDeadline >= 0)){
+                writeBatch(contractsInBatch);
+                contractsInBatch = 0;
+            }
+        }
+    }
+
+    /**
+     * Render a contract after the contracts already in the batch,
+     * writing the batch first if the contract doesn't fit after them
+     * @return the number of contracts now in the batch
+     */
+    private int renderIntoBatch(Contract contract, int contractsInBatch){
+        while(true){
+            final int contractStart = batchBuffer.position();
+            try{
+                contract.writeTo(batchBuffer);
+                //the first contract in the buffer starts a new batch, whether the buffer was empty or was just written to make room
+                if(contractStart == 0){
+                    batchDeadline = System.nanoTime() + flushDelayNanos;
+                }
+                return contractsInBatch + 1;
+            }catch(BufferOverflowException e){
+                batchBuffer.position(contractStart);
+                if(contractStart > 0){
+                    writeBatch(contractsInBatch);
+                    contractsInBatch = 0;
+                }else{
+                    batchBuffer = ByteBuffer.allocate(batchBuffer.capacity() * 2);
+                }
+            }catch(RuntimeException e){
+                batchBuffer.position(contractStart);
+                failedCount.incrementAndGet();
+                recordFailure(e);
+                return contractsInBatch;
+            }
+        }
+    }
+
+    private void writeBatch(int contractsInBatch){
+        if(batchBuffer.position() == 0){
+            return;
+        }
+        try{
+            outputStream.write(batchBuffer.array(), 0, batchBuffer.position());
+            outputStream.flush();
+            printedCount.addAndGet(contractsInBatch);
+            writeCount.incrementAndGet();
+        }catch(IOException e){
+            failedCount.addAndGet(contractsInBatch);
+            recordFailure(e);
+        }
+        batchBuffer.clear();
+    }
+
+    //Later failures are only counted, since they are usually the same problem again
+    private void recordFailure(Throwable failure){
+        firstFailure.compareAndSet(null, failure);
+    }
+}
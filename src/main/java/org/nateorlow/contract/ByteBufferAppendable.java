@@ -0,0 +1,79 @@
+package org.nateorlow.contract;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Appends characters to a ByteBuffer as UTF-8, without making any intermediate strings or byte arrays
+ * Writing past the end of the buffer throws BufferOverflowException
+ */
+public class ByteBufferAppendable implements Appendable {
+    private final ByteBuffer byteBuffer;
+    private char pendingHighSurrogate;
+
+    public ByteBufferAppendable(ByteBuffer byteBuffer){
+        this.byteBuffer = byteBuffer;
+    }
+
+    @Override
+    public Appendable append(CharSequence charSequence){
+        //like other Appendables, null is written as "null"
+        final CharSequence text = charSequence == null ? "null" : charSequence;
+        return append(text, 0, text.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence charSequence, int start, int end){
+        if(charSequence == null){
+            return append("null", start, end);
+        }
+        for(int index = start; index < end; index++){
+            append(charSequence.charAt(index));
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char character){
+        if(pendingHighSurrogate != 0){
+            final char highSurrogate = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if(Character.isLowSurrogate(character)){
+                putCodePoint(Character.toCodePoint(highSurrogate, character));
+                return this;
+            }
+            putCodePoint('?');
+        }
+        if(Character.isHighSurrogate(character)){
+            pendingHighSurrogate = character;
+        }else if(Character.isLowSurrogate(character)){
+            //a low surrogate on its own isn't a character, so it can't be encoded
+            putCodePoint('?');
+        }else{
+            putCodePoint(character);
+        }
+        return this;
+    }
+
+    private void putCodePoint(int codePoint){
+        putCodePoint(byteBuffer, codePoint);
+    }
+
+    //codePoint must be a character, not half of a surrogate pair
+    static void putCodePoint(ByteBuffer byteBuffer, int codePoint){
+        if(codePoint < 0x80){
+            byteBuffer.put((byte) codePoint);
+        }else if(codePoint < 0x800){
+            byteBuffer.put((byte) (0xC0 | (codePoint >>> 6)));
+            byteBuffer.put((byte) (0x80 | (codePoint & 0x3F)));
+        }else if(codePoint < 0x10000){
+            byteBuffer.put((byte) (0xE0 | (codePoint >>> 12)));
+            byteBuffer.put((byte) (0x80 | ((codePoint >>> 6) & 0x3F)));
+            byteBuffer.put((byte) (0x80 | (codePoint & 0x3F)));
+        }else{
+            byteBuffer.put((byte) (0xF0 | (codePoint >>> 18)));
+            byteBuffer.put((byte) (0x80 | ((codePoint >>> 12) & 0x3F)));
+            byteBuffer.put((byte) (0x80 | ((codePoint >>> 6) & 0x3F)));
+            byteBuffer.put((byte) (0x80 | (codePoint & 0x3F)));
+        }
+    }
+}
@@ -1,8 +1,37 @@
 package org.nateorlow.contract;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public interface Contract {
     List<String> toStringList();
     String toString();
+
+    /**
+     * Write the contract, one line at a time with each line ending in a newline
+     * Implementations should write straight to the appendable, without building the lines first
+     * @param appendable where the contract text goes
+     * @throws IOException if the appendable can't be written to
+     */
+    default void appendTo(Appendable appendable) throws IOException {
+        for(String contractLine : toStringList()){
+            appendable.append(contractLine).append('\n');
+        }
+    }
+
+    /**
+     * Write the contract as UTF-8 into a buffer, in the same layout as appendTo
+     * @param byteBuffer buffer to write into, starting at its position
+     * @throws java.nio.BufferOverflowException if the contract doesn't fit
+     */
+    default void writeTo(ByteBuffer byteBuffer){
+        try{
+            appendTo(new ByteBufferAppendable(byteBuffer));
+        }catch(IOException e){
+            //ByteBufferAppendable does not throw IOException
+            throw new UncheckedIOException(e);
+        }
+    }
 }
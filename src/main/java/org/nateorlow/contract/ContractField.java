@@ -0,0 +1,301 @@
+package org.nateorlow.contract;
+
+import lombok.Getter;
+import org.nateorlow.charge.MdyDates;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The facts of a contract that a ContractTemplate can write, named the same as the ContractJson keys
+ * Each field writes itself as UTF-8 straight from a ContractRecord, without making strings
+ *
+ * Dates are M/d/y, charges have 2 decimal places, and the daily rental charge keeps the scale of its listing
+ * (always written out in full, never as 1E-7). Only the tool code, type and brand are text,
+ * so they are the only fields a template's Escaping applies to
+ */
+public enum ContractField {
+    TOOL_CODE("toolCode"){
+        @Override
+        void write(ByteBufferAppendable appendable, ByteBuffer byteBuffer, ContractRecord contractRecord, ContractTemplate.Escaping escaping){
+            putText(byteBuffer, contractRecord.getToolCode(), escaping);
+        }
+
+        @Override
+        int maxLength(ContractRecord contractRecord){
+            return maxTextLength(contractRecord.getToolCode());
+        }
+    },
+    TOOL_TYPE("toolType"){
+        @Override
+        void write(ByteBufferAppendable appendable, ByteBuffer byteBuffer, ContractRecord contractRecord, ContractTemplate.Escaping escaping){
+            putText(byteBuffer, contractRecord.getToolType(), escaping);
+        }
+
+        @Override
+        int maxLength(ContractRecord contractRecord){
+            return maxTextLength(contractRecord.getToolType());
+        }
+    },
+    TOOL_BRAND("toolBrand"){
+        @Override
+        void write(ByteBufferAppendable appendable, ByteBuffer byteBuffer, ContractRecord contractRecord, ContractTemplate.Escaping escaping){
+            putText(byteBuffer, contractRecord.getToolBrand(), escaping);
+        }
+
+        @Override
+        int maxLength(ContractRecord contractRecord){
+            return maxTextLength(contractRecord.getToolBrand());
+        }
+    },
+    RENTAL_DAYS("rentalDays"){
+        @Override
+        void write(ByteBufferAppendable appendable, ByteBuffer byteBuffer, ContractRecord contractRecord, ContractTemplate.Escaping escaping){
+            putNumber(byteBuffer, contractRecord.getRentalDayCount());
+        }
+    },
+    CHECKOUT_DATE("checkoutDate"){
+        @Override
+        void write(ByteBufferAppendable appendable, ByteBuffer byteBuffer, ContractRecord contractRecord, ContractTemplate.Escaping escaping)
+                throws IOException {
+            MdyDates.appendMdy(appendable, contractRecord.getCheckoutEpochDay());
+        }
+    },
+    DUE_DATE("dueDate"){
+        @Override
+        void write(ByteBufferAppendable appendable, ByteBuffer byteBuffer, ContractRecord contractRecord, ContractTemplate.Escaping escaping)
+                throws IOException {
+            MdyDates.appendMdy(appendable, contractRecord.getCheckoutEpochDay() + contractRecord.getRentalDayCount());
+        }
+    },
+    DAILY_RENTAL_CHARGE("dailyRentalCharge"){
+        @Override
+        void write(ByteBufferAppendable appendable, ByteBuffer byteBuffer, ContractRecord contractRecord, ContractTemplate.Escaping escaping){
+            putDecimal(byteBuffer, contractRecord.getDailyChargeUnscaled(), contractRecord.getDailyChargeScale());
+        }
+
+        @Override
+        int maxLength(ContractRecord contractRecord){
+            //sign, digits, point and the zeros between the point and the digits, or after the digits
+            return MAX_NUMBER_LENGTH + 2 + Math.abs(contractRecord.getDailyChargeScale());
+        }
+    },
+    CHARGE_DAYS("chargeDays"){
+        @Override
+        void write(ByteBufferAppendable appendable, ByteBuffer byteBuffer, ContractRecord contractRecord, ContractTemplate.Escaping escaping){
+            putNumber(byteBuffer, contractRecord.getChargeableDays());
+        }
+    },
+    PRE_DISCOUNT_CHARGE("preDiscountCharge"){
+        @Override
+        void write(ByteBufferAppendable appendable, ByteBuffer byteBuffer, ContractRecord contractRecord, ContractTemplate.Escaping escaping){
+            putDecimal(byteBuffer, contractRecord.getBaseChargeCents(), ToolRentalContract.ROUND_TO_PLACES);
+        }
+    },
+    DISCOUNT_PERCENT("discountPercent"){
+        @Override
+        void write(ByteBufferAppendable appendable, ByteBuffer byteBuffer, ContractRecord contractRecord, ContractTemplate.Escaping escaping){
+            putNumber(byteBuffer, contractRecord.getDiscountPercent());
+        }
+    },
+    DISCOUNT_AMOUNT("discountAmount"){
+        @Override
+        void write(ByteBufferAppendable appendable, ByteBuffer byteBuffer, ContractRecord contractRecord, ContractTemplate.Escaping escaping){
+            putDecimal(byteBuffer, contractRecord.getDiscountChargeCents(), ToolRentalContract.ROUND_TO_PLACES);
+        }
+    },
+    FINAL_CHARGE("finalCharge"){
+        @Override
+        void write(ByteBufferAppendable appendable, ByteBuffer byteBuffer, ContractRecord contractRecord, ContractTemplate.Escaping escaping){
+            putDecimal(byteBuffer, contractRecord.getFinalChargeCents(), ToolRentalContract.ROUND_TO_PLACES);
+        }
+    };
+
+    //"-9223372036854775808", or a whole number of cents with its point; also covers M/d/y with a 19 digit year
+    private static final int MAX_NUMBER_LENGTH = 26;
+    //each char of text is at most 3 bytes of UTF-8 (a surrogate pair is 4 bytes for 2 chars),
+    //and at most 6 bytes once escaped (\u001f in JSON, or a doubled quote in CSV)
+    private static final int MAX_BYTES_PER_CHAR = 6;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    @Getter
+    private final String placeholder;
+
+    ContractField(String placeholder){
+        this.placeholder = placeholder;
+    }
+
+    /**
+     * @param appendable writes into byteBuffer, for the fields that are written through an Appendable
+     * @param byteBuffer where the field goes
+     * @param contractRecord contract to take the field from
+     * @param escaping how text is escaped for the template's format
+     * @throws IOException never, since ByteBufferAppendable doesn't throw it
+     */
+    abstract void write(ByteBufferAppendable appendable, ByteBuffer byteBuffer, ContractRecord contractRecord, ContractTemplate.Escaping escaping)
+            throws IOException;
+
+    /**
+     * @param contractRecord
+     * @return the most bytes this field can take for the contract, in any escaping
+     */
+    int maxLength(ContractRecord contractRecord){
+        return MAX_NUMBER_LENGTH;
+    }
+
+    private static int maxTextLength(String text){
+        //"null", or the text with quotes around it
+        return text == null ? 4 : 2 + MAX_BYTES_PER_CHAR * text.length();
+    }
+
+    private static void putText(ByteBuffer byteBuffer, String text, ContractTemplate.Escaping escaping){
+        if(text == null){
+            //the text layout writes null the way appendTo does, and CSV leaves the column empty
+            if(escaping != ContractTemplate.Escaping.CSV){
+                putAscii(byteBuffer, "null");
+            }
+            return;
+        }
+        switch(escaping){
+            case TEXT -> putChars(byteBuffer, text, escaping);
+            case JSON -> {
+                byteBuffer.put((byte) '"');
+                putChars(byteBuffer, text, escaping);
+                byteBuffer.put((byte) '"');
+            }
+            case CSV -> {
+                //RFC 4180: quoted only when it has to be
+                if(needsCsvQuotes(text)){
+                    byteBuffer.put((byte) '"');
+                    putChars(byteBuffer, text, escaping);
+                    byteBuffer.put((byte) '"');
+                }else{
+                    putChars(byteBuffer, text, escaping);
+                }
+            }
+        }
+    }
+
+    private static boolean needsCsvQuotes(String text){
+        for(int i = 0; i < text.length(); i++){
+            final char c = text.charAt(i);
+            if(c == ',' || c == '"' || c == '\n' || c == '\r'){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Encodes as UTF-8 a char at a time, escaping the way ContractJson.appendString does for JSON,
+    //or doubling quotes for CSV. A surrogate without its other half is written as '?' like ByteBufferAppendable does
+    private static void putChars(ByteBuffer byteBuffer, String text, ContractTemplate.Escaping escaping){
+        for(int i = 0; i < text.length(); i++){
+            final char c = text.charAt(i);
+            if(c < 0x80){
+                putAsciiChar(byteBuffer, c, escaping);
+            }else if(Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))){
+                ByteBufferAppendable.putCodePoint(byteBuffer, Character.toCodePoint(c, text.charAt(i + 1)));
+                i++;
+            }else if(Character.isSurrogate(c)){
+                byteBuffer.put((byte) '?');
+            }else{
+                ByteBufferAppendable.putCodePoint(byteBuffer, c);
+            }
+        }
+    }
+
+    private static void putAsciiChar(ByteBuffer byteBuffer, char c, ContractTemplate.Escaping escaping){
+        if(escaping == ContractTemplate.Escaping.JSON){
+            switch(c){
+                case '"' -> putAscii(byteBuffer, "\\\"");
+                case '\\' -> putAscii(byteBuffer, "\\\\");
+                case '\n' -> putAscii(byteBuffer, "\\n");
+                case '\r' -> putAscii(byteBuffer, "\\r");
+                case '\t' -> putAscii(byteBuffer, "\\t");
+                default -> {
+                    if(c < 0x20){
+                        putAscii(byteBuffer, "\\u00");
+                        byteBuffer.put((byte) HEX_DIGITS[c >>> 4]);
+                        byteBuffer.put((byte) HEX_DIGITS[c & 0xF]);
+                    }else{
+                        byteBuffer.put((byte) c);
+                    }
+                }
+            }
+        }else if(escaping == ContractTemplate.Escaping.CSV && c == '"'){
+            putAscii(byteBuffer, "\"\"");
+        }else{
+            byteBuffer.put((byte) c);
+        }
+    }
+
+    private static void putAscii(ByteBuffer byteBuffer, String ascii){
+        for(int i = 0; i < ascii.length(); i++){
+            byteBuffer.put((byte) ascii.charAt(i));
+        }
+    }
+
+    private static void putNumber(ByteBuffer byteBuffer, long number){
+        if(number < 0){
+            byteBuffer.put((byte) '-');
+        }
+        putMagnitude(byteBuffer, number, 1);
+    }
+
+    //Writes unscaled * 10^-scale the way BigDecimal.toPlainString does, e.g. 199 at scale 2 is 1.99 and 5 at scale 3 is 0.005
+    private static void putDecimal(ByteBuffer byteBuffer, long unscaled, int scale){
+        if(unscaled < 0){
+            byteBuffer.put((byte) '-');
+        }
+        if(scale <= 0){
+            putMagnitude(byteBuffer, unscaled, 1);
+            if(unscaled != 0){
+                for(int zero = 0; zero < -scale; zero++){
+                    byteBuffer.put((byte) '0');
+                }
+            }
+            return;
+        }
+        final int digitCount = digitCount(unscaled);
+        if(digitCount <= scale){
+            byteBuffer.put((byte) '0').put((byte) '.');
+            for(int zero = digitCount; zero < scale; zero++){
+                byteBuffer.put((byte) '0');
+            }
+            putMagnitude(byteBuffer, unscaled, digitCount);
+        }else{
+            //there are more digits than the scale, so the scale is at most 18 and 10^scale fits in a long
+            long placeValue = 1;
+            for(int place = 0; place < scale; place++){
+                placeValue *= 10;
+            }
+            putMagnitude(byteBuffer, unscaled / placeValue, 1);
+            byteBuffer.put((byte) '.');
+            putMagnitude(byteBuffer, unscaled % placeValue, scale);
+        }
+    }
+
+    //Writes the digits of |number| without a sign, padded with leading zeros to at least minDigits.
+    //Works on the negative value so that Long.MIN_VALUE needs no special case
+    private static void putMagnitude(ByteBuffer byteBuffer, long number, int minDigits){
+        final long negative = number > 0 ? -number : number;
+        long placeValue = -1;
+        int digits = 1;
+        while(digits < minDigits || placeValue >= negative / 10){
+            placeValue *= 10;
+            digits++;
+        }
+        for(; placeValue < 0; placeValue /= 10){
+            byteBuffer.put((byte) ('0' + (negative / placeValue) % 10));
+        }
+    }
+
+    private static int digitCount(long number){
+        final long negative = number > 0 ? -number : number;
+        int digits = 1;
+        for(long placeValue = -10; digits < 19 && placeValue >= negative; placeValue *= 10){
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,193 @@
+package org.nateorlow.contract;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * The binary layout shared by ContractJournalPrinter and ContractJournalReader
+ *
+ * A journal is a directory of segment files (contracts-00000000.journal, contracts-00000001.journal, ...).
+ * Each segment starts with a magic number and format version, followed by records:
+ *   int payload length, int CRC32 of the payload, payload
+ * A zero length marks the end of the written records. The length is written last,
+ * so a record that was only partly written before a crash is either missing or fails its CRC check
+ */
+class ContractJournal {
+    static final int MAGIC = 0x434A524E; //"CJRN"
+    static final int FORMAT_VERSION = 1;
+    static final int SEGMENT_HEADER_BYTES = 8;
+    static final int RECORD_HEADER_BYTES = 8;
+    static final String SEGMENT_PREFIX = "contracts-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final int FLAG_WEEKDAY_CHARGEABLE = 1;
+    private static final int FLAG_WEEKEND_CHARGEABLE = 2;
+    private static final int FLAG_HOLIDAY_CHARGEABLE = 4;
+
+    private ContractJournal(){
+    }
+
+    static Path segmentPath(Path directory, int segmentNumber){
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, segmentNumber, SEGMENT_SUFFIX));
+    }
+
+    //Segment files in the directory, in the order they were written
+    static List<Path> listSegments(Path directory) throws IOException {
+        if(!Files.isDirectory(directory)){
+            return List.of();
+        }
+        try(Stream<Path> files = Files.list(directory)){
+            return files.filter(ContractJournal::isSegment).sorted().toList();
+        }
+    }
+
+    static int segmentNumber(Path segment){
+        final String fileName = segment.getFileName().toString();
+        return Integer.parseInt(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static boolean isSegment(Path path){
+        final String fileName = path.getFileName().toString();
+        return fileName.startsWith(SEGMENT_PREFIX) && fileName.endsWith(SEGMENT_SUFFIX);
+    }
+
+    static void encodePayload(ContractRecord contractRecord, ByteBuffer payload){
+        payload.putLong(contractRecord.checkoutEpochDay);
+        payload.putInt(contractRecord.rentalDayCount);
+        payload.putLong(contractRecord.dailyChargeUnscaled);
+        payload.put(toByte(contractRecord.dailyChargeScale));
+        payload.put((byte) ((contractRecord.weekdayChargeable ? FLAG_WEEKDAY_CHARGEABLE : 0)
+                | (contractRecord.weekendChargeable ? FLAG_WEEKEND_CHARGEABLE : 0)
+                | (contractRecord.holidayChargeable ? FLAG_HOLIDAY_CHARGEABLE : 0)));
+        payload.putInt(contractRecord.chargeableDays);
+        payload.put(toByte(contractRecord.discountPercent));
+        payload.putLong(contractRecord.baseChargeCents);
+        payload.putLong(contractRecord.discountChargeCents);
+        payload.putLong(contractRecord.finalChargeCents);
+        putString(payload, contractRecord.toolCode);
+        putString(payload, contractRecord.toolType);
+        putString(payload, contractRecord.toolBrand);
+    }
+
+    static ContractRecord decodePayload(ByteBuffer payload){
+        final ContractRecord.ContractRecordBuilder builder = ContractRecord.builder()
+                .checkoutEpochDay(payload.getLong())
+                .rentalDayCount(payload.getInt())
+                .dailyChargeUnscaled(payload.getLong())
+                .dailyChargeScale(payload.get());
+        final int flags = payload.get();
+        return builder.weekdayChargeable((flags & FLAG_WEEKDAY_CHARGEABLE) != 0)
+                      .weekendChargeable((flags & FLAG_WEEKEND_CHARGEABLE) != 0)
+                      .holidayChargeable((flags & FLAG_HOLIDAY_CHARGEABLE) != 0)
+                      .chargeableDays(payload.getInt())
+                      .discountPercent(payload.get())
+                      .baseChargeCents(payload.getLong())
+                      .discountChargeCents(payload.getLong())
+                      .finalChargeCents(payload.getLong())
+                      .toolCode(getString(payload))
+                      .toolType(getString(payload))
+                      .toolBrand(getString(payload))
+                      .build();
+    }
+
+    /**
+     * Check the segment header, then find where the valid records in a segment end
+     * Anything after that point is either unused or a record that was not completely written
+     * @param segment whole segment, with position and limit covering it
+     * @return offset just past the last valid record
+     */
+    static int findEndOfRecords(ByteBuffer segment){
+        checkSegmentHeader(segment);
+        int recordStart = SEGMENT_HEADER_BYTES;
+        while(true){
+            final int payloadLength = validPayloadLength(segment, recordStart);
+            if(payloadLength <= 0){
+                return recordStart;
+            }
+            recordStart += RECORD_HEADER_BYTES + payloadLength;
+        }
+    }
+
+    /**
+     * @return the payload length of the record starting at recordStart, or 0 if there isn't a complete valid record there
+     */
+    static int validPayloadLength(ByteBuffer segment, int recordStart){
+        final int payloadLength = payloadLength(segment, recordStart);
+        if(payloadLength == 0){
+            return 0;
+        }
+        final int crc = segment.getInt(recordStart + 4);
+        return crc == crcOf(segment, recordStart + RECORD_HEADER_BYTES, payloadLength) ? payloadLength : 0;
+    }
+
+    /**
+     * Like validPayloadLength, but without checking the payload's CRC, so records can be found without reading them
+     * @return the payload length written for the record starting at recordStart, or 0 if none fits in the segment
+     */
+    static int payloadLength(ByteBuffer segment, int recordStart){
+        if(recordStart + RECORD_HEADER_BYTES > segment.limit()){
+            return 0;
+        }
+        final int payloadLength = segment.getInt(recordStart);
+        return payloadLength <= 0 || payloadLength > segment.limit() - recordStart - RECORD_HEADER_BYTES ? 0 : payloadLength;
+    }
+
+    /**
+     * A segment whose header never reached disk, e.g. from a crash while a new segment was being started
+     * Headers are forced before any record goes in a segment, so a segment like this has no records
+     * @param segment whole segment, with position and limit covering it
+     * @return true if the segment is shorter than its header or the header is all zeros
+     */
+    static boolean isUnwrittenSegment(ByteBuffer segment){
+        return segment.limit() < SEGMENT_HEADER_BYTES || (segment.getInt(0) == 0 && segment.getInt(4) == 0);
+    }
+
+    static void checkSegmentHeader(ByteBuffer segment){
+        if(segment.limit() < SEGMENT_HEADER_BYTES || segment.getInt(0) != MAGIC || segment.getInt(4) != FORMAT_VERSION){
+            throw new IllegalStateException("System error -- file is not a contract journal segment this version can read");
+        }
+    }
+
+    static int crcOf(ByteBuffer buffer, int offset, int length){
+        final CRC32 crc32 = new CRC32();
+        crc32.update(buffer.slice(offset, length));
+        return (int) crc32.getValue();
+    }
+
+    //Strings are a short length (-1 for null) followed by UTF-8 bytes
+    private static void putString(ByteBuffer payload, String value){
+        if(value == null){
+            payload.putShort((short) -1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if(bytes.length > Short.MAX_VALUE){
+            throw new IllegalStateException("System error -- contract text is too long to journal");
+        }
+        payload.putShort((short) bytes.length);
+        payload.put(bytes);
+    }
+
+    private static String getString(ByteBuffer payload){
+        final int length = payload.getShort();
+        if(length < 0){
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte toByte(int value){
+        if(value < Byte.MIN_VALUE || value > Byte.MAX_VALUE){
+            throw new IllegalStateException("System error -- value " + value + " is out of range for the journal");
+        }
+        return (byte) value;
+    }
+}
@@ -0,0 +1,199 @@
+package org.nateorlow.contract;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends a compact binary record of each contract to a journal of memory-mapped segment files
+ * (see ContractJournal for the layout, and ContractJournalReader to read it back)
+ *
+ * When a segment is full, a new one is started, and its header is forced to disk before any record goes in it.
+ * When a journal is reopened, the last segment is checked record by record, and anything after the last
+ * complete record (e.g. from a crash mid-write) is cleared before new records are added. A last segment whose
+ * header never reached disk (a crash while it was being started) has no records, so its header is just written again.
+ *
+ * Only ToolRentalContracts can be journaled, since other contracts don't have the data to record
+ */
+public class ContractJournalPrinter implements ContractPrinter, AutoCloseable {
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+    private static final int MAX_PAYLOAD_BYTES = 3 * (Short.MAX_VALUE + 2) + 64;
+    private static final int CLEAR_CHUNK_BYTES = 4096;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final ByteBuffer payloadBuffer = ByteBuffer.allocate(MAX_PAYLOAD_BYTES);
+    private int segmentNumber;
+    private FileChannel segmentChannel;
+    private MappedByteBuffer segmentBuffer;
+    private int writeOffset;
+
+    public ContractJournalPrinter(Path directory){
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Open a journal, creating the directory and first segment if needed
+     * @param directory where the segment files are kept
+     * @param segmentBytes size of each segment file
+     */
+    public ContractJournalPrinter(Path directory, int segmentBytes){
+        if(segmentBytes < ContractJournal.SEGMENT_HEADER_BYTES + ContractJournal.RECORD_HEADER_BYTES + MAX_PAYLOAD_BYTES){
+            throw new IllegalArgumentException("Journal segments must be large enough to hold any record");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        try{
+            Files.createDirectories(directory);
+            final List<Path> segments = ContractJournal.listSegments(directory);
+            if(segments.isEmpty()){
+                openNewSegment(0);
+            }else{
+                recoverLastSegment(segments.get(segments.size() - 1));
+            }
+        }catch(IOException e){
+            throw new UncheckedIOException("Unable to open contract journal in " + directory, e);
+        }
+    }
+
+    @Override
+    public void printContract(Contract contract){
+        if(contract instanceof ContractRecord contractRecord){
+            append(contractRecord);
+        }else if(contract instanceof ToolRentalContract toolRentalContract){
+            append(ContractRecord.fromContract(toolRentalContract));
+        }else{
+            throw new IllegalStateException("System error -- only tool rental contracts can be journaled");
+        }
+    }
+
+    /**
+     * Append a record to the journal, starting a new segment if it doesn't fit in the current one
+     * @param contractRecord
+     */
+    public synchronized void append(ContractRecord contractRecord){
+        if(segmentBuffer == null){
+            throw new IllegalStateException("System error -- contract journal is closed");
+        }
+        payloadBuffer.clear();
+        ContractJournal.encodePayload(contractRecord, payloadBuffer);
+        payloadBuffer.flip();
+        final int payloadLength = payloadBuffer.remaining();
+        try{
+            if(writeOffset + ContractJournal.RECORD_HEADER_BYTES + payloadLength > segmentBytes){
+                closeSegment();
+                openNewSegment(segmentNumber + 1);
+            }
+        }catch(IOException e){
+            throw new UncheckedIOException("Unable to start a new contract journal segment", e);
+        }
+        //the length goes in last, so readers never see a record before its payload and CRC are in place
+        final int payloadOffset = writeOffset + ContractJournal.RECORD_HEADER_BYTES;
+        segmentBuffer.put(payloadOffset, payloadBuffer, 0, payloadLength);
+        segmentBuffer.putInt(writeOffset + 4, ContractJournal.crcOf(payloadBuffer, 0, payloadLength));
+        segmentBuffer.putInt(writeOffset, payloadLength);
+        writeOffset = payloadOffset + payloadLength;
+    }
+
+    public synchronized int getSegmentNumber(){
+        return segmentNumber;
+    }
+
+    //Write the mapped pages to disk, e.g. before a planned shutdown
+    public synchronized void force(){
+        if(segmentBuffer != null){
+            segmentBuffer.force();
+        }
+    }
+
+    @Override
+    public synchronized void close(){
+        try{
+            closeSegment();
+        }catch(IOException e){
+            throw new UncheckedIOException("Unable to close contract journal", e);
+        }
+    }
+
+    private void openNewSegment(int newSegmentNumber) throws IOException {
+        segmentNumber = newSegmentNumber;
+        segmentChannel = FileChannel.open(ContractJournal.segmentPath(directory, newSegmentNumber),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmentBuffer = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        writeHeader();
+    }
+
+    //Forced before any record is written, so a segment on disk either has its header or has no records
+    private void writeHeader(){
+        segmentBuffer.putInt(0, ContractJournal.MAGIC);
+        segmentBuffer.putInt(4, ContractJournal.FORMAT_VERSION);
+        segmentBuffer.force(0, ContractJournal.SEGMENT_HEADER_BYTES);
+        writeOffset = ContractJournal.SEGMENT_HEADER_BYTES;
+    }
+
+    private void recoverLastSegment(Path segment) throws IOException {
+        segmentNumber = ContractJournal.segmentNumber(segment);
+        segmentChannel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final long segmentFileBytes = segmentChannel.size();
+        if(segmentFileBytes <= segmentBytes && isUnwritten(segmentFileBytes)){
+            //mapping grows a short file to a whole segment
+            segmentBuffer = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            clearFrom(ContractJournal.SEGMENT_HEADER_BYTES);
+            writeHeader();
+            return;
+        }
+        if(segmentFileBytes != segmentBytes){
+            //written with a different segment size, so leave it alone and carry on in a new segment
+            segmentChannel.close();
+            openNewSegment(segmentNumber + 1);
+            return;
+        }
+        segmentBuffer = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        writeOffset = ContractJournal.findEndOfRecords(segmentBuffer);
+        clearFrom(writeOffset);
+    }
+
+    private boolean isUnwritten(long segmentFileBytes) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate((int) Math.min(segmentFileBytes, ContractJournal.SEGMENT_HEADER_BYTES));
+        //a file read only comes back short at the end of the file
+        segmentChannel.read(header, 0);
+        return ContractJournal.isUnwrittenSegment(header.flip());
+    }
+
+    //Zero out anything left after the last valid record, touching only the pages that need it
+    private void clearFrom(int offset){
+        final byte[] zeros = new byte[CLEAR_CHUNK_BYTES];
+        for(int chunkStart = offset; chunkStart < segmentBytes; chunkStart += CLEAR_CHUNK_BYTES){
+            final int chunkLength = Math.min(CLEAR_CHUNK_BYTES, segmentBytes - chunkStart);
+            if(!isZero(chunkStart, chunkLength)){
+                segmentBuffer.put(chunkStart, zeros, 0, chunkLength);
+            }
+        }
+    }
+
+    private boolean isZero(int offset, int length){
+        for(int index = offset; index < offset + length; index++){
+            if(segmentBuffer.get(index) != 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void closeSegment() throws IOException {
+        if(segmentBuffer != null){
+            segmentBuffer.force();
+            segmentBuffer = null;
+        }
+        if(segmentChannel != null){
+            segmentChannel.close();
+            segmentChannel = null;
+        }
+    }
+}
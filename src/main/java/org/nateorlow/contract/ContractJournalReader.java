@@ -0,0 +1,162 @@
+package org.nateorlow.contract;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the records written by ContractJournalPrinter, in the order they were written
+ *
+ * Each segment is memory-mapped and decoded in place, so scanning is limited mostly by disk speed.
+ * Reading stops at the end of each segment's valid records, so a record that was only partly written is skipped
+ */
+public class ContractJournalReader {
+    private final Path directory;
+
+    public ContractJournalReader(Path directory){
+        this.directory = directory;
+    }
+
+    /**
+     * Pass every record in the journal to a consumer
+     * @param recordConsumer
+     * @return number of records read
+     */
+    public long forEachRecord(Consumer<ContractRecord> recordConsumer){
+        long recordCount = 0;
+        try{
+            for(Path segment : ContractJournal.listSegments(directory)){
+                recordCount += readSegment(segment, recordConsumer);
+            }
+        }catch(IOException e){
+            throw new UncheckedIOException("Unable to read contract journal in " + directory, e);
+        }
+        return recordCount;
+    }
+
+    /**
+     * @return the journal's segment files, in the order they were written, so they can be read separately (e.g. in parallel)
+     */
+    public List<Path> listSegments(){
+        try{
+            return ContractJournal.listSegments(directory);
+        }catch(IOException e){
+            throw new UncheckedIOException("Unable to list contract journal segments in " + directory, e);
+        }
+    }
+
+    /**
+     * Pass every record in one segment to a consumer
+     * @param segment from listSegments
+     * @param recordConsumer
+     * @return number of records read
+     */
+    public long forEachRecordInSegment(Path segment, Consumer<ContractRecord> recordConsumer){
+        try{
+            return readSegment(segment, recordConsumer);
+        }catch(IOException e){
+            throw new UncheckedIOException("Unable to read contract journal segment " + segment, e);
+        }
+    }
+
+    /**
+     * Map one segment and find where each of its records starts, so its records can be read in ranges
+     * (e.g. one segment split across threads)
+     * @param segment from listSegments
+     * @return the segment's records
+     */
+    public SegmentRecords openSegment(Path segment){
+        try{
+            return mapSegment(segment);
+        }catch(IOException e){
+            throw new UncheckedIOException("Unable to read contract journal segment " + segment, e);
+        }
+    }
+
+    public List<ContractRecord> readAll(){
+        final List<ContractRecord> contractRecords = new ArrayList<>();
+        forEachRecord(contractRecords::add);
+        return contractRecords;
+    }
+
+    private long readSegment(Path segment, Consumer<ContractRecord> recordConsumer) throws IOException {
+        final SegmentRecords segmentRecords = mapSegment(segment);
+        return segmentRecords.forEachRecord(0, segmentRecords.size(), recordConsumer);
+    }
+
+    private SegmentRecords mapSegment(Path segment) throws IOException {
+        final MappedByteBuffer segmentBuffer;
+        try(FileChannel segmentChannel = FileChannel.open(segment, StandardOpenOption.READ)){
+            //the mapping stays valid after the channel is closed
+            segmentBuffer = segmentChannel.map(FileChannel.MapMode.READ_ONLY, 0, segmentChannel.size());
+        }
+        if(ContractJournal.isUnwrittenSegment(segmentBuffer)){
+            //started but never written to, so there is nothing to read
+            return new SegmentRecords(segmentBuffer, new int[0], 0);
+        }
+        ContractJournal.checkSegmentHeader(segmentBuffer);
+        //follows the record lengths only; each record's CRC is checked when it is read
+        int[] recordStarts = new int[1024];
+        int recordCount = 0;
+        int recordStart = ContractJournal.SEGMENT_HEADER_BYTES;
+        int payloadLength;
+        while((payloadLength = ContractJournal.payloadLength(segmentBuffer, recordStart)) > 0){
+            if(recordCount == recordStarts.length){
+                recordStarts = Arrays.copyOf(recordStarts, recordCount * 2);
+            }
+            recordStarts[recordCount++] = recordStart;
+            recordStart += ContractJournal.RECORD_HEADER_BYTES + payloadLength;
+        }
+        return new SegmentRecords(segmentBuffer, recordStarts, recordCount);
+    }
+
+    /**
+     * One mapped segment and where each of its records starts. Reading records only uses absolute gets on the mapping,
+     * so different ranges can be read on different threads at once.
+     * The segment's valid records end at the first one that fails its CRC check, which ends any range it is in
+     */
+    public static class SegmentRecords {
+        private final ByteBuffer segmentBuffer;
+        private final int[] recordStarts;
+        private final int recordCount;
+
+        SegmentRecords(ByteBuffer segmentBuffer, int[] recordStarts, int recordCount){
+            this.segmentBuffer = segmentBuffer;
+            this.recordStarts = recordStarts;
+            this.recordCount = recordCount;
+        }
+
+        //records found in the segment, counting any after one that turns out to fail its CRC check
+        public int size(){
+            return recordCount;
+        }
+
+        /**
+         * Pass the records from fromIndex up to toIndex to a consumer, stopping at a record that fails its CRC check
+         * @param fromIndex first record to read
+         * @param toIndex index just past the last record to read
+         * @param recordConsumer
+         * @return toIndex, or the index of the record that failed its check (the segment's valid records end there)
+         */
+        public int forEachRecord(int fromIndex, int toIndex, Consumer<ContractRecord> recordConsumer){
+            for(int index = fromIndex; index < toIndex; index++){
+                final int recordStart = recordStarts[index];
+                final int payloadLength = ContractJournal.validPayloadLength(segmentBuffer, recordStart);
+                if(payloadLength == 0){
+                    return index;
+                }
+                recordConsumer.accept(ContractJournal.decodePayload(
+                        segmentBuffer.slice(recordStart + ContractJournal.RECORD_HEADER_BYTES, payloadLength)));
+            }
+            return toIndex;
+        }
+    }
+}
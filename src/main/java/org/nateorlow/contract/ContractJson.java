@@ -0,0 +1,76 @@
+package org.nateorlow.contract;
+
+import org.nateorlow.charge.MdyDates;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Writes a contract as one JSON object, with the same facts as the printed contract
+ * Dates are written M/d/y like the printed contract, and charges are JSON numbers with 2 decimal places, e.g.
+ * {"toolCode":"LADW","toolType":"Ladder","toolBrand":"Werner","rentalDays":3,"checkoutDate":"7/2/20",...}
+ */
+public final class ContractJson {
+
+    private ContractJson(){
+    }
+
+    /**
+     * @param appendable where the JSON goes
+     * @param contractRecord contract to write
+     * @return the appendable
+     * @throws IOException if the appendable can't be written to
+     */
+    public static Appendable appendJson(Appendable appendable, ContractRecord contractRecord) throws IOException {
+        appendString(appendable.append("{\"toolCode\":"), contractRecord.getToolCode());
+        appendString(appendable.append(",\"toolType\":"), contractRecord.getToolType());
+        appendString(appendable.append(",\"toolBrand\":"), contractRecord.getToolBrand());
+        appendable.append(",\"rentalDays\":").append(Integer.toString(contractRecord.getRentalDayCount()));
+        MdyDates.appendMdy(appendable.append(",\"checkoutDate\":\""), contractRecord.getCheckoutEpochDay()).append('"');
+        MdyDates.appendMdy(appendable.append(",\"dueDate\":\""),
+                contractRecord.getCheckoutEpochDay() + contractRecord.getRentalDayCount()).append('"');
+        appendable.append(",\"dailyRentalCharge\":").append(contractRecord.getDailyCharge().toPlainString());
+        appendable.append(",\"chargeDays\":").append(Integer.toString(contractRecord.getChargeableDays()));
+        appendCents(appendable.append(",\"preDiscountCharge\":"), contractRecord.getBaseChargeCents());
+        appendable.append(",\"discountPercent\":").append(Integer.toString(contractRecord.getDiscountPercent()));
+        appendCents(appendable.append(",\"discountAmount\":"), contractRecord.getDiscountChargeCents());
+        appendCents(appendable.append(",\"finalCharge\":"), contractRecord.getFinalChargeCents());
+        return appendable.append('}');
+    }
+
+    /**
+     * Write a string as a quoted JSON string, or null
+     * @param appendable where the string goes
+     * @param value string to write
+     * @return the appendable
+     * @throws IOException if the appendable can't be written to
+     */
+    public static Appendable appendString(Appendable appendable, CharSequence value) throws IOException {
+        if(value == null){
+            return appendable.append("null");
+        }
+        appendable.append('"');
+        for(int i = 0; i < value.length(); i++){
+            final char c = value.charAt(i);
+            switch(c){
+                case '"' -> appendable.append("\\\"");
+                case '\\' -> appendable.append("\\\\");
+                case '\n' -> appendable.append("\\n");
+                case '\r' -> appendable.append("\\r");
+                case '\t' -> appendable.append("\\t");
+                default -> {
+                    if(c < 0x20){
+                        appendable.append(String.format("\\u%04x", (int) c));
+                    }else{
+                        appendable.append(c);
+                    }
+                }
+            }
+        }
+        return appendable.append('"');
+    }
+
+    private static Appendable appendCents(Appendable appendable, long cents) throws IOException {
+        return appendable.append(BigDecimal.valueOf(cents, ToolRentalContract.ROUND_TO_PLACES).toPlainString());
+    }
+}
@@ -0,0 +1,103 @@
+package org.nateorlow.contract;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The facts of an issued contract, in a compact form that can be stored and replayed without re-parsing text
+ * Charges are rounded to cents and kept as longs (1.99 is 199)
+ *
+ * A record can be printed like the contract it came from (using ContractTemplate.TEXT),
+ * so a contract priced once can be printed, journaled and sent back without working out its charges again
+ */
+@Builder
+@Getter
+public class ContractRecord implements Contract {
+    String toolCode;
+    String toolType;
+    String toolBrand;
+    long checkoutEpochDay;
+    int rentalDayCount;
+    //snapshot of the charge listing used
+    long dailyChargeUnscaled;
+    int dailyChargeScale;
+    boolean weekdayChargeable;
+    boolean weekendChargeable;
+    boolean holidayChargeable;
+    int chargeableDays;
+    int discountPercent;
+    long baseChargeCents;
+    long discountChargeCents;
+    long finalChargeCents;
+
+    /**
+     * Compute the charges for a contract and record them
+     * @param toolRentalContract contract with a tool, rental period and charge listing
+     * @return record of the contract
+     */
+    public static ContractRecord fromContract(ToolRentalContract toolRentalContract){
+        final ToolRentalContract.ContractCharges contractCharges = toolRentalContract.computeCharges();
+        if(toolRentalContract.tool == null || contractCharges == null){
+            throw new IllegalStateException("System error -- only contracts with a tool, rental period and charge listing can be recorded");
+        }
+        final BigDecimal dailyCharge = toolRentalContract.chargeListing.getDailyCharge();
+        return ContractRecord.builder()
+                             .toolCode(toolRentalContract.tool.getCode())
+                             .toolType(toolRentalContract.tool.getType())
+                             .toolBrand(toolRentalContract.tool.getBrand())
+                             .checkoutEpochDay(toolRentalContract.rentalPeriod.getStartEpochDay())
+                             .rentalDayCount(toolRentalContract.rentalPeriod.getRentalDayCount())
+                             .dailyChargeUnscaled(dailyCharge.unscaledValue().longValueExact())
+                             .dailyChargeScale(dailyCharge.scale())
+                             .weekdayChargeable(toolRentalContract.chargeListing.isWeekdayChargeable())
+                             .weekendChargeable(toolRentalContract.chargeListing.isWeekendChargeable())
+                             .holidayChargeable(toolRentalContract.chargeListing.isHolidayChargeable())
+                             .chargeableDays(contractCharges.chargeableDays)
+                             .discountPercent(toolRentalContract.discountPercent)
+                             .baseChargeCents(toCents(contractCharges.baseCharge))
+                             .discountChargeCents(toCents(contractCharges.discountCharge))
+                             .finalChargeCents(toCents(contractCharges.finalCharge))
+                             .build();
+    }
+
+    public LocalDate getCheckoutDate(){
+        return LocalDate.ofEpochDay(checkoutEpochDay);
+    }
+
+    public BigDecimal getDailyCharge(){
+        return BigDecimal.valueOf(dailyChargeUnscaled, dailyChargeScale);
+    }
+
+    @Override
+    public List<String> toStringList(){
+        return List.of(toString().split("\n"));
+    }
+
+    //the same text as the contract's toString, without a newline after the last line
+    @Override
+    public String toString(){
+        final byte[] text = ContractTemplate.TEXT.render(this);
+        return new String(text, 0, text.length - 1, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void appendTo(Appendable appendable) throws IOException {
+        appendable.append(new String(ContractTemplate.TEXT.render(this), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeTo(ByteBuffer byteBuffer){
+        ContractTemplate.TEXT.writeTo(byteBuffer, this);
+    }
+
+    private static long toCents(BigDecimal charge){
+        return charge.setScale(ToolRentalContract.ROUND_TO_PLACES, ToolRentalContract.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,200 @@
+package org.nateorlow.contract;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An output layout for contracts, compiled once into literal UTF-8 bytes with ContractFields between them
+ *
+ * Templates are written with ${field} for each field, using the ContractField placeholder names, e.g.
+ * "Tool code: ${toolCode}\n". Any other text, including a '$' or '{' on its own, is copied as is.
+ * Compiling finds the fields and encodes the text between them, so rendering only copies bytes and
+ * writes numbers, dates and text straight into a ByteBuffer -- no formatting, parsing or intermediate strings.
+ *
+ * The charges are computed once into a ContractRecord, and renderAll writes it in as many formats as needed.
+ * Templates are immutable and can be shared between threads
+ */
+public final class ContractTemplate {
+    /**
+     * How a template's text fields (tool code, type and brand) are escaped
+     */
+    public enum Escaping {
+        //as is, with null written as "null" like appendTo does
+        TEXT,
+        //a quoted JSON string escaped like ContractJson.appendString, or null
+        JSON,
+        //quoted only if it has a comma, quote or line break, with quotes doubled (RFC 4180); null is an empty column
+        CSV
+    }
+
+    //set up before the standard templates below are compiled
+    private static final String FIELD_START = "${";
+    private static final Map<String, ContractField> FIELDS_BY_PLACEHOLDER = new HashMap<>();
+
+    static{
+        for(ContractField contractField : ContractField.values()){
+            FIELDS_BY_PLACEHOLDER.put(contractField.getPlaceholder(), contractField);
+        }
+    }
+
+    /**
+     * The same lines as ToolRentalContract.appendTo, for contracts with a tool, rental period and charge listing
+     */
+    public static final ContractTemplate TEXT = compile("""
+            Tool code: ${toolCode}
+            Tool type: ${toolType}
+            Tool brand: ${toolBrand}
+            Rental days: ${rentalDays}
+            Check out date: ${checkoutDate}
+            Due date: ${dueDate}
+            Daily rental charge: $${dailyRentalCharge}
+            Charge days: ${chargeDays}
+            Pre-discount charge: $${preDiscountCharge}
+            Discount percent: ${discountPercent}%
+            Discount amount: $${discountAmount}
+            Final Charge: $${finalCharge}
+            """, Escaping.TEXT);
+
+    /**
+     * One JSON object per line, the same as ContractJson.appendJson followed by a newline
+     */
+    public static final ContractTemplate JSON = compile("{\"toolCode\":${toolCode},\"toolType\":${toolType},\"toolBrand\":${toolBrand}"
+            + ",\"rentalDays\":${rentalDays},\"checkoutDate\":\"${checkoutDate}\",\"dueDate\":\"${dueDate}\""
+            + ",\"dailyRentalCharge\":${dailyRentalCharge},\"chargeDays\":${chargeDays},\"preDiscountCharge\":${preDiscountCharge}"
+            + ",\"discountPercent\":${discountPercent},\"discountAmount\":${discountAmount},\"finalCharge\":${finalCharge}}\n", Escaping.JSON);
+
+    /**
+     * One CSV row per contract, with the columns of CSV_HEADER
+     */
+    public static final ContractTemplate CSV = compile("${toolCode},${toolType},${toolBrand},${rentalDays},${checkoutDate},${dueDate}"
+            + ",${dailyRentalCharge},${chargeDays},${preDiscountCharge},${discountPercent},${discountAmount},${finalCharge}\n", Escaping.CSV);
+
+    public static final String CSV_HEADER = "toolCode,toolType,toolBrand,rentalDays,checkoutDate,dueDate"
+            + ",dailyRentalCharge,chargeDays,preDiscountCharge,discountPercent,discountAmount,finalCharge\n";
+
+    //literals[i] comes before fields[i], and the last literal comes after the last field
+    private final byte[][] literals;
+    private final ContractField[] fields;
+    private final Escaping escaping;
+    private final int literalLength;
+
+    private ContractTemplate(byte[][] literals, ContractField[] fields, Escaping escaping){
+        this.literals = literals;
+        this.fields = fields;
+        this.escaping = escaping;
+        this.literalLength = Arrays.stream(literals).mapToInt(literal -> literal.length).sum();
+    }
+
+    /**
+     * @param source template text with ${field} for each field
+     * @param escaping how the text fields are escaped
+     * @return the compiled template
+     * @throws IllegalArgumentException if a field isn't closed or isn't a ContractField placeholder
+     */
+    public static ContractTemplate compile(String source, Escaping escaping){
+        if(source == null || escaping == null){
+            throw new IllegalStateException("System error -- a contract template needs its source and escaping");
+        }
+        final List<byte[]> literals = new ArrayList<>();
+        final List<ContractField> fields = new ArrayList<>();
+        int literalStart = 0;
+        int fieldStart;
+        while((fieldStart = source.indexOf(FIELD_START, literalStart)) >= 0){
+            final int fieldEnd = source.indexOf('}', fieldStart);
+            if(fieldEnd < 0){
+                throw new IllegalArgumentException("Contract template field at " + fieldStart + " is not closed");
+            }
+            final String placeholder = source.substring(fieldStart + FIELD_START.length(), fieldEnd);
+            final ContractField contractField = FIELDS_BY_PLACEHOLDER.get(placeholder);
+            if(contractField == null){
+                throw new IllegalArgumentException("Contract template has an unknown field " + placeholder);
+            }
+            literals.add(source.substring(literalStart, fieldStart).getBytes(StandardCharsets.UTF_8));
+            fields.add(contractField);
+            literalStart = fieldEnd + 1;
+        }
+        literals.add(source.substring(literalStart).getBytes(StandardCharsets.UTF_8));
+        return new ContractTemplate(literals.toArray(new byte[0][]), fields.toArray(new ContractField[0]), escaping);
+    }
+
+    /**
+     * Write a contract in this template's layout
+     * @param byteBuffer buffer to write into, starting at its position
+     * @param contractRecord contract to write
+     * @throws java.nio.BufferOverflowException if the contract doesn't fit (maxLength bytes always fit)
+     */
+    public void writeTo(ByteBuffer byteBuffer, ContractRecord contractRecord){
+        final ByteBufferAppendable appendable = new ByteBufferAppendable(byteBuffer);
+        try{
+            for(int i = 0; i < fields.length; i++){
+                byteBuffer.put(literals[i]);
+                fields[i].write(appendable, byteBuffer, contractRecord, escaping);
+            }
+        }catch(IOException e){
+            //ByteBufferAppendable does not throw IOException
+            throw new UncheckedIOException(e);
+        }
+        byteBuffer.put(literals[fields.length]);
+    }
+
+    /**
+     * @param contractRecord
+     * @return the most bytes writeTo can write for the contract
+     */
+    public int maxLength(ContractRecord contractRecord){
+        int length = literalLength;
+        for(ContractField contractField : fields){
+            length += contractField.maxLength(contractRecord);
+        }
+        return length;
+    }
+
+    /**
+     * @param contractRecord contract to write
+     * @return the contract in this template's layout, as UTF-8
+     */
+    public byte[] render(ContractRecord contractRecord){
+        return renderAll(contractRecord, this)[0];
+    }
+
+    /**
+     * Compute a contract's charges once and write it in each of the templates
+     * @param toolRentalContract contract with a tool, rental period and charge listing
+     * @param contractTemplates formats to write
+     * @return the contract as UTF-8 in each template's layout, in the same order as the templates
+     */
+    public static byte[][] renderAll(ToolRentalContract toolRentalContract, ContractTemplate... contractTemplates){
+        return renderAll(ContractRecord.fromContract(toolRentalContract), contractTemplates);
+    }
+
+    /**
+     * Write a contract in each of the templates, one after another into a single buffer
+     * @param contractRecord contract to write
+     * @param contractTemplates formats to write
+     * @return the contract as UTF-8 in each template's layout, in the same order as the templates
+     */
+    public static byte[][] renderAll(ContractRecord contractRecord, ContractTemplate... contractTemplates){
+        int maxLength = 0;
+        for(ContractTemplate contractTemplate : contractTemplates){
+            maxLength += contractTemplate.maxLength(contractRecord);
+        }
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(maxLength);
+        final int[] ends = new int[contractTemplates.length];
+        for(int i = 0; i < contractTemplates.length; i++){
+            contractTemplates[i].writeTo(byteBuffer, contractRecord);
+            ends[i] = byteBuffer.position();
+        }
+        final byte[][] renderings = new byte[contractTemplates.length][];
+        for(int i = 0; i < contractTemplates.length; i++){
+            renderings[i] = Arrays.copyOfRange(byteBuffer.array(), i == 0 ? 0 : ends[i - 1], ends[i]);
+        }
+        return renderings;
+    }
+}
@@ -0,0 +1,30 @@
+package org.nateorlow.contract;
+
+import java.util.List;
+
+/**
+ * A contract whose lines have already been produced
+ * This lets the (possibly slow) charge computation happen on one thread,
+ * while a ContractPrinter prints the finished lines on another
+ */
+public class RenderedContract implements Contract {
+    private final List<String> lines;
+
+    public RenderedContract(List<String> lines){
+        this.lines = List.copyOf(lines);
+    }
+
+    public static RenderedContract renderedFrom(Contract contract){
+        return new RenderedContract(contract.toStringList());
+    }
+
+    @Override
+    public List<String> toStringList(){
+        return lines;
+    }
+
+    @Override
+    public String toString(){
+        return String.join("\n", lines);
+    }
+}
@@ -0,0 +1,48 @@
+package org.nateorlow.contract;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Prints each contract to an output stream with a single write
+ *
+ * The contract is rendered into a buffer that is reused for every contract (and grown if a contract doesn't fit),
+ * so printing doesn't create lists of lines or a string per line like LogContractPrinter does.
+ * Contracts are printed one at a time, so a printer can be shared between threads
+ */
+public class StreamContractPrinter implements ContractPrinter {
+    private static final int INITIAL_BUFFER_BYTES = 1024;
+
+    private final OutputStream outputStream;
+    private ByteBuffer contractBuffer = ByteBuffer.allocate(INITIAL_BUFFER_BYTES);
+
+    public StreamContractPrinter(){
+        this(System.out);
+    }
+
+    public StreamContractPrinter(OutputStream outputStream){
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    public synchronized void printContract(Contract contract){
+        while(true){
+            contractBuffer.clear();
+            try{
+                contract.writeTo(contractBuffer);
+                break;
+            }catch(BufferOverflowException e){
+                contractBuffer = ByteBuffer.allocate(contractBuffer.capacity() * 2);
+            }
+        }
+        try{
+            outputStream.write(contractBuffer.array(), 0, contractBuffer.position());
+            outputStream.flush();
+        }catch(IOException e){
+            throw new UncheckedIOException("Unable to print contract", e);
+        }
+    }
+}
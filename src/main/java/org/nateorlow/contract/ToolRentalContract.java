@@ -1,12 +1,16 @@
 package org.nateorlow.contract;
 
 import lombok.Builder;
+import lombok.Getter;
 import org.nateorlow.charge.ChargeCalculator;
 import org.nateorlow.charge.ChargeListing;
 import org.nateorlow.charge.ChargeableDayCounter;
+import org.nateorlow.charge.MdyDates;
 import org.nateorlow.charge.RentalPeriod;
 import org.nateorlow.tool.Tool;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.format.DateTimeFormatter;
@@ -25,10 +29,15 @@ import java.util.List;
 
 @Builder
 public class ToolRentalContract implements Contract {
+    @Getter
     Tool tool;
+    @Getter
     RentalPeriod rentalPeriod;
     ChargeListing chargeListing;
     int discountPercent;
+    //version of the price book chargeListing came from (PriceBook.NO_VERSION if it wasn't from one)
+    @Getter
+    long priceBookVersion;
     ChargeCalculator chargeCalculator;
     ChargeableDayCounter chargeableDayCounter;
 
@@ -36,9 +45,49 @@ public class ToolRentalContract implements Contract {
     public static final RoundingMode HALF_UP = RoundingMode.HALF_UP;
     public static final DateTimeFormatter MDY_FORMATTER = DateTimeFormatter.ofPattern("M/d/y");
 
-    //toStringList is recommended instead
+    //toStringList or appendTo is recommended instead
     public String toString(){
-        return String.join("\n", toStringList());
+        final StringBuilder stringBuilder = new StringBuilder();
+        try{
+            appendTo(stringBuilder);
+        }catch(IOException e){
+            //StringBuilder does not throw IOException
+            throw new UncheckedIOException(e);
+        }
+        //lines are joined with newlines, without one after the last line
+        if(stringBuilder.length() > 0){
+            stringBuilder.setLength(stringBuilder.length() - 1);
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Write the same lines as toStringList straight into an appendable, each ending in a newline
+     * Numbers and dates are written a character at a time, so the only strings made are for the charge amounts
+     * @param appendable where the contract text goes
+     * @throws IOException if the appendable can't be written to
+     */
+    @Override
+    public void appendTo(Appendable appendable) throws IOException {
+        if(tool != null){
+            appendable.append("Tool code: ").append(tool.getCode()).append('\n');
+            appendable.append("Tool type: ").append(tool.getType()).append('\n');
+            appendable.append("Tool brand: ").append(tool.getBrand()).append('\n');
+        }
+        if(rentalPeriod != null){
+            appendNumber(appendable.append("Rental days: "), rentalPeriod.getRentalDayCount()).append('\n');
+            MdyDates.appendMdy(appendable.append("Check out date: "), rentalPeriod.getStartEpochDay()).append('\n');
+            MdyDates.appendMdy(appendable.append("Due date: "), rentalPeriod.getEndEpochDay()).append('\n');
+        }
+        final ContractCharges contractCharges = computeCharges();
+        if(contractCharges != null){
+            appendable.append("Daily rental charge: $").append(chargeListing.getDailyCharge().toString()).append('\n');
+            appendNumber(appendable.append("Charge days: "), contractCharges.chargeableDays).append('\n');
+            appendable.append("Pre-discount charge: $").append(contractCharges.baseCharge.toString()).append('\n');
+            appendNumber(appendable.append("Discount percent: "), discountPercent).append("%\n");
+            appendable.append("Discount amount: $").append(contractCharges.discountCharge.toString()).append('\n');
+            appendable.append("Final Charge: $").append(contractCharges.finalCharge.toString()).append('\n');
+        }
     }
 
     /**
@@ -77,23 +126,87 @@ public class ToolRentalContract implements Contract {
      * @param outputList List of lines representing the charge section of this contract
      */
     void printChargeSectionToList(List<String> outputList){
-        if(rentalPeriod == null || chargeListing == null){
+        final ContractCharges contractCharges = computeCharges();
+        if(contractCharges == null){
             return;
+        }
+        outputList.add("Daily rental charge: $" + chargeListing.getDailyCharge());
+        outputList.add("Charge days: " + contractCharges.chargeableDays);
+        outputList.add("Pre-discount charge: $" + contractCharges.baseCharge);
+        outputList.add("Discount percent: " + discountPercent + "%");
+        outputList.add("Discount amount: $" + contractCharges.discountCharge);
+        outputList.add("Final Charge: $" + contractCharges.finalCharge);
+    }
+
+    /**
+     * Compute the charges using the chargeableDayCounter and chargeCalculator
+     * @return the rounded charges, or null if there is no rental period or charge listing to charge for
+     */
+    ContractCharges computeCharges(){
+        if(rentalPeriod == null || chargeListing == null){
+            return null;
         }else if(chargeableDayCounter == null || chargeCalculator == null){
             throw new IllegalStateException("System error - No configured day counter or charge calculator");
         }
         final int chargeableDays = chargeableDayCounter.chargeableDaysForListing(rentalPeriod, chargeListing);
-        final BigDecimal baseCharge = chargeCalculator.calculateBaseCharge(chargeableDays, chargeListing)
+        if(chargeCalculator.pricesInCents()){
+            try{
+                return computeChargesInCents(chargeableDays);
+            }catch(ArithmeticException overflow){
+                //too many cents for a long, so price it with BigDecimals below
+            }
+        }
+        final BigDecimal baseCharge = chargeCalculator.calculateBaseCharge(rentalPeriod, chargeableDays, chargeListing)
                                                       .setScale(ROUND_TO_PLACES, HALF_UP);
         final BigDecimal discountCharge = chargeCalculator.calculateDiscountCharge(baseCharge, discountPercent)
                                                           .setScale(ROUND_TO_PLACES, HALF_UP);
         final BigDecimal finalCharge = baseCharge.subtract(discountCharge);
-        outputList.add("Daily rental charge: $" + chargeListing.getDailyCharge());
-        outputList.add("Charge days: " + chargeableDays);
-        outputList.add("Pre-discount charge: $" + baseCharge);
-        outputList.add("Discount percent: " + discountPercent + "%");
-        outputList.add("Discount amount: $" + discountCharge);
-        outputList.add("Final Charge: $" + finalCharge);
+        return new ContractCharges(chargeableDays, baseCharge, discountCharge, finalCharge);
+    }
+
+    //The same charges as computeCharges, with the rounding done on longs and BigDecimals made only for the results
+    private ContractCharges computeChargesInCents(int chargeableDays){
+        final long baseChargeInCents = chargeCalculator.calculateBaseChargeInCents(rentalPeriod, chargeableDays, chargeListing);
+        final long discountChargeInCents = chargeCalculator.calculateDiscountChargeInCents(baseChargeInCents, discountPercent);
+        final long finalChargeInCents = Math.subtractExact(baseChargeInCents, discountChargeInCents);
+        return new ContractCharges(chargeableDays, BigDecimal.valueOf(baseChargeInCents, ROUND_TO_PLACES),
+                BigDecimal.valueOf(discountChargeInCents, ROUND_TO_PLACES), BigDecimal.valueOf(finalChargeInCents, ROUND_TO_PLACES));
+    }
+
+    //Writes the digits of a whole number without making a string
+    private static Appendable appendNumber(Appendable appendable, long number) throws IOException {
+        if(number < 0){
+            appendable.append('-');
+            if(number == Long.MIN_VALUE){
+                return appendable.append("9223372036854775808");
+            }
+            number = -number;
+        }
+        long placeValue = 1;
+        while(placeValue <= number / 10){
+            placeValue *= 10;
+        }
+        for(; placeValue > 0; placeValue /= 10){
+            appendable.append((char) ('0' + (number / placeValue) % 10));
+        }
+        return appendable;
+    }
+
+    /**
+     * The computed charges for a contract, rounded the same way they are printed
+     */
+    static class ContractCharges {
+        final int chargeableDays;
+        final BigDecimal baseCharge;
+        final BigDecimal discountCharge;
+        final BigDecimal finalCharge;
+
+        ContractCharges(int chargeableDays, BigDecimal baseCharge, BigDecimal discountCharge, BigDecimal finalCharge){
+            this.chargeableDays = chargeableDays;
+            this.baseCharge = baseCharge;
+            this.discountCharge = discountCharge;
+            this.finalCharge = finalCharge;
+        }
     }
 
 }
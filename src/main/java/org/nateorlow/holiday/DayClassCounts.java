@@ -0,0 +1,20 @@
+package org.nateorlow.holiday;
+
+import lombok.Getter;
+
+/**
+ * How many days of each class fall in a span of days
+ * A holiday is only counted as a holiday, even when it lands on a weekend
+ */
+@Getter
+public class DayClassCounts {
+    int nonHolidayWeekdays;
+    int nonHolidayWeekends;
+    int holidays;
+
+    public DayClassCounts(int nonHolidayWeekdays, int nonHolidayWeekends, int holidays){
+        this.nonHolidayWeekdays = nonHolidayWeekdays;
+        this.nonHolidayWeekends = nonHolidayWeekends;
+        this.holidays = holidays;
+    }
+}
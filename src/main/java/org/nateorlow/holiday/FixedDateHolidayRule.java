@@ -0,0 +1,38 @@
+package org.nateorlow.holiday;
+
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+
+/**
+ * A holiday on the same month and day every year, such as July 4
+ * If weekendObserved is set, a Saturday holiday is observed on Friday and a Sunday holiday on Monday
+ * Rules are equal if they give the same dates, whatever their names
+ */
+@Builder
+@Getter
+@EqualsAndHashCode
+public class FixedDateHolidayRule implements HolidayRule {
+    @EqualsAndHashCode.Exclude
+    String name;
+    Month month;
+    int dayOfMonth;
+    boolean weekendObserved;
+
+    @Override
+    public LocalDate observedDateForYear(int year){
+        final LocalDate holiday = LocalDate.of(year, month, dayOfMonth);
+        if(!weekendObserved){
+            return holiday;
+        }else if(DayOfWeek.SATURDAY == holiday.getDayOfWeek()){
+            return holiday.minusDays(1);
+        }else if(DayOfWeek.SUNDAY == holiday.getDayOfWeek()){
+            return holiday.plusDays(1);
+        }
+        return holiday;
+    }
+}
@@ -0,0 +1,168 @@
+package org.nateorlow.holiday;
+
+import lombok.Builder;
+import lombok.Singular;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A set of holiday rules, along with a cache of which days are weekdays, weekends and holidays
+ *
+ * The Gregorian calendar repeats every 400 years, which is a whole number of weeks, and so do the holiday rules.
+ * The rules are evaluated once per year of that cycle, the first time a date in that year is used,
+ * and the result is kept as a bitmap. After that, checking a day is a bit lookup,
+ * so adding more holidays does not make checking a day any slower.
+ * The cache never holds more than one cycle of years, however many different years are used.
+ * The cache is safe to share between threads
+ */
+public class HolidayCalendar {
+    static final int YEARS_PER_CYCLE = 400;
+    //any year that starts a cycle works, this one keeps the neighboring years well inside LocalDate's range
+    private static final int FIRST_CYCLE_YEAR = 2000;
+
+    private final List<HolidayRule> rules;
+    //indexed by the year's position in the cycle
+    private final AtomicReferenceArray<YearDayClasses> yearDayClassesInCycle = new AtomicReferenceArray<>(YEARS_PER_CYCLE);
+    //running totals through the cycle, built the first time whole years are counted
+    private volatile CycleTotals cycleTotals;
+
+    @Builder
+    private HolidayCalendar(@Singular List<HolidayRule> rules){
+        this.rules = List.copyOf(rules);
+    }
+
+    public List<HolidayRule> getRules(){
+        return rules;
+    }
+
+    public boolean isHoliday(LocalDate localDate){
+        return yearDayClasses(localDate.getYear()).isHoliday(localDate.getDayOfYear() - 1);
+    }
+
+    public boolean isWeekend(LocalDate localDate){
+        return yearDayClasses(localDate.getYear()).isWeekend(localDate.getDayOfYear() - 1);
+    }
+
+    /**
+     * Check a date by evaluating every rule directly, without the cached bitmaps
+     * This is slow, but useful for checking the cached calendar
+     * @param localDate
+     * @return true if any rule observes a holiday on that date
+     */
+    public boolean matchesAnyRule(LocalDate localDate){
+        for(HolidayRule rule : rules){
+            if(rule.isObservedOn(localDate)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Count the weekdays, weekends and holidays between two dates (inclusive)
+     * Only the first and last years are counted from their bitmaps. The whole years in between
+     * come from running totals through the 400 year cycle, so the time taken does not depend on the span
+     * @param firstDate first day to count
+     * @param lastDate last day to count, not before firstDate
+     * @return counts of each class of day
+     */
+    public DayClassCounts countDayClasses(LocalDate firstDate, LocalDate lastDate){
+        if(lastDate.isBefore(firstDate)){
+            return new DayClassCounts(0, 0, 0);
+        }
+        final int firstYear = firstDate.getYear();
+        final int lastYear = lastDate.getYear();
+        final int firstIndex = firstDate.getDayOfYear() - 1;
+        final int lastIndex = lastDate.getDayOfYear();
+        long weekendDays;
+        long holidays;
+        long weekendHolidays;
+        if(firstYear == lastYear){
+            final YearDayClasses yearDayClasses = yearDayClasses(firstYear);
+            weekendDays = yearDayClasses.countWeekendDays(firstIndex, lastIndex);
+            holidays = yearDayClasses.countHolidays(firstIndex, lastIndex);
+            weekendHolidays = yearDayClasses.countWeekendHolidays(firstIndex, lastIndex);
+        }else{
+            final YearDayClasses firstYearDayClasses = yearDayClasses(firstYear);
+            final YearDayClasses lastYearDayClasses = yearDayClasses(lastYear);
+            weekendDays = firstYearDayClasses.countWeekendDays(firstIndex, firstYearDayClasses.dayCount)
+                    + lastYearDayClasses.countWeekendDays(0, lastIndex);
+            holidays = firstYearDayClasses.countHolidays(firstIndex, firstYearDayClasses.dayCount)
+                    + lastYearDayClasses.countHolidays(0, lastIndex);
+            weekendHolidays = firstYearDayClasses.countWeekendHolidays(firstIndex, firstYearDayClasses.dayCount)
+                    + lastYearDayClasses.countWeekendHolidays(0, lastIndex);
+            if(lastYear - firstYear > 1){
+                final CycleTotals totals = cycleTotals();
+                weekendDays += totals.weekendDaysBefore(lastYear) - totals.weekendDaysBefore(firstYear + 1);
+                holidays += totals.holidaysBefore(lastYear) - totals.holidaysBefore(firstYear + 1);
+                weekendHolidays += totals.weekendHolidaysBefore(lastYear) - totals.weekendHolidaysBefore(firstYear + 1);
+            }
+        }
+        final long totalDays = lastDate.toEpochDay() - firstDate.toEpochDay() + 1;
+        final long weekdayHolidays = holidays - weekendHolidays;
+        return new DayClassCounts(Math.toIntExact(totalDays - weekendDays - weekdayHolidays),
+                Math.toIntExact(weekendDays - weekendHolidays), Math.toIntExact(holidays));
+    }
+
+    YearDayClasses yearDayClasses(int year){
+        final int cycleIndex = Math.floorMod(year, YEARS_PER_CYCLE);
+        final YearDayClasses cached = yearDayClassesInCycle.get(cycleIndex);
+        if(cached != null){
+            return cached;
+        }
+        //if two threads build the same year at once, they build the same bitmaps, and the first one is kept
+        yearDayClassesInCycle.compareAndSet(cycleIndex, null, new YearDayClasses(FIRST_CYCLE_YEAR + cycleIndex, rules));
+        return yearDayClassesInCycle.get(cycleIndex);
+    }
+
+    private CycleTotals cycleTotals(){
+        CycleTotals totals = cycleTotals;
+        if(totals == null){
+            //building twice is harmless, both threads get the same totals
+            totals = new CycleTotals();
+            cycleTotals = totals;
+        }
+        return totals;
+    }
+
+    /**
+     * Weekend days, holidays and weekend holidays in all the cycle's years before each year
+     * The count before any year is whole cycles of the cycle totals, plus the running total within its cycle
+     */
+    private class CycleTotals {
+        private final int[] weekendDaysBefore = new int[YEARS_PER_CYCLE + 1];
+        private final int[] holidaysBefore = new int[YEARS_PER_CYCLE + 1];
+        private final int[] weekendHolidaysBefore = new int[YEARS_PER_CYCLE + 1];
+
+        CycleTotals(){
+            for(int cycleIndex = 0; cycleIndex < YEARS_PER_CYCLE; cycleIndex++){
+                final YearDayClasses yearDayClasses = yearDayClasses(cycleIndex);
+                weekendDaysBefore[cycleIndex + 1] = weekendDaysBefore[cycleIndex]
+                        + yearDayClasses.countWeekendDays(0, yearDayClasses.dayCount);
+                holidaysBefore[cycleIndex + 1] = holidaysBefore[cycleIndex]
+                        + yearDayClasses.countHolidays(0, yearDayClasses.dayCount);
+                weekendHolidaysBefore[cycleIndex + 1] = weekendHolidaysBefore[cycleIndex]
+                        + yearDayClasses.countWeekendHolidays(0, yearDayClasses.dayCount);
+            }
+        }
+
+        long weekendDaysBefore(int year){
+            return before(weekendDaysBefore, year);
+        }
+
+        long holidaysBefore(int year){
+            return before(holidaysBefore, year);
+        }
+
+        long weekendHolidaysBefore(int year){
+            return before(weekendHolidaysBefore, year);
+        }
+
+        private static long before(int[] runningTotals, int year){
+            final long wholeCycles = Math.floorDiv(year, YEARS_PER_CYCLE);
+            return wholeCycles * runningTotals[YEARS_PER_CYCLE] + runningTotals[Math.floorMod(year, YEARS_PER_CYCLE)];
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.nateorlow.holiday;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The holiday calendar for each region stores are in, looked up by region code (e.g. "US", "CA-QC")
+ *
+ * Regions that observe the same holidays share one HolidayCalendar, so each distinct set of rules
+ * builds its yearly bitmaps once, however many regions use it. Looking up a region is one hash lookup
+ * and checking a day is a bit lookup, so adding regions doesn't make checkouts any slower.
+ * Lookups don't lock; registering a region locks only against other registrations
+ */
+public class HolidayCalendars {
+    //Used for stores without a region, with the holidays HolidayChargeableDayCounter has always used
+    public static final String DEFAULT_REGION = "US";
+
+    private final ConcurrentMap<String, HolidayCalendar> calendarsByRegion = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Set<HolidayRule>, HolidayCalendar> calendarsByRules = new ConcurrentHashMap<>();
+
+    public HolidayCalendars(){
+        //filled in directly, since register can be overridden
+        final HolidayCalendar defaultCalendar = StandardHolidays.INDEPENDENCE_AND_LABOR_DAY;
+        calendarsByRules.put(Set.copyOf(defaultCalendar.getRules()), defaultCalendar);
+        calendarsByRegion.put(DEFAULT_REGION, defaultCalendar);
+    }
+
+    /**
+     * Set the holidays for a region, replacing any it had
+     * @param region
+     * @param rules holidays observed in the region (the order doesn't matter)
+     * @return the region's calendar, which is shared with any other region observing the same holidays
+     */
+    public HolidayCalendar register(String region, Collection<HolidayRule> rules){
+        return register(region, HolidayCalendar.builder().rules(rules).build());
+    }
+
+    /**
+     * Set the calendar for a region, replacing any it had
+     * If another region already has a calendar with the same rules, that calendar is used instead,
+     * along with the years it has already built
+     * @param region
+     * @param holidayCalendar
+     * @return the region's calendar
+     */
+    public synchronized HolidayCalendar register(String region, HolidayCalendar holidayCalendar){
+        if(region == null || region.isEmpty()){
+            throw new IllegalArgumentException("Holiday region must not be null or empty");
+        }else if(holidayCalendar == null){
+            throw new IllegalStateException("System error -- holiday region " + region + " needs a calendar");
+        }
+        final HolidayCalendar sharedCalendar = calendarsByRules.computeIfAbsent(Set.copyOf(holidayCalendar.getRules()), rules -> holidayCalendar);
+        calendarsByRegion.put(region, sharedCalendar);
+        return sharedCalendar;
+    }
+
+    /**
+     * @param region region code, or null for DEFAULT_REGION
+     * @return the region's calendar
+     */
+    public HolidayCalendar calendarFor(String region){
+        final HolidayCalendar holidayCalendar = calendarsByRegion.get(region == null ? DEFAULT_REGION : region);
+        if(holidayCalendar == null){
+            throw new IllegalArgumentException("No holiday calendar for region " + region);
+        }
+        return holidayCalendar;
+    }
+
+    public Set<String> getRegions(){
+        return Collections.unmodifiableSet(calendarsByRegion.keySet());
+    }
+
+    /**
+     * @return number of distinct calendars behind the regions (including ones whose regions were since given other calendars)
+     */
+    public int distinctCalendarCount(){
+        return calendarsByRules.size();
+    }
+}
@@ -0,0 +1,33 @@
+package org.nateorlow.holiday;
+
+import java.time.LocalDate;
+
+/**
+ * A declarative rule for one holiday, such as "July 4, observed on the nearest weekday"
+ * Rules are only evaluated when a HolidayCalendar builds a year, not for every day that is checked
+ * A rule should only depend on the month, day and day of the week, so it repeats every 400 years like the calendar does --
+ * a HolidayCalendar evaluates each year of that cycle once and uses it for every year in the same position
+ */
+public interface HolidayRule {
+    /**
+     * @param year
+     * @return the date this holiday is observed for that year's occurrence
+     * (this can fall in a neighboring year, e.g. a Saturday January 1 observed on December 31)
+     */
+    LocalDate observedDateForYear(int year);
+
+    /**
+     * Check a single date against this rule, without using a calendar
+     * @param localDate
+     * @return true if the holiday is observed on that date
+     */
+    default boolean isObservedOn(LocalDate localDate){
+        //the observed date can move into the next or previous year, so check the neighboring years too
+        for(int year = localDate.getYear() - 1; year <= localDate.getYear() + 1; year++){
+            if(localDate.equals(observedDateForYear(year))){
+                return true;
+            }
+        }
+        return false;
+    }
+}
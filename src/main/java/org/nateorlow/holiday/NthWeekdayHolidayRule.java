@@ -0,0 +1,40 @@
+package org.nateorlow.holiday;
+
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * A holiday on a given weekday of a month, such as the first Monday in September
+ * Use LAST as the ordinal for rules like the last Monday in May
+ * Rules are equal if they give the same dates, whatever their names
+ */
+@Builder
+@Getter
+@EqualsAndHashCode
+public class NthWeekdayHolidayRule implements HolidayRule {
+    public static final int LAST = -1;
+
+    @EqualsAndHashCode.Exclude
+    String name;
+    Month month;
+    DayOfWeek dayOfWeek;
+    int ordinal;
+
+    @Override
+    public LocalDate observedDateForYear(int year){
+        final LocalDate firstOfMonth = LocalDate.of(year, month, 1);
+        if(ordinal == LAST){
+            return firstOfMonth.with(TemporalAdjusters.lastInMonth(dayOfWeek));
+        }else if(ordinal < 1 || ordinal > 4){
+            //a fifth weekday does not exist in every month, so it can't be used as a yearly holiday
+            throw new IllegalStateException("System error -- holiday rule " + name + " needs an ordinal from 1 to 4, or LAST");
+        }
+        return firstOfMonth.with(TemporalAdjusters.dayOfWeekInMonth(ordinal, dayOfWeek));
+    }
+}
@@ -0,0 +1,23 @@
+package org.nateorlow.holiday;
+
+import java.time.DayOfWeek;
+import java.time.Month;
+
+//These might be in a database along with the store locations that observe them
+public class StandardHolidays {
+    public static final HolidayRule OBSERVED_INDEPENDENCE_DAY = FixedDateHolidayRule.builder()
+                                                                                  .name("Independence Day")
+                                                                                  .month(Month.JULY).dayOfMonth(4)
+                                                                                  .weekendObserved(true).build();
+    public static final HolidayRule LABOR_DAY = NthWeekdayHolidayRule.builder()
+                                                                      .name("Labor Day")
+                                                                      .month(Month.SEPTEMBER).dayOfWeek(DayOfWeek.MONDAY)
+                                                                      .ordinal(1).build();
+
+    //The holidays used when no other calendar is configured
+    public static final HolidayCalendar INDEPENDENCE_AND_LABOR_DAY =
+            HolidayCalendar.builder().rule(OBSERVED_INDEPENDENCE_DAY).rule(LABOR_DAY).build();
+
+    private StandardHolidays(){
+    }
+}
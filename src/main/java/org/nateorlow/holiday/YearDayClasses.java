@@ -0,0 +1,109 @@
+package org.nateorlow.holiday;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Bitmaps of the weekend days and holidays in one year, indexed by day of year (starting at 0)
+ * A day with neither bit set is a weekday. These are built once per year of the 400 year cycle and never change,
+ * so they can be shared between threads, and by every year in the same position of the cycle
+ */
+class YearDayClasses {
+    static final int MAX_DAYS_IN_YEAR = 366;
+    private static final int WORD_COUNT = (MAX_DAYS_IN_YEAR + Long.SIZE - 1) / Long.SIZE;
+
+    final int year;
+    final int dayCount;
+    private final long[] weekendBits = new long[WORD_COUNT];
+    private final long[] holidayBits = new long[WORD_COUNT];
+    private final long[] weekendHolidayBits = new long[WORD_COUNT];
+    //whole-year totals, so years in the middle of a long rental don't need any bit counting
+    private final int weekendDaysInYear;
+    private final int holidaysInYear;
+    private final int weekendHolidaysInYear;
+
+    YearDayClasses(int year, List<HolidayRule> holidayRules){
+        this.year = year;
+        final LocalDate firstDay = LocalDate.ofYearDay(year, 1);
+        this.dayCount = firstDay.lengthOfYear();
+
+        final int firstDayOfWeekIndex = firstDay.getDayOfWeek().getValue() - 1;
+        final int saturdayIndex = DayOfWeek.SATURDAY.getValue() - 1;
+        for(int dayIndex = 0; dayIndex < dayCount; dayIndex++){
+            if((firstDayOfWeekIndex + dayIndex) % 7 >= saturdayIndex){
+                setBit(weekendBits, dayIndex);
+            }
+        }
+
+        //an observed date can move across new year, so the neighboring years' holidays are checked too
+        for(HolidayRule holidayRule : holidayRules){
+            for(int ruleYear = year - 1; ruleYear <= year + 1; ruleYear++){
+                final LocalDate observedDate = holidayRule.observedDateForYear(ruleYear);
+                if(observedDate.getYear() == year){
+                    setBit(holidayBits, observedDate.getDayOfYear() - 1);
+                }
+            }
+        }
+
+        for(int word = 0; word < WORD_COUNT; word++){
+            weekendHolidayBits[word] = weekendBits[word] & holidayBits[word];
+        }
+        this.weekendDaysInYear = countBits(weekendBits, 0, dayCount);
+        this.holidaysInYear = countBits(holidayBits, 0, dayCount);
+        this.weekendHolidaysInYear = countBits(weekendHolidayBits, 0, dayCount);
+    }
+
+    boolean isWeekend(int dayIndex){
+        return isBitSet(weekendBits, dayIndex);
+    }
+
+    boolean isHoliday(int dayIndex){
+        return isBitSet(holidayBits, dayIndex);
+    }
+
+    //The counting methods take a range of day indexes, from (inclusive) to (exclusive)
+
+    int countWeekendDays(int fromIndex, int toIndex){
+        return isWholeYear(fromIndex, toIndex) ? weekendDaysInYear : countBits(weekendBits, fromIndex, toIndex);
+    }
+
+    int countHolidays(int fromIndex, int toIndex){
+        return isWholeYear(fromIndex, toIndex) ? holidaysInYear : countBits(holidayBits, fromIndex, toIndex);
+    }
+
+    int countWeekendHolidays(int fromIndex, int toIndex){
+        return isWholeYear(fromIndex, toIndex) ? weekendHolidaysInYear : countBits(weekendHolidayBits, fromIndex, toIndex);
+    }
+
+    private boolean isWholeYear(int fromIndex, int toIndex){
+        return fromIndex == 0 && toIndex == dayCount;
+    }
+
+    private static void setBit(long[] bits, int index){
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static boolean isBitSet(long[] bits, int index){
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static int countBits(long[] bits, int fromIndex, int toIndex){
+        if(fromIndex >= toIndex){
+            return 0;
+        }
+        final int firstWord = fromIndex >>> 6;
+        final int lastWord = (toIndex - 1) >>> 6;
+        //shifts only use the low 6 bits of the index, so these masks select within a word
+        final long firstMask = -1L << fromIndex;
+        final long lastMask = -1L >>> -toIndex;
+        if(firstWord == lastWord){
+            return Long.bitCount(bits[firstWord] & firstMask & lastMask);
+        }
+        int count = Long.bitCount(bits[firstWord] & firstMask);
+        for(int word = firstWord + 1; word < lastWord; word++){
+            count += Long.bitCount(bits[word]);
+        }
+        return count + Long.bitCount(bits[lastWord] & lastMask);
+    }
+}
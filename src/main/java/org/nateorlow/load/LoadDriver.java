@@ -0,0 +1,125 @@
+package org.nateorlow.load;
+
+import lombok.Builder;
+import org.nateorlow.metrics.LatencyHistogram;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends a list of requests to a LoadTarget and reports throughput and latency
+ *
+ * Closed loop (no arrival rate): concurrency workers each send a request, wait for the answer and send the next.
+ * This finds the throughput the target can sustain, but when the target stalls the workers stop sending,
+ * so the requests that would have arrived meanwhile are never measured (coordinated omission).
+ * Its latencies are service times, not what a customer arriving at a steady rate would see.
+ *
+ * Open loop (arrivalsPerSecond set): requests are scheduled at a fixed rate whatever the target is doing,
+ * and handed to concurrency workers; a request waits in the queue if every worker is busy.
+ * Each latency is measured from when the request was scheduled to be sent, not when a worker got to it,
+ * so a stall shows up in every request that arrived during it, the way customers would see it.
+ *
+ * The first warmupRequestCount requests are sent the same way but not measured, so the JIT has compiled the hot path
+ */
+@Builder
+public class LoadDriver {
+    LoadTarget loadTarget;
+    List<RentalRequest> rentalRequests;
+    @Builder.Default
+    int concurrency = Runtime.getRuntime().availableProcessors();
+    //requests per second for an open loop, or null for a closed loop
+    Double arrivalsPerSecond;
+    @Builder.Default
+    int warmupRequestCount = 0;
+
+    /**
+     * Send every request and wait for all the answers
+     * @return counts and latencies of the requests after the warm up
+     */
+    public LoadReport run(){
+        if(loadTarget == null || rentalRequests == null){
+            throw new IllegalStateException("System error -- load driver needs a target and requests to send");
+        }else if(concurrency < 1 || warmupRequestCount < 0 || warmupRequestCount >= rentalRequests.size()){
+            throw new IllegalArgumentException("Load driver needs at least one worker, and more requests than warm up requests");
+        }else if(arrivalsPerSecond != null && !(arrivalsPerSecond > 0)){
+            throw new IllegalArgumentException("Arrival rate must be above 0 requests per second");
+        }
+        if(warmupRequestCount > 0){
+            runPhase(rentalRequests.subList(0, warmupRequestCount));
+        }
+        return runPhase(rentalRequests.subList(warmupRequestCount, rentalRequests.size()));
+    }
+
+    private LoadReport runPhase(List<RentalRequest> phaseRequests){
+        final LatencyHistogram latencyHistogram = new LatencyHistogram();
+        final Map<LoadTarget.Outcome, LongAdder> outcomeCounts = new EnumMap<>(LoadTarget.Outcome.class);
+        for(LoadTarget.Outcome outcome : LoadTarget.Outcome.values()){
+            outcomeCounts.put(outcome, new LongAdder());
+        }
+        final ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            final Thread thread = new Thread(runnable, "load-driver-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long startNanos = System.nanoTime();
+        try{
+            if(arrivalsPerSecond == null){
+                final AtomicInteger nextRequest = new AtomicInteger();
+                for(int worker = 0; worker < concurrency; worker++){
+                    workers.execute(() -> {
+                        int request;
+                        while((request = nextRequest.getAndIncrement()) < phaseRequests.size()){
+                            sendAndRecord(phaseRequests.get(request), System.nanoTime(), latencyHistogram, outcomeCounts);
+                        }
+                    });
+                }
+            }else{
+                final double nanosBetweenArrivals = 1_000_000_000.0 / arrivalsPerSecond;
+                for(int request = 0; request < phaseRequests.size(); request++){
+                    //the schedule is fixed from the start, so falling behind here is measured too
+                    final long scheduledNanos = startNanos + (long) (request * nanosBetweenArrivals);
+                    long waitNanos;
+                    while((waitNanos = scheduledNanos - System.nanoTime()) > 0){
+                        LockSupport.parkNanos(waitNanos);
+                    }
+                    final RentalRequest rentalRequest = phaseRequests.get(request);
+                    workers.execute(() -> sendAndRecord(rentalRequest, scheduledNanos, latencyHistogram, outcomeCounts));
+                }
+            }
+        }finally{
+            workers.shutdown();
+        }
+        try{
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }catch(InterruptedException e){
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("System error -- load driver was interrupted", e);
+        }
+        return new LoadReport(arrivalsPerSecond, concurrency, outcomeCounts.get(LoadTarget.Outcome.OK).sum(),
+                outcomeCounts.get(LoadTarget.Outcome.REJECTED).sum(), outcomeCounts.get(LoadTarget.Outcome.FAILED).sum(),
+                System.nanoTime() - startNanos, latencyHistogram);
+    }
+
+    private void sendAndRecord(RentalRequest rentalRequest, long sentNanos, LatencyHistogram latencyHistogram,
+                               Map<LoadTarget.Outcome, LongAdder> outcomeCounts){
+        LoadTarget.Outcome outcome;
+        try{
+            outcome = loadTarget.send(rentalRequest);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            outcome = LoadTarget.Outcome.FAILED;
+        }catch(Exception e){
+            outcome = LoadTarget.Outcome.FAILED;
+        }
+        latencyHistogram.record(System.nanoTime() - sentNanos);
+        outcomeCounts.get(outcome == null ? LoadTarget.Outcome.FAILED : outcome).increment();
+    }
+}
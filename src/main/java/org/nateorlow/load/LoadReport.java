@@ -0,0 +1,64 @@
+package org.nateorlow.load;
+
+import lombok.Getter;
+import org.nateorlow.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Totals from a LoadDriver run
+ * Latencies are kept in a LatencyHistogram, so percentiles are within about 1.6%
+ */
+@Getter
+public class LoadReport {
+    //null for a closed loop
+    final Double arrivalsPerSecond;
+    final int concurrency;
+    final long successCount;
+    //answered, but turned down (bad input, or the tool was already reserved)
+    final long rejectedCount;
+    final long failedCount;
+    final long elapsedNanos;
+    final LatencyHistogram latencyHistogram;
+
+    LoadReport(Double arrivalsPerSecond, int concurrency, long successCount, long rejectedCount, long failedCount,
+               long elapsedNanos, LatencyHistogram latencyHistogram){
+        this.arrivalsPerSecond = arrivalsPerSecond;
+        this.concurrency = concurrency;
+        this.successCount = successCount;
+        this.rejectedCount = rejectedCount;
+        this.failedCount = failedCount;
+        this.elapsedNanos = elapsedNanos;
+        this.latencyHistogram = latencyHistogram;
+    }
+
+    public long getRequestCount(){
+        return successCount + rejectedCount + failedCount;
+    }
+
+    public double getRequestsPerSecond(){
+        return elapsedNanos == 0 ? 0 : getRequestCount() * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * @param percentile e.g. 99.9 for the 99.9th percentile
+     * @return latency in microseconds
+     */
+    public double latencyMicros(double percentile){
+        return latencyHistogram.valueAtPercentile(percentile) / 1000.0;
+    }
+
+    @Override
+    public String toString(){
+        final List<String> lines = new ArrayList<>();
+        lines.add(arrivalsPerSecond == null
+                ? String.format("Closed loop with %d workers", concurrency)
+                : String.format("Open loop at %.0f requests/s with %d workers", arrivalsPerSecond, concurrency));
+        lines.add(String.format("%d requests (%d ok, %d rejected, %d failed) in %.2f s: %.0f requests/s",
+                getRequestCount(), successCount, rejectedCount, failedCount, elapsedNanos / 1e9, getRequestsPerSecond()));
+        lines.add(String.format("latency us: p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f",
+                latencyMicros(50), latencyMicros(90), latencyMicros(99), latencyMicros(99.9), latencyHistogram.getMaxNanos() / 1000.0));
+        return String.join("\n", lines);
+    }
+}
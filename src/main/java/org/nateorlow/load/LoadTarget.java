@@ -0,0 +1,21 @@
+package org.nateorlow.load;
+
+/**
+ * Whatever a LoadDriver sends requests to: a Checkout in the same process, a CheckoutServer over HTTP,
+ * or any later front end. send is called from many threads at once and should return when the request is answered
+ */
+@FunctionalInterface
+public interface LoadTarget {
+    enum Outcome {
+        OK,
+        //the request was answered, but turned down (bad input, or the tool was already reserved)
+        REJECTED,
+        FAILED
+    }
+
+    /**
+     * @param rentalRequest
+     * @return how the request was answered; an exception counts as FAILED
+     */
+    Outcome send(RentalRequest rentalRequest) throws Exception;
+}
@@ -0,0 +1,11 @@
+package org.nateorlow.load;
+
+/**
+ * One generated checkout request, with the same fields a customer would enter
+ * @param toolCode
+ * @param rentalDayCount
+ * @param discountPercent
+ * @param checkoutDateMDY check out date in M/d/y form, with the year written out in full
+ */
+public record RentalRequest(String toolCode, int rentalDayCount, int discountPercent, String checkoutDateMDY){
+}
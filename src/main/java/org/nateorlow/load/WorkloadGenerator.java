@@ -0,0 +1,136 @@
+package org.nateorlow.load;
+
+import lombok.Builder;
+import org.nateorlow.holiday.HolidayCalendar;
+import org.nateorlow.holiday.StandardHolidays;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Makes streams of rental requests that look like a busy store's, for load tests
+ *
+ * - Tool codes follow a Zipf distribution over the order they are given in: the k-th code is asked for
+ *   in proportion to 1/k^toolCodeSkew, so a few tools get most of the requests (0 makes every tool equally likely)
+ * - holidayShare of the check out dates fall in the few days before and on a holiday of the calendar,
+ *   where the holiday day counting matters most; the rest are spread evenly from firstDate to lastDate
+ * - Rental lengths are mostly a few days, with a long tail out to three months
+ * - Most rentals have no discount, and a few have large ones
+ *
+ * The same seed always gives the same requests, so runs can be compared
+ */
+public class WorkloadGenerator {
+    //rental lengths and discounts, with how often each range or value comes up (as running totals, see pick)
+    private static final int[][] RENTAL_DAY_RANGES = {{1, 3}, {4, 7}, {8, 30}, {31, 90}};
+    private static final double[] RENTAL_DAY_RANGE_WEIGHTS = cumulative(new double[]{50, 30, 15, 5});
+    private static final int[] DISCOUNT_PERCENTS = {0, 5, 10, 15, 20, 50, 100};
+    private static final double[] DISCOUNT_PERCENT_WEIGHTS = cumulative(new double[]{60, 10, 15, 5, 5, 4, 1});
+    //holiday-season check outs are up to this many days before the holiday, or on it
+    private static final int DAYS_BEFORE_HOLIDAY = 3;
+
+    private final List<String> toolCodes;
+    private final double[] cumulativeToolCodeWeights;
+    private final double holidayShare;
+    private final long firstEpochDay;
+    private final long dayCount;
+    private final long[] holidayEpochDays;
+    private final long seed;
+
+    /**
+     * @param toolCodes codes to ask for, most popular first
+     * @param toolCodeSkew Zipf exponent for tool popularity (1.1 if not set)
+     * @param holidayCalendar where holidays come from (Independence Day and Labor Day if not set)
+     * @param holidayShare fraction of check outs clustered around holidays, 0 to 1 (0.3 if not set)
+     * @param firstDate earliest check out date (1/1/2020 if not set)
+     * @param lastDate latest check out date (12/31/2025 if not set)
+     * @param seed seed for the random choices
+     */
+    @Builder
+    private WorkloadGenerator(List<String> toolCodes, Double toolCodeSkew, HolidayCalendar holidayCalendar, Double holidayShare,
+                              LocalDate firstDate, LocalDate lastDate, long seed){
+        if(toolCodes == null || toolCodes.isEmpty()){
+            throw new IllegalStateException("System error -- workload generator needs tool codes to ask for");
+        }
+        final LocalDate first = firstDate == null ? LocalDate.of(2020, 1, 1) : firstDate;
+        final LocalDate last = lastDate == null ? LocalDate.of(2025, 12, 31) : lastDate;
+        this.holidayShare = holidayShare == null ? 0.3 : holidayShare;
+        if(last.isBefore(first)){
+            throw new IllegalArgumentException("Workload last date must not be before its first date");
+        }else if(this.holidayShare < 0 || this.holidayShare > 1){
+            throw new IllegalArgumentException("Workload holiday share must be from 0 to 1");
+        }
+        this.toolCodes = List.copyOf(toolCodes);
+        this.cumulativeToolCodeWeights = zipfWeights(toolCodes.size(), toolCodeSkew == null ? 1.1 : toolCodeSkew);
+        this.firstEpochDay = first.toEpochDay();
+        this.dayCount = last.toEpochDay() - firstEpochDay + 1;
+        this.holidayEpochDays = holidaysBetween(holidayCalendar == null ? StandardHolidays.INDEPENDENCE_AND_LABOR_DAY : holidayCalendar,
+                first, last);
+        this.seed = seed;
+    }
+
+    /**
+     * @param requestCount
+     * @return the first requestCount requests for this generator's seed
+     */
+    public List<RentalRequest> generate(int requestCount){
+        final SplittableRandom random = new SplittableRandom(seed);
+        final List<RentalRequest> rentalRequests = new ArrayList<>(requestCount);
+        for(int i = 0; i < requestCount; i++){
+            rentalRequests.add(nextRequest(random));
+        }
+        return rentalRequests;
+    }
+
+    RentalRequest nextRequest(SplittableRandom random){
+        final String toolCode = toolCodes.get(pick(cumulativeToolCodeWeights, random.nextDouble()));
+        final int[] rentalDayRange = RENTAL_DAY_RANGES[pick(RENTAL_DAY_RANGE_WEIGHTS, random.nextDouble())];
+        final int rentalDayCount = random.nextInt(rentalDayRange[0], rentalDayRange[1] + 1);
+        final int discountPercent = DISCOUNT_PERCENTS[pick(DISCOUNT_PERCENT_WEIGHTS, random.nextDouble())];
+        final long checkoutEpochDay;
+        if(holidayEpochDays.length > 0 && random.nextDouble() < holidayShare){
+            final long holidayEpochDay = holidayEpochDays[random.nextInt(holidayEpochDays.length)];
+            checkoutEpochDay = Math.max(firstEpochDay, holidayEpochDay - random.nextInt(DAYS_BEFORE_HOLIDAY + 1));
+        }else{
+            checkoutEpochDay = firstEpochDay + random.nextLong(dayCount);
+        }
+        final LocalDate checkoutDate = LocalDate.ofEpochDay(checkoutEpochDay);
+        return new RentalRequest(toolCode, rentalDayCount, discountPercent,
+                checkoutDate.getMonthValue() + "/" + checkoutDate.getDayOfMonth() + "/" + checkoutDate.getYear());
+    }
+
+    private static double[] zipfWeights(int count, double skew){
+        final double[] weights = new double[count];
+        for(int rank = 1; rank <= count; rank++){
+            weights[rank - 1] = 1 / Math.pow(rank, skew);
+        }
+        return cumulative(weights);
+    }
+
+    //running totals scaled to end at 1
+    private static double[] cumulative(double[] weights){
+        final double[] cumulativeWeights = new double[weights.length];
+        double total = 0;
+        for(int i = 0; i < weights.length; i++){
+            total += weights[i];
+            cumulativeWeights[i] = total;
+        }
+        for(int i = 0; i < weights.length; i++){
+            cumulativeWeights[i] /= total;
+        }
+        return cumulativeWeights;
+    }
+
+    //index of the first running total above u, for u from 0 (inclusive) to 1 (exclusive)
+    private static int pick(double[] cumulativeWeights, double u){
+        final int searchIndex = Arrays.binarySearch(cumulativeWeights, u);
+        final int index = searchIndex >= 0 ? searchIndex + 1 : -searchIndex - 1;
+        return Math.min(index, cumulativeWeights.length - 1);
+    }
+
+    private static long[] holidaysBetween(HolidayCalendar holidayCalendar, LocalDate firstDate, LocalDate lastDate){
+        return firstDate.datesUntil(lastDate.plusDays(1)).filter(holidayCalendar::isHoliday).mapToLong(LocalDate::toEpochDay).toArray();
+    }
+}
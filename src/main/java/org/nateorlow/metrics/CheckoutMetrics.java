@@ -0,0 +1,288 @@
+package org.nateorlow.metrics;
+
+import org.nateorlow.charge.ChargeCalculator;
+import org.nateorlow.charge.ChargeListing;
+import org.nateorlow.charge.ChargeableDayCounter;
+import org.nateorlow.charge.PriceBook;
+import org.nateorlow.charge.RentalPeriod;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Latency histograms for each checkout stage, and counts of contracts and validation failures
+ *
+ * Stages are timed like this:
+ *     final long startNanos = checkoutMetrics.startNanos();
+ *     ...
+ *     checkoutMetrics.recordStage(CheckoutStage.VALIDATION, startNanos);
+ * DISABLED doesn't read the clock or count anything, so instrumented code costs only a field check when metrics are off.
+ *
+ * Day counting and charge calculation happen while a contract is rendered, so they are timed by
+ * wrapping the contract's counter and calculator with meteredDayCounter and meteredChargeCalculator.
+ * Everything is lock-free and safe to share between threads
+ */
+public class CheckoutMetrics implements CheckoutMetricsMXBean {
+    public static final CheckoutMetrics DISABLED = new CheckoutMetrics(false);
+
+    private final boolean enabled;
+    private final Map<CheckoutStage, LatencyHistogram> stageHistograms = new EnumMap<>(CheckoutStage.class);
+    private final Map<ValidationFailure, LongAdder> validationFailureCounts = new EnumMap<>(ValidationFailure.class);
+    private final LongAdder contractCount = new LongAdder();
+
+    public CheckoutMetrics(){
+        this(true);
+    }
+
+    private CheckoutMetrics(boolean enabled){
+        this.enabled = enabled;
+        for(CheckoutStage checkoutStage : CheckoutStage.values()){
+            stageHistograms.put(checkoutStage, new LatencyHistogram());
+        }
+        for(ValidationFailure validationFailure : ValidationFailure.values()){
+            validationFailureCounts.put(validationFailure, new LongAdder());
+        }
+    }
+
+    @Override
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    /**
+     * @return the time to pass to recordStage, or 0 without reading the clock when disabled
+     */
+    public long startNanos(){
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Record the time since startNanos for a stage
+     * @param checkoutStage
+     * @param startNanos from startNanos()
+     */
+    public void recordStage(CheckoutStage checkoutStage, long startNanos){
+        if(enabled){
+            stageHistograms.get(checkoutStage).record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public void recordValidationFailure(ValidationFailure validationFailure){
+        if(enabled){
+            validationFailureCounts.get(validationFailure).increment();
+        }
+    }
+
+    public void recordContract(){
+        if(enabled){
+            contractCount.increment();
+        }
+    }
+
+    /**
+     * @param chargeableDayCounter counter to time
+     * @return a counter that records DAY_COUNTING for each call, or the same counter when disabled
+     */
+    public ChargeableDayCounter meteredDayCounter(ChargeableDayCounter chargeableDayCounter){
+        if(!enabled || chargeableDayCounter == null){
+            return chargeableDayCounter;
+        }
+        return (rentalPeriod, chargeListing) -> {
+            final long startNanos = System.nanoTime();
+            try{
+                return chargeableDayCounter.chargeableDaysForListing(rentalPeriod, chargeListing);
+            }finally{
+                recordStage(CheckoutStage.DAY_COUNTING, startNanos);
+            }
+        };
+    }
+
+    /**
+     * @param chargeCalculator calculator to time
+     * @return a calculator that records CHARGE_CALCULATION for each charge, or the same calculator when disabled
+     */
+    public ChargeCalculator meteredChargeCalculator(ChargeCalculator chargeCalculator){
+        if(!enabled || chargeCalculator == null){
+            return chargeCalculator;
+        }
+        return new MeteredChargeCalculator(chargeCalculator);
+    }
+
+    public LatencyHistogram getStageHistogram(CheckoutStage checkoutStage){
+        return stageHistograms.get(checkoutStage);
+    }
+
+    public long getValidationFailureCount(ValidationFailure validationFailure){
+        return validationFailureCounts.get(validationFailure).sum();
+    }
+
+    @Override
+    public long getContractCount(){
+        return contractCount.sum();
+    }
+
+    @Override
+    public List<StageLatency> getStageLatencies(){
+        final List<StageLatency> stageLatencies = new ArrayList<>();
+        for(CheckoutStage checkoutStage : CheckoutStage.values()){
+            stageLatencies.add(new StageLatency(checkoutStage, stageHistograms.get(checkoutStage)));
+        }
+        return stageLatencies;
+    }
+
+    @Override
+    public Map<String,Long> getValidationFailureCounts(){
+        final Map<String,Long> counts = new LinkedHashMap<>();
+        for(ValidationFailure validationFailure : ValidationFailure.values()){
+            counts.put(validationFailure.name(), getValidationFailureCount(validationFailure));
+        }
+        return counts;
+    }
+
+    /**
+     * @return a table of stage latencies in microseconds, followed by the validation failure counts
+     */
+    @Override
+    public String dumpText(){
+        final StringBuilder text = new StringBuilder();
+        text.append("Checkout metrics: ").append(getContractCount()).append(" contracts\n");
+        text.append(String.format("%-20s %10s %10s %10s %10s %10s %10s%n", "stage (us)", "count", "mean", "p50", "p99", "p99.9", "max"));
+        for(StageLatency stageLatency : getStageLatencies()){
+            text.append(String.format("%-20s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", stageLatency.getStage(), stageLatency.getCount(),
+                    stageLatency.getMeanMicros(), stageLatency.getP50Micros(), stageLatency.getP99Micros(),
+                    stageLatency.getP999Micros(), stageLatency.getMaxMicros()));
+        }
+        text.append("Validation failures:");
+        getValidationFailureCounts().forEach((failure, count) -> text.append(' ').append(failure).append('=').append(count));
+        return text.append('\n').toString();
+    }
+
+    @Override
+    public void reset(){
+        stageHistograms.values().forEach(LatencyHistogram::reset);
+        validationFailureCounts.values().forEach(LongAdder::reset);
+        contractCount.reset();
+    }
+
+    /**
+     * Show these metrics over JMX, as org.nateorlow:type=CheckoutMetrics,name=(name)
+     * @param name tells apart several checkouts in one process
+     * @return the name it was registered under
+     */
+    public ObjectName registerMBean(String name){
+        try{
+            final ObjectName objectName = new ObjectName("org.nateorlow:type=CheckoutMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        }catch(JMException e){
+            throw new IllegalStateException("System error -- unable to register checkout metrics over JMX", e);
+        }
+    }
+
+    /**
+     * Start writing dumpText somewhere every period, e.g. to the error log
+     * @param periodMillis time between dumps
+     * @param output where each dump goes
+     * @return close this to stop the dumps
+     */
+    public PeriodicMetricsDump startPeriodicDump(long periodMillis, Consumer<String> output){
+        return new PeriodicMetricsDump(this, periodMillis, output);
+    }
+
+    private class MeteredChargeCalculator implements ChargeCalculator {
+        private final ChargeCalculator chargeCalculator;
+
+        MeteredChargeCalculator(ChargeCalculator chargeCalculator){
+            this.chargeCalculator = chargeCalculator;
+        }
+
+        @Override
+        public void addChargeListing(ChargeListing chargeListing){
+            chargeCalculator.addChargeListing(chargeListing);
+        }
+
+        @Override
+        public ChargeListing lookupChargeListingByToolType(String toolType){
+            return chargeCalculator.lookupChargeListingByToolType(toolType);
+        }
+
+        @Override
+        public ChargeListing lookupChargeListingByToolTypeId(int toolTypeId, String toolType){
+            return chargeCalculator.lookupChargeListingByToolTypeId(toolTypeId, toolType);
+        }
+
+        @Override
+        public PriceBook getPriceBook(){
+            return chargeCalculator.getPriceBook();
+        }
+
+        @Override
+        public BigDecimal calculateBaseCharge(int chargeableDays, ChargeListing chargeListing){
+            final long startNanos = System.nanoTime();
+            try{
+                return chargeCalculator.calculateBaseCharge(chargeableDays, chargeListing);
+            }finally{
+                recordStage(CheckoutStage.CHARGE_CALCULATION, startNanos);
+            }
+        }
+
+        @Override
+        public BigDecimal calculateBaseCharge(RentalPeriod rentalPeriod, int chargeableDays, ChargeListing chargeListing){
+            final long startNanos = System.nanoTime();
+            try{
+                return chargeCalculator.calculateBaseCharge(rentalPeriod, chargeableDays, chargeListing);
+            }finally{
+                recordStage(CheckoutStage.CHARGE_CALCULATION, startNanos);
+            }
+        }
+
+        @Override
+        public boolean pricesByRentalPeriod(){
+            return chargeCalculator.pricesByRentalPeriod();
+        }
+
+        @Override
+        public BigDecimal calculateDiscountCharge(BigDecimal baseCharge, int discountPercentage){
+            final long startNanos = System.nanoTime();
+            try{
+                return chargeCalculator.calculateDiscountCharge(baseCharge, discountPercentage);
+            }finally{
+                recordStage(CheckoutStage.CHARGE_CALCULATION, startNanos);
+            }
+        }
+
+        @Override
+        public boolean pricesInCents(){
+            return chargeCalculator.pricesInCents();
+        }
+
+        @Override
+        public long calculateBaseChargeInCents(RentalPeriod rentalPeriod, int chargeableDays, ChargeListing chargeListing){
+            final long startNanos = System.nanoTime();
+            try{
+                return chargeCalculator.calculateBaseChargeInCents(rentalPeriod, chargeableDays, chargeListing);
+            }finally{
+                recordStage(CheckoutStage.CHARGE_CALCULATION, startNanos);
+            }
+        }
+
+        @Override
+        public long calculateDiscountChargeInCents(long baseChargeInCents, int discountPercentage){
+            final long startNanos = System.nanoTime();
+            try{
+                return chargeCalculator.calculateDiscountChargeInCents(baseChargeInCents, discountPercentage);
+            }finally{
+                recordStage(CheckoutStage.CHARGE_CALCULATION, startNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.nateorlow.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What CheckoutMetrics shows over JMX, e.g. in JConsole or VisualVM
+ */
+public interface CheckoutMetricsMXBean {
+    boolean isEnabled();
+
+    long getContractCount();
+
+    List<StageLatency> getStageLatencies();
+
+    //keyed by ValidationFailure name
+    Map<String,Long> getValidationFailureCounts();
+
+    String dumpText();
+
+    void reset();
+}
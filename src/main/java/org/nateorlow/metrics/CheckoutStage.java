@@ -0,0 +1,15 @@
+package org.nateorlow.metrics;
+
+/**
+ * The steps of a checkout that are timed separately
+ */
+public enum CheckoutStage {
+    VALIDATION,
+    INVENTORY_LOOKUP,
+    DATE_PARSING,
+    DAY_COUNTING,
+    CHARGE_CALCULATION,
+    RESERVATION,
+    //includes rendering the contract, so the day counting and charge calculation done while rendering are counted here too
+    PRINTING
+}
@@ -0,0 +1,109 @@
+package org.nateorlow.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts latencies in buckets whose width grows with the value, like an HDR histogram,
+ * so any value from 1ns to hours is kept to within about 1.6% in a fixed ~15KB of counters
+ *
+ * Values below 64 each get their own bucket. Above that, each power of two is split into 32 equal buckets.
+ * Recording is lock-free and safe from any number of threads. Reading while others record
+ * gives a close, but not exactly consistent, picture
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    static final int BUCKET_COUNT = bucketIndex(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param nanos latency to record (negative values are recorded as 0)
+     */
+    public void record(long nanos){
+        final long value = Math.max(0, nanos);
+        bucketCounts.incrementAndGet(bucketIndex(value));
+        count.increment();
+        totalNanos.add(value);
+        long currentMax;
+        while(value > (currentMax = maxNanos.get()) && !maxNanos.compareAndSet(currentMax, value)){
+            //another thread raised the max first, so check against the new one
+        }
+    }
+
+    public long getCount(){
+        return count.sum();
+    }
+
+    public long getMaxNanos(){
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos(){
+        final long countNow = count.sum();
+        return countNow == 0 ? 0 : (double) totalNanos.sum() / countNow;
+    }
+
+    /**
+     * @param percentile e.g. 99.9 for the 99.9th percentile
+     * @return the highest value in the bucket holding that percentile (never more than the max), or 0 if empty
+     */
+    public long valueAtPercentile(double percentile){
+        final long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for(int bucket = 0; bucket < BUCKET_COUNT; bucket++){
+            counts[bucket] = bucketCounts.get(bucket);
+            total += counts[bucket];
+        }
+        if(total == 0){
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+        long seen = 0;
+        for(int bucket = 0; bucket < BUCKET_COUNT; bucket++){
+            seen += counts[bucket];
+            if(seen >= rank){
+                return Math.min(highestValueInBucket(bucket), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Clear the counts. Values recorded while this runs may or may not be kept
+     */
+    public void reset(){
+        for(int bucket = 0; bucket < BUCKET_COUNT; bucket++){
+            bucketCounts.set(bucket, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+
+    static int bucketIndex(long value){
+        if(value < SUB_BUCKET_COUNT){
+            return (int) value;
+        }
+        //keep the top SUB_BUCKET_BITS bits of the value, and count how far they were shifted
+        final int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * HALF_SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    static long highestValueInBucket(int bucket){
+        if(bucket < SUB_BUCKET_COUNT){
+            return bucket;
+        }
+        final int shift = bucket / HALF_SUB_BUCKET_COUNT - 1;
+        final long topBits = bucket % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        final long highest = ((topBits + 1) << shift) - 1;
+        //the last bucket's upper end is past Long.MAX_VALUE
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+}
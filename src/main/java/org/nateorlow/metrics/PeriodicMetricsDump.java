@@ -0,0 +1,45 @@
+package org.nateorlow.metrics;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Writes a metrics dump on a timer, from a daemon thread so it never keeps the process running
+ * Closing it stops the timer and writes one last dump
+ */
+public class PeriodicMetricsDump implements AutoCloseable {
+    private final CheckoutMetrics checkoutMetrics;
+    private final Consumer<String> output;
+    private final ScheduledExecutorService scheduler;
+
+    PeriodicMetricsDump(CheckoutMetrics checkoutMetrics, long periodMillis, Consumer<String> output){
+        this.checkoutMetrics = checkoutMetrics;
+        this.output = output;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "checkout-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::dump, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close(){
+        if(scheduler.isShutdown()){
+            return;
+        }
+        scheduler.shutdown();
+        try{
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        dump();
+    }
+
+    private void dump(){
+        output.accept(checkoutMetrics.dumpText());
+    }
+}
@@ -0,0 +1,28 @@
+package org.nateorlow.metrics;
+
+import lombok.Getter;
+
+/**
+ * A summary of one stage's latency histogram, in microseconds
+ * The getters let JMX show each stage as a row of values
+ */
+@Getter
+public class StageLatency {
+    String stage;
+    long count;
+    double meanMicros;
+    double p50Micros;
+    double p99Micros;
+    double p999Micros;
+    double maxMicros;
+
+    StageLatency(CheckoutStage checkoutStage, LatencyHistogram latencyHistogram){
+        this.stage = checkoutStage.name();
+        this.count = latencyHistogram.getCount();
+        this.meanMicros = latencyHistogram.getMeanNanos() / 1000;
+        this.p50Micros = latencyHistogram.valueAtPercentile(50) / 1000.0;
+        this.p99Micros = latencyHistogram.valueAtPercentile(99) / 1000.0;
+        this.p999Micros = latencyHistogram.valueAtPercentile(99.9) / 1000.0;
+        this.maxMicros = latencyHistogram.getMaxNanos() / 1000.0;
+    }
+}
@@ -0,0 +1,13 @@
+package org.nateorlow.metrics;
+
+/**
+ * The reasons checkout input is rejected, for counting errors by type
+ */
+public enum ValidationFailure {
+    MISSING_TOOL_CODE,
+    MISSING_CHECKOUT_DATE,
+    INVALID_RENTAL_DAY_COUNT,
+    INVALID_DISCOUNT_PERCENT,
+    UNKNOWN_TOOL_CODE,
+    INVALID_CHECKOUT_DATE
+}
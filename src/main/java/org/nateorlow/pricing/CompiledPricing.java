@@ -0,0 +1,180 @@
+package org.nateorlow.pricing;
+
+import org.nateorlow.charge.ChargeListing;
+import org.nateorlow.charge.FixedPointChargeCalculator;
+
+import java.math.BigDecimal;
+import java.time.Month;
+import java.time.MonthDay;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A tool type's pricing rules turned into scaled longs and lookup tables, so pricing a rental is a few
+ * multiplications and comparisons with no BigDecimals or searching through rules
+ *
+ * Amounts (daily charge, caps) share one scale and season multipliers share another, so amounts can be
+ * compared directly and only rounded once at the end. The season for each day of the year and the discount
+ * for each tier are worked out ahead of time.
+ *
+ * Rules whose numbers don't fit in a long, and rentals that overflow one, are priced by PricingRules.baseCharge instead
+ */
+class CompiledPricing {
+    private static final int MAX_SCALE = 18;
+    private static final int DAYS_PER_MONTH_SLOT = 31;
+    private static final int NO_CAP = -1;
+
+    final PricingRules pricingRules;
+    final ChargeListing chargeListing;
+    private final boolean compiled;
+    private final int amountScale;
+    private final int multiplierScale;
+    private final long dailyCharge;
+    private final long weeklyCap;
+    private final long monthlyCap;
+    private final long minimumCharge; //at amountScale + multiplierScale + 2, the scale after the discount
+    private final long[] seasonMultipliers; //0 is "no season", i.e. 1
+    private final int[] seasonIndexByDay; //by (month - 1) * 31 + (day - 1)
+    private final int[] tierMinimumDays; //ascending
+    private final int[] tierDiscountPercents; //biggest discount for at least that many days
+
+    CompiledPricing(PricingRules pricingRules){
+        pricingRules.validate();
+        this.pricingRules = pricingRules;
+        this.chargeListing = pricingRules.getChargeListing();
+
+        final BigDecimal[] amounts = {chargeListing.getDailyCharge(), pricingRules.getWeeklyCap(),
+                pricingRules.getMonthlyCap(), pricingRules.getMinimumCharge()};
+        int maxAmountScale = 0;
+        for(BigDecimal amount : amounts){
+            if(amount != null){
+                maxAmountScale = Math.max(maxAmountScale, amount.scale());
+            }
+        }
+        final List<SeasonalMultiplier> seasons = pricingRules.getSeasonalMultipliers();
+        int maxMultiplierScale = 0;
+        for(SeasonalMultiplier season : seasons){
+            maxMultiplierScale = Math.max(maxMultiplierScale, season.getMultiplier().scale());
+        }
+        this.amountScale = maxAmountScale;
+        this.multiplierScale = maxMultiplierScale;
+
+        final long[] unscaledAmounts = new long[amounts.length];
+        final long[] unscaledMultipliers = new long[seasons.size() + 1];
+        boolean fitsInLong = amountScale + multiplierScale <= MAX_SCALE;
+        for(int i = 0; fitsInLong && i < amounts.length; i++){
+            final int scale = i == 3 ? amountScale + multiplierScale + 2 : amountScale;
+            unscaledAmounts[i] = amounts[i] == null ? NO_CAP : unscaledOrNegative(amounts[i], scale);
+            fitsInLong = amounts[i] == null || unscaledAmounts[i] >= 0;
+        }
+        unscaledMultipliers[0] = fitsInLong ? unscaledOrNegative(BigDecimal.ONE, multiplierScale) : 0;
+        for(int i = 0; fitsInLong && i < seasons.size(); i++){
+            unscaledMultipliers[i + 1] = unscaledOrNegative(seasons.get(i).getMultiplier(), multiplierScale);
+            fitsInLong = unscaledMultipliers[i + 1] >= 0;
+        }
+        this.compiled = fitsInLong;
+        this.dailyCharge = unscaledAmounts[0];
+        this.weeklyCap = unscaledAmounts[1];
+        this.monthlyCap = unscaledAmounts[2];
+        this.minimumCharge = unscaledAmounts[3];
+        this.seasonMultipliers = unscaledMultipliers;
+
+        //the first season containing a day wins, so fill in the seasons backwards
+        this.seasonIndexByDay = new int[Month.values().length * DAYS_PER_MONTH_SLOT];
+        for(int i = seasons.size() - 1; i >= 0; i--){
+            for(Month month : Month.values()){
+                for(int day = 1; day <= month.maxLength(); day++){
+                    if(seasons.get(i).contains(MonthDay.of(month, day))){
+                        seasonIndexByDay[daySlot(month.getValue(), day)] = i + 1;
+                    }
+                }
+            }
+        }
+
+        final DiscountTier[] tiers = pricingRules.getDiscountTiers().toArray(new DiscountTier[0]);
+        Arrays.sort(tiers, Comparator.comparingInt(DiscountTier::getMinimumRentalDays));
+        this.tierMinimumDays = new int[tiers.length];
+        this.tierDiscountPercents = new int[tiers.length];
+        int bestDiscountPercent = 0;
+        for(int i = 0; i < tiers.length; i++){
+            bestDiscountPercent = Math.max(bestDiscountPercent, tiers[i].getDiscountPercent());
+            tierMinimumDays[i] = tiers[i].getMinimumRentalDays();
+            tierDiscountPercents[i] = bestDiscountPercent;
+        }
+    }
+
+    /**
+     * Same as PricingRules.baseCharge
+     * @param checkoutMonth 1-12, or 0 to leave out seasons
+     * @param checkoutDayOfMonth
+     * @param rentalDays
+     * @param chargeableDays
+     * @return base charge, rounded to cents
+     */
+    BigDecimal baseCharge(int checkoutMonth, int checkoutDayOfMonth, int rentalDays, int chargeableDays){
+        try{
+            return BigDecimal.valueOf(baseChargeInCents(checkoutMonth, checkoutDayOfMonth, rentalDays, chargeableDays),
+                    PricingRules.CENTS_SCALE);
+        }catch(ArithmeticException tooManyCents){
+            return pricingRules.baseCharge(checkoutMonth == 0 ? null : MonthDay.of(checkoutMonth, checkoutDayOfMonth),
+                    rentalDays, chargeableDays);
+        }
+    }
+
+    /**
+     * Same as PricingRules.baseCharge, in cents
+     * @param checkoutMonth 1-12, or 0 to leave out seasons
+     * @param checkoutDayOfMonth
+     * @param rentalDays
+     * @param chargeableDays
+     * @return base charge in cents
+     * @throws ArithmeticException if there are too many cents for a long
+     */
+    long baseChargeInCents(int checkoutMonth, int checkoutDayOfMonth, int rentalDays, int chargeableDays){
+        if(compiled){
+            try{
+                long charge = Math.multiplyExact(dailyCharge, (long) chargeableDays);
+                if(weeklyCap != NO_CAP){
+                    charge = Math.min(charge, Math.multiplyExact(weeklyCap, (long) Math.ceilDiv(rentalDays, PricingRules.DAYS_PER_WEEK)));
+                }
+                if(monthlyCap != NO_CAP){
+                    charge = Math.min(charge, Math.multiplyExact(monthlyCap, (long) Math.ceilDiv(rentalDays, PricingRules.DAYS_PER_MONTH)));
+                }
+                final int seasonIndex = checkoutMonth == 0 ? 0 : seasonIndexByDay[daySlot(checkoutMonth, checkoutDayOfMonth)];
+                charge = Math.multiplyExact(charge, seasonMultipliers[seasonIndex]);
+                charge = Math.multiplyExact(charge, (long) (100 - discountPercentFor(rentalDays)));
+                if(minimumCharge != NO_CAP){
+                    charge = Math.max(charge, minimumCharge);
+                }
+                return FixedPointChargeCalculator.rescaleHalfUp(charge, amountScale + multiplierScale + 2, PricingRules.CENTS_SCALE);
+            }catch(ArithmeticException overflow){
+                //fall through to BigDecimals
+            }
+        }
+        final MonthDay checkoutDay = checkoutMonth == 0 ? null : MonthDay.of(checkoutMonth, checkoutDayOfMonth);
+        return pricingRules.baseCharge(checkoutDay, rentalDays, chargeableDays).unscaledValue().longValueExact();
+    }
+
+    private int discountPercentFor(int rentalDays){
+        for(int i = tierMinimumDays.length - 1; i >= 0; i--){
+            if(rentalDays >= tierMinimumDays[i]){
+                return tierDiscountPercents[i];
+            }
+        }
+        return 0;
+    }
+
+    private static int daySlot(int month, int dayOfMonth){
+        return (month - 1) * DAYS_PER_MONTH_SLOT + dayOfMonth - 1;
+    }
+
+    //the unscaled value at a bigger scale, or -1 if it doesn't fit in a long
+    private static long unscaledOrNegative(BigDecimal amount, int scale){
+        if(scale > MAX_SCALE){
+            return -1;
+        }
+        final BigDecimal rescaled = amount.setScale(scale);
+        return rescaled.unscaledValue().bitLength() < Long.SIZE ? rescaled.unscaledValue().longValue() : -1;
+    }
+}
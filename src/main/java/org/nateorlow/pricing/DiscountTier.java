@@ -0,0 +1,15 @@
+package org.nateorlow.pricing;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * A discount for longer rentals: rentals of at least minimumRentalDays get discountPercent off
+ * When several tiers apply, the biggest discount wins
+ */
+@Builder
+@Getter
+public class DiscountTier {
+    int minimumRentalDays;
+    int discountPercent;
+}
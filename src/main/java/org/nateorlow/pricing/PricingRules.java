@@ -0,0 +1,126 @@
+package org.nateorlow.pricing;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import org.nateorlow.charge.ChargeListing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.MonthDay;
+import java.util.List;
+
+/**
+ * The pricing rules for one tool type, on top of its listing's daily charge
+ *
+ * A rental's base charge is worked out in this order:
+ *   1. daily charge times chargeable days
+ *   2. capped at weeklyCap for each started week of the rental, and at monthlyCap for each started 30 days
+ *   3. times the multiplier of the first season containing the checkout date
+ *   4. less the biggest discount tier the rental's length qualifies for
+ *   5. raised to minimumCharge
+ *   6. rounded HALF_UP to cents, like the contract
+ * Caps and the minimum charge are optional (null)
+ *
+ * baseCharge does this with BigDecimals, for reference -- RuleBasedChargeCalculator compiles the rules into longs
+ */
+@Builder
+@Getter
+public class PricingRules {
+    public static final int CENTS_SCALE = 2;
+    static final int DAYS_PER_WEEK = 7;
+    static final int DAYS_PER_MONTH = 30;
+
+    ChargeListing chargeListing;
+    BigDecimal weeklyCap;
+    BigDecimal monthlyCap;
+    BigDecimal minimumCharge;
+    @Singular
+    List<SeasonalMultiplier> seasonalMultipliers;
+    @Singular
+    List<DiscountTier> discountTiers;
+
+    /**
+     * Base charge worked out step by step with BigDecimals
+     * @param checkoutDay day of the year the tool is checked out, or null to leave out seasons
+     * @param rentalDays length of the rental, for caps and discount tiers
+     * @param chargeableDays days that are charged at the daily rate
+     * @return base charge, rounded to cents
+     */
+    public BigDecimal baseCharge(MonthDay checkoutDay, int rentalDays, int chargeableDays){
+        BigDecimal charge = chargeListing.getDailyCharge().multiply(BigDecimal.valueOf(chargeableDays));
+        if(weeklyCap != null){
+            charge = charge.min(weeklyCap.multiply(BigDecimal.valueOf(Math.ceilDiv(rentalDays, DAYS_PER_WEEK))));
+        }
+        if(monthlyCap != null){
+            charge = charge.min(monthlyCap.multiply(BigDecimal.valueOf(Math.ceilDiv(rentalDays, DAYS_PER_MONTH))));
+        }
+        final SeasonalMultiplier season = seasonFor(checkoutDay);
+        if(season != null){
+            charge = charge.multiply(season.getMultiplier());
+        }
+        final int discountPercent = discountPercentFor(rentalDays);
+        if(discountPercent != 0){
+            charge = charge.multiply(BigDecimal.valueOf(100 - discountPercent)).movePointLeft(2);
+        }
+        if(minimumCharge != null){
+            charge = charge.max(minimumCharge);
+        }
+        return charge.setScale(CENTS_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * @param checkoutDay
+     * @return the first season containing the day, or null if there isn't one (or the day is null)
+     */
+    public SeasonalMultiplier seasonFor(MonthDay checkoutDay){
+        if(checkoutDay != null){
+            for(SeasonalMultiplier season : seasonalMultipliers){
+                if(season.contains(checkoutDay)){
+                    return season;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param rentalDays
+     * @return the biggest discount of the tiers the rental qualifies for, or 0
+     */
+    public int discountPercentFor(int rentalDays){
+        int discountPercent = 0;
+        for(DiscountTier discountTier : discountTiers){
+            if(rentalDays >= discountTier.getMinimumRentalDays()){
+                discountPercent = Math.max(discountPercent, discountTier.getDiscountPercent());
+            }
+        }
+        return discountPercent;
+    }
+
+    /**
+     * Check the rules make sense before compiling them
+     */
+    void validate(){
+        if(chargeListing == null || chargeListing.getToolType() == null || chargeListing.getDailyCharge() == null){
+            throw new IllegalArgumentException("Pricing rules need a charge listing with a tool type and daily charge");
+        }
+        for(BigDecimal amount : new BigDecimal[]{chargeListing.getDailyCharge(), weeklyCap, monthlyCap, minimumCharge}){
+            if(amount != null && amount.signum() < 0){
+                throw new IllegalArgumentException("Charges and caps can't be negative, but got " + amount);
+            }
+        }
+        for(SeasonalMultiplier season : seasonalMultipliers){
+            if(season.getFirstDay() == null || season.getLastDay() == null
+                    || season.getMultiplier() == null || season.getMultiplier().signum() < 0){
+                throw new IllegalArgumentException("Seasons need first and last days and a multiplier that isn't negative");
+            }
+        }
+        for(DiscountTier discountTier : discountTiers){
+            if(discountTier.getDiscountPercent() < 0 || discountTier.getDiscountPercent() > 100){
+                throw new IllegalArgumentException("Discount tier percent must be in the range 0-100, but got "
+                        + discountTier.getDiscountPercent());
+            }
+        }
+    }
+}
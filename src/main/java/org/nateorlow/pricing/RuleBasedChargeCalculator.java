@@ -0,0 +1,154 @@
+package org.nateorlow.pricing;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.nateorlow.charge.ChargeCalculator;
+import org.nateorlow.charge.ChargeListing;
+import org.nateorlow.charge.FixedPointChargeCalculator;
+import org.nateorlow.charge.RentalPeriod;
+import org.nateorlow.tool.IdTable;
+import org.nateorlow.tool.ToolTypeIds;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A charge calculator that prices rentals with PricingRules (caps, minimum charges, seasons and discount tiers)
+ * instead of only the daily charge
+ *
+ * Each tool type's rules are compiled once, when they are added, and kept in an array indexed by tool type id
+ * (like UnroundedChargeCalculator), so pricing a rental is an array read and some long arithmetic.
+ * Listings added with addChargeListing are priced by the daily charge alone.
+ *
+ * Base charges come back already rounded to cents, so the contract's own rounding doesn't change them.
+ * The rules need the rental's length and checkout date; when only a day count is given,
+ * it is used as the rental's length and seasons are left out
+ */
+public class RuleBasedChargeCalculator implements ChargeCalculator {
+    private static final VarHandle PRICING_ARRAY_ELEMENT = MethodHandles.arrayElementVarHandle(CompiledPricing[].class);
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
+    private static final long UNREGISTERED_PRICING_CACHE_SIZE = 1024;
+
+    private volatile CompiledPricing[] pricingByTypeId;
+    //listings that weren't added here, compiled once each. Weak keys are compared by identity,
+    //and let a listing's pricing go once nothing prices with that listing any more
+    private final Cache<ChargeListing, CompiledPricing> unregisteredPricing =
+            CacheBuilder.newBuilder().weakKeys().maximumSize(UNREGISTERED_PRICING_CACHE_SIZE).build();
+
+    public RuleBasedChargeCalculator(){
+        this.pricingByTypeId = new CompiledPricing[8];
+    }
+
+    /**
+     * Compile and add the rules for a tool type, replacing any it already had
+     * @param pricingRules
+     */
+    public synchronized void addPricingRules(PricingRules pricingRules){
+        final CompiledPricing compiledPricing = new CompiledPricing(pricingRules);
+        final int toolTypeId = ToolTypeIds.intern(compiledPricing.chargeListing.getToolType());
+        if(toolTypeId >= pricingByTypeId.length){
+            final CompiledPricing[] biggerPricing = new CompiledPricing[Math.max(toolTypeId + 1, pricingByTypeId.length * 2)];
+            System.arraycopy(pricingByTypeId, 0, biggerPricing, 0, pricingByTypeId.length);
+            pricingByTypeId = biggerPricing;
+        }
+        PRICING_ARRAY_ELEMENT.setRelease(pricingByTypeId, toolTypeId, compiledPricing);
+    }
+
+    @Override
+    public void addChargeListing(ChargeListing chargeListing){
+        addPricingRules(PricingRules.builder().chargeListing(chargeListing).build());
+    }
+
+    public PricingRules lookupPricingRulesByToolType(String toolType){
+        final CompiledPricing compiledPricing = lookupCompiledPricing(ToolTypeIds.idOf(toolType));
+        return compiledPricing == null ? null : compiledPricing.pricingRules;
+    }
+
+    @Override
+    public ChargeListing lookupChargeListingByToolType(String toolType){
+        return lookupChargeListingByToolTypeId(ToolTypeIds.idOf(toolType), toolType);
+    }
+
+    //listings are kept by type id, so the name isn't needed
+    @Override
+    public ChargeListing lookupChargeListingByToolTypeId(int toolTypeId, String toolType){
+        final CompiledPricing compiledPricing = lookupCompiledPricing(toolTypeId);
+        return compiledPricing == null ? null : compiledPricing.chargeListing;
+    }
+
+    @Override
+    public BigDecimal calculateBaseCharge(int chargeableDays, ChargeListing chargeListing){
+        return compiledPricingFor(chargeListing).baseCharge(0, 0, chargeableDays, chargeableDays);
+    }
+
+    @Override
+    public BigDecimal calculateBaseCharge(RentalPeriod rentalPeriod, int chargeableDays, ChargeListing chargeListing){
+        final LocalDate checkoutDate = rentalPeriod.getStartDate();
+        return compiledPricingFor(chargeListing).baseCharge(checkoutDate.getMonthValue(), checkoutDate.getDayOfMonth(),
+                rentalPeriod.getRentalDayCount(), chargeableDays);
+    }
+
+    /**
+     * Base charge in cents, without creating any BigDecimals for rules that fit in a long
+     * @param rentalPeriod
+     * @param chargeableDays
+     * @param chargeListing
+     * @return base charge in cents
+     */
+    @Override
+    public long calculateBaseChargeInCents(RentalPeriod rentalPeriod, int chargeableDays, ChargeListing chargeListing){
+        final LocalDate checkoutDate = rentalPeriod.getStartDate();
+        return compiledPricingFor(chargeListing).baseChargeInCents(checkoutDate.getMonthValue(), checkoutDate.getDayOfMonth(),
+                rentalPeriod.getRentalDayCount(), chargeableDays);
+    }
+
+    @Override
+    public boolean pricesByRentalPeriod(){
+        return true;
+    }
+
+    @Override
+    public boolean pricesInCents(){
+        return true;
+    }
+
+    @Override
+    public long calculateDiscountChargeInCents(long baseChargeInCents, int discountPercentage){
+        return FixedPointChargeCalculator.discountInCents(baseChargeInCents, discountPercentage);
+    }
+
+    @Override
+    public BigDecimal calculateDiscountCharge(BigDecimal baseCharge, int discountPercentage){
+        return baseCharge.multiply(new BigDecimal(discountPercentage)).divide(ONE_HUNDRED);
+    }
+
+    private CompiledPricing lookupCompiledPricing(int toolTypeId){
+        final CompiledPricing[] currentPricing = pricingByTypeId;
+        if(toolTypeId == IdTable.NO_ID || toolTypeId >= currentPricing.length){
+            return null;
+        }
+        return (CompiledPricing) PRICING_ARRAY_ELEMENT.getAcquire(currentPricing, toolTypeId);
+    }
+
+    //visible for testing
+    //listings that weren't added here (or have since been replaced) are priced with no extra rules
+    CompiledPricing compiledPricingFor(ChargeListing chargeListing){
+        if(chargeListing == null || chargeListing.getDailyCharge() == null){
+            throw new IllegalStateException("System error -- need charge listing to compute base charge");
+        }
+        final CompiledPricing registered = lookupCompiledPricing(ToolTypeIds.idOf(chargeListing.getToolType()));
+        if(registered != null && registered.chargeListing == chargeListing){
+            return registered;
+        }
+        final CompiledPricing cached = unregisteredPricing.getIfPresent(chargeListing);
+        if(cached != null){
+            return cached;
+        }
+        //listings don't change, so two threads compiling the same one at once get the same pricing
+        final CompiledPricing compiledPricing = new CompiledPricing(PricingRules.builder().chargeListing(chargeListing).build());
+        unregisteredPricing.put(chargeListing, compiledPricing);
+        return compiledPricing;
+    }
+}
@@ -0,0 +1,26 @@
+package org.nateorlow.pricing;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.MonthDay;
+
+/**
+ * Scales the charge of rentals checked out between two days of the year (both included)
+ * A season can wrap past the end of the year, e.g. 12/15 to 1/15
+ */
+@Builder
+@Getter
+public class SeasonalMultiplier {
+    MonthDay firstDay;
+    MonthDay lastDay;
+    BigDecimal multiplier;
+
+    public boolean contains(MonthDay monthDay){
+        if(firstDay.isAfter(lastDay)){
+            return !monthDay.isBefore(firstDay) || !monthDay.isAfter(lastDay);
+        }
+        return !monthDay.isBefore(firstDay) && !monthDay.isAfter(lastDay);
+    }
+}
@@ -0,0 +1,147 @@
+package org.nateorlow.report;
+
+import org.nateorlow.contract.ContractJournalReader;
+import org.nateorlow.contract.ContractRecord;
+import org.nateorlow.contract.ToolRentalContract;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+
+/**
+ * Builds RentalReports over many contracts in parallel with fork-join
+ *
+ * The contracts are split in halves until each piece is small enough to total on one thread,
+ * then the partial reports are merged on the way back up. The partial reports are tiny (a few dozen groups)
+ * next to the contracts, so merging costs little and the work spreads evenly over the pool's threads.
+ * A journal is split into ranges of records, several to a segment, so each thread also decodes its own records
+ * and a journal of only one or two large segments still spreads over every thread
+ */
+public class RentalAggregator {
+    static final int CONTRACTS_PER_TASK = 4096;
+
+    private final ForkJoinPool forkJoinPool;
+
+    public RentalAggregator(){
+        this(ForkJoinPool.commonPool());
+    }
+
+    public RentalAggregator(ForkJoinPool forkJoinPool){
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    public RentalReport aggregateRecords(List<ContractRecord> contractRecords){
+        return aggregate(contractRecords, CONTRACTS_PER_TASK, (contractRecord, report) -> report.add(contractRecord));
+    }
+
+    /**
+     * Total contracts, working out their charges in parallel too
+     * @param toolRentalContracts contracts with a tool, rental period and charge listing
+     * @return report over the contracts
+     */
+    public RentalReport aggregateContracts(List<ToolRentalContract> toolRentalContracts){
+        return aggregate(toolRentalContracts, CONTRACTS_PER_TASK,
+                (toolRentalContract, report) -> report.add(ContractRecord.fromContract(toolRentalContract)));
+    }
+
+    /**
+     * Total every contract in a journal
+     *
+     * Finding where each segment's records start only reads their lengths, which is quick next to decoding them.
+     * Each range of records is then decoded and totalled on its own, and the range totals are merged in journal order.
+     * A record that fails its check ends its segment's valid records, so the ranges after it in that segment are left out
+     * (reading the journal in order would have stopped there too)
+     * @param contractJournalReader
+     * @return report over the journal's contracts
+     */
+    public RentalReport aggregateJournal(ContractJournalReader contractJournalReader){
+        final List<RecordRange> recordRanges = new ArrayList<>();
+        for(Path segment : contractJournalReader.listSegments()){
+            final ContractJournalReader.SegmentRecords segmentRecords = contractJournalReader.openSegment(segment);
+            for(int fromIndex = 0; fromIndex < segmentRecords.size(); fromIndex += CONTRACTS_PER_TASK){
+                recordRanges.add(new RecordRange(segmentRecords, fromIndex, Math.min(fromIndex + CONTRACTS_PER_TASK, segmentRecords.size())));
+            }
+        }
+        //every range's totals are kept, rather than merged as they finish, so the ranges past a failed record can be skipped
+        aggregate(recordRanges, 1, (recordRange, report) -> recordRange.read());
+
+        final RentalReport report = new RentalReport();
+        ContractJournalReader.SegmentRecords endedSegment = null;
+        for(RecordRange recordRange : recordRanges){
+            if(recordRange.segmentRecords == endedSegment){
+                continue;
+            }
+            report.merge(recordRange.report);
+            if(recordRange.endsSegment){
+                endedSegment = recordRange.segmentRecords;
+            }
+        }
+        return report;
+    }
+
+    private <T> RentalReport aggregate(List<T> items, int itemsPerTask, BiConsumer<T, RentalReport> addToReport){
+        final List<T> randomAccessItems = items instanceof RandomAccess ? items : new ArrayList<>(items);
+        return forkJoinPool.invoke(new AggregateTask<>(randomAccessItems, 0, randomAccessItems.size(), itemsPerTask, addToReport));
+    }
+
+    //Some of one segment's records, and once read, their totals
+    private static class RecordRange {
+        final ContractJournalReader.SegmentRecords segmentRecords;
+        final int fromIndex;
+        final int toIndex;
+        RentalReport report;
+        //a record in the range failed its check, so it and everything after it in the segment isn't a valid record
+        boolean endsSegment;
+
+        RecordRange(ContractJournalReader.SegmentRecords segmentRecords, int fromIndex, int toIndex){
+            this.segmentRecords = segmentRecords;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        //the fork-join join publishes the fields to the thread that merges them
+        void read(){
+            final RentalReport rangeReport = new RentalReport();
+            endsSegment = segmentRecords.forEachRecord(fromIndex, toIndex, rangeReport::add) < toIndex;
+            report = rangeReport;
+        }
+    }
+
+    //ForkJoinTask is Serializable, but these tasks only ever run in this process's pool and are never serialized
+    @SuppressWarnings("serial")
+    private static class AggregateTask<T> extends RecursiveTask<RentalReport> {
+        private final List<T> items;
+        private final int fromIndex;
+        private final int toIndex;
+        private final int itemsPerTask;
+        private final BiConsumer<T, RentalReport> addToReport;
+
+        AggregateTask(List<T> items, int fromIndex, int toIndex, int itemsPerTask, BiConsumer<T, RentalReport> addToReport){
+            this.items = items;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.itemsPerTask = itemsPerTask;
+            this.addToReport = addToReport;
+        }
+
+        @Override
+        protected RentalReport compute(){
+            if(toIndex - fromIndex <= itemsPerTask){
+                final RentalReport report = new RentalReport();
+                for(int i = fromIndex; i < toIndex; i++){
+                    addToReport.accept(items.get(i), report);
+                }
+                return report;
+            }
+            final int middle = (fromIndex + toIndex) >>> 1;
+            final AggregateTask<T> secondHalf = new AggregateTask<>(items, middle, toIndex, itemsPerTask, addToReport);
+            secondHalf.fork();
+            final RentalReport firstHalfReport = new AggregateTask<>(items, fromIndex, middle, itemsPerTask, addToReport).compute();
+            return firstHalfReport.merge(secondHalf.join());
+        }
+    }
+}
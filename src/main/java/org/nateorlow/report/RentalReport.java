@@ -0,0 +1,82 @@
+package org.nateorlow.report;
+
+import lombok.Getter;
+import org.nateorlow.contract.ContractRecord;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Revenue and utilization totals over issued contracts: overall, per tool type, per brand and per month
+ *
+ * Contracts count towards the month they were checked out in, including days that run into the next month.
+ * Tools without a type or brand are grouped under a null key.
+ * A report is filled in by one thread; RentalAggregator builds partial reports in parallel and merges them
+ */
+public class RentalReport {
+    @Getter
+    private final RentalTotals total = new RentalTotals();
+    private final Map<String, RentalTotals> totalsByToolType = new HashMap<>();
+    private final Map<String, RentalTotals> totalsByBrand = new HashMap<>();
+    private final Map<YearMonth, RentalTotals> totalsByMonth = new HashMap<>();
+    private long firstCheckoutEpochDay = Long.MAX_VALUE;
+    private long lastDueEpochDay = Long.MIN_VALUE;
+
+    public void add(ContractRecord contractRecord){
+        total.add(contractRecord);
+        totalsByToolType.computeIfAbsent(contractRecord.getToolType(), toolType -> new RentalTotals()).add(contractRecord);
+        totalsByBrand.computeIfAbsent(contractRecord.getToolBrand(), brand -> new RentalTotals()).add(contractRecord);
+        totalsByMonth.computeIfAbsent(YearMonth.from(contractRecord.getCheckoutDate()), month -> new RentalTotals()).add(contractRecord);
+        firstCheckoutEpochDay = Math.min(firstCheckoutEpochDay, contractRecord.getCheckoutEpochDay());
+        lastDueEpochDay = Math.max(lastDueEpochDay, contractRecord.getCheckoutEpochDay() + contractRecord.getRentalDayCount());
+    }
+
+    /**
+     * Add another report's totals to this one
+     * @param other
+     * @return this report
+     */
+    public RentalReport merge(RentalReport other){
+        total.merge(other.total);
+        mergeGroups(totalsByToolType, other.totalsByToolType);
+        mergeGroups(totalsByBrand, other.totalsByBrand);
+        mergeGroups(totalsByMonth, other.totalsByMonth);
+        firstCheckoutEpochDay = Math.min(firstCheckoutEpochDay, other.firstCheckoutEpochDay);
+        lastDueEpochDay = Math.max(lastDueEpochDay, other.lastDueEpochDay);
+        return this;
+    }
+
+    public Map<String, RentalTotals> getTotalsByToolType(){
+        return Collections.unmodifiableMap(totalsByToolType);
+    }
+
+    public Map<String, RentalTotals> getTotalsByBrand(){
+        return Collections.unmodifiableMap(totalsByBrand);
+    }
+
+    public Map<YearMonth, RentalTotals> getTotalsByMonth(){
+        return Collections.unmodifiableMap(totalsByMonth);
+    }
+
+    /**
+     * @return days from the first checkout to the last due date, which rentals are charged for (0 for an empty report)
+     */
+    public long getPeriodDays(){
+        return total.contractCount == 0 ? 0 : lastDueEpochDay - firstCheckoutEpochDay;
+    }
+
+    public LocalDate getFirstCheckoutDate(){
+        return total.contractCount == 0 ? null : LocalDate.ofEpochDay(firstCheckoutEpochDay);
+    }
+
+    public LocalDate getLastDueDate(){
+        return total.contractCount == 0 ? null : LocalDate.ofEpochDay(lastDueEpochDay);
+    }
+
+    private static <K> void mergeGroups(Map<K, RentalTotals> groups, Map<K, RentalTotals> otherGroups){
+        otherGroups.forEach((key, otherTotals) -> groups.computeIfAbsent(key, k -> new RentalTotals()).merge(otherTotals));
+    }
+}
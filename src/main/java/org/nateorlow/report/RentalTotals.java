@@ -0,0 +1,54 @@
+package org.nateorlow.report;
+
+import lombok.Getter;
+import org.nateorlow.contract.ContractRecord;
+
+/**
+ * Running totals over a group of contracts (a tool type, a brand, a month...)
+ * Charges are in cents. Not thread safe: each thread adds to its own totals, and they are merged afterwards
+ */
+@Getter
+public class RentalTotals {
+    long contractCount;
+    long rentedDays;
+    long chargeableDays;
+    long baseChargeCents;
+    long discountCents;
+    long revenueCents; //final charges
+
+    public void add(ContractRecord contractRecord){
+        contractCount += 1;
+        rentedDays += contractRecord.getRentalDayCount();
+        chargeableDays += contractRecord.getChargeableDays();
+        baseChargeCents += contractRecord.getBaseChargeCents();
+        discountCents += contractRecord.getDiscountChargeCents();
+        revenueCents += contractRecord.getFinalChargeCents();
+    }
+
+    public void merge(RentalTotals other){
+        contractCount += other.contractCount;
+        rentedDays += other.rentedDays;
+        chargeableDays += other.chargeableDays;
+        baseChargeCents += other.baseChargeCents;
+        discountCents += other.discountCents;
+        revenueCents += other.revenueCents;
+    }
+
+    /**
+     * @return the share of rented days that were charged for (0 with no rented days)
+     */
+    public double getChargeableShare(){
+        return rentedDays == 0 ? 0 : (double) chargeableDays / rentedDays;
+    }
+
+    /**
+     * Share of the available tool-days that were rented out
+     * @param toolCount tools in the group, e.g. inventory.lookupToolsByType(type).size()
+     * @param periodDays days the report covers, e.g. RentalReport.getPeriodDays()
+     * @return utilization (0 with nothing available)
+     */
+    public double getUtilization(long toolCount, long periodDays){
+        final long availableToolDays = toolCount * periodDays;
+        return availableToolDays <= 0 ? 0 : (double) rentedDays / availableToolDays;
+    }
+}
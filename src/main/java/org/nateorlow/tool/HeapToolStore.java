@@ -0,0 +1,115 @@
+package org.nateorlow.tool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps tools on the heap, in arrays indexed by tool code id, so there is no map entry per tool
+ * Finding a code's id is one hash, after which the tool and its type id are array reads
+ *
+ * The tools, their type ids and the tools of each type are published together as one immutable Snapshot,
+ * so a reader never sees a tool under a type it doesn't have, or a tool without its type id.
+ * Adding a new tool writes past the end of the current snapshot's arrays (which its readers never look at)
+ * and publishes a snapshot one tool longer, so adding a catalog's tools doesn't copy the catalog for each one.
+ * Replacing a tool copies the arrays
+ */
+public class HeapToolStore implements ToolStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final IdTable toolCodeIds = new IdTable();
+    //Only replaced while holding the store's lock
+    private volatile Snapshot snapshot = new Snapshot(0, new Tool[INITIAL_CAPACITY], new int[INITIAL_CAPACITY], Map.of());
+
+    @Override
+    public synchronized int addTool(Tool tool){
+        if(tool.getCode() == null){
+            throw new IllegalArgumentException("Input tool code must not be null or empty");
+        }
+        final Snapshot current = snapshot;
+        final int toolCodeId = toolCodeIds.intern(tool.getCode());
+        final boolean replacing = toolCodeId < current.toolCount;
+        final int toolCount = replacing ? current.toolCount : toolCodeId + 1;
+
+        //a replaced tool's slot is still being read, so the arrays are copied rather than written in place
+        Tool[] tools = current.toolsByCodeId;
+        int[] toolTypeIds = current.toolTypeIdsByCodeId;
+        if(replacing || toolCount > tools.length){
+            final int length = Math.max(toolCount, replacing ? tools.length : tools.length * 2);
+            tools = Arrays.copyOf(tools, length);
+            toolTypeIds = Arrays.copyOf(toolTypeIds, length);
+        }
+        tools[toolCodeId] = tool;
+        toolTypeIds[toolCodeId] = ToolTypeIds.intern(tool.getType());
+
+        final Map<String,TypeMembers> membersByType = new HashMap<>(current.membersByType);
+        final Tool replacedTool = replacing ? current.toolsByCodeId[toolCodeId] : null;
+        if(replacedTool != null && replacedTool.getType() != null){
+            membersByType.put(replacedTool.getType(), membersByType.get(replacedTool.getType()).without(toolCodeId));
+        }
+        if(tool.getType() != null){
+            final TypeMembers typeMembers = membersByType.get(tool.getType());
+            membersByType.put(tool.getType(), typeMembers == null ? TypeMembers.of(toolCodeId) : typeMembers.with(toolCodeId));
+        }
+        snapshot = new Snapshot(toolCount, tools, toolTypeIds, Map.copyOf(membersByType));
+        return toolCodeId;
+    }
+
+    @Override
+    public int lookupToolCodeId(String toolCode){
+        return toolCodeIds.idOf(toolCode);
+    }
+
+    @Override
+    public Tool lookupToolById(int toolCodeId){
+        final Snapshot current = snapshot;
+        return toolCodeId < 0 || toolCodeId >= current.toolCount ? null : current.toolsByCodeId[toolCodeId];
+    }
+
+    //Read this after lookupToolById has returned the tool, which makes sure the type id is there too
+    @Override
+    public int lookupToolTypeId(int toolCodeId){
+        final Snapshot current = snapshot;
+        return toolCodeId < 0 || toolCodeId >= current.toolCount ? IdTable.NO_ID : current.toolTypeIdsByCodeId[toolCodeId];
+    }
+
+    @Override
+    public List<Tool> lookupToolsByType(String toolType){
+        final Snapshot current = snapshot;
+        final List<Tool> tools = new ArrayList<>();
+        final TypeMembers typeMembers = toolType == null ? null : current.membersByType.get(toolType);
+        if(typeMembers == null){
+            return tools;
+        }
+        for(int i = 0; i < typeMembers.count; i++){
+            tools.add(current.toolsByCodeId[typeMembers.toolCodeIds[i]]);
+        }
+        tools.sort(Comparator.comparing(Tool::getCode));
+        return tools;
+    }
+
+    @Override
+    public int size(){
+        return snapshot.toolCount;
+    }
+
+    /**
+     * The store as readers see it. Only the first toolCount entries of the arrays belong to this snapshot
+     */
+    private static class Snapshot {
+        final int toolCount;
+        final Tool[] toolsByCodeId;
+        final int[] toolTypeIdsByCodeId;
+        final Map<String,TypeMembers> membersByType;
+
+        Snapshot(int toolCount, Tool[] toolsByCodeId, int[] toolTypeIdsByCodeId, Map<String,TypeMembers> membersByType){
+            this.toolCount = toolCount;
+            this.toolsByCodeId = toolsByCodeId;
+            this.toolTypeIdsByCodeId = toolTypeIdsByCodeId;
+            this.membersByType = membersByType;
+        }
+    }
+}
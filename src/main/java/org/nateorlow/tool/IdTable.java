@@ -0,0 +1,124 @@
+package org.nateorlow.tool;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Gives each distinct string a small int id (0, 1, 2, ... in the order they are added),
+ * so tables keyed by the string can be plain arrays indexed by id
+ *
+ * Strings are kept in an open-addressing hash table (linear probing, at most half full),
+ * so finding an id is one String.hashCode (which the String caches) and usually one equals.
+ * Looking up ids never locks: each key is published with a release write after its id,
+ * and a bigger table is published through a volatile field once it is completely filled in.
+ * Adding a string locks the table, and ids are never removed or reused
+ */
+public class IdTable {
+    public static final int NO_ID = -1;
+    private static final VarHandle STRING_ARRAY_ELEMENT = MethodHandles.arrayElementVarHandle(String[].class);
+    private static final int INITIAL_SLOTS = 16;
+
+    private volatile Slots slots = new Slots(INITIAL_SLOTS);
+    private volatile String[] keysById = new String[INITIAL_SLOTS / 2];
+    private volatile int size;
+
+    /**
+     * @param key
+     * @return the key's id, or NO_ID if it hasn't been added (or is null)
+     */
+    public int idOf(String key){
+        if(key == null){
+            return NO_ID;
+        }
+        final Slots currentSlots = slots;
+        final int mask = currentSlots.keys.length - 1;
+        for(int slot = spread(key.hashCode()) & mask; ; slot = (slot + 1) & mask){
+            final String slotKey = (String) STRING_ARRAY_ELEMENT.getAcquire(currentSlots.keys, slot);
+            if(slotKey == null){
+                return NO_ID;
+            }else if(slotKey.equals(key)){
+                return currentSlots.ids[slot];
+            }
+        }
+    }
+
+    /**
+     * Add a key if it isn't already in the table
+     * @param key
+     * @return the key's id
+     */
+    public synchronized int intern(String key){
+        if(key == null){
+            throw new IllegalArgumentException("Only non-null keys can be given an id");
+        }
+        final int existingId = idOf(key);
+        if(existingId != NO_ID){
+            return existingId;
+        }
+        final int id = size;
+        if((id + 1) * 2 > slots.keys.length){
+            slots = slots.resized(slots.keys.length * 2);
+        }
+        if(id == keysById.length){
+            final String[] biggerKeysById = new String[keysById.length * 2];
+            System.arraycopy(keysById, 0, biggerKeysById, 0, id);
+            keysById = biggerKeysById;
+        }
+        STRING_ARRAY_ELEMENT.setRelease(keysById, id, key);
+        slots.insert(key, id);
+        size = id + 1;
+        return id;
+    }
+
+    /**
+     * @param id
+     * @return the key with that id, or null if there isn't one
+     */
+    public String keyOf(int id){
+        final String[] currentKeysById = keysById;
+        if(id < 0 || id >= currentKeysById.length){
+            return null;
+        }
+        return (String) STRING_ARRAY_ELEMENT.getAcquire(currentKeysById, id);
+    }
+
+    public int size(){
+        return size;
+    }
+
+    //Mix the high bits in, since the table index only uses the low bits
+    private static int spread(int hashCode){
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    private static class Slots {
+        final String[] keys;
+        final int[] ids;
+
+        Slots(int slotCount){
+            keys = new String[slotCount];
+            ids = new int[slotCount];
+        }
+
+        //The id is written before the key's release write, so a reader that finds the key also sees the id
+        void insert(String key, int id){
+            final int mask = keys.length - 1;
+            int slot = spread(key.hashCode()) & mask;
+            while(keys[slot] != null){
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = id;
+            STRING_ARRAY_ELEMENT.setRelease(keys, slot, key);
+        }
+
+        Slots resized(int slotCount){
+            final Slots resizedSlots = new Slots(slotCount);
+            for(int slot = 0; slot < keys.length; slot++){
+                if(keys[slot] != null){
+                    resizedSlots.insert(keys[slot], ids[slot]);
+                }
+            }
+            return resizedSlots;
+        }
+    }
+}
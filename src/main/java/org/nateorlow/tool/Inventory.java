@@ -1,19 +1,365 @@
 package org.nateorlow.tool;
 
-import java.util.HashMap;
+import com.google.common.util.concurrent.Striped;
+import org.nateorlow.charge.ChargeListing;
+import org.nateorlow.charge.ChargeableDayCounter;
+import org.nateorlow.charge.RentalPeriod;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
 
+/**
+ * The tools available to rent, and the rental periods each tool is reserved for
+ *
+ * This can be shared between request threads: tool lookups don't lock,
+ * and reserving or releasing a tool locks only a stripe chosen by the tool code,
+ * so reservations for different tools rarely wait on each other.
+ *
+ * A tool is reserved for the days that are charged (the day after check out through the due date),
+ * so a tool due back on a date can be checked out again on that date.
+ * Each tool's reservations are kept in a ToolBookings, so checking or changing them is O(log n)
+ * however many bookings the tool has
+ *
+ * Tools are kept in a ToolStore, which gives each tool code an int id when the tool is added.
+ * lookupToolCodeId finds the id with one hash, after which the tool and its type id
+ * (for ChargeCalculator.lookupChargeListingByToolTypeId) are read straight from the store
+ */
 public class Inventory {
-    private Map<String,Tool> codeToTool;
+    private static final int RESERVATION_LOCK_STRIPES = 64;
+    //most days a cheapest-availability search can look past the earliest date, which keeps its per-day table small
+    public static final int MAX_FLEXIBLE_DAYS = 366;
+
+    private final ToolStore toolStore;
+    private final String holidayRegion;
+    //Each tool's bookings are only read or changed while holding that tool's stripe lock
+    private Map<String,ToolBookings> codeToBookings;
+    private Striped<Lock> reservationLocks;
 
     public Inventory(){
-        codeToTool = new HashMap<>();
+        this(new HeapToolStore());
+    }
+
+    /**
+     * @param toolStore where the tools are kept, e.g. an OffHeapToolStore for a very large catalog
+     */
+    public Inventory(ToolStore toolStore){
+        this(toolStore, null);
+    }
+
+    /**
+     * An inventory for one store or partition, whose rentals follow a region's holidays
+     * @param toolStore where the tools are kept
+     * @param holidayRegion region code for HolidayCalendars, or null for the default region
+     */
+    public Inventory(ToolStore toolStore, String holidayRegion){
+        this.toolStore = toolStore;
+        this.holidayRegion = holidayRegion;
+        codeToBookings = new ConcurrentHashMap<>();
+        reservationLocks = Striped.lock(RESERVATION_LOCK_STRIPES);
     }
+
+    /**
+     * @return region whose holidays this inventory's rentals follow (see HolidayCalendars), or null for the default region
+     */
+    public String getHolidayRegion(){
+        return holidayRegion;
+    }
+
     public void addTool(Tool tool){
-        codeToTool.put(tool.getCode(), tool);
+        toolStore.addTool(tool);
     }
 
     public Tool lookupToolByCode(String toolCode){
-        return codeToTool.get(toolCode);
+        return toolStore.lookupToolById(toolStore.lookupToolCodeId(toolCode));
+    }
+
+    /**
+     * @param toolCode
+     * @return the id given to the tool code when its tool was added, or IdTable.NO_ID if there is no such tool
+     */
+    public int lookupToolCodeId(String toolCode){
+        return toolStore.lookupToolCodeId(toolCode);
+    }
+
+    /**
+     * @param toolCodeId from lookupToolCodeId
+     * @return the tool, or null if there isn't one with that id
+     */
+    public Tool lookupToolById(int toolCodeId){
+        return toolStore.lookupToolById(toolCodeId);
+    }
+
+    /**
+     * Read this after lookupToolById has returned the tool, which makes sure the type id is there too
+     * @param toolCodeId from lookupToolCodeId
+     * @return the ToolTypeIds id of the tool's type, or IdTable.NO_ID if it has no type
+     */
+    public int lookupToolTypeId(int toolCodeId){
+        return toolStore.lookupToolTypeId(toolCodeId);
+    }
+
+    /**
+     * @param toolType
+     * @return every tool of that type, ordered by tool code
+     */
+    public List<Tool> lookupToolsByType(String toolType){
+        return toolStore.lookupToolsByType(toolType);
+    }
+
+    /**
+     * Reserve a tool for a rental period, unless it is already reserved for any of those days
+     * @param toolCode tool to reserve
+     * @param rentalPeriod days to reserve it for
+     * @return true if the tool was reserved, false if it was already reserved during the period
+     */
+    public boolean reserveTool(String toolCode, RentalPeriod rentalPeriod){
+        validateReservationInputs(toolCode, rentalPeriod);
+        final Lock lock = reservationLocks.get(toolCode);
+        lock.lock();
+        try{
+            return codeToBookings.computeIfAbsent(toolCode, code -> new ToolBookings()).book(rentalPeriod);
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release a reservation made with reserveTool
+     * @param toolCode tool that was reserved
+     * @param rentalPeriod period it was reserved for (the same object, or one with the same dates)
+     * @return true if a matching reservation was released
+     */
+    public boolean releaseTool(String toolCode, RentalPeriod rentalPeriod){
+        validateReservationInputs(toolCode, rentalPeriod);
+        final Lock lock = reservationLocks.get(toolCode);
+        lock.lock();
+        try{
+            final ToolBookings toolBookings = codeToBookings.get(toolCode);
+            return toolBookings != null && toolBookings.cancel(rentalPeriod);
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Check whether a tool could be reserved for a rental period
+     * The answer can change as soon as this returns, so use reserveTool to actually hold the tool
+     * @param toolCode
+     * @param rentalPeriod
+     * @return true if the tool has no reservations during the period
+     */
+    public boolean isToolAvailable(String toolCode, RentalPeriod rentalPeriod){
+        validateReservationInputs(toolCode, rentalPeriod);
+        final Lock lock = reservationLocks.get(toolCode);
+        lock.lock();
+        try{
+            final ToolBookings toolBookings = codeToBookings.get(toolCode);
+            return toolBookings == null || toolBookings.isFree(rentalPeriod);
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Find the tools of a type that are free for a whole rental period,
+     * e.g. which jackhammers are free over Labor Day weekend
+     * @param toolType
+     * @param rentalPeriod
+     * @return free tools, ordered by tool code
+     */
+    public List<Tool> findAvailableTools(String toolType, RentalPeriod rentalPeriod){
+        final List<Tool> availableTools = new ArrayList<>();
+        for(Tool tool : lookupToolsByType(toolType)){
+            if(isToolAvailable(tool.getCode(), rentalPeriod)){
+                availableTools.add(tool);
+            }
+        }
+        return availableTools;
+    }
+
+    /**
+     * Find the earliest check out date, on or after notBefore, when any tool of a type is free
+     * for the whole rental. Ties go to the tool with the lowest code
+     *
+     * Tools wait in a priority queue ordered by the next day each one is free, which is the soonest its rental
+     * could start. When a tool reaches the head, its bookings are searched for the first free run long enough
+     * for the rental (O(log n), see ToolBookings) and it goes back in at that day; the first tool to reach the head
+     * a second time wins. Tools whose next free day is already later than that are never searched
+     * @param toolType
+     * @param notBefore earliest acceptable check out date
+     * @param rentalDayCount length of the rental
+     * @return the tool and rental period, or null if there are no tools of that type (or none free before LocalDate.MAX)
+     */
+    public ToolAvailability findEarliestAvailability(String toolType, LocalDate notBefore, int rentalDayCount){
+        final List<Tool> tools = lookupToolsByType(toolType);
+        final PriorityQueue<FreeRunCandidate> candidates = startFleetSearch(tools, notBefore, rentalDayCount);
+        final FreeRunCandidate earliest = nextLongEnoughRun(tools, candidates, rentalDayCount, ToolBookings.LAST_DAY);
+        if(earliest == null){
+            return null;
+        }
+        return new ToolAvailability(tools.get(earliest.toolIndex), new RentalPeriod(earliest.firstFreeDay - 1, rentalDayCount));
+    }
+
+    /**
+     * Find the cheapest rental of a tool of a type, checking out within flexibleDays of the earliest possible date
+     * Tools of a type share a charge listing, so a rental's price only changes with how many of its days are
+     * chargeable (weekends and holidays may not be). Ties go to the earliest date, then the lowest tool code
+     * @param toolType
+     * @param notBefore earliest acceptable check out date
+     * @param rentalDayCount length of the rental
+     * @param flexibleDays how many days after the earliest possible check out date the customer could start instead,
+     *                     from 0 to MAX_FLEXIBLE_DAYS
+     * @param chargeListing the type's listing
+     * @param chargeableDayCounter
+     * @return the tool, rental period and chargeable days, or null if there are no tools of that type
+     */
+    public ToolAvailability findCheapestAvailability(String toolType, LocalDate notBefore, int rentalDayCount, int flexibleDays,
+                                                     ChargeListing chargeListing, ChargeableDayCounter chargeableDayCounter){
+        if(flexibleDays < 0 || flexibleDays > MAX_FLEXIBLE_DAYS){
+            throw new IllegalArgumentException("Flexible days must be from 0 to " + MAX_FLEXIBLE_DAYS);
+        }
+        final List<Tool> tools = lookupToolsByType(toolType);
+        final PriorityQueue<FreeRunCandidate> candidates = startFleetSearch(tools, notBefore, rentalDayCount);
+        final FreeRunCandidate earliest = nextLongEnoughRun(tools, candidates, rentalDayCount, ToolBookings.LAST_DAY);
+        if(earliest == null){
+            return null;
+        }
+        //for each first charge day in the window, the lowest-coded tool free for the rental starting then
+        final long firstWindowDay = earliest.firstFreeDay;
+        //no rental can start after the last day LocalDate can hold
+        final long lastWindowDay = Math.min(firstWindowDay + flexibleDays, ToolBookings.LAST_DAY);
+        final int[] toolIndexByDay = new int[(int) (lastWindowDay - firstWindowDay) + 1];
+        Arrays.fill(toolIndexByDay, -1);
+        for(FreeRunCandidate candidate = earliest; candidate != null && candidate.firstFreeDay <= lastWindowDay;
+            candidate = nextLongEnoughRun(tools, candidates, rentalDayCount, lastWindowDay)){
+            //the rental can start on any day of the run that leaves enough of it
+            final long lastStartDay = Math.min(candidate.lastFreeDay - rentalDayCount + 1, lastWindowDay);
+            for(long day = candidate.firstFreeDay; day <= lastStartDay; day++){
+                final int dayIndex = (int) (day - firstWindowDay);
+                if(toolIndexByDay[dayIndex] == -1 || candidate.toolIndex < toolIndexByDay[dayIndex]){
+                    toolIndexByDay[dayIndex] = candidate.toolIndex;
+                }
+            }
+            if(candidate.lastFreeDay < lastWindowDay){
+                candidates.add(new FreeRunCandidate(candidate.toolIndex,
+                        nextFreeDay(tools.get(candidate.toolIndex).getCode(), candidate.lastFreeDay + 1), false));
+            }
+        }
+        ToolAvailability cheapest = null;
+        for(int dayIndex = 0; dayIndex < toolIndexByDay.length; dayIndex++){
+            if(toolIndexByDay[dayIndex] == -1){
+                continue;
+            }
+            final RentalPeriod rentalPeriod = new RentalPeriod(firstWindowDay + dayIndex - 1, rentalDayCount);
+            final int chargeableDays = chargeableDayCounter.chargeableDaysForListing(rentalPeriod, chargeListing);
+            if(cheapest == null || chargeableDays < cheapest.getChargeableDays()){
+                cheapest = new ToolAvailability(tools.get(toolIndexByDay[dayIndex]), rentalPeriod, chargeableDays);
+            }
+        }
+        return cheapest;
+    }
+
+    //Queue every tool at the first day it is free, as a first charge day
+    private PriorityQueue<FreeRunCandidate> startFleetSearch(List<Tool> tools, LocalDate notBefore, int rentalDayCount){
+        if(rentalDayCount <= 0){
+            throw new IllegalArgumentException("Rental day count must be at least 1");
+        }
+        final long firstChargeDay = notBefore.toEpochDay() + 1;
+        final PriorityQueue<FreeRunCandidate> candidates = new PriorityQueue<>(Math.max(1, tools.size()));
+        for(int toolIndex = 0; toolIndex < tools.size(); toolIndex++){
+            candidates.add(new FreeRunCandidate(toolIndex, nextFreeDay(tools.get(toolIndex).getCode(), firstChargeDay), false));
+        }
+        return candidates;
+    }
+
+    //Take candidates off the queue until one has a free run long enough for the rental, searching each tool's
+    //bookings when it first reaches the head. Stops (returning null) once no rental could start by lastFirstChargeDay,
+    //which also leaves out tools with no free run at all (ToolBookings.NO_DAY)
+    private FreeRunCandidate nextLongEnoughRun(List<Tool> tools, PriorityQueue<FreeRunCandidate> candidates, int rentalDayCount,
+                                               long lastFirstChargeDay){
+        while(!candidates.isEmpty() && candidates.peek().firstFreeDay <= lastFirstChargeDay){
+            final FreeRunCandidate candidate = candidates.poll();
+            final String toolCode = tools.get(candidate.toolIndex).getCode();
+            if(candidate.longEnough){
+                candidate.lastFreeDay = lastFreeDay(toolCode, candidate.firstFreeDay);
+                return candidate;
+            }
+            candidates.add(new FreeRunCandidate(candidate.toolIndex,
+                    earliestFreeFirstChargeDay(toolCode, candidate.firstFreeDay, rentalDayCount), true));
+        }
+        return null;
+    }
+
+    private long earliestFreeFirstChargeDay(String toolCode, long day, int rentalDayCount){
+        final Lock lock = reservationLocks.get(toolCode);
+        lock.lock();
+        try{
+            final ToolBookings toolBookings = codeToBookings.get(toolCode);
+            return toolBookings == null ? day : toolBookings.earliestFreeFirstChargeDay(day, rentalDayCount);
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    private long nextFreeDay(String toolCode, long day){
+        final Lock lock = reservationLocks.get(toolCode);
+        lock.lock();
+        try{
+            final ToolBookings toolBookings = codeToBookings.get(toolCode);
+            return toolBookings == null ? day : toolBookings.nextFreeDay(day);
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    private long lastFreeDay(String toolCode, long freeDay){
+        final Lock lock = reservationLocks.get(toolCode);
+        lock.lock();
+        try{
+            final ToolBookings toolBookings = codeToBookings.get(toolCode);
+            return toolBookings == null ? ToolBookings.LAST_DAY : toolBookings.lastFreeDay(freeDay);
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A tool in the fleet search, at the next day it is free (longEnough once that day is known to start a free run
+     * long enough for the rental). Ordered by that day and then by tool code, so the queue's head is the soonest
+     * any rental could start
+     */
+    private static class FreeRunCandidate implements Comparable<FreeRunCandidate> {
+        final int toolIndex;
+        final long firstFreeDay;
+        final boolean longEnough;
+        long lastFreeDay;
+
+        FreeRunCandidate(int toolIndex, long firstFreeDay, boolean longEnough){
+            this.toolIndex = toolIndex;
+            this.firstFreeDay = firstFreeDay;
+            this.longEnough = longEnough;
+        }
+
+        @Override
+        public int compareTo(FreeRunCandidate other){
+            final int byDay = Long.compare(firstFreeDay, other.firstFreeDay);
+            return byDay != 0 ? byDay : Integer.compare(toolIndex, other.toolIndex);
+        }
+    }
+
+    private void validateReservationInputs(String toolCode, RentalPeriod rentalPeriod){
+        if(rentalPeriod == null || rentalPeriod.getRentalDayCount() == null){
+            throw new IllegalStateException("System error -- missing rental period data to reserve a tool");
+        }else if(rentalPeriod.getRentalDayCount() <= 0){
+            throw new IllegalArgumentException("Rental day count must be at least 1");
+        }else if(lookupToolByCode(toolCode) == null){
+            throw new IllegalArgumentException("Input tool code " + toolCode + " is not in the inventory");
+        }
     }
 }
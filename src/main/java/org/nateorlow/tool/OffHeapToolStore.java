@@ -0,0 +1,403 @@
+package org.nateorlow.tool;
+
+import lombok.Builder;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps tools off the heap, in columns of one MemorySegment, so a very large catalog adds almost nothing
+ * for the garbage collector to trace
+ *
+ * Each tool is a row across the columns: where its code is in the string area, the code's length and hash,
+ * and the ids of its type and brand names. Types and brands are stored once each, as names.
+ * The type and brand name ids share one 8-byte column, so replacing a tool changes both with a single store:
+ * a reader (or a file reopened after a crash) sees either the old pair or the new one, never a mix.
+ * Codes are found through an open-addressing index of row numbers, also in the segment.
+ * Strings are stored as UTF-16 chars, so a lookup compares the code without decoding or allocating anything.
+ * A Tool object is only made when lookupToolById is called.
+ * The rows of each type are also kept in a list on the heap, so finding the tools of a type doesn't read the whole catalog.
+ *
+ * With a file, the segment is memory-mapped, so the tools are still there when the file is opened again.
+ * A tool counts as added once the tool count in the header includes it, so an add cut off by a crash
+ * is simply missing when the file is reopened.
+ *
+ * The store has a fixed capacity, chosen when it is created. Lookups don't lock; adding tools does.
+ * Close the store only once nothing is using it
+ */
+public class OffHeapToolStore implements ToolStore, AutoCloseable {
+    static final int MAGIC = 0x544F4F4C; //"TOOL"
+    static final int VERSION = 2;
+    private static final int NO_NAME = -1;
+    //row number + 1 is stored in the index, so 0 is an empty slot
+    private static final int EMPTY_SLOT = 0;
+
+    //header layout
+    private static final long MAGIC_OFFSET = 0;
+    private static final long VERSION_OFFSET = 4;
+    private static final long CAPACITY_OFFSET = 8;
+    private static final long MAX_NAMES_OFFSET = 12;
+    private static final long STRING_BYTES_OFFSET = 16;
+    private static final long TOOL_COUNT_OFFSET = 24;
+    private static final long NAME_COUNT_OFFSET = 28;
+    private static final long STRING_BYTES_USED_OFFSET = 32;
+    private static final long HEADER_BYTES = 64;
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final boolean mapped;
+    private final int capacity;
+    private final int maxNames;
+    private final long stringBytes;
+    private final int indexSlots;
+
+    //where each column starts in the segment
+    private final long codeOffsetColumn;
+    private final long codeLengthColumn;
+    private final long codeHashColumn;
+    //type name id in the high half, brand name id in the low half
+    private final long namesColumn;
+    private final long nameOffsetColumn;
+    private final long nameLengthColumn;
+    private final long indexColumn;
+    private final long stringArea;
+
+    //There are only a few type and brand names, so they are also kept on the heap
+    private final IdTable names = new IdTable();
+    //ToolTypeIds id of each name used as a tool type, plus one (0 for names that aren't types)
+    private final int[] toolTypeIdsByNameId;
+    //rows of each type, indexed by type name id. A replaced row can briefly be listed under its old and new types,
+    //so readers check each row's current type
+    private final AtomicReferenceArray<TypeMembers> rowsByTypeNameId;
+    //Everything written to the segment before this is set is seen by readers who read it
+    private volatile int toolCount;
+    private long stringBytesUsed;
+
+    /**
+     * @param capacity most tools the store can hold (65536 if not set), ignored when opening an existing file
+     * @param maxNames most distinct type and brand names (4096 if not set), ignored when opening an existing file
+     * @param stringBytes space for codes and names, at 2 bytes per char (32 per tool if not set),
+     *                    ignored when opening an existing file
+     * @param file file to map, opened if it exists and created if it doesn't (kept only in memory if not set)
+     * @throws IOException if the file can't be mapped, or isn't a tool store
+     */
+    @Builder
+    private OffHeapToolStore(Integer capacity, Integer maxNames, Long stringBytes, Path file) throws IOException {
+        this.arena = Arena.ofShared();
+        this.mapped = file != null;
+        final boolean existingFile = file != null && Files.exists(file) && Files.size(file) > 0;
+        MemorySegment header = null;
+        if(existingFile){
+            try(FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+                header = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES, arena);
+            }
+            if(header.get(ValueLayout.JAVA_INT, MAGIC_OFFSET) != MAGIC || header.get(ValueLayout.JAVA_INT, VERSION_OFFSET) != VERSION){
+                arena.close();
+                throw new IOException(file + " is not a version " + VERSION + " tool store");
+            }
+            this.capacity = header.get(ValueLayout.JAVA_INT, CAPACITY_OFFSET);
+            this.maxNames = header.get(ValueLayout.JAVA_INT, MAX_NAMES_OFFSET);
+            this.stringBytes = header.get(ValueLayout.JAVA_LONG, STRING_BYTES_OFFSET);
+        }else{
+            this.capacity = capacity == null ? 65536 : capacity;
+            this.maxNames = maxNames == null ? 4096 : maxNames;
+            this.stringBytes = stringBytes == null ? 32L * this.capacity : stringBytes;
+            if(this.capacity < 1 || this.capacity > (1 << 28) || this.maxNames < 1 || this.stringBytes < 0){
+                arena.close();
+                throw new IllegalArgumentException("Tool store needs a capacity from 1 to 2^28, at least one name and no negative string space");
+            }
+        }
+
+        this.indexSlots = Integer.highestOneBit(this.capacity * 2 - 1) * 2;
+        this.codeOffsetColumn = HEADER_BYTES;
+        this.codeLengthColumn = codeOffsetColumn + 8L * this.capacity;
+        this.codeHashColumn = codeLengthColumn + 4L * this.capacity;
+        this.namesColumn = alignTo8(codeHashColumn + 4L * this.capacity);
+        this.nameOffsetColumn = namesColumn + 8L * this.capacity;
+        this.nameLengthColumn = nameOffsetColumn + 8L * this.maxNames;
+        this.indexColumn = alignTo8(nameLengthColumn + 4L * this.maxNames);
+        this.stringArea = alignTo8(indexColumn + 4L * indexSlots);
+        final long totalBytes = stringArea + this.stringBytes;
+
+        if(file == null){
+            this.segment = arena.allocate(totalBytes, 8);
+        }else{
+            try(FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)){
+                this.segment = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, totalBytes, arena);
+            }
+        }
+        this.toolTypeIdsByNameId = new int[this.maxNames];
+        this.rowsByTypeNameId = new AtomicReferenceArray<>(this.maxNames);
+        if(existingFile){
+            reopen();
+        }else{
+            segment.set(ValueLayout.JAVA_INT, MAGIC_OFFSET, MAGIC);
+            segment.set(ValueLayout.JAVA_INT, VERSION_OFFSET, VERSION);
+            segment.set(ValueLayout.JAVA_INT, CAPACITY_OFFSET, this.capacity);
+            segment.set(ValueLayout.JAVA_INT, MAX_NAMES_OFFSET, this.maxNames);
+            segment.set(ValueLayout.JAVA_LONG, STRING_BYTES_OFFSET, this.stringBytes);
+        }
+    }
+
+    @Override
+    public synchronized int addTool(Tool tool){
+        if(tool.getCode() == null){
+            throw new IllegalArgumentException("Input tool code must not be null or empty");
+        }
+        final int typeNameId = internName(tool.getType());
+        if(typeNameId != NO_NAME){
+            toolTypeIdsByNameId[typeNameId] = ToolTypeIds.intern(tool.getType()) + 1;
+        }
+        final int brandNameId = internName(tool.getBrand());
+        final long rowNames = packNames(typeNameId, brandNameId);
+
+        final int existingRow = lookupToolCodeId(tool.getCode());
+        if(existingRow != IdTable.NO_ID){
+            final int replacedTypeNameId = typeNameIdOf(readNames(existingRow));
+            if(replacedTypeNameId == typeNameId){
+                writeNames(existingRow, rowNames);
+                return existingRow;
+            }
+            //listed under the new type first, so the row is never missing from both lists
+            addRowToType(typeNameId, existingRow);
+            writeNames(existingRow, rowNames);
+            if(replacedTypeNameId != NO_NAME){
+                rowsByTypeNameId.set(replacedTypeNameId, rowsByTypeNameId.get(replacedTypeNameId).without(existingRow));
+            }
+            return existingRow;
+        }
+
+        final int row = toolCount;
+        if(row == capacity){
+            throw new IllegalStateException("System error -- off-heap tool store is full (capacity " + capacity + ")");
+        }
+        final String code = tool.getCode();
+        segment.set(ValueLayout.JAVA_LONG, codeOffsetColumn + 8L * row, appendString(code));
+        segment.set(ValueLayout.JAVA_INT, codeLengthColumn + 4L * row, code.length());
+        segment.set(ValueLayout.JAVA_INT, codeHashColumn + 4L * row, code.hashCode());
+        segment.set(ValueLayout.JAVA_LONG, namesColumn + 8L * row, rowNames);
+        addRowToType(typeNameId, row);
+        final int mask = indexSlots - 1;
+        int slot = spread(code.hashCode()) & mask;
+        while(segment.get(ValueLayout.JAVA_INT, indexColumn + 4L * slot) != EMPTY_SLOT){
+            slot = (slot + 1) & mask;
+        }
+        segment.set(ValueLayout.JAVA_INT, indexColumn + 4L * slot, row + 1);
+        segment.set(ValueLayout.JAVA_INT, TOOL_COUNT_OFFSET, row + 1);
+        toolCount = row + 1;
+        return row;
+    }
+
+    @Override
+    public int lookupToolCodeId(String toolCode){
+        if(toolCode == null){
+            return IdTable.NO_ID;
+        }
+        final int hashCode = toolCode.hashCode();
+        final int mask = indexSlots - 1;
+        for(int slot = spread(hashCode) & mask; ; slot = (slot + 1) & mask){
+            final int row = segment.get(ValueLayout.JAVA_INT, indexColumn + 4L * slot) - 1;
+            if(row < 0){
+                return IdTable.NO_ID;
+            }
+            //a row past the count is still being added, so its columns can't be read yet
+            if(row < toolCount && segment.get(ValueLayout.JAVA_INT, codeHashColumn + 4L * row) == hashCode
+                    && codeEquals(row, toolCode)){
+                return row;
+            }
+        }
+    }
+
+    @Override
+    public Tool lookupToolById(int toolCodeId){
+        if(toolCodeId < 0 || toolCodeId >= toolCount){
+            return null;
+        }
+        return readTool(toolCodeId, readNames(toolCodeId));
+    }
+
+    @Override
+    public int lookupToolTypeId(int toolCodeId){
+        if(toolCodeId < 0 || toolCodeId >= toolCount){
+            return IdTable.NO_ID;
+        }
+        final int typeNameId = typeNameIdOf(readNames(toolCodeId));
+        return typeNameId == NO_NAME ? IdTable.NO_ID : toolTypeIdsByNameId[typeNameId] - 1;
+    }
+
+    @Override
+    public List<Tool> lookupToolsByType(String toolType){
+        final List<Tool> tools = new ArrayList<>();
+        final int typeNameId = names.idOf(toolType);
+        final TypeMembers typeMembers = typeNameId == IdTable.NO_ID ? null : rowsByTypeNameId.get(typeNameId);
+        if(typeMembers == null){
+            return tools;
+        }
+        final int rowCount = toolCount;
+        for(int i = 0; i < typeMembers.count; i++){
+            final int row = typeMembers.toolCodeIds[i];
+            final long rowNames = readNames(row);
+            //skips a row being moved to or from this type, and one still being added
+            if(row < rowCount && typeNameIdOf(rowNames) == typeNameId){
+                tools.add(readTool(row, rowNames));
+            }
+        }
+        tools.sort(Comparator.comparing(Tool::getCode));
+        return tools;
+    }
+
+    @Override
+    public int size(){
+        return toolCount;
+    }
+
+    public int getCapacity(){
+        return capacity;
+    }
+
+    /**
+     * Write changes to a mapped file out to the disk
+     */
+    public void force(){
+        if(mapped){
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close(){
+        if(arena.scope().isAlive()){
+            force();
+            arena.close();
+        }
+    }
+
+    //Rebuild the heap copies of the names, and clear index slots left by an add that didn't finish
+    private void reopen(){
+        final int nameCount = segment.get(ValueLayout.JAVA_INT, NAME_COUNT_OFFSET);
+        for(int nameId = 0; nameId < nameCount; nameId++){
+            names.intern(readString(segment.get(ValueLayout.JAVA_LONG, nameOffsetColumn + 8L * nameId),
+                    segment.get(ValueLayout.JAVA_INT, nameLengthColumn + 4L * nameId)));
+        }
+        final int rowCount = segment.get(ValueLayout.JAVA_INT, TOOL_COUNT_OFFSET);
+        for(int row = 0; row < rowCount; row++){
+            final int typeNameId = typeNameIdOf(readNames(row));
+            if(typeNameId != NO_NAME){
+                toolTypeIdsByNameId[typeNameId] = ToolTypeIds.intern(names.keyOf(typeNameId)) + 1;
+                addRowToType(typeNameId, row);
+            }
+        }
+        //the unfinished add was the last one, so no other code was placed past its slot
+        for(int slot = 0; slot < indexSlots; slot++){
+            if(segment.get(ValueLayout.JAVA_INT, indexColumn + 4L * slot) > rowCount){
+                segment.set(ValueLayout.JAVA_INT, indexColumn + 4L * slot, EMPTY_SLOT);
+            }
+        }
+        stringBytesUsed = segment.get(ValueLayout.JAVA_LONG, STRING_BYTES_USED_OFFSET);
+        toolCount = rowCount;
+    }
+
+    private void addRowToType(int typeNameId, int row){
+        if(typeNameId != NO_NAME){
+            final TypeMembers typeMembers = rowsByTypeNameId.get(typeNameId);
+            rowsByTypeNameId.set(typeNameId, typeMembers == null ? TypeMembers.of(row) : typeMembers.with(row));
+        }
+    }
+
+    private Tool readTool(int row, long rowNames){
+        return Tool.builder()
+                   .code(readString(segment.get(ValueLayout.JAVA_LONG, codeOffsetColumn + 8L * row),
+                           segment.get(ValueLayout.JAVA_INT, codeLengthColumn + 4L * row)))
+                   .type(names.keyOf(typeNameIdOf(rowNames)))
+                   .brand(names.keyOf((int) rowNames))
+                   .build();
+    }
+
+    //one aligned 8-byte read, so the type and brand always come from the same add
+    private long readNames(int row){
+        return segment.get(ValueLayout.JAVA_LONG, namesColumn + 8L * row);
+    }
+
+    //one aligned 8-byte store. The volatile write after it publishes it to readers, who read toolCount first
+    private void writeNames(int row, long rowNames){
+        segment.set(ValueLayout.JAVA_LONG, namesColumn + 8L * row, rowNames);
+        toolCount = toolCount;
+    }
+
+    private static long packNames(int typeNameId, int brandNameId){
+        return ((long) typeNameId << 32) | (brandNameId & 0xFFFFFFFFL);
+    }
+
+    private static int typeNameIdOf(long rowNames){
+        return (int) (rowNames >> 32);
+    }
+
+    private int internName(String name){
+        if(name == null){
+            return NO_NAME;
+        }
+        final int existingNameId = names.idOf(name);
+        if(existingNameId != IdTable.NO_ID){
+            return existingNameId;
+        }
+        final int nameId = names.size();
+        if(nameId == maxNames){
+            throw new IllegalStateException("System error -- off-heap tool store has no room for more names (" + maxNames + ")");
+        }
+        segment.set(ValueLayout.JAVA_LONG, nameOffsetColumn + 8L * nameId, appendString(name));
+        segment.set(ValueLayout.JAVA_INT, nameLengthColumn + 4L * nameId, name.length());
+        segment.set(ValueLayout.JAVA_INT, NAME_COUNT_OFFSET, nameId + 1);
+        return names.intern(name);
+    }
+
+    //returns where the string starts in the string area
+    private long appendString(String value){
+        final long offset = stringBytesUsed;
+        if(offset + 2L * value.length() > stringBytes){
+            throw new IllegalStateException("System error -- off-heap tool store has no room for more strings (" + stringBytes + " bytes)");
+        }
+        for(int i = 0; i < value.length(); i++){
+            segment.set(ValueLayout.JAVA_CHAR, stringArea + offset + 2L * i, value.charAt(i));
+        }
+        stringBytesUsed = offset + 2L * value.length();
+        segment.set(ValueLayout.JAVA_LONG, STRING_BYTES_USED_OFFSET, stringBytesUsed);
+        return offset;
+    }
+
+    private String readString(long offset, int length){
+        final char[] chars = new char[length];
+        MemorySegment.copy(segment, ValueLayout.JAVA_CHAR, stringArea + offset, chars, 0, length);
+        return new String(chars);
+    }
+
+    private boolean codeEquals(int row, String toolCode){
+        if(segment.get(ValueLayout.JAVA_INT, codeLengthColumn + 4L * row) != toolCode.length()){
+            return false;
+        }
+        final long start = stringArea + segment.get(ValueLayout.JAVA_LONG, codeOffsetColumn + 8L * row);
+        for(int i = 0; i < toolCode.length(); i++){
+            if(segment.get(ValueLayout.JAVA_CHAR, start + 2L * i) != toolCode.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hashCode){
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    private static long alignTo8(long offset){
+        return (offset + 7) & ~7L;
+    }
+}
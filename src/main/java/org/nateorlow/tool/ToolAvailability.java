@@ -0,0 +1,25 @@
+package org.nateorlow.tool;
+
+import lombok.Getter;
+import org.nateorlow.charge.RentalPeriod;
+
+/**
+ * A tool that is free for a rental period
+ * chargeableDays is filled in when the search compared charges, and is otherwise null
+ */
+@Getter
+public class ToolAvailability {
+    Tool tool;
+    RentalPeriod rentalPeriod;
+    Integer chargeableDays;
+
+    public ToolAvailability(Tool tool, RentalPeriod rentalPeriod){
+        this(tool, rentalPeriod, null);
+    }
+
+    public ToolAvailability(Tool tool, RentalPeriod rentalPeriod, Integer chargeableDays){
+        this.tool = tool;
+        this.rentalPeriod = rentalPeriod;
+        this.chargeableDays = chargeableDays;
+    }
+}
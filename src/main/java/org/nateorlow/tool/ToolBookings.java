@@ -0,0 +1,210 @@
+package org.nateorlow.tool;
+
+import org.nateorlow.charge.RentalPeriod;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The rental periods one tool is booked for, kept sorted by first charge date,
+ * along with the runs of free days between them
+ *
+ * Free runs are kept as their own sorted map (first free day to last free day), so back-to-back bookings
+ * leave no run between them, and finding where the tool is next free, or how long it stays free,
+ * is a single O(log n) lookup. Checks, bookings and cancellations are O(log n) too.
+ *
+ * To find the first free run long enough for a rental without stepping over every shorter one,
+ * the runs are also copied into arrays with a max-length tree over them. The copy is rebuilt, in O(n),
+ * on the first search after the bookings change; searches that follow without a change in between are O(log n).
+ * So a tool that is booked between every search (reserve, then search again) pays the O(n) rebuild each time.
+ * A booking covers its charged days, from the first charge date through the due date.
+ *
+ * Free runs are bounded by the days LocalDate can hold, so day arithmetic on them can't overflow,
+ * even for dates before 1970 (negative epoch days).
+ *
+ * This is not thread-safe on its own -- Inventory locks around it
+ */
+public class ToolBookings {
+    //the first and last days a free run can cover, as epoch days
+    public static final long FIRST_DAY = LocalDate.MIN.toEpochDay();
+    public static final long LAST_DAY = LocalDate.MAX.toEpochDay();
+    //returned instead of a day when no day fits, so it is later than any real day
+    public static final long NO_DAY = Long.MAX_VALUE;
+
+    private final NavigableMap<Long, RentalPeriod> bookingsByFirstChargeDay = new TreeMap<>();
+    //every day not covered by a booking is in exactly one run, and runs never touch
+    private final NavigableMap<Long, Long> freeRunEndByStart = new TreeMap<>(Map.of(FIRST_DAY, LAST_DAY));
+    //search index over the free runs, in order; null when the runs have changed since it was built
+    private long[] runStarts;
+    private long[] runEnds;
+    private long[] longestRunTree; //heap-ordered max of (end - start) over the runs, so leaves start at leafCount
+    private int leafCount;
+
+    public int size(){
+        return bookingsByFirstChargeDay.size();
+    }
+
+    /**
+     * @param rentalPeriod
+     * @return true if none of the period's charged days are booked
+     */
+    public boolean isFree(RentalPeriod rentalPeriod){
+        return isFree(rentalPeriod.getFirstChargeEpochDay(), rentalPeriod.getEndEpochDay());
+    }
+
+    /**
+     * Book a period, unless it overlaps an existing booking
+     * @param rentalPeriod a period of at least one charged day
+     * @return true if the period was booked
+     */
+    public boolean book(RentalPeriod rentalPeriod){
+        final long firstDay = rentalPeriod.getFirstChargeEpochDay();
+        final long lastDay = rentalPeriod.getEndEpochDay();
+        //a period with no charged days would leave free runs that touch or overlap
+        if(lastDay < firstDay){
+            throw new IllegalArgumentException("Rental day count must be at least 1");
+        }
+        if(!isFree(firstDay, lastDay)){
+            return false;
+        }
+        bookingsByFirstChargeDay.put(firstDay, rentalPeriod);
+        runStarts = null;
+        //split the free run the booking falls in
+        final Map.Entry<Long, Long> freeRun = freeRunEndByStart.floorEntry(firstDay);
+        freeRunEndByStart.remove(freeRun.getKey());
+        if(freeRun.getKey() < firstDay){
+            freeRunEndByStart.put(freeRun.getKey(), firstDay - 1);
+        }
+        if(lastDay < freeRun.getValue()){
+            freeRunEndByStart.put(lastDay + 1, freeRun.getValue());
+        }
+        return true;
+    }
+
+    /**
+     * Cancel a booking with the same dates as the given period
+     * @param rentalPeriod
+     * @return true if a booking was cancelled
+     */
+    public boolean cancel(RentalPeriod rentalPeriod){
+        final long firstDay = rentalPeriod.getFirstChargeEpochDay();
+        final RentalPeriod booking = bookingsByFirstChargeDay.get(firstDay);
+        if(booking == null || booking.getEndEpochDay() != rentalPeriod.getEndEpochDay()){
+            return false;
+        }
+        bookingsByFirstChargeDay.remove(firstDay);
+        runStarts = null;
+        //the freed days join any free runs right before and after them
+        long freeRunStart = firstDay;
+        long freeRunEnd = booking.getEndEpochDay();
+        final Map.Entry<Long, Long> before = freeRunEndByStart.floorEntry(firstDay - 1);
+        if(before != null && before.getValue() == firstDay - 1){
+            freeRunStart = before.getKey();
+        }
+        final Long afterEnd = freeRunEndByStart.remove(freeRunEnd + 1);
+        if(afterEnd != null){
+            freeRunEnd = afterEnd;
+        }
+        freeRunEndByStart.put(freeRunStart, freeRunEnd);
+        return true;
+    }
+
+    /**
+     * Find the earliest check out date, on or after notBefore, where the tool is free for the whole rental
+     * This jumps straight to the first free run long enough for the rental, however many shorter ones are in the way:
+     * O(log n), plus an O(n) rebuild of the search index if the bookings changed since the last search
+     * @param notBefore earliest acceptable check out date
+     * @param rentalDayCount length of the rental
+     * @return earliest check out date the tool can be rented for that many days, or null if the rental would end after LocalDate.MAX
+     */
+    public LocalDate earliestFreeCheckoutDate(LocalDate notBefore, int rentalDayCount){
+        final long firstChargeDay = earliestFreeFirstChargeDay(notBefore.toEpochDay() + 1, rentalDayCount);
+        return firstChargeDay == NO_DAY ? null : LocalDate.ofEpochDay(firstChargeDay - 1);
+    }
+
+    /**
+     * @param candidateDay earliest acceptable first charge day (as an epoch day)
+     * @param rentalDayCount length of the rental
+     * @return earliest first charge day, at or after candidateDay, that starts a free run of rentalDayCount days, or NO_DAY
+     */
+    long earliestFreeFirstChargeDay(long candidateDay, int rentalDayCount){
+        if(runStarts == null){
+            buildRunIndex();
+        }
+        final long lastDayOffset = rentalDayCount - 1;
+        //the run holding the candidate day, or else the last one before it
+        int runIndex = Arrays.binarySearch(runStarts, candidateDay);
+        if(runIndex < 0){
+            runIndex = -runIndex - 2;
+        }
+        if(runIndex >= 0 && runEnds[runIndex] >= candidateDay){
+            if(runEnds[runIndex] - candidateDay >= lastDayOffset){
+                return candidateDay;
+            }
+        }
+        //every later run starts after the candidate day, so the first long enough one wins
+        final int longRunIndex = firstRunAtLeast(1, 0, leafCount - 1, runIndex + 1, lastDayOffset);
+        return longRunIndex < 0 ? NO_DAY : runStarts[longRunIndex];
+    }
+
+    /**
+     * @param day
+     * @return the first day, at or after the given one, that isn't booked, or NO_DAY
+     */
+    long nextFreeDay(long day){
+        final Map.Entry<Long, Long> freeRun = freeRunEndByStart.floorEntry(day);
+        if(freeRun != null && freeRun.getValue() >= day){
+            return day;
+        }
+        final Long nextFreeRunStart = freeRunEndByStart.higherKey(day);
+        return nextFreeRunStart == null ? NO_DAY : nextFreeRunStart;
+    }
+
+    /**
+     * @param freeDay a day that isn't booked
+     * @return the last day of the free run the day is in (LAST_DAY if nothing is booked after it)
+     */
+    long lastFreeDay(long freeDay){
+        final Map.Entry<Long, Long> freeRun = freeRunEndByStart.floorEntry(freeDay);
+        return freeRun == null || freeRun.getValue() < freeDay ? freeDay - 1 : freeRun.getValue();
+    }
+
+    private void buildRunIndex(){
+        final int runCount = freeRunEndByStart.size();
+        runStarts = new long[runCount];
+        runEnds = new long[runCount];
+        leafCount = Integer.highestOneBit(Math.max(1, runCount - 1)) << 1;
+        longestRunTree = new long[2 * leafCount];
+        Arrays.fill(longestRunTree, -1);
+        int runIndex = 0;
+        for(Map.Entry<Long, Long> freeRun : freeRunEndByStart.entrySet()){
+            runStarts[runIndex] = freeRun.getKey();
+            runEnds[runIndex] = freeRun.getValue();
+            longestRunTree[leafCount + runIndex] = freeRun.getValue() - freeRun.getKey();
+            runIndex++;
+        }
+        for(int node = leafCount - 1; node > 0; node--){
+            longestRunTree[node] = Math.max(longestRunTree[2 * node], longestRunTree[2 * node + 1]);
+        }
+    }
+
+    //First run at or after fromIndex whose end - start is at least minLength, within the node covering runs low..high
+    private int firstRunAtLeast(int node, int low, int high, int fromIndex, long minLength){
+        if(high < fromIndex || longestRunTree[node] < minLength){
+            return -1;
+        }else if(low == high){
+            return low;
+        }
+        final int middle = (low + high) >>> 1;
+        final int leftIndex = firstRunAtLeast(2 * node, low, middle, fromIndex, minLength);
+        return leftIndex >= 0 ? leftIndex : firstRunAtLeast(2 * node + 1, middle + 1, high, fromIndex, minLength);
+    }
+
+    private boolean isFree(long firstDay, long lastDay){
+        final Map.Entry<Long, Long> freeRun = freeRunEndByStart.floorEntry(firstDay);
+        return freeRun != null && freeRun.getValue() >= lastDay;
+    }
+}
@@ -0,0 +1,44 @@
+package org.nateorlow.tool;
+
+import java.util.List;
+
+/**
+ * Where an Inventory keeps its tools
+ *
+ * Each tool code gets an int id when its tool is first added. Lookups must be safe while tools are being added,
+ * and must not lock; adding tools may lock. Each add should be seen all at once, so a tool is never listed under a type it doesn't have
+ */
+public interface ToolStore {
+    /**
+     * Add a tool, replacing any tool with the same code (which keeps its id)
+     * @param tool
+     * @return the tool's code id
+     */
+    int addTool(Tool tool);
+
+    /**
+     * @param toolCode
+     * @return the id given to the tool code, or IdTable.NO_ID if there is no such tool
+     */
+    int lookupToolCodeId(String toolCode);
+
+    /**
+     * @param toolCodeId
+     * @return the tool, or null if there isn't one with that id
+     */
+    Tool lookupToolById(int toolCodeId);
+
+    /**
+     * @param toolCodeId
+     * @return the ToolTypeIds id of the tool's type, or IdTable.NO_ID if it has no type
+     */
+    int lookupToolTypeId(int toolCodeId);
+
+    /**
+     * @param toolType
+     * @return every tool of that type, ordered by tool code
+     */
+    List<Tool> lookupToolsByType(String toolType);
+
+    int size();
+}
@@ -0,0 +1,33 @@
+package org.nateorlow.tool;
+
+/**
+ * The int ids of tool types, shared by the whole process
+ * so that an inventory and a charge calculator agree on them without being wired together.
+ * There are only a handful of tool types, so the table stays small however many tools there are
+ */
+public final class ToolTypeIds {
+    private static final IdTable TOOL_TYPES = new IdTable();
+
+    private ToolTypeIds(){
+    }
+
+    /**
+     * @param toolType
+     * @return the type's id, adding the type if it is new (NO_ID for a null type)
+     */
+    public static int intern(String toolType){
+        return toolType == null ? IdTable.NO_ID : TOOL_TYPES.intern(toolType);
+    }
+
+    /**
+     * @param toolType
+     * @return the type's id, or NO_ID if the type has never been added
+     */
+    public static int idOf(String toolType){
+        return TOOL_TYPES.idOf(toolType);
+    }
+
+    public static String typeOf(int toolTypeId){
+        return TOOL_TYPES.keyOf(toolTypeId);
+    }
+}
@@ -0,0 +1,41 @@
+package org.nateorlow.tool;
+
+import java.util.Arrays;
+
+/**
+ * Code ids of the tools of one type, in the order they were added. Only the first count ids belong to it,
+ * so a tool is added by writing past the end and making a longer TypeMembers over the same array
+ */
+class TypeMembers {
+    final int[] toolCodeIds;
+    final int count;
+
+    TypeMembers(int[] toolCodeIds, int count){
+        this.toolCodeIds = toolCodeIds;
+        this.count = count;
+    }
+
+    static TypeMembers of(int toolCodeId){
+        final int[] toolCodeIds = new int[4];
+        toolCodeIds[0] = toolCodeId;
+        return new TypeMembers(toolCodeIds, 1);
+    }
+
+    //only called on the newest TypeMembers for a type, so nothing else has written past its count
+    TypeMembers with(int toolCodeId){
+        final int[] ids = count < toolCodeIds.length ? toolCodeIds : Arrays.copyOf(toolCodeIds, count * 2);
+        ids[count] = toolCodeId;
+        return new TypeMembers(ids, count + 1);
+    }
+
+    TypeMembers without(int toolCodeId){
+        final int[] ids = new int[Math.max(toolCodeIds.length, 4)];
+        int remaining = 0;
+        for(int i = 0; i < count; i++){
+            if(toolCodeIds[i] != toolCodeId){
+                ids[remaining++] = toolCodeIds[i];
+            }
+        }
+        return new TypeMembers(ids, remaining);
+    }
+}
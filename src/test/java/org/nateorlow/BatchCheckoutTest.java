@@ -0,0 +1,55 @@
+package org.nateorlow;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.nateorlow.contract.LogContractPrinter;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCheckoutTest {
+    LogContractPrinter contractPrinterSpy;
+    BatchCheckout batchCheckout;
+
+    @BeforeEach
+    void setUp(){
+        contractPrinterSpy = Mockito.spy(LogContractPrinter.class);
+        Mockito.doNothing().when(contractPrinterSpy).outputToLog(Mockito.anyString());
+        batchCheckout = Mockito.spy(BatchCheckout.builder()
+                                                 .checkout(Checkout.sampleCheckout(contractPrinterSpy))
+                                                 .threadCount(4)
+                                                 .maxRowsInFlight(2)
+                                                 .build());
+        Mockito.doNothing().when(batchCheckout).outputToErrorLog(Mockito.anyString());
+    }
+
+    @Test
+    void testRowsPrintInOrderWithErrors(){
+        final String rows = String.join("\n",
+                "toolCode,rentalDays,discountPercent,checkoutDate",
+                "LADW,3,10,7/2/20",
+                "# a comment",
+                "JAKR,5,101,9/3/15",
+                "",
+                "CHNS 5 25 7/2/15",
+                "NOPE,5,0,7/2/15",
+                "JAKD,6,0,9/3/15");
+        final BatchCheckout.BatchSummary batchSummary = batchCheckout.checkoutRows(new BufferedReader(new StringReader(rows)));
+
+        assertEquals(5, batchSummary.getRowCount());
+        assertEquals(2, batchSummary.getErrorCount());
+        InOrder contractOrder = Mockito.inOrder(contractPrinterSpy);
+        contractOrder.verify(contractPrinterSpy).outputToLog("Tool code: LADW");
+        contractOrder.verify(contractPrinterSpy).outputToLog("Final Charge: $3.58");
+        contractOrder.verify(contractPrinterSpy).outputToLog("Tool code: CHNS");
+        contractOrder.verify(contractPrinterSpy).outputToLog("Final Charge: $3.35");
+        contractOrder.verify(contractPrinterSpy).outputToLog("Tool code: JAKD");
+        contractOrder.verify(contractPrinterSpy).outputToLog("Final Charge: $8.97");
+        Mockito.verify(batchCheckout).outputToErrorLog(Mockito.startsWith("Row 4: Discount percentage"));
+        Mockito.verify(batchCheckout).outputToErrorLog(Mockito.startsWith("Row 7: Input tool code NOPE"));
+    }
+}
@@ -0,0 +1,76 @@
+package org.nateorlow;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.nateorlow.contract.LogContractPrinter;
+import org.nateorlow.metrics.CheckoutMetrics;
+import org.nateorlow.metrics.CheckoutStage;
+import org.nateorlow.metrics.ValidationFailure;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.format.DateTimeParseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckoutMetricsTest {
+    LogContractPrinter contractPrinterSpy;
+    CheckoutMetrics checkoutMetrics;
+    Checkout checkout;
+
+    @BeforeEach
+    void setUp(){
+        contractPrinterSpy = Mockito.spy(LogContractPrinter.class);
+        Mockito.doNothing().when(contractPrinterSpy).outputToLog(Mockito.anyString());
+        checkoutMetrics = new CheckoutMetrics();
+        checkout = Checkout.sampleCheckout(contractPrinterSpy, checkoutMetrics);
+    }
+
+    @Test
+    void testStagesAndFailuresAreCounted(){
+        checkout.checkoutUsingInput("LADW", 3, 10, "7/2/20");
+        checkout.checkoutUsingInput("JAKD", 6, 0, "9/3/15");
+        assertThrows(IllegalArgumentException.class, () -> checkout.checkoutUsingInput("JAKR", 5, 101, "9/3/15"));
+        assertThrows(IllegalArgumentException.class, () -> checkout.checkoutUsingInput("NOPE", 5, 0, "9/3/15"));
+        assertThrows(DateTimeParseException.class, () -> checkout.checkoutUsingInput("JAKR", 5, 0, "9/3/x"));
+
+        assertEquals(2, checkoutMetrics.getContractCount());
+        assertEquals(4, checkoutMetrics.getStageHistogram(CheckoutStage.VALIDATION).getCount());
+        assertEquals(4, checkoutMetrics.getStageHistogram(CheckoutStage.INVENTORY_LOOKUP).getCount());
+        assertEquals(2, checkoutMetrics.getStageHistogram(CheckoutStage.DATE_PARSING).getCount());
+        assertEquals(2, checkoutMetrics.getStageHistogram(CheckoutStage.DAY_COUNTING).getCount());
+        //a base charge and a discount charge for each contract
+        assertEquals(4, checkoutMetrics.getStageHistogram(CheckoutStage.CHARGE_CALCULATION).getCount());
+        assertEquals(2, checkoutMetrics.getStageHistogram(CheckoutStage.PRINTING).getCount());
+        assertEquals(1, checkoutMetrics.getValidationFailureCount(ValidationFailure.INVALID_DISCOUNT_PERCENT));
+        assertEquals(1, checkoutMetrics.getValidationFailureCount(ValidationFailure.UNKNOWN_TOOL_CODE));
+        assertEquals(1, checkoutMetrics.getValidationFailureCount(ValidationFailure.INVALID_CHECKOUT_DATE));
+        assertEquals(0, checkoutMetrics.getValidationFailureCount(ValidationFailure.MISSING_TOOL_CODE));
+        assertTrue(checkoutMetrics.dumpText().contains("INVALID_DISCOUNT_PERCENT=1"));
+    }
+
+    @Test
+    void testDisabledMetricsCountNothing(){
+        final Checkout uninstrumentedCheckout = Checkout.sampleCheckout(contractPrinterSpy);
+        uninstrumentedCheckout.checkoutUsingInput("LADW", 3, 10, "7/2/20");
+        assertThrows(IllegalArgumentException.class, () -> uninstrumentedCheckout.checkoutUsingInput("", 5, 0, "9/3/15"));
+        Mockito.verify(contractPrinterSpy).outputToLog("Final Charge: $3.58");
+        assertEquals(0, CheckoutMetrics.DISABLED.getContractCount());
+        assertEquals(0, CheckoutMetrics.DISABLED.getStageHistogram(CheckoutStage.PRINTING).getCount());
+        assertEquals(0, CheckoutMetrics.DISABLED.getValidationFailureCount(ValidationFailure.MISSING_TOOL_CODE));
+    }
+
+    @Test
+    void testMetricsOverJmx() throws Exception {
+        checkout.checkoutUsingInput("LADW", 3, 10, "7/2/20");
+        final ObjectName objectName = checkoutMetrics.registerMBean("CheckoutMetricsTest");
+        try{
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "ContractCount"));
+            assertNotNull(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "StageLatencies"));
+            assertNotNull(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "ValidationFailureCounts"));
+        }finally{
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        }
+    }
+}
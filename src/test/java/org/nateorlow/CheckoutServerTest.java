@@ -0,0 +1,132 @@
+package org.nateorlow;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.nateorlow.contract.Contract;
+import org.nateorlow.contract.ContractRecord;
+import org.nateorlow.contract.LogContractPrinter;
+import org.nateorlow.metrics.CheckoutMetrics;
+import org.nateorlow.metrics.CheckoutStage;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckoutServerTest {
+    LogContractPrinter contractPrinterSpy;
+    CheckoutServer checkoutServer;
+    HttpClient httpClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        contractPrinterSpy = Mockito.spy(LogContractPrinter.class);
+        Mockito.doNothing().when(contractPrinterSpy).outputToLog(Mockito.anyString());
+        checkoutServer = CheckoutServer.builder().checkout(Checkout.sampleCheckout(contractPrinterSpy)).port(0).build();
+        checkoutServer.start();
+        httpClient = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown(){
+        httpClient.close();
+        checkoutServer.close();
+    }
+
+    @Test
+    void testQuoteAsTextAndJson() throws Exception {
+        final HttpResponse<String> textResponse = send("GET", "/quote?tool=LADW&days=3&discount=10&date=7%2F2%2F20");
+        assertEquals(200, textResponse.statusCode());
+        assertTrue(textResponse.body().startsWith("Tool code: LADW\n"));
+        assertTrue(textResponse.body().endsWith("Final Charge: $3.58\n"));
+
+        final HttpResponse<String> jsonResponse = send("GET", "/quote?tool=LADW&days=3&discount=10&date=7/2/20&format=json");
+        assertEquals(200, jsonResponse.statusCode());
+        assertEquals("{\"toolCode\":\"LADW\",\"toolType\":\"Ladder\",\"toolBrand\":\"Werner\",\"rentalDays\":3,"
+                + "\"checkoutDate\":\"7/2/20\",\"dueDate\":\"7/5/20\",\"dailyRentalCharge\":1.99,\"chargeDays\":2,"
+                + "\"preDiscountCharge\":3.98,\"discountPercent\":10,\"discountAmount\":0.40,\"finalCharge\":3.58}\n",
+                jsonResponse.body());
+        //quotes don't print or reserve anything
+        Mockito.verify(contractPrinterSpy, Mockito.never()).printContract(Mockito.any());
+    }
+
+    @Test
+    void testBadInputAndMethod() throws Exception {
+        final HttpResponse<String> badDiscount = send("GET", "/quote?tool=JAKR&days=5&discount=101&date=9/3/15");
+        assertEquals(400, badDiscount.statusCode());
+        assertTrue(badDiscount.body().startsWith("Discount percentage"));
+        assertEquals(400, send("GET", "/quote?tool=JAKR&days=5&discount=0&date=9/31x/15").statusCode());
+        assertEquals(400, send("GET", "/quote?tool=JAKR&discount=0&date=9/3/15").statusCode());
+        assertEquals(405, send("GET", "/checkout?tool=JAKR&days=5&discount=0&date=9/3/15").statusCode());
+
+        //form bodies are read up to a limit, and a bigger one is refused
+        final String form = "tool=JAKR&days=5&discount=0&date=9%2F3%2F15";
+        assertEquals(200, sendForm("/quote", form).statusCode());
+        final String oversizedForm = form + "&padding=" + "x".repeat(CheckoutServer.MAX_REQUEST_BODY_BYTES);
+        assertEquals(413, sendForm("/quote", oversizedForm).statusCode());
+    }
+
+    @Test
+    void testConcurrentCheckoutsReserveOnce() throws Exception {
+        final List<Future<Integer>> statuses = new ArrayList<>();
+        try(ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()){
+            for(int i = 0; i < 32; i++){
+                statuses.add(executorService.submit(() -> send("POST", "/checkout?tool=JAKD&days=6&discount=0&date=9/3/15").statusCode()));
+            }
+        }
+        int okCount = 0;
+        for(Future<Integer> status : statuses){
+            okCount += status.get() == 200 ? 1 : 0;
+            assertTrue(status.get() == 200 || status.get() == 409);
+        }
+        assertEquals(1, okCount);
+        Mockito.verify(contractPrinterSpy, Mockito.times(1)).printContract(Mockito.any());
+        //the tool can go out again on its due date
+        assertEquals(200, send("POST", "/checkout?tool=JAKD&days=2&discount=0&date=9/9/15").statusCode());
+    }
+
+    @Test
+    void testCheckoutPricesContractOnce() throws Exception {
+        final CheckoutMetrics checkoutMetrics = new CheckoutMetrics();
+        final LogContractPrinter meteredPrinterSpy = Mockito.spy(LogContractPrinter.class);
+        Mockito.doNothing().when(meteredPrinterSpy).outputToLog(Mockito.anyString());
+        try(CheckoutServer meteredServer = CheckoutServer.builder().checkout(Checkout.sampleCheckout(meteredPrinterSpy, checkoutMetrics))
+                                                         .port(0).build()){
+            meteredServer.start();
+            final HttpRequest httpRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + meteredServer.getPort()
+                    + "/checkout?tool=LADW&days=3&discount=10&date=7/2/20")).POST(HttpRequest.BodyPublishers.noBody()).build();
+            final HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+
+            //the record that was printed is the one sent back, so the base charge and discount are worked out once
+            final ArgumentCaptor<Contract> printedContract = ArgumentCaptor.forClass(Contract.class);
+            Mockito.verify(meteredPrinterSpy).printContract(printedContract.capture());
+            assertInstanceOf(ContractRecord.class, printedContract.getValue());
+            assertEquals(printedContract.getValue() + "\n", response.body());
+            assertEquals(2, checkoutMetrics.getStageHistogram(CheckoutStage.CHARGE_CALCULATION).getCount());
+        }
+    }
+
+    private HttpResponse<String> sendForm(String path, String form) throws Exception {
+        final HttpRequest httpRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + checkoutServer.getPort() + path))
+                                                   .header("Content-Type", "application/x-www-form-urlencoded")
+                                                   .POST(HttpRequest.BodyPublishers.ofString(form)).build();
+        return httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> send(String method, String pathAndQuery) throws Exception {
+        final HttpRequest httpRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + checkoutServer.getPort() + pathAndQuery))
+                                                   .method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+    }
+}
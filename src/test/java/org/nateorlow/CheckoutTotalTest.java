@@ -6,10 +6,16 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.nateorlow.charge.*;
 import org.nateorlow.contract.LogContractPrinter;
+import org.nateorlow.contract.ToolRentalContract;
+import org.nateorlow.holiday.FixedDateHolidayRule;
+import org.nateorlow.holiday.HolidayCalendars;
+import org.nateorlow.tool.HeapToolStore;
 import org.nateorlow.tool.Inventory;
 import org.nateorlow.tool.Tool;
 
 import java.math.BigDecimal;
+import java.time.Month;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -181,6 +187,57 @@ class CheckoutTotalTest {
 
     }
 
+    @Test
+    void testContractKeepsPriceBookVersion(){
+        //the three sample listings were added one at a time
+        final ToolRentalContract ladderContract = checkout.createContract("LADW", 3, 10, "7/2/20");
+        assertEquals(3, ladderContract.getPriceBookVersion());
+
+        final UnroundedChargeCalculator unroundedChargeCalculator = (UnroundedChargeCalculator) checkout.chargeCalculator;
+        final ChargeListing repricedLadderListing = ChargeListing.builder().toolType(Tool.LADDER)
+                                                                 .dailyCharge(new BigDecimal("2.49"))
+                                                                 .weekdayChargeable(true).weekendChargeable(true).holidayChargeable(false).build();
+        unroundedChargeCalculator.publishPriceBook(unroundedChargeCalculator.getPriceBook().withListings(List.of(repricedLadderListing)));
+        final ToolRentalContract repricedLadderContract = checkout.createContract("LADW", 3, 10, "7/2/20");
+        assertEquals(4, repricedLadderContract.getPriceBookVersion());
+        assertTrue(repricedLadderContract.toStringList().contains("Pre-discount charge: $4.98"));
+        //contracts made before the reprice keep the price they were quoted
+        assertTrue(ladderContract.toStringList().contains("Pre-discount charge: $3.98"));
+    }
+
+    @Test
+    void testStoreRegionPicksHolidays(){
+        //the same jackhammer rental as testHalfOffDiscount, from a store that doesn't observe the 4th of July
+        final HolidayCalendars holidayCalendars = new HolidayCalendars();
+        holidayCalendars.register("CA", List.of(FixedDateHolidayRule.builder().name("Canada Day").month(Month.JULY)
+                                                                    .dayOfMonth(1).weekendObserved(true).build()));
+        final Inventory canadaInventory = new Inventory(new HeapToolStore(), "CA");
+        addSampleTools(canadaInventory);
+        final Checkout canadaCheckout = Checkout.builder()
+                                                .inventory(canadaInventory)
+                                                .holidayCalendars(holidayCalendars)
+                                                .chargeCalculator(checkout.chargeCalculator)
+                                                .contractPrinter(contractPrinterSpy)
+                                                .build();
+        assertTrue(canadaCheckout.createContract("JAKR", 4, 50, "7/2/20").toStringList().contains("Charge days: 2"));
+        //a store without a region gets the default holidays
+        final Checkout defaultRegionCheckout = Checkout.builder().inventory(checkout.inventory).holidayCalendars(holidayCalendars)
+                                                       .chargeCalculator(checkout.chargeCalculator).build();
+        assertTrue(defaultRegionCheckout.createContract("JAKR", 4, 50, "7/2/20").toStringList().contains("Charge days: 1"));
+
+        //a configured quote cache is kept for the region, and worked out once rather than for every contract
+        final QuoteCache quoteCache = QuoteCache.builder().chargeableDayCounter(new HolidayChargeableDayCounter())
+                                                .chargeCalculator(checkout.chargeCalculator).build();
+        final Checkout cachedCanadaCheckout = Checkout.builder().inventory(canadaInventory).holidayCalendars(holidayCalendars)
+                                                      .chargeableDayCounter(quoteCache).chargeCalculator(checkout.chargeCalculator).build();
+        assertTrue(cachedCanadaCheckout.createContract("JAKR", 4, 50, "7/2/20").toStringList().contains("Charge days: 2"));
+        final ChargeableDayCounter regionDayCounter = cachedCanadaCheckout.contractDayCounter();
+        assertInstanceOf(QuoteCache.class, regionDayCounter);
+        assertSame(regionDayCounter, cachedCanadaCheckout.contractDayCounter());
+        cachedCanadaCheckout.createContract("JAKR", 4, 50, "7/2/20").toStringList();
+        assertEquals(1, ((QuoteCache) regionDayCounter).getDayCountStats().hitCount());
+    }
+
     @Test
     void testValidateInputArgumentsDiscount() {
         final String validToolCode = "LADW";
@@ -0,0 +1,80 @@
+package org.nateorlow.charge;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkQuoteCalculatorTest {
+    private final UnroundedChargeCalculator unroundedChargeCalculator = new UnroundedChargeCalculator();
+
+    @Test
+    void testVectorCalculatorIsAvailable(){
+        //the build adds the Vector API module to tests
+        assertInstanceOf(VectorBulkQuoteCalculator.class, BulkQuoteCalculator.create());
+    }
+
+    @Test
+    void testRoundingMatchesUnroundedCalculator(){
+        final Random random = new Random(18L);
+        for(int trial = 0; trial < 200; trial++){
+            //odd sizes leave quotes after the last full vector
+            final QuoteBatch quoteBatch = new QuoteBatch(1 + random.nextInt(300), random.nextInt(6));
+            //now and then a batch is big enough to need the scalar fallback
+            final long maxDailyCharge = trial % 20 == 0 ? Long.MAX_VALUE / 1_000_000 : 1_000_000;
+            for(int i = 0; i < quoteBatch.getCapacity(); i++){
+                quoteBatch.add(random.nextLong(maxDailyCharge), random.nextInt(trial % 7 == 0 ? 5000 : 60), random.nextInt(101));
+            }
+            assertMatchesUnroundedCalculator(quoteBatch, new ScalarBulkQuoteCalculator());
+            assertMatchesUnroundedCalculator(quoteBatch, new VectorBulkQuoteCalculator());
+        }
+    }
+
+    @Test
+    void testHalfCentsRoundUp(){
+        final QuoteBatch quoteBatch = new QuoteBatch(64, 3);
+        for(int i = 0; i < 32; i++){
+            //1.005 a day, and 2.01 with 50% off is a discount of 1.005
+            quoteBatch.add(new BigDecimal("1.005"), 1, 0);
+            quoteBatch.add(new BigDecimal("1.005"), 2, 50);
+        }
+        new VectorBulkQuoteCalculator().calculateQuotes(quoteBatch);
+        assertEquals(101, quoteBatch.getBaseChargeCents()[0]);
+        assertEquals(201, quoteBatch.getBaseChargeCents()[1]);
+        assertEquals(101, quoteBatch.getDiscountCents()[1]);
+        assertEquals(100, quoteBatch.getFinalChargeCents()[1]);
+        assertMatchesUnroundedCalculator(quoteBatch, new VectorBulkQuoteCalculator());
+    }
+
+    @Test
+    void testBatchLimits(){
+        assertThrows(IllegalArgumentException.class, () -> new QuoteBatch(10, 19));
+        final QuoteBatch quoteBatch = new QuoteBatch(1, 2);
+        assertThrows(IllegalArgumentException.class, () -> quoteBatch.add(new BigDecimal("1.999"), 1, 0));
+        quoteBatch.add(new BigDecimal("1.99"), 1, 0);
+        assertThrows(IllegalStateException.class, () -> quoteBatch.add(199L, 1, 0));
+    }
+
+    private void assertMatchesUnroundedCalculator(QuoteBatch quoteBatch, BulkQuoteCalculator bulkQuoteCalculator){
+        Arrays.fill(quoteBatch.getBaseChargeCents(), -1);
+        bulkQuoteCalculator.calculateQuotes(quoteBatch);
+        for(int i = 0; i < quoteBatch.getSize(); i++){
+            final ChargeListing chargeListing = ChargeListing.builder().toolType("Bulk")
+                    .dailyCharge(BigDecimal.valueOf(quoteBatch.getDailyCharges()[i], quoteBatch.getDailyChargeScale())).build();
+            //the same steps as ToolRentalContract.computeCharges
+            final BigDecimal baseCharge = unroundedChargeCalculator.calculateBaseCharge(quoteBatch.getChargeableDays()[i], chargeListing)
+                                                                   .setScale(2, RoundingMode.HALF_UP);
+            final BigDecimal discountCharge = unroundedChargeCalculator.calculateDiscountCharge(baseCharge, quoteBatch.getDiscountPercents()[i])
+                                                                       .setScale(2, RoundingMode.HALF_UP);
+            final String quote = bulkQuoteCalculator.getClass().getSimpleName() + " quote " + i + ": " + chargeListing.getDailyCharge()
+                    + " for " + quoteBatch.getChargeableDays()[i] + " days at " + quoteBatch.getDiscountPercents()[i] + "% off";
+            assertEquals(baseCharge, BigDecimal.valueOf(quoteBatch.getBaseChargeCents()[i], 2), quote);
+            assertEquals(discountCharge, BigDecimal.valueOf(quoteBatch.getDiscountCents()[i], 2), quote);
+            assertEquals(baseCharge.subtract(discountCharge), BigDecimal.valueOf(quoteBatch.getFinalChargeCents()[i], 2), quote);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.nateorlow.charge;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointChargeCalculatorTest {
+
+    FixedPointChargeCalculator fixedPointChargeCalculator;
+    UnroundedChargeCalculator unroundedChargeCalculator;
+    @BeforeEach
+    void setUp(){
+        fixedPointChargeCalculator = new FixedPointChargeCalculator();
+        unroundedChargeCalculator = new UnroundedChargeCalculator();
+    }
+
+    @Test
+    void testChargeListingStructure(){
+        assertNull(fixedPointChargeCalculator.lookupChargeListingByToolType("tooltype"));
+        final ChargeListing sampleChargeListing =
+                ChargeListing.builder().toolType("tooltype").dailyCharge(new BigDecimal("2.99")).build();
+        fixedPointChargeCalculator.addChargeListing(sampleChargeListing);
+        assertSame(sampleChargeListing, fixedPointChargeCalculator.lookupChargeListingByToolType("tooltype"));
+    }
+
+    @Test
+    void testMatchesUnroundedCalculator(){
+        //Daily charges with several scales, so the exact result scales are compared too
+        final Random random = new Random(314L);
+        for(int trial = 0; trial < 20000; trial++){
+            final BigDecimal dailyCharge = BigDecimal.valueOf(random.nextInt(100000), random.nextInt(5));
+            final ChargeListing chargeListing = ChargeListing.builder().toolType("tool" + (trial % 10))
+                                                             .dailyCharge(dailyCharge).build();
+            if(trial % 2 == 0){
+                fixedPointChargeCalculator.addChargeListing(chargeListing);
+            }
+            final int chargeableDays = random.nextInt(trial % 10 == 0 ? 5000 : 30);
+            final int discountPercentage = random.nextInt(101);
+
+            final BigDecimal expectedBase = unroundedChargeCalculator.calculateBaseCharge(chargeableDays, chargeListing);
+            final BigDecimal base = fixedPointChargeCalculator.calculateBaseCharge(chargeableDays, chargeListing);
+            assertEquals(expectedBase, base, "Base charge for " + chargeableDays + " days at " + dailyCharge);
+
+            //the contract rounds the base charge before working out the discount
+            final BigDecimal roundedBase = expectedBase.setScale(FixedPointChargeCalculator.CENTS_SCALE, RoundingMode.HALF_UP);
+            final BigDecimal expectedDiscount = unroundedChargeCalculator.calculateDiscountCharge(roundedBase, discountPercentage);
+            assertEquals(expectedDiscount, fixedPointChargeCalculator.calculateDiscountCharge(roundedBase, discountPercentage),
+                    "Discount of " + discountPercentage + "% on " + roundedBase);
+            assertEquals(unroundedChargeCalculator.calculateDiscountCharge(expectedBase, discountPercentage),
+                    fixedPointChargeCalculator.calculateDiscountCharge(expectedBase, discountPercentage),
+                    "Discount of " + discountPercentage + "% on " + expectedBase);
+
+            final long baseInCents = fixedPointChargeCalculator.calculateBaseChargeInCents(chargeableDays, chargeListing);
+            assertEquals(roundedBase, BigDecimal.valueOf(baseInCents, FixedPointChargeCalculator.CENTS_SCALE));
+            final long discountInCents = fixedPointChargeCalculator.calculateDiscountChargeInCents(baseInCents, discountPercentage);
+            assertEquals(expectedDiscount.setScale(FixedPointChargeCalculator.CENTS_SCALE, RoundingMode.HALF_UP),
+                    BigDecimal.valueOf(discountInCents, FixedPointChargeCalculator.CENTS_SCALE),
+                    "Discount of " + discountPercentage + "% on " + roundedBase);
+        }
+    }
+
+    @Test
+    void testRescaleHalfUp(){
+        assertEquals(3, FixedPointChargeCalculator.rescaleHalfUp(250, 2, 0));
+        assertEquals(2, FixedPointChargeCalculator.rescaleHalfUp(249, 2, 0));
+        assertEquals(-3, FixedPointChargeCalculator.rescaleHalfUp(-250, 2, 0));
+        assertEquals(4200, FixedPointChargeCalculator.rescaleHalfUp(42, 0, 2));
+    }
+
+    @Test
+    void testLargeChargesFallBackToBigDecimal(){
+        final ChargeListing expensiveListing = ChargeListing.builder().toolType("crane")
+                                                            .dailyCharge(new BigDecimal("922337203685477580.07")).build();
+        assertEquals(unroundedChargeCalculator.calculateBaseCharge(3000, expensiveListing),
+                fixedPointChargeCalculator.calculateBaseCharge(3000, expensiveListing));
+    }
+}
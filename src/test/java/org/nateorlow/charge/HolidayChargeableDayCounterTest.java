@@ -3,8 +3,11 @@ package org.nateorlow.charge;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.Month;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -33,6 +36,86 @@ class HolidayChargeableDayCounterTest {
         assertEquals(2, chargeableDaysWeekendTwo);
     }
 
+    @Test
+    void testChargeableDaysMatchesDayByDayCount(){
+        //Compare the calendar's count against the original day by day loop, for every listing policy
+        final Random random = new Random(20240704L);
+        final DateTimeFormatter mdyFormatter = DateTimeFormatter.ofPattern("M/d/y");
+        final LocalDate earliestStart = LocalDate.of(1, Month.JANUARY, 1);
+        final int startDayRange = (int) (LocalDate.of(2200, Month.JANUARY, 1).toEpochDay() - earliestStart.toEpochDay());
+        for(int trial = 0; trial < 2000; trial++){
+            final LocalDate startDate = earliestStart.plusDays(random.nextInt(startDayRange));
+            //mostly short rentals, with some long-term leases spanning whole 400 year cycles mixed in
+            final int rentalDays = (trial % 200 == 0) ? random.nextInt(300_000) + 1
+                    : (trial % 4 == 0) ? random.nextInt(3000) + 1 : random.nextInt(40) + 1;
+            final RentalPeriod rentalPeriod = new RentalPeriod(startDate.format(mdyFormatter), rentalDays);
+            for(int policy = 0; policy < 8; policy++){
+                final ChargeListing chargeListing = ChargeListing.builder()
+                                                                 .weekdayChargeable((policy & 1) != 0)
+                                                                 .weekendChargeable((policy & 2) != 0)
+                                                                 .holidayChargeable((policy & 4) != 0).build();
+                assertEquals(chargeableDaysByDay(rentalPeriod, chargeListing),
+                        holidayChargeableDayCounter.chargeableDaysForListing(rentalPeriod, chargeListing),
+                        "Mismatch for " + rentalDays + " days from " + startDate + " with policy " + policy);
+            }
+        }
+    }
+
+    //The counter's original loop, with its own holiday checks, kept as the reference for the faster counting
+    static int chargeableDaysByDay(RentalPeriod rentalPeriod, ChargeListing chargeListing){
+        int chargeableDays = 0;
+        for(int daysElapsed = 0; daysElapsed < rentalPeriod.getRentalDayCount(); daysElapsed++){
+            LocalDate checkDate = rentalPeriod.getFirstChargeDate().plusDays(daysElapsed);
+                if(isNonHolidayWeekday(checkDate) && chargeListing.isWeekdayChargeable()){
+                    chargeableDays += 1;
+                }else if(isNonHolidayWeekend(checkDate) && chargeListing.isWeekendChargeable()){
+                    chargeableDays += 1;
+                }else if(isHolidayByDay(checkDate) && chargeListing.isHolidayChargeable()){
+                    chargeableDays += 1;
+                }
+        }
+        return chargeableDays;
+    }
+
+    private static boolean isHolidayByDay(LocalDate localDate){
+        return isObservedIndependenceDayByDay(localDate) || isLaborDayByDay(localDate);
+    }
+
+    private static boolean isObservedIndependenceDayByDay(LocalDate localDate){
+        //Independence day is always observed in July. If the date is July, then check the day and date
+        if(Month.JULY != localDate.getMonth()){
+            return false;
+        }
+
+        //Dates in July that are observed independence day:
+        // Friday July 3 (since Saturday is July 4)
+        // Monday July 5 (since Sunday is July 4)
+        // [Weekday] July 4, since Saturday/Sunday July 4 are covered above
+        return ( ((DayOfWeek.FRIDAY == localDate.getDayOfWeek()) && (localDate.getDayOfMonth() == 3))
+            ||   ((DayOfWeek.MONDAY == localDate.getDayOfWeek()) && (localDate.getDayOfMonth() == 5))
+            ||   ( !isWeekend(localDate) && (localDate.getDayOfMonth() == 4)) );
+    }
+
+    private static boolean isLaborDayByDay(LocalDate localDate){
+        //the first Monday in September is a Monday in September with number 1 to 7
+        return (Month.SEPTEMBER.equals(localDate.getMonth()))
+                && DayOfWeek.MONDAY.equals(localDate.getDayOfWeek())
+                && (localDate.getDayOfMonth() <= 7);
+    }
+
+    private static boolean isWeekend(LocalDate localDate){
+        return (DayOfWeek.SATURDAY.equals(localDate.getDayOfWeek())
+                || DayOfWeek.SUNDAY.equals(localDate.getDayOfWeek()));
+    }
+
+    private static boolean isNonHolidayWeekend(LocalDate localDate){
+        return ( !isHolidayByDay(localDate) && isWeekend(localDate));
+    }
+
+    private static boolean isNonHolidayWeekday(LocalDate localDate){
+        return ( !isHolidayByDay(localDate) && !isNonHolidayWeekend(localDate));
+    }
+
     @Test
     void testIsObservedIndependenceDay(){
         LocalDate saturdayFourth = LocalDate.of(2020, Month.JULY, 4);
@@ -0,0 +1,55 @@
+package org.nateorlow.charge;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedChargeableDayCounterTest {
+
+    HolidayChargeableDayCounter holidayChargeableDayCounter;
+    IndexedChargeableDayCounter indexedChargeableDayCounter;
+    @BeforeEach
+    void setUp(){
+        holidayChargeableDayCounter = new HolidayChargeableDayCounter();
+        indexedChargeableDayCounter = new IndexedChargeableDayCounter(holidayChargeableDayCounter, 2000, 2029);
+    }
+
+    @Test
+    void testMatchesHolidayCounter(){
+        //start dates run from before the indexed years to after them, so the fallback is used too
+        final Random random = new Random(909L);
+        final LocalDate earliestStart = LocalDate.of(1995, Month.JANUARY, 1);
+        for(int trial = 0; trial < 3000; trial++){
+            final LocalDate startDate = earliestStart.plusDays(random.nextInt(365 * 40));
+            final int rentalDays = random.nextInt(trial % 3 == 0 ? 1500 : 20) + 1;
+            final RentalPeriod rentalPeriod = new RentalPeriod(startDate, rentalDays);
+            for(int policy = 0; policy < 8; policy++){
+                final ChargeListing chargeListing = ChargeListing.builder()
+                                                                 .weekdayChargeable((policy & 1) != 0)
+                                                                 .weekendChargeable((policy & 2) != 0)
+                                                                 .holidayChargeable((policy & 4) != 0).build();
+                assertEquals(holidayChargeableDayCounter.chargeableDaysForListing(rentalPeriod, chargeListing),
+                        indexedChargeableDayCounter.chargeableDaysForListing(rentalPeriod, chargeListing),
+                        "Mismatch for " + rentalDays + " days from " + startDate + " with policy " + policy);
+            }
+        }
+    }
+
+    @Test
+    void testIndexEdges(){
+        final ChargeListing allChargeableListing =
+                ChargeListing.builder().weekdayChargeable(true).weekendChargeable(true).holidayChargeable(true).build();
+        //first charge date is the first indexed day, and the last charge date is the last indexed day
+        final RentalPeriod wholeIndex = new RentalPeriod(LocalDate.of(1999, Month.DECEMBER, 31), 365 * 30 + 8);
+        assertEquals(365 * 30 + 8, indexedChargeableDayCounter.chargeableDaysForListing(wholeIndex, allChargeableListing));
+        final RentalPeriod pastIndex = new RentalPeriod(LocalDate.of(2029, Month.DECEMBER, 30), 3);
+        assertEquals(3, indexedChargeableDayCounter.chargeableDaysForListing(pastIndex, allChargeableListing));
+        assertThrows(IllegalStateException.class,
+                () -> indexedChargeableDayCounter.chargeableDaysForListing(wholeIndex, null));
+    }
+}
@@ -0,0 +1,81 @@
+package org.nateorlow.charge;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MdyDatesTest {
+    private static final DateTimeFormatter MDY_FORMATTER = DateTimeFormatter.ofPattern("M/d/y");
+
+    @Test
+    void testParseMatchesFormatter(){
+        final List<String> inputs = List.of("7/2/20", "07/02/2020", "9/3/15", "1/1/1", "1/1/01", "12/31/1999",
+                "2/29/2020", "2/29/2021", "2/30/20", "2/31/1900", "2/29/2000", "4/31/22", "6/31/22", "9/31/22",
+                "11/31/22", "99/1/20", "0/1/20", "13/1/20", "1/0/20", "1/32/20", "1/1/0", "1/1/-5", "+1/1/20",
+                "1/1/+20", " 1/1/20", "1/1/20 ", "1//20", "/1/20", "1/1/", "1/1", "1-1-20", "", "a/b/c",
+                "1/1/99999", "1/1/999999999", "1/1/1000000000", "0000000000000000001/1/20",
+                "00000000000000000001/1/20", "1/1/0000000000000000020", "1/1/99999999999999999999",
+                "1/1/2٠", "١/1/20");
+        for(String input : inputs){
+            assertParsesLikeFormatter(input);
+        }
+    }
+
+    @Test
+    void testRandomInputsMatchFormatter(){
+        final Random random = new Random(724L);
+        final String alphabet = "0123456789//-+ ";
+        for(int trial = 0; trial < 20000; trial++){
+            final StringBuilder input = new StringBuilder();
+            final int length = random.nextInt(12);
+            for(int i = 0; i < length; i++){
+                //mostly digits and slashes, so many of the inputs are close to valid dates
+                input.append(alphabet.charAt(random.nextInt(i % 3 == 2 ? alphabet.length() : 10)));
+            }
+            assertParsesLikeFormatter(input.toString());
+        }
+    }
+
+    @Test
+    void testEveryDayRoundTrips() throws Exception {
+        final long lastDay = LocalDate.of(2500, 12, 31).toEpochDay();
+        final StringBuilder text = new StringBuilder();
+        for(long epochDay = LocalDate.of(1, 1, 1).toEpochDay(); epochDay <= lastDay; epochDay++){
+            final LocalDate date = LocalDate.ofEpochDay(epochDay);
+            assertEquals(epochDay, MdyDates.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+            text.setLength(0);
+            MdyDates.appendMdy(text, epochDay);
+            assertEquals(date.format(MDY_FORMATTER), text.toString());
+            assertEquals(epochDay, MdyDates.parseEpochDay(text));
+        }
+    }
+
+    @Test
+    void testRentalPeriodDates(){
+        final RentalPeriod rentalPeriod = new RentalPeriod("9/3/15", 5);
+        assertEquals(LocalDate.of(15, 9, 3), rentalPeriod.getStartDate());
+        assertEquals(LocalDate.of(15, 9, 4).toEpochDay(), rentalPeriod.getFirstChargeEpochDay());
+        assertEquals(LocalDate.of(15, 9, 8), rentalPeriod.getEndDate());
+        assertThrows(DateTimeParseException.class, () -> new RentalPeriod("9/31/15x", 5));
+    }
+
+    private void assertParsesLikeFormatter(String input){
+        LocalDate expected;
+        try{
+            expected = LocalDate.parse(input, MDY_FORMATTER);
+        }catch(DateTimeParseException e){
+            expected = null;
+        }
+        if(expected == null){
+            assertThrows(DateTimeParseException.class, () -> MdyDates.parseEpochDay(input), "Expected to reject '" + input + "'");
+        }else{
+            assertEquals(expected, MdyDates.parse(input), "Mismatch for '" + input + "'");
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package org.nateorlow.charge;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceBookTest {
+    private static final int SKU_COUNT = 2000;
+
+    @Test
+    void testBooksNeverChange(){
+        final ChargeListing ladderListing = listing("Ladder", "1.99");
+        final PriceBook firstPriceBook = PriceBook.EMPTY.withListing(ladderListing);
+        final PriceBook secondPriceBook = firstPriceBook.withListings(List.of(listing("Ladder", "2.49"), listing("Chainsaw", "1.49")));
+
+        assertEquals(1, firstPriceBook.getVersion());
+        assertEquals(1, firstPriceBook.size());
+        assertSame(ladderListing, firstPriceBook.lookupChargeListingByToolType("Ladder"));
+        assertNull(firstPriceBook.lookupChargeListingByToolType("Chainsaw"));
+        assertEquals(2, secondPriceBook.getVersion());
+        assertEquals(2, secondPriceBook.size());
+        assertEquals(new BigDecimal("2.49"), secondPriceBook.lookupChargeListingByToolType("Ladder").getDailyCharge());
+        assertEquals(0, PriceBook.EMPTY.size());
+        assertThrows(IllegalArgumentException.class, () -> PriceBook.of(PriceBook.NO_VERSION, List.of()));
+        assertThrows(IllegalArgumentException.class, () -> firstPriceBook.withListing(ChargeListing.builder().build()));
+    }
+
+    @Test
+    void testPublishingNeedsNewerVersion(){
+        final UnroundedChargeCalculator unroundedChargeCalculator = new UnroundedChargeCalculator();
+        unroundedChargeCalculator.addChargeListing(listing("Ladder", "1.99"));
+        final PriceBook startingPriceBook = unroundedChargeCalculator.getPriceBook();
+
+        //two changes made from the same book: the second one loses rather than undoing the first
+        assertTrue(unroundedChargeCalculator.publishPriceBook(startingPriceBook.withListing(listing("Ladder", "2.49"))));
+        assertFalse(unroundedChargeCalculator.publishPriceBook(startingPriceBook.withListing(listing("Chainsaw", "1.49"))));
+        assertEquals(new BigDecimal("2.49"), unroundedChargeCalculator.lookupChargeListingByToolType("Ladder").getDailyCharge());
+        assertNull(unroundedChargeCalculator.lookupChargeListingByToolType("Chainsaw"));
+
+        final PriceBook replacedPriceBook = unroundedChargeCalculator.replaceChargeListings(List.of(listing("Chainsaw", "1.49")));
+        assertEquals(3, replacedPriceBook.getVersion());
+        assertNull(unroundedChargeCalculator.lookupChargeListingByToolType("Ladder"));
+        assertSame(replacedPriceBook, unroundedChargeCalculator.getPriceBook());
+    }
+
+    @Test
+    void testReadersNeverSeeHalfARepricing() throws InterruptedException {
+        final UnroundedChargeCalculator unroundedChargeCalculator = new UnroundedChargeCalculator();
+        unroundedChargeCalculator.replaceChargeListings(skuListings(0));
+        final AtomicBoolean repricing = new AtomicBoolean(true);
+        final AtomicReference<String> readerError = new AtomicReference<>();
+        final List<Thread> readers = new ArrayList<>();
+        for(int r = 0; r < 3; r++){
+            final Thread reader = new Thread(() -> {
+                long lastVersion = 0;
+                while(repricing.get() && readerError.get() == null){
+                    //every sku in one book has the same price, and versions only go up
+                    final PriceBook priceBook = unroundedChargeCalculator.getPriceBook();
+                    final BigDecimal firstCharge = priceBook.lookupChargeListingByToolType("Sku0").getDailyCharge();
+                    for(int sku = 1; sku < SKU_COUNT; sku += 7){
+                        if(!firstCharge.equals(priceBook.lookupChargeListingByToolType("Sku" + sku).getDailyCharge())){
+                            readerError.set("Price book " + priceBook.getVersion() + " mixes prices");
+                        }
+                    }
+                    if(priceBook.getVersion() < lastVersion){
+                        readerError.set("Version went back from " + lastVersion + " to " + priceBook.getVersion());
+                    }
+                    lastVersion = priceBook.getVersion();
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        for(int round = 1; round <= 200; round++){
+            unroundedChargeCalculator.replaceChargeListings(skuListings(round));
+        }
+        repricing.set(false);
+        for(Thread reader : readers){
+            reader.join();
+        }
+        assertNull(readerError.get());
+        assertEquals(201, unroundedChargeCalculator.getPriceBook().getVersion());
+        assertEquals(SKU_COUNT, unroundedChargeCalculator.getPriceBook().size());
+    }
+
+    @Test
+    void testQuoteCacheFollowsSwappedBook(){
+        final UnroundedChargeCalculator unroundedChargeCalculator = new UnroundedChargeCalculator();
+        unroundedChargeCalculator.addChargeListing(listing("Ladder", "1.99"));
+        final QuoteCache quoteCache = QuoteCache.builder().chargeableDayCounter(new HolidayChargeableDayCounter())
+                                                .chargeCalculator(unroundedChargeCalculator).build();
+        assertEquals(new BigDecimal("3.98"), quoteCache.calculateBaseCharge(2, quoteCache.lookupChargeListingByToolType("Ladder")));
+
+        //swapped in behind the cache's back, so nothing was invalidated
+        unroundedChargeCalculator.replaceChargeListings(List.of(listing("Ladder", "2.49")));
+        assertSame(unroundedChargeCalculator.getPriceBook(), quoteCache.getPriceBook());
+        assertEquals(new BigDecimal("4.98"), quoteCache.calculateBaseCharge(2, quoteCache.lookupChargeListingByToolType("Ladder")));
+    }
+
+    @Test
+    void testReadPriceFile(){
+        final List<ChargeListing> chargeListings = PriceBookFile.readChargeListings(new BufferedReader(new StringReader(
+                "Tool type, Daily charge, Weekday, Weekend, Holiday\n"
+                        + "# ladders are charged every day but holidays\n"
+                        + "Ladder, 1.99, true, true, false\n\n"
+                        + "Chainsaw,1.49,TRUE,false,true\n")));
+        assertEquals(2, chargeListings.size());
+        assertEquals("Chainsaw", chargeListings.get(1).getToolType());
+        assertEquals(new BigDecimal("1.49"), chargeListings.get(1).getDailyCharge());
+        assertTrue(chargeListings.get(0).isWeekendChargeable());
+        assertFalse(chargeListings.get(0).isHolidayChargeable());
+
+        final Exception exceptionThrown = assertThrows(IllegalArgumentException.class,
+                () -> PriceBookFile.readChargeListings(new BufferedReader(new StringReader("Ladder,1.99,true,yes,false"))));
+        assertTrue(exceptionThrown.getMessage().contains("row 1"));
+    }
+
+    @Test
+    void testReloadWhenFileChanges(@TempDir Path priceDirectory) throws Exception {
+        final Path priceFile = priceDirectory.resolve("prices.csv");
+        Files.writeString(priceFile, "Ladder,1.99,true,true,false\n");
+        Files.setLastModifiedTime(priceFile, FileTime.fromMillis(1_000_000));
+        final UnroundedChargeCalculator unroundedChargeCalculator = new UnroundedChargeCalculator();
+        final List<String> messages = new ArrayList<>();
+        try(PriceBookReloader priceBookReloader = new PriceBookReloader(unroundedChargeCalculator, priceFile, 60_000, messages::add)){
+            assertEquals(new BigDecimal("1.99"), unroundedChargeCalculator.lookupChargeListingByToolType("Ladder").getDailyCharge());
+            assertNull(priceBookReloader.reloadIfChanged());
+
+            Files.writeString(priceFile, "Ladder,2.49,true,true,false\nChainsaw,1.49,true,false,true\n");
+            Files.setLastModifiedTime(priceFile, FileTime.fromMillis(2_000_000));
+            assertEquals(2, priceBookReloader.reloadIfChanged().getVersion());
+            assertEquals(new BigDecimal("2.49"), unroundedChargeCalculator.lookupChargeListingByToolType("Ladder").getDailyCharge());
+
+            //a bad or empty file leaves the current prices in place
+            Files.writeString(priceFile, "Chainsaw,1.49,true,false,true\nLadder,free,true,true,false\n");
+            Files.setLastModifiedTime(priceFile, FileTime.fromMillis(3_000_000));
+            assertNull(priceBookReloader.reloadIfChanged());
+            assertNull(priceBookReloader.reloadIfChanged());
+            //the fixed file is loaded even though its modified time is the same as the bad one's
+            Files.writeString(priceFile, "Chainsaw,1.49,true,false,true\nLadder,2.99,true,true,false\n");
+            Files.setLastModifiedTime(priceFile, FileTime.fromMillis(3_000_000));
+            assertEquals(3, priceBookReloader.reloadIfChanged().getVersion());
+            Files.writeString(priceFile, "# prices coming soon\n");
+            Files.setLastModifiedTime(priceFile, FileTime.fromMillis(4_000_000));
+            assertNull(priceBookReloader.reloadIfChanged());
+            assertEquals(3, unroundedChargeCalculator.getPriceBook().getVersion());
+            assertEquals(new BigDecimal("2.99"), unroundedChargeCalculator.lookupChargeListingByToolType("Ladder").getDailyCharge());
+        }
+        //the bad file is reported once, however many times it is checked
+        assertEquals(5, messages.size());
+        assertTrue(messages.get(2).startsWith("Keeping current prices"));
+        assertTrue(messages.get(3).startsWith("Loaded"));
+        assertTrue(messages.get(4).startsWith("Keeping current prices"));
+    }
+
+    @Test
+    void testTimerKeepsCheckingAfterAnUnexpectedException(@TempDir Path priceDirectory) throws Exception {
+        final Path priceFile = priceDirectory.resolve("prices.csv");
+        Files.writeString(priceFile, "Ladder,1.99,true,true,false\n");
+        Files.setLastModifiedTime(priceFile, FileTime.fromMillis(1_000_000));
+        //the second replace (the timer's first load) fails with something other than a bad file
+        final AtomicInteger replaceCount = new AtomicInteger();
+        final UnroundedChargeCalculator unroundedChargeCalculator = new UnroundedChargeCalculator(){
+            @Override
+            public PriceBook replaceChargeListings(Collection<ChargeListing> chargeListings){
+                if(replaceCount.incrementAndGet() == 2){
+                    throw new IllegalStateException("System error -- price book is being rebuilt");
+                }
+                return super.replaceChargeListings(chargeListings);
+            }
+        };
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        try(PriceBookReloader ignored = new PriceBookReloader(unroundedChargeCalculator, priceFile, 10, messages::add)){
+            Files.writeString(priceFile, "Ladder,2.49,true,true,false\n");
+            Files.setLastModifiedTime(priceFile, FileTime.fromMillis(2_000_000));
+            final long giveUpNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while(unroundedChargeCalculator.getPriceBook().getVersion() < 2 && System.nanoTime() < giveUpNanos){
+                Thread.sleep(10);
+            }
+        }
+        assertEquals(2, unroundedChargeCalculator.getPriceBook().getVersion());
+        assertTrue(messages.stream().anyMatch(message -> message.contains("price book is being rebuilt")));
+        assertThrows(IllegalStateException.class, () -> new PriceBookReloader(new UnroundedChargeCalculator(), priceFile, 10, null));
+    }
+
+    private static List<ChargeListing> skuListings(int repricing){
+        final String dailyCharge = new BigDecimal(100 + repricing).movePointLeft(2).toPlainString();
+        final List<ChargeListing> chargeListings = new ArrayList<>(SKU_COUNT);
+        for(int sku = 0; sku < SKU_COUNT; sku++){
+            chargeListings.add(listing("Sku" + sku, dailyCharge));
+        }
+        return chargeListings;
+    }
+
+    private static ChargeListing listing(String toolType, String dailyCharge){
+        return ChargeListing.builder().toolType(toolType).dailyCharge(new BigDecimal(dailyCharge))
+                            .weekdayChargeable(true).weekendChargeable(true).build();
+    }
+}
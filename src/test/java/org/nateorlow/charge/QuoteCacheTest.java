@@ -0,0 +1,100 @@
+package org.nateorlow.charge;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteCacheTest {
+    ChargeableDayCounter dayCounterSpy;
+    QuoteCache quoteCache;
+    ChargeListing ladderListing;
+
+    @BeforeEach
+    void setUp(){
+        dayCounterSpy = Mockito.spy(new HolidayChargeableDayCounter());
+        quoteCache = QuoteCache.builder()
+                               .chargeableDayCounter(dayCounterSpy)
+                               .chargeCalculator(new UnroundedChargeCalculator())
+                               .maximumSize(100L)
+                               .build();
+        ladderListing = ChargeListing.builder().toolType("Ladder").dailyCharge(new BigDecimal("1.99"))
+                                     .weekdayChargeable(true).weekendChargeable(true).build();
+        quoteCache.addChargeListing(ladderListing);
+    }
+
+    @Test
+    void testRepeatQuotesAreCached(){
+        final RentalPeriod rentalPeriod = new RentalPeriod("7/2/20", 3);
+        assertEquals(2, quoteCache.chargeableDaysForListing(rentalPeriod, ladderListing));
+        assertEquals(2, quoteCache.chargeableDaysForListing(new RentalPeriod("7/2/20", 3), ladderListing));
+        Mockito.verify(dayCounterSpy, Mockito.times(1)).chargeableDaysForListing(Mockito.any(), Mockito.any());
+        assertEquals(1, quoteCache.getDayCountStats().hitCount());
+        assertEquals(1, quoteCache.getDayCountStats().missCount());
+
+        assertEquals(new BigDecimal("3.98"), quoteCache.calculateBaseCharge(2, ladderListing));
+        assertEquals(new BigDecimal("3.98"), quoteCache.calculateBaseCharge(2, ladderListing));
+        assertEquals(1, quoteCache.getBaseChargeStats().hitCount());
+        assertEquals(new BigDecimal("0.398"), quoteCache.calculateDiscountCharge(new BigDecimal("3.98"), 10));
+    }
+
+    @Test
+    void testReplacingListingInvalidates(){
+        final RentalPeriod rentalPeriod = new RentalPeriod("7/2/20", 3);
+        assertEquals(2, quoteCache.chargeableDaysForListing(rentalPeriod, ladderListing));
+        assertEquals(new BigDecimal("3.98"), quoteCache.calculateBaseCharge(2, ladderListing));
+
+        final ChargeListing weekdayLadderListing = ChargeListing.builder().toolType("Ladder").dailyCharge(new BigDecimal("2.49"))
+                                                                .weekdayChargeable(true).build();
+        quoteCache.addChargeListing(weekdayLadderListing);
+        assertEquals(0, quoteCache.chargeableDaysForListing(rentalPeriod, weekdayLadderListing));
+        assertEquals(new BigDecimal("4.98"), quoteCache.calculateBaseCharge(2, weekdayLadderListing));
+        //the old listing is no longer added, so it is computed without the cache
+        assertEquals(2, quoteCache.chargeableDaysForListing(rentalPeriod, ladderListing));
+        assertEquals(new BigDecimal("3.98"), quoteCache.calculateBaseCharge(2, ladderListing));
+    }
+
+    @Test
+    void testPriceChangeDuringComputationIsNotCachedForNewListing(){
+        final ChargeListing cheaperLadderListing = ChargeListing.builder().toolType("Ladder").dailyCharge(new BigDecimal("0.99"))
+                                                                .weekdayChargeable(true).weekendChargeable(true).build();
+        final QuoteCache[] changingQuoteCache = new QuoteCache[1];
+        //the price changes while the old listing's base charge is being worked out
+        final ChargeCalculator changingCalculator = new UnroundedChargeCalculator(){
+            @Override
+            public BigDecimal calculateBaseCharge(int chargeableDays, ChargeListing chargeListing){
+                if(chargeListing == ladderListing){
+                    changingQuoteCache[0].addChargeListing(cheaperLadderListing);
+                }
+                return super.calculateBaseCharge(chargeableDays, chargeListing);
+            }
+        };
+        changingQuoteCache[0] = QuoteCache.builder().chargeableDayCounter(dayCounterSpy).chargeCalculator(changingCalculator).build();
+        changingQuoteCache[0].addChargeListing(ladderListing);
+
+        assertEquals(new BigDecimal("3.98"), changingQuoteCache[0].calculateBaseCharge(2, ladderListing));
+        assertEquals(new BigDecimal("1.98"), changingQuoteCache[0].calculateBaseCharge(2, cheaperLadderListing));
+        assertEquals(new BigDecimal("1.98"), changingQuoteCache[0].calculateBaseCharge(2, cheaperLadderListing));
+        assertEquals(1, changingQuoteCache[0].getBaseChargeStats().hitCount());
+    }
+
+    @Test
+    void testErrorsPassThrough(){
+        Mockito.doThrow(new IllegalStateException("System error -- no holidays")).when(dayCounterSpy)
+               .chargeableDaysForListing(Mockito.any(), Mockito.any());
+        //thrown as it was, not wrapped by the cache
+        assertThrows(IllegalStateException.class, () -> quoteCache.chargeableDaysForListing(new RentalPeriod("7/2/20", 3), ladderListing));
+        assertEquals(0, quoteCache.getDayCountStats().hitCount());
+    }
+
+    @Test
+    void testCacheIsBounded(){
+        for(int rentalDays = 1; rentalDays <= 500; rentalDays++){
+            quoteCache.chargeableDaysForListing(new RentalPeriod("7/2/20", rentalDays), ladderListing);
+        }
+        assertTrue(quoteCache.getDayCountStats().evictionCount() >= 400);
+    }
+}
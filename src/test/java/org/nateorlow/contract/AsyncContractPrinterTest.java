@@ -0,0 +1,178 @@
+package org.nateorlow.contract;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncContractPrinterTest {
+
+    @Test
+    void testCloseWritesEveryContractInOrder(){
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final AsyncContractPrinter asyncContractPrinter = AsyncContractPrinter.builder()
+                                                                              .outputStream(outputStream)
+                                                                              .queueCapacity(16)
+                                                                              .flushBytes(256)
+                                                                              .build();
+        final StringBuilder expectedOutput = new StringBuilder();
+        for(int contractNumber = 0; contractNumber < 500; contractNumber++){
+            final Contract contract = new RenderedContract(List.of("Contract " + contractNumber, "Final Charge: $1.00"));
+            asyncContractPrinter.printContract(contract);
+            expectedOutput.append(contract).append('\n');
+        }
+        asyncContractPrinter.close();
+
+        assertEquals(expectedOutput.toString(), outputStream.toString(StandardCharsets.UTF_8));
+        assertEquals(500, asyncContractPrinter.getPrintedCount());
+        assertTrue(asyncContractPrinter.getWriteCount() < 500, "contracts should be written in batches");
+        assertThrows(IllegalStateException.class,
+                () -> asyncContractPrinter.printContract(new RenderedContract(List.of("late"))));
+    }
+
+    @Test
+    void testOverflowPolicies() throws InterruptedException {
+        for(AsyncContractPrinter.OverflowPolicy overflowPolicy :
+                List.of(AsyncContractPrinter.OverflowPolicy.DROP, AsyncContractPrinter.OverflowPolicy.SIGNAL)){
+            //the first write waits until the latch is released, so the queue fills up behind it
+            final CountDownLatch releaseOutput = new CountDownLatch(1);
+            final CountDownLatch writeStarted = new CountDownLatch(1);
+            final OutputStream blockedOutputStream = new OutputStream(){
+                @Override
+                public void write(int b){
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length){
+                    writeStarted.countDown();
+                    try{
+                        releaseOutput.await();
+                    }catch(InterruptedException e){
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            final AsyncContractPrinter asyncContractPrinter = AsyncContractPrinter.builder()
+                                                                                  .outputStream(blockedOutputStream)
+                                                                                  .queueCapacity(2)
+                                                                                  .flushBytes(1)
+                                                                                  .overflowPolicy(overflowPolicy)
+                                                                                  .build();
+            final Contract contract = new RenderedContract(List.of("Final Charge: $1.00"));
+            asyncContractPrinter.printContract(contract);
+            writeStarted.await();
+            asyncContractPrinter.printContract(contract);
+            asyncContractPrinter.printContract(contract);
+            if(overflowPolicy == AsyncContractPrinter.OverflowPolicy.DROP){
+                asyncContractPrinter.printContract(contract);
+                assertEquals(1, asyncContractPrinter.getDroppedCount());
+            }else{
+                assertThrows(IllegalStateException.class, () -> asyncContractPrinter.printContract(contract));
+            }
+            releaseOutput.countDown();
+            asyncContractPrinter.close();
+            assertEquals(3, asyncContractPrinter.getPrintedCount());
+        }
+    }
+
+    @Test
+    void testCloseWhilePrintingAccountsForEveryContract() throws Exception {
+        for(AsyncContractPrinter.OverflowPolicy overflowPolicy :
+                List.of(AsyncContractPrinter.OverflowPolicy.BLOCK, AsyncContractPrinter.OverflowPolicy.DROP)){
+            final AsyncContractPrinter asyncContractPrinter = AsyncContractPrinter.builder()
+                                                                                  .outputStream(OutputStream.nullOutputStream())
+                                                                                  .queueCapacity(4)
+                                                                                  .flushBytes(64)
+                                                                                  .overflowPolicy(overflowPolicy)
+                                                                                  .build();
+            final Contract contract = new RenderedContract(List.of("Final Charge: $1.00"));
+            final int printerThreads = 4;
+            final int contractsPerThread = 5_000;
+            final CountDownLatch started = new CountDownLatch(printerThreads);
+            final ExecutorService executorService = Executors.newFixedThreadPool(printerThreads);
+            try{
+                final List<Future<Integer>> rejectedCounts = new ArrayList<>();
+                for(int thread = 0; thread < printerThreads; thread++){
+                    rejectedCounts.add(executorService.submit(() -> {
+                        started.countDown();
+                        int rejected = 0;
+                        for(int i = 0; i < contractsPerThread; i++){
+                            try{
+                                asyncContractPrinter.printContract(contract);
+                            }catch(IllegalStateException e){
+                                rejected++;
+                            }
+                        }
+                        return rejected;
+                    }));
+                }
+                started.await();
+                asyncContractPrinter.close();
+                long rejected = 0;
+                for(Future<Integer> rejectedCount : rejectedCounts){
+                    rejected += rejectedCount.get();
+                }
+                assertEquals(0, asyncContractPrinter.getFailedCount());
+                assertEquals((long) printerThreads * contractsPerThread,
+                        asyncContractPrinter.getPrintedCount() + asyncContractPrinter.getDroppedCount() + rejected, overflowPolicy.name());
+            }finally{
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    void testCloseReportsTheFirstFailure(){
+        final AsyncContractPrinter asyncContractPrinter = AsyncContractPrinter.builder()
+                                                                              .outputStream(new OutputStream(){
+                                                                                  @Override
+                                                                                  public void write(int b) throws IOException {
+                                                                                      throw new IOException("disk full");
+                                                                                  }
+                                                                              })
+                                                                              .flushBytes(1)
+                                                                              .build();
+        asyncContractPrinter.printContract(new RenderedContract(List.of("Final Charge: $1.00")));
+        asyncContractPrinter.printContract(new RenderedContract(List.of("Final Charge: $2.00")));
+        final IllegalStateException closeException = assertThrows(IllegalStateException.class, asyncContractPrinter::close);
+        assertEquals("disk full", closeException.getCause().getMessage());
+        assertEquals(2, asyncContractPrinter.getFailedCount());
+        assertEquals(0, asyncContractPrinter.getPrintedCount());
+    }
+
+    @Test
+    void testDeadWriterThreadDoesNotHangCallers(){
+        //an Error kills the writer thread, after which nothing drains the queue
+        final AsyncContractPrinter asyncContractPrinter = AsyncContractPrinter.builder()
+                                                                              .outputStream(new OutputStream(){
+                                                                                  @Override
+                                                                                  public void write(int b){
+                                                                                      throw new AssertionError("writer thread died");
+                                                                                  }
+                                                                              })
+                                                                              .queueCapacity(1)
+                                                                              .flushBytes(1)
+                                                                              .build();
+        final Contract contract = new RenderedContract(List.of("Final Charge: $1.00"));
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            assertThrows(IllegalStateException.class, () -> {
+                while(true){
+                    asyncContractPrinter.printContract(contract);
+                }
+            });
+            final IllegalStateException closeException = assertThrows(IllegalStateException.class, asyncContractPrinter::close);
+            assertInstanceOf(AssertionError.class, closeException.getCause());
+        });
+    }
+}
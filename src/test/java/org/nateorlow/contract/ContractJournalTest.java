@@ -0,0 +1,146 @@
+package org.nateorlow.contract;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nateorlow.charge.ChargeListing;
+import org.nateorlow.charge.HolidayChargeableDayCounter;
+import org.nateorlow.charge.RentalPeriod;
+import org.nateorlow.charge.UnroundedChargeCalculator;
+import org.nateorlow.tool.Tool;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContractJournalTest {
+    static final int SEGMENT_BYTES = 128 * 1024;
+
+    @TempDir
+    Path journalDirectory;
+
+    ContractRecord sampleRecord(int recordNumber){
+        return ContractRecord.builder()
+                             .toolCode("T" + recordNumber).toolType(Tool.JACKHAMMER).toolBrand(recordNumber % 2 == 0 ? "Ridgid" : null)
+                             .checkoutEpochDay(18000 + recordNumber).rentalDayCount(recordNumber % 30 + 1)
+                             .dailyChargeUnscaled(299).dailyChargeScale(2).weekdayChargeable(true)
+                             .chargeableDays(recordNumber % 20).discountPercent(recordNumber % 101)
+                             .baseChargeCents(recordNumber * 299L).discountChargeCents(recordNumber).finalChargeCents(recordNumber * 298L)
+                             .build();
+    }
+
+    void assertSameRecord(ContractRecord expected, ContractRecord actual){
+        assertEquals(expected.getToolCode(), actual.getToolCode());
+        assertEquals(expected.getToolBrand(), actual.getToolBrand());
+        assertEquals(expected.getCheckoutEpochDay(), actual.getCheckoutEpochDay());
+        assertEquals(expected.getRentalDayCount(), actual.getRentalDayCount());
+        assertEquals(expected.getDailyCharge(), actual.getDailyCharge());
+        assertEquals(expected.isWeekdayChargeable(), actual.isWeekdayChargeable());
+        assertEquals(expected.isHolidayChargeable(), actual.isHolidayChargeable());
+        assertEquals(expected.getChargeableDays(), actual.getChargeableDays());
+        assertEquals(expected.getDiscountPercent(), actual.getDiscountPercent());
+        assertEquals(expected.getFinalChargeCents(), actual.getFinalChargeCents());
+    }
+
+    @Test
+    void testAppendAcrossSegmentsAndReplay(){
+        try(ContractJournalPrinter journalPrinter = new ContractJournalPrinter(journalDirectory, SEGMENT_BYTES)){
+            for(int recordNumber = 0; recordNumber < 5000; recordNumber++){
+                journalPrinter.append(sampleRecord(recordNumber));
+            }
+            assertTrue(journalPrinter.getSegmentNumber() > 0, "records should roll over into more segments");
+        }
+        final List<ContractRecord> contractRecords = new ContractJournalReader(journalDirectory).readAll();
+        assertEquals(5000, contractRecords.size());
+        for(int recordNumber = 0; recordNumber < 5000; recordNumber++){
+            assertSameRecord(sampleRecord(recordNumber), contractRecords.get(recordNumber));
+        }
+    }
+
+    @Test
+    void testRecoverPartiallyWrittenRecord() throws IOException {
+        try(ContractJournalPrinter journalPrinter = new ContractJournalPrinter(journalDirectory, SEGMENT_BYTES)){
+            journalPrinter.append(sampleRecord(1));
+            journalPrinter.append(sampleRecord(2));
+        }
+        //simulate a crash partway through a third record: its length is written, but the payload isn't all there
+        final long endOfRecords;
+        try(RandomAccessFile segmentFile = new RandomAccessFile(ContractJournal.segmentPath(journalDirectory, 0).toFile(), "rw")){
+            endOfRecords = ContractJournal.SEGMENT_HEADER_BYTES + 2L * ContractJournal.RECORD_HEADER_BYTES
+                    + encodedLength(sampleRecord(1)) + encodedLength(sampleRecord(2));
+            segmentFile.seek(endOfRecords);
+            segmentFile.writeInt(80);
+            segmentFile.writeInt(12345);
+            segmentFile.write(new byte[]{1, 2, 3, 4, 5});
+        }
+        assertEquals(2, new ContractJournalReader(journalDirectory).readAll().size());
+
+        try(ContractJournalPrinter journalPrinter = new ContractJournalPrinter(journalDirectory, SEGMENT_BYTES)){
+            journalPrinter.append(sampleRecord(3));
+        }
+        final List<ContractRecord> contractRecords = new ContractJournalReader(journalDirectory).readAll();
+        assertEquals(3, contractRecords.size());
+        assertSameRecord(sampleRecord(3), contractRecords.get(2));
+    }
+
+    @Test
+    void testRecoverCrashedRollover() throws IOException {
+        //a crash just after the next segment was created: once with nothing in it, once with its pages but no header
+        for(long crashedSegmentBytes : new long[]{0, SEGMENT_BYTES}){
+            final Path directory = Files.createTempDirectory(journalDirectory, "rollover");
+            try(ContractJournalPrinter journalPrinter = new ContractJournalPrinter(directory, SEGMENT_BYTES)){
+                journalPrinter.append(sampleRecord(1));
+            }
+            try(RandomAccessFile segmentFile = new RandomAccessFile(ContractJournal.segmentPath(directory, 1).toFile(), "rw")){
+                segmentFile.setLength(crashedSegmentBytes);
+            }
+            assertEquals(1, new ContractJournalReader(directory).readAll().size());
+
+            try(ContractJournalPrinter journalPrinter = new ContractJournalPrinter(directory, SEGMENT_BYTES)){
+                assertEquals(1, journalPrinter.getSegmentNumber());
+                journalPrinter.append(sampleRecord(2));
+            }
+            final List<ContractRecord> contractRecords = new ContractJournalReader(directory).readAll();
+            assertEquals(2, contractRecords.size());
+            assertSameRecord(sampleRecord(2), contractRecords.get(1));
+        }
+    }
+
+    @Test
+    void testPrintToolRentalContract(){
+        final ChargeListing chargeListing = ChargeListing.builder().toolType(Tool.LADDER).dailyCharge(new BigDecimal("1.99"))
+                                                         .weekdayChargeable(true).weekendChargeable(true).build();
+        final ToolRentalContract contract = ToolRentalContract.builder()
+                                                              .tool(Tool.builder().code("LADW").type(Tool.LADDER).brand("Werner").build())
+                                                              .rentalPeriod(new RentalPeriod("7/2/20", 3))
+                                                              .chargeListing(chargeListing)
+                                                              .discountPercent(10)
+                                                              .chargeableDayCounter(new HolidayChargeableDayCounter())
+                                                              .chargeCalculator(new UnroundedChargeCalculator())
+                                                              .build();
+        try(ContractJournalPrinter journalPrinter = new ContractJournalPrinter(journalDirectory, SEGMENT_BYTES)){
+            journalPrinter.printContract(contract);
+            assertThrows(IllegalStateException.class, () -> journalPrinter.printContract(new RenderedContract(List.of("text"))));
+        }
+        final ContractRecord contractRecord = new ContractJournalReader(journalDirectory).readAll().get(0);
+        assertEquals("LADW", contractRecord.getToolCode());
+        assertEquals(LocalDate.of(20, Month.JULY, 2), contractRecord.getCheckoutDate());
+        assertEquals(2, contractRecord.getChargeableDays());
+        assertEquals(398, contractRecord.getBaseChargeCents());
+        assertEquals(40, contractRecord.getDiscountChargeCents());
+        assertEquals(358, contractRecord.getFinalChargeCents());
+    }
+
+    private static int encodedLength(ContractRecord contractRecord){
+        final ByteBuffer payload = ByteBuffer.allocate(1024);
+        ContractJournal.encodePayload(contractRecord, payload);
+        return payload.position();
+    }
+}
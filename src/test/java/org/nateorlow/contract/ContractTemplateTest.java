@@ -0,0 +1,87 @@
+package org.nateorlow.contract;
+
+import org.junit.jupiter.api.Test;
+import org.nateorlow.charge.ChargeListing;
+import org.nateorlow.charge.HolidayChargeableDayCounter;
+import org.nateorlow.charge.RentalPeriod;
+import org.nateorlow.charge.UnroundedChargeCalculator;
+import org.nateorlow.tool.Tool;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContractTemplateTest {
+
+    ToolRentalContract sampleContract(String brand, String dailyCharge, String checkoutDate, int rentalDays, int discountPercent){
+        final ChargeListing chargeListing = ChargeListing.builder().toolType(Tool.LADDER)
+                                                         .dailyCharge(new BigDecimal(dailyCharge))
+                                                         .weekdayChargeable(true).weekendChargeable(true).build();
+        return ToolRentalContract.builder()
+                                 .tool(Tool.builder().code("LADW").type(Tool.LADDER).brand(brand).build())
+                                 .rentalPeriod(new RentalPeriod(checkoutDate, rentalDays))
+                                 .chargeListing(chargeListing)
+                                 .discountPercent(discountPercent)
+                                 .chargeableDayCounter(new HolidayChargeableDayCounter())
+                                 .chargeCalculator(new UnroundedChargeCalculator())
+                                 .build();
+    }
+
+    @Test
+    void testTemplatesMatchExistingRenderings() throws IOException {
+        for(ToolRentalContract contract : new ToolRentalContract[]{
+                sampleContract("Werner", "1.99", "7/2/20", 3, 10),
+                sampleContract("Würth ⚒ 🔨 \"Pro\"\\\t\u0001", "0.005", "12/30/2019", 400, 0),
+                sampleContract(null, "1200", "2/28/2024", 1, 100),
+                sampleContract("Stihl", "3", "1/1/1", 30, 55)}){
+            final ContractRecord contractRecord = ContractRecord.fromContract(contract);
+            final byte[][] renderings = ContractTemplate.renderAll(contractRecord, ContractTemplate.TEXT, ContractTemplate.JSON);
+
+            final StringBuilder text = new StringBuilder();
+            contract.appendTo(text);
+            assertEquals(text.toString(), new String(renderings[0], StandardCharsets.UTF_8));
+
+            final StringBuilder json = new StringBuilder();
+            ContractJson.appendJson(json, contractRecord).append('\n');
+            assertEquals(json.toString(), new String(renderings[1], StandardCharsets.UTF_8));
+
+            assertArrayEquals(renderings[1], ContractTemplate.JSON.render(contractRecord));
+            //a record prints the same as the contract it came from
+            assertEquals(contract.toString(), contractRecord.toString());
+            assertEquals(contract.toStringList(), contractRecord.toStringList());
+            assertTrue(renderings[0].length <= ContractTemplate.TEXT.maxLength(contractRecord));
+        }
+    }
+
+    @Test
+    void testCsvQuotesOnlyWhenNeeded(){
+        final byte[][] renderings = ContractTemplate.renderAll(sampleContract("Werner", "1.99", "7/2/20", 3, 10),
+                ContractTemplate.CSV, ContractTemplate.CSV);
+        assertEquals("LADW,Ladder,Werner,3,7/2/20,7/5/20,1.99,2,3.98,10,0.40,3.58\n", new String(renderings[0], StandardCharsets.UTF_8));
+        assertArrayEquals(renderings[0], renderings[1]);
+
+        final String brandRow = new String(ContractTemplate.CSV.render(
+                ContractRecord.fromContract(sampleContract("Black, \"Decker\"", "1.99", "7/2/20", 3, 10))), StandardCharsets.UTF_8);
+        assertTrue(brandRow.startsWith("LADW,Ladder,\"Black, \"\"Decker\"\"\",3,"), brandRow);
+        assertEquals(ContractTemplate.CSV_HEADER.split(",").length, new String(renderings[0], StandardCharsets.UTF_8).split(",").length);
+    }
+
+    @Test
+    void testCustomTemplates(){
+        final ContractRecord contractRecord = ContractRecord.fromContract(sampleContract("Werner", "1.99", "7/2/20", 3, 10));
+        //'$' and '{' on their own are just text
+        final ContractTemplate receiptTemplate = ContractTemplate.compile("${toolCode} {${checkoutDate}-${dueDate}} $${finalCharge}$",
+                ContractTemplate.Escaping.TEXT);
+        assertEquals("LADW {7/2/20-7/5/20} $3.58$", new String(receiptTemplate.render(contractRecord), StandardCharsets.UTF_8));
+
+        final ByteBuffer smallBuffer = ByteBuffer.allocate(8);
+        assertThrows(BufferOverflowException.class, () -> receiptTemplate.writeTo(smallBuffer, contractRecord));
+
+        assertThrows(IllegalArgumentException.class, () -> ContractTemplate.compile("${toolCode} ${finalCharge", ContractTemplate.Escaping.TEXT));
+        assertThrows(IllegalArgumentException.class, () -> ContractTemplate.compile("${toolColor}", ContractTemplate.Escaping.TEXT));
+    }
+}
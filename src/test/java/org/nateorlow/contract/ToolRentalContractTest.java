@@ -0,0 +1,99 @@
+package org.nateorlow.contract;
+
+import org.junit.jupiter.api.Test;
+import org.nateorlow.charge.ChargeCalculator;
+import org.nateorlow.charge.ChargeListing;
+import org.nateorlow.charge.FixedPointChargeCalculator;
+import org.nateorlow.charge.HolidayChargeableDayCounter;
+import org.nateorlow.charge.RentalPeriod;
+import org.nateorlow.charge.UnroundedChargeCalculator;
+import org.nateorlow.tool.Tool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolRentalContractTest {
+
+    ToolRentalContract sampleContract(String brand, String checkoutDate, int rentalDays){
+        final ChargeListing chargeListing = ChargeListing.builder().toolType(Tool.LADDER)
+                                                         .dailyCharge(new BigDecimal("1.99"))
+                                                         .weekdayChargeable(true).weekendChargeable(true).build();
+        return ToolRentalContract.builder()
+                                 .tool(Tool.builder().code("LADW").type(Tool.LADDER).brand(brand).build())
+                                 .rentalPeriod(new RentalPeriod(checkoutDate, rentalDays))
+                                 .chargeListing(chargeListing)
+                                 .discountPercent(10)
+                                 .chargeableDayCounter(new HolidayChargeableDayCounter())
+                                 .chargeCalculator(new UnroundedChargeCalculator())
+                                 .build();
+    }
+
+    @Test
+    void testRenderingsMatchStringList() throws IOException {
+        //years before 1000 and non-ASCII brands are printed the same way by every rendering
+        for(ToolRentalContract contract : new ToolRentalContract[]{
+                sampleContract("Werner", "7/2/20", 3),
+                sampleContract("Würth ⚒ 🔨", "12/30/2019", 400),
+                ToolRentalContract.builder().tool(Tool.builder().code("CHNS").build()).build()}){
+            final String expectedText = String.join("\n", contract.toStringList());
+            assertEquals(expectedText, contract.toString());
+
+            final StringBuilder stringBuilder = new StringBuilder();
+            contract.appendTo(stringBuilder);
+            assertEquals(expectedText + "\n", stringBuilder.toString());
+
+            final ByteBuffer byteBuffer = ByteBuffer.allocate(1024);
+            contract.writeTo(byteBuffer);
+            assertEquals(expectedText + "\n",
+                    new String(byteBuffer.array(), 0, byteBuffer.position(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testCentsPricingMatchesBigDecimalPricing(){
+        //the fixed point calculator prices in cents, falling back to BigDecimals for charges too large for a long
+        final Random random = new Random(1999L);
+        final String[] dailyCharges = {"1.99", "0.005", "2.675", "1200", "92233720368547758.07"};
+        for(int trial = 0; trial < 2000; trial++){
+            final ChargeListing chargeListing = ChargeListing.builder().toolType(Tool.LADDER)
+                                                             .dailyCharge(new BigDecimal(dailyCharges[trial % dailyCharges.length]))
+                                                             .weekdayChargeable(true).weekendChargeable(true).build();
+            final RentalPeriod rentalPeriod = new RentalPeriod("7/2/2020", random.nextInt(trial % 10 == 0 ? 5000 : 30) + 1);
+            final int discountPercent = random.nextInt(101);
+            final ToolRentalContract bigDecimalContract = pricedContract(chargeListing, rentalPeriod, discountPercent,
+                    new UnroundedChargeCalculator());
+            final ToolRentalContract centsContract = pricedContract(chargeListing, rentalPeriod, discountPercent,
+                    new FixedPointChargeCalculator());
+            assertEquals(bigDecimalContract.toString(), centsContract.toString());
+        }
+    }
+
+    ToolRentalContract pricedContract(ChargeListing chargeListing, RentalPeriod rentalPeriod, int discountPercent,
+                                      ChargeCalculator chargeCalculator){
+        return ToolRentalContract.builder()
+                                 .tool(Tool.builder().code("LADW").type(Tool.LADDER).brand("Werner").build())
+                                 .rentalPeriod(rentalPeriod)
+                                 .chargeListing(chargeListing)
+                                 .discountPercent(discountPercent)
+                                 .chargeableDayCounter(new HolidayChargeableDayCounter())
+                                 .chargeCalculator(chargeCalculator)
+                                 .build();
+    }
+
+    @Test
+    void testStreamPrinterWritesWholeContract(){
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final StreamContractPrinter streamContractPrinter = new StreamContractPrinter(outputStream);
+        final ToolRentalContract contract = sampleContract("Werner", "7/2/20", 3);
+        streamContractPrinter.printContract(contract);
+        streamContractPrinter.printContract(contract);
+        final String expectedText = contract + "\n";
+        assertEquals(expectedText + expectedText, outputStream.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,102 @@
+package org.nateorlow.holiday;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HolidayCalendarTest {
+
+    HolidayCalendar storeHolidayCalendar;
+    @BeforeEach
+    void setUp(){
+        //New Year's Day can be observed in the previous year, and Christmas is not moved off weekends
+        storeHolidayCalendar = HolidayCalendar.builder()
+                .rule(FixedDateHolidayRule.builder().name("New Year's Day").month(Month.JANUARY).dayOfMonth(1)
+                                          .weekendObserved(true).build())
+                .rule(NthWeekdayHolidayRule.builder().name("Memorial Day").month(Month.MAY).dayOfWeek(DayOfWeek.MONDAY)
+                                           .ordinal(NthWeekdayHolidayRule.LAST).build())
+                .rule(StandardHolidays.OBSERVED_INDEPENDENCE_DAY)
+                .rule(StandardHolidays.LABOR_DAY)
+                .rule(NthWeekdayHolidayRule.builder().name("Thanksgiving").month(Month.NOVEMBER).dayOfWeek(DayOfWeek.THURSDAY)
+                                           .ordinal(4).build())
+                .rule(FixedDateHolidayRule.builder().name("Christmas").month(Month.DECEMBER).dayOfMonth(25).build())
+                .build();
+    }
+
+    @Test
+    void testRules(){
+        //January 1 2022 was a Saturday, so it was observed on Friday December 31 2021
+        assertTrue(storeHolidayCalendar.isHoliday(LocalDate.of(2021, Month.DECEMBER, 31)));
+        assertFalse(storeHolidayCalendar.isHoliday(LocalDate.of(2022, Month.JANUARY, 1)));
+        assertTrue(storeHolidayCalendar.isHoliday(LocalDate.of(2024, Month.MAY, 27)));
+        assertTrue(storeHolidayCalendar.isHoliday(LocalDate.of(2024, Month.NOVEMBER, 28)));
+        //Christmas 2022 was a Sunday, and is not moved
+        assertTrue(storeHolidayCalendar.isHoliday(LocalDate.of(2022, Month.DECEMBER, 25)));
+        assertTrue(storeHolidayCalendar.isWeekend(LocalDate.of(2022, Month.DECEMBER, 25)));
+        assertFalse(storeHolidayCalendar.isHoliday(LocalDate.of(2022, Month.DECEMBER, 26)));
+    }
+
+    @Test
+    void testCachedCalendarMatchesRules(){
+        for(LocalDate localDate = LocalDate.of(1995, Month.JANUARY, 1);
+            localDate.isBefore(LocalDate.of(2035, Month.JANUARY, 1)); localDate = localDate.plusDays(1)){
+            assertEquals(storeHolidayCalendar.matchesAnyRule(localDate), storeHolidayCalendar.isHoliday(localDate),
+                    "Mismatch on " + localDate);
+            assertEquals(localDate.getDayOfWeek().getValue() >= DayOfWeek.SATURDAY.getValue(),
+                    storeHolidayCalendar.isWeekend(localDate), "Mismatch on " + localDate);
+        }
+    }
+
+    @Test
+    void testCountDayClassesMatchesDayByDay(){
+        final Random random = new Random(1225L);
+        final LocalDate earliestDate = LocalDate.of(1990, Month.JANUARY, 1);
+        for(int trial = 0; trial < 500; trial++){
+            final LocalDate firstDate = earliestDate.plusDays(random.nextInt(365 * 40));
+            final LocalDate lastDate = firstDate.plusDays(random.nextInt(trial % 5 == 0 ? 2500 : 30));
+            assertCountsMatchDayByDay(firstDate, lastDate);
+        }
+    }
+
+    @Test
+    void testCountDayClassesAcrossCycles(){
+        //spans of several 400 year cycles, including years before 1 and years near the end of LocalDate's range
+        final Random random = new Random(1582L);
+        for(int trial = 0; trial < 6; trial++){
+            final LocalDate firstDate = LocalDate.of(-1000, Month.JANUARY, 1).plusDays(random.nextInt(365 * 3000));
+            assertCountsMatchDayByDay(firstDate, firstDate.plusDays(random.nextInt(365 * 1200)));
+        }
+        //checking rules day by day looks at the following year, so it stops a year before LocalDate.MAX
+        assertCountsMatchDayByDay(LocalDate.of(Year.MAX_VALUE - 3, Month.JULY, 19), LocalDate.of(Year.MAX_VALUE - 1, Month.DECEMBER, 31));
+        assertDoesNotThrow(() -> storeHolidayCalendar.countDayClasses(LocalDate.of(Year.MAX_VALUE - 3, Month.JULY, 19), LocalDate.MAX));
+        //a far away year shares its cycle year's bitmaps instead of adding to the cache
+        assertSame(storeHolidayCalendar.yearDayClasses(2024), storeHolidayCalendar.yearDayClasses(2024 + 400 * 1000));
+        assertTrue(storeHolidayCalendar.isHoliday(LocalDate.of(2024 + 400 * 1000, Month.NOVEMBER, 28)));
+    }
+
+    private void assertCountsMatchDayByDay(LocalDate firstDate, LocalDate lastDate){
+        int weekdays = 0;
+        int weekends = 0;
+        int holidays = 0;
+        for(LocalDate localDate = firstDate; !localDate.isAfter(lastDate); localDate = localDate.plusDays(1)){
+            if(storeHolidayCalendar.matchesAnyRule(localDate)){
+                holidays += 1;
+            }else if(localDate.getDayOfWeek().getValue() >= DayOfWeek.SATURDAY.getValue()){
+                weekends += 1;
+            }else{
+                weekdays += 1;
+            }
+        }
+        final DayClassCounts dayClassCounts = storeHolidayCalendar.countDayClasses(firstDate, lastDate);
+        assertEquals(weekdays, dayClassCounts.getNonHolidayWeekdays(), "Weekdays from " + firstDate + " to " + lastDate);
+        assertEquals(weekends, dayClassCounts.getNonHolidayWeekends(), "Weekends from " + firstDate + " to " + lastDate);
+        assertEquals(holidays, dayClassCounts.getHolidays(), "Holidays from " + firstDate + " to " + lastDate);
+    }
+}
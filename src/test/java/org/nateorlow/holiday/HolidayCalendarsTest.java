@@ -0,0 +1,89 @@
+package org.nateorlow.holiday;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HolidayCalendarsTest {
+    private static final HolidayRule CHRISTMAS = FixedDateHolidayRule.builder().name("Christmas").month(Month.DECEMBER)
+                                                                     .dayOfMonth(25).weekendObserved(true).build();
+
+    HolidayCalendars holidayCalendars;
+
+    @BeforeEach
+    void setUp(){
+        holidayCalendars = new HolidayCalendars();
+        holidayCalendars.register("CA", List.of(
+                FixedDateHolidayRule.builder().name("Canada Day").month(Month.JULY).dayOfMonth(1).weekendObserved(true).build(),
+                NthWeekdayHolidayRule.builder().name("Labour Day").month(Month.SEPTEMBER).dayOfWeek(DayOfWeek.MONDAY).ordinal(1).build(),
+                NthWeekdayHolidayRule.builder().name("Thanksgiving").month(Month.OCTOBER).dayOfWeek(DayOfWeek.MONDAY).ordinal(2).build(),
+                CHRISTMAS));
+        holidayCalendars.register("GB", List.of(
+                NthWeekdayHolidayRule.builder().name("Spring bank holiday").month(Month.MAY).dayOfWeek(DayOfWeek.MONDAY)
+                                     .ordinal(NthWeekdayHolidayRule.LAST).build(),
+                NthWeekdayHolidayRule.builder().name("Summer bank holiday").month(Month.AUGUST).dayOfWeek(DayOfWeek.MONDAY)
+                                     .ordinal(NthWeekdayHolidayRule.LAST).build(),
+                CHRISTMAS,
+                FixedDateHolidayRule.builder().name("Boxing Day").month(Month.DECEMBER).dayOfMonth(26).build()));
+        //the same holidays as the default region, built separately and listed in another order
+        holidayCalendars.register("US-TX", List.of(
+                NthWeekdayHolidayRule.builder().name("Labor Day").month(Month.SEPTEMBER).dayOfWeek(DayOfWeek.MONDAY).ordinal(1).build(),
+                FixedDateHolidayRule.builder().name("Fourth of July").month(Month.JULY).dayOfMonth(4).weekendObserved(true).build()));
+    }
+
+    @Test
+    void testRegionsWithSameHolidaysShareCalendar(){
+        assertSame(StandardHolidays.INDEPENDENCE_AND_LABOR_DAY, holidayCalendars.calendarFor("US-TX"));
+        assertSame(holidayCalendars.calendarFor(HolidayCalendars.DEFAULT_REGION), holidayCalendars.calendarFor(null));
+        assertNotSame(holidayCalendars.calendarFor("CA"), holidayCalendars.calendarFor("GB"));
+        assertEquals(4, holidayCalendars.getRegions().size());
+        assertEquals(3, holidayCalendars.distinctCalendarCount());
+
+        //many stores in regions with the same holidays don't add calendars
+        for(int store = 0; store < 500; store++){
+            holidayCalendars.register("CA-" + store, holidayCalendars.calendarFor("CA").getRules());
+        }
+        assertEquals(3, holidayCalendars.distinctCalendarCount());
+        assertThrows(IllegalArgumentException.class, () -> holidayCalendars.calendarFor("FR"));
+    }
+
+    @Test
+    void testRegionCalendarsMatchTheirRules(){
+        //Canada Day 2023 was a Saturday, so it was observed on the Friday; Boxing Day is never moved off a weekend
+        assertTrue(holidayCalendars.calendarFor("CA").isHoliday(LocalDate.of(2023, Month.JUNE, 30)));
+        assertFalse(holidayCalendars.calendarFor("CA").isHoliday(LocalDate.of(2023, Month.JULY, 4)));
+        assertTrue(holidayCalendars.calendarFor("GB").isHoliday(LocalDate.of(2021, Month.DECEMBER, 26)));
+        assertTrue(holidayCalendars.calendarFor("GB").isHoliday(LocalDate.of(2022, Month.DECEMBER, 26)));
+
+        final Random random = new Random(2023L);
+        final LocalDate earliestDate = LocalDate.of(1995, Month.JANUARY, 1);
+        for(String region : holidayCalendars.getRegions()){
+            final HolidayCalendar holidayCalendar = holidayCalendars.calendarFor(region);
+            for(int trial = 0; trial < 200; trial++){
+                final LocalDate firstDate = earliestDate.plusDays(random.nextInt(365 * 40));
+                final LocalDate lastDate = firstDate.plusDays(random.nextInt(trial % 5 == 0 ? 1000 : 30));
+                int holidays = 0;
+                int weekends = 0;
+                for(LocalDate localDate = firstDate; !localDate.isAfter(lastDate); localDate = localDate.plusDays(1)){
+                    final boolean holiday = holidayCalendar.matchesAnyRule(localDate);
+                    assertEquals(holiday, holidayCalendar.isHoliday(localDate), region + " on " + localDate);
+                    if(holiday){
+                        holidays += 1;
+                    }else if(localDate.getDayOfWeek().getValue() >= DayOfWeek.SATURDAY.getValue()){
+                        weekends += 1;
+                    }
+                }
+                final DayClassCounts dayClassCounts = holidayCalendar.countDayClasses(firstDate, lastDate);
+                assertEquals(holidays, dayClassCounts.getHolidays(), region + " from " + firstDate + " to " + lastDate);
+                assertEquals(weekends, dayClassCounts.getNonHolidayWeekends(), region + " from " + firstDate + " to " + lastDate);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.nateorlow.load;
+
+import org.junit.jupiter.api.Test;
+import org.nateorlow.charge.MdyDates;
+import org.nateorlow.holiday.StandardHolidays;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadDriverTest {
+    private static final List<String> TOOL_CODES = List.of("A", "B", "C", "D", "E", "F", "G", "H");
+
+    @Test
+    void testGeneratedWorkload(){
+        final WorkloadGenerator workloadGenerator = WorkloadGenerator.builder().toolCodes(TOOL_CODES).seed(7L)
+                                                                     .firstDate(LocalDate.of(2020, 1, 1)).lastDate(LocalDate.of(2024, 12, 31)).build();
+        final List<RentalRequest> rentalRequests = workloadGenerator.generate(20_000);
+        assertEquals(rentalRequests, workloadGenerator.generate(20_000));
+
+        final Map<String, Integer> requestsByToolCode = new HashMap<>();
+        int holidaySeasonCheckouts = 0;
+        for(RentalRequest rentalRequest : rentalRequests){
+            requestsByToolCode.merge(rentalRequest.toolCode(), 1, Integer::sum);
+            assertTrue(rentalRequest.rentalDayCount() >= 1 && rentalRequest.rentalDayCount() <= 90);
+            assertTrue(rentalRequest.discountPercent() >= 0 && rentalRequest.discountPercent() <= 100);
+            final LocalDate checkoutDate = MdyDates.parse(rentalRequest.checkoutDateMDY());
+            assertFalse(checkoutDate.isBefore(LocalDate.of(2020, 1, 1)) || checkoutDate.isAfter(LocalDate.of(2024, 12, 31)));
+            if(checkoutDate.datesUntil(checkoutDate.plusDays(4)).anyMatch(StandardHolidays.INDEPENDENCE_AND_LABOR_DAY::isHoliday)){
+                holidaySeasonCheckouts += 1;
+            }
+        }
+        //the most popular tool gets about a third of the requests with a skew of 1.1, and the least about 3%
+        assertTrue(requestsByToolCode.get("A") > 5_500, "A had " + requestsByToolCode.get("A"));
+        assertTrue(requestsByToolCode.get("H") < 1_000, "H had " + requestsByToolCode.get("H"));
+        //30% are clustered before holidays, and about 1% of the evenly spread dates are that close to one anyway
+        assertEquals(0.3, holidaySeasonCheckouts / 20_000.0, 0.03);
+    }
+
+    @Test
+    void testClosedAndOpenLoopCountEveryRequest(){
+        final List<RentalRequest> rentalRequests = Collections.nCopies(2_000, new RentalRequest("A", 3, 0, "7/2/2020"));
+        final AtomicInteger sent = new AtomicInteger();
+        final LoadTarget loadTarget = rentalRequest -> {
+            final int request = sent.incrementAndGet();
+            if(request % 100 == 0){
+                throw new IllegalStateException("System error -- failing on purpose");
+            }
+            return request % 10 == 0 ? LoadTarget.Outcome.REJECTED : LoadTarget.Outcome.OK;
+        };
+        final LoadReport closedLoopReport = LoadDriver.builder().loadTarget(loadTarget).rentalRequests(rentalRequests)
+                                                      .concurrency(3).warmupRequestCount(200).build().run();
+        assertEquals(1_800, closedLoopReport.getRequestCount());
+        assertEquals(1_800, closedLoopReport.getLatencyHistogram().getCount());
+        assertEquals(18, closedLoopReport.getFailedCount());
+        assertEquals(162, closedLoopReport.getRejectedCount());
+        assertNull(closedLoopReport.getArrivalsPerSecond());
+
+        final LoadReport openLoopReport = LoadDriver.builder().loadTarget(loadTarget).rentalRequests(rentalRequests)
+                                                    .concurrency(3).arrivalsPerSecond(20_000.0).build().run();
+        assertEquals(2_000, openLoopReport.getRequestCount());
+        //2000 requests at 20000/s are scheduled over 0.1 s
+        assertTrue(openLoopReport.getElapsedNanos() >= 99_000_000L);
+        assertTrue(openLoopReport.toString().startsWith("Open loop at 20000 requests/s with 3 workers"));
+    }
+
+    @Test
+    void testOpenLoopMeasuresRequestsStuckBehindStall(){
+        //one 200ms stall in the middle of a run at 1000 requests/s
+        final List<RentalRequest> rentalRequests = Collections.nCopies(1_000, new RentalRequest("A", 3, 0, "7/2/2020"));
+        final LoadReport openLoopReport = LoadDriver.builder().loadTarget(stallingTarget()).rentalRequests(rentalRequests)
+                                                    .concurrency(1).arrivalsPerSecond(1_000.0).build().run();
+        //about 200 requests arrived during the stall and waited for it, so well over 1% saw at least 100ms
+        assertTrue(openLoopReport.latencyMicros(99) > 100_000, openLoopReport.toString());
+        assertTrue(openLoopReport.latencyMicros(90) > 50_000, openLoopReport.toString());
+
+        //a closed loop only sees the one slow request
+        final LoadReport closedLoopReport = LoadDriver.builder().loadTarget(stallingTarget()).rentalRequests(rentalRequests)
+                                                      .concurrency(1).build().run();
+        assertTrue(closedLoopReport.latencyMicros(99) < 100_000, closedLoopReport.toString());
+        assertTrue(closedLoopReport.getLatencyHistogram().getMaxNanos() >= 200_000_000L);
+    }
+
+    private static LoadTarget stallingTarget(){
+        final AtomicInteger sent = new AtomicInteger();
+        return rentalRequest -> {
+            if(sent.incrementAndGet() == 500){
+                Thread.sleep(200);
+            }
+            return LoadTarget.Outcome.OK;
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package org.nateorlow.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketsCoverEveryValue(){
+        //each bucket starts right after the one before it ends
+        for(int bucket = 1; bucket < LatencyHistogram.BUCKET_COUNT; bucket++){
+            final long firstValue = LatencyHistogram.highestValueInBucket(bucket - 1) + 1;
+            assertEquals(bucket, LatencyHistogram.bucketIndex(firstValue));
+            assertEquals(bucket, LatencyHistogram.bucketIndex(LatencyHistogram.highestValueInBucket(bucket)));
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueInBucket(LatencyHistogram.BUCKET_COUNT - 1));
+    }
+
+    @Test
+    void testPercentilesAreCloseToExact(){
+        final LatencyHistogram latencyHistogram = new LatencyHistogram();
+        final Random random = new Random(14L);
+        final long[] values = new long[100_000];
+        for(int i = 0; i < values.length; i++){
+            //log-normal-ish spread from about 1us to 1s
+            values[i] = (long) Math.exp(7 + random.nextGaussian() * 3);
+            latencyHistogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for(double percentile : new double[]{50, 90, 99, 99.9, 100}){
+            final long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            final long recorded = latencyHistogram.valueAtPercentile(percentile);
+            assertTrue(recorded >= exact && recorded <= exact * 1.032 + 1,
+                    percentile + "th percentile was " + recorded + " but should be close to " + exact);
+        }
+        assertEquals(values.length, latencyHistogram.getCount());
+        assertEquals(values[values.length - 1], latencyHistogram.getMaxNanos());
+        assertEquals(Arrays.stream(values).average().orElseThrow(), latencyHistogram.getMeanNanos(), 1e-6);
+
+        latencyHistogram.reset();
+        assertEquals(0, latencyHistogram.getCount());
+        assertEquals(0, latencyHistogram.valueAtPercentile(99));
+    }
+}
@@ -0,0 +1,151 @@
+package org.nateorlow.pricing;
+
+import org.junit.jupiter.api.Test;
+import org.nateorlow.charge.ChargeListing;
+import org.nateorlow.charge.HolidayChargeableDayCounter;
+import org.nateorlow.charge.QuoteCache;
+import org.nateorlow.charge.RentalPeriod;
+import org.nateorlow.contract.ToolRentalContract;
+import org.nateorlow.tool.Tool;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleBasedChargeCalculatorTest {
+
+    @Test
+    void testMatchesReferencePricing(){
+        final Random random = new Random(17L);
+        final RuleBasedChargeCalculator ruleBasedChargeCalculator = new RuleBasedChargeCalculator();
+        for(int trial = 0; trial < 2000; trial++){
+            final PricingRules pricingRules = randomRules(random, "Rule tool " + (trial % 5));
+            ruleBasedChargeCalculator.addPricingRules(pricingRules);
+            final ChargeListing chargeListing = pricingRules.getChargeListing();
+            for(int rental = 0; rental < 20; rental++){
+                final LocalDate checkoutDate = LocalDate.ofEpochDay(random.nextInt(20000));
+                final int rentalDays = 1 + random.nextInt(rental % 5 == 0 ? 400 : 40);
+                final int chargeableDays = random.nextInt(rentalDays + 1);
+                final RentalPeriod rentalPeriod = new RentalPeriod(checkoutDate, rentalDays);
+
+                final BigDecimal expected = pricingRules.baseCharge(MonthDay.from(checkoutDate), rentalDays, chargeableDays);
+                assertEquals(expected, ruleBasedChargeCalculator.calculateBaseCharge(rentalPeriod, chargeableDays, chargeListing),
+                        "Charge for " + rentalDays + " days from " + checkoutDate);
+                assertEquals(expected.unscaledValue().longValueExact(),
+                        ruleBasedChargeCalculator.calculateBaseChargeInCents(rentalPeriod, chargeableDays, chargeListing));
+                assertEquals(pricingRules.baseCharge(null, chargeableDays, chargeableDays),
+                        ruleBasedChargeCalculator.calculateBaseCharge(chargeableDays, chargeListing));
+            }
+        }
+    }
+
+    @Test
+    void testHugeChargesFallBackToBigDecimals(){
+        final RuleBasedChargeCalculator ruleBasedChargeCalculator = new RuleBasedChargeCalculator();
+        final ChargeListing chargeListing = ChargeListing.builder().toolType("Crane")
+                                                         .dailyCharge(new BigDecimal("92233720368547758.07")).build();
+        final PricingRules pricingRules = PricingRules.builder().chargeListing(chargeListing)
+                .seasonalMultiplier(season(1, 1, 12, 31, "1.000001")).build();
+        ruleBasedChargeCalculator.addPricingRules(pricingRules);
+        //the daily charge fits in a long, but three days of it don't
+        final RentalPeriod rentalPeriod = new RentalPeriod("6/1/24", 3);
+        assertEquals(new BigDecimal("276701437806804379.85"), pricingRules.baseCharge(MonthDay.of(6, 1), 3, 3));
+        assertEquals(new BigDecimal("276701437806804379.85"),
+                ruleBasedChargeCalculator.calculateBaseCharge(rentalPeriod, 3, chargeListing));
+        assertThrows(ArithmeticException.class, () -> ruleBasedChargeCalculator.calculateBaseChargeInCents(rentalPeriod, 3, chargeListing));
+    }
+
+    @Test
+    void testRulesPriceContracts(){
+        final ChargeListing ladderListing = ChargeListing.builder().toolType(Tool.LADDER).dailyCharge(new BigDecimal("1.99"))
+                                                         .weekdayChargeable(true).weekendChargeable(true).build();
+        final RuleBasedChargeCalculator ruleBasedChargeCalculator = new RuleBasedChargeCalculator();
+        ruleBasedChargeCalculator.addPricingRules(PricingRules.builder().chargeListing(ladderListing)
+                .weeklyCap(new BigDecimal("9.00"))
+                .minimumCharge(new BigDecimal("2.50"))
+                .seasonalMultiplier(season(12, 15, 1, 15, "1.25"))
+                .discountTier(DiscountTier.builder().minimumRentalDays(14).discountPercent(10).build())
+                .build());
+        final QuoteCache quoteCache = QuoteCache.builder().chargeableDayCounter(new HolidayChargeableDayCounter())
+                                                .chargeCalculator(ruleBasedChargeCalculator).maximumSize(100L).build();
+
+        //10 chargeable days would be 19.90, but that's two started weeks at most 9.00 each
+        assertTrue(contract(quoteCache, ladderListing, "6/1/24", 10).contains("Pre-discount charge: $18.00"));
+        //the same rental over the new year is in season
+        assertTrue(contract(quoteCache, ladderListing, "12/30/23", 10).contains("Pre-discount charge: $22.50"));
+        //three weeks at 9.00, less 10%
+        assertTrue(contract(quoteCache, ladderListing, "6/1/24", 15).contains("Pre-discount charge: $24.30"));
+        //a single day is 1.99, raised to the minimum
+        assertTrue(contract(quoteCache, ladderListing, "6/1/24", 1).contains("Pre-discount charge: $2.50"));
+    }
+
+    @Test
+    void testUnregisteredListingsAreCompiledOnce(){
+        final RuleBasedChargeCalculator ruleBasedChargeCalculator = new RuleBasedChargeCalculator();
+        final ChargeListing oldListing = ChargeListing.builder().toolType(Tool.LADDER).dailyCharge(new BigDecimal("1.99")).build();
+        final ChargeListing newListing = ChargeListing.builder().toolType(Tool.LADDER).dailyCharge(new BigDecimal("2.49")).build();
+        ruleBasedChargeCalculator.addPricingRules(PricingRules.builder().chargeListing(oldListing)
+                .minimumCharge(new BigDecimal("10.00")).build());
+        ruleBasedChargeCalculator.addPricingRules(PricingRules.builder().chargeListing(newListing).build());
+
+        //a contract still holding the replaced listing is priced by its daily charge, without recompiling each time
+        final CompiledPricing oldPricing = ruleBasedChargeCalculator.compiledPricingFor(oldListing);
+        assertSame(oldPricing, ruleBasedChargeCalculator.compiledPricingFor(oldListing));
+        assertNotSame(oldPricing, ruleBasedChargeCalculator.compiledPricingFor(newListing));
+        assertEquals(new BigDecimal("3.98"), ruleBasedChargeCalculator.calculateBaseCharge(2, oldListing));
+        assertEquals(new BigDecimal("4.98"), ruleBasedChargeCalculator.calculateBaseCharge(2, newListing));
+    }
+
+    @Test
+    void testInvalidRules(){
+        final RuleBasedChargeCalculator ruleBasedChargeCalculator = new RuleBasedChargeCalculator();
+        final ChargeListing chargeListing = ChargeListing.builder().toolType("Drill").dailyCharge(BigDecimal.ONE).build();
+        assertThrows(IllegalArgumentException.class, () -> ruleBasedChargeCalculator.addPricingRules(PricingRules.builder()
+                .chargeListing(chargeListing).discountTier(DiscountTier.builder().discountPercent(101).build()).build()));
+        assertThrows(IllegalArgumentException.class, () -> ruleBasedChargeCalculator.addPricingRules(PricingRules.builder()
+                .chargeListing(chargeListing).weeklyCap(new BigDecimal("-1")).build()));
+        assertThrows(IllegalArgumentException.class, () -> ruleBasedChargeCalculator.addPricingRules(PricingRules.builder().build()));
+        assertNull(ruleBasedChargeCalculator.lookupChargeListingByToolType("Drill"));
+    }
+
+    private static String contract(QuoteCache quoteCache, ChargeListing chargeListing, String checkoutDate, int rentalDays){
+        return ToolRentalContract.builder()
+                                 .tool(Tool.builder().code("LADW").type(Tool.LADDER).brand("Werner").build())
+                                 .rentalPeriod(new RentalPeriod(checkoutDate, rentalDays))
+                                 .chargeListing(chargeListing)
+                                 .chargeableDayCounter(quoteCache)
+                                 .chargeCalculator(quoteCache)
+                                 .build().toString();
+    }
+
+    private static SeasonalMultiplier season(int firstMonth, int firstDay, int lastMonth, int lastDay, String multiplier){
+        return SeasonalMultiplier.builder().firstDay(MonthDay.of(firstMonth, firstDay)).lastDay(MonthDay.of(lastMonth, lastDay))
+                                 .multiplier(new BigDecimal(multiplier)).build();
+    }
+
+    //amounts and multipliers with several scales, so the compiled scales have to line up
+    private static PricingRules randomRules(Random random, String toolType){
+        final PricingRules.PricingRulesBuilder builder = PricingRules.builder().chargeListing(
+                ChargeListing.builder().toolType(toolType).dailyCharge(BigDecimal.valueOf(random.nextInt(10000), random.nextInt(4))).build());
+        if(random.nextBoolean()){
+            builder.weeklyCap(BigDecimal.valueOf(random.nextInt(50000), random.nextInt(4)));
+        }
+        if(random.nextBoolean()){
+            builder.monthlyCap(BigDecimal.valueOf(random.nextInt(200000), random.nextInt(4) - 1));
+        }
+        if(random.nextBoolean()){
+            builder.minimumCharge(BigDecimal.valueOf(random.nextInt(2000), random.nextInt(3)));
+        }
+        for(int i = random.nextInt(4); i > 0; i--){
+            builder.seasonalMultiplier(season(1 + random.nextInt(12), 1 + random.nextInt(28), 1 + random.nextInt(12),
+                    1 + random.nextInt(28), BigDecimal.valueOf(random.nextInt(300), random.nextInt(4)).toPlainString()));
+        }
+        for(int i = random.nextInt(4); i > 0; i--){
+            builder.discountTier(DiscountTier.builder().minimumRentalDays(random.nextInt(60)).discountPercent(random.nextInt(101)).build());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,173 @@
+package org.nateorlow.report;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nateorlow.charge.ChargeListing;
+import org.nateorlow.charge.HolidayChargeableDayCounter;
+import org.nateorlow.charge.RentalPeriod;
+import org.nateorlow.charge.UnroundedChargeCalculator;
+import org.nateorlow.contract.ContractJournalPrinter;
+import org.nateorlow.contract.ContractJournalReader;
+import org.nateorlow.contract.ContractRecord;
+import org.nateorlow.contract.ToolRentalContract;
+import org.nateorlow.tool.Tool;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RentalAggregatorTest {
+    private static final String[] TYPES = {Tool.LADDER, Tool.CHAINSAW, Tool.JACKHAMMER, null};
+    private static final String[] BRANDS = {"Werner", "Stihl", "Ridgid", "DeWalt", null};
+
+    @Test
+    void testParallelMatchesSequential(@TempDir Path journalDirectory){
+        final Random random = new Random(19L);
+        final List<ContractRecord> contractRecords = new ArrayList<>();
+        //a year of contracts
+        for(int i = 0; i < 50_000; i++){
+            final int chargeableDays = random.nextInt(10);
+            final long baseCents = chargeableDays * 199L;
+            final long discountCents = baseCents * random.nextInt(101) / 100;
+            contractRecords.add(ContractRecord.builder().toolCode("T" + i)
+                    .toolType(TYPES[random.nextInt(TYPES.length)]).toolBrand(BRANDS[random.nextInt(BRANDS.length)])
+                    .checkoutEpochDay(LocalDate.of(2024, 1, 1).toEpochDay() + random.nextInt(366))
+                    .rentalDayCount(chargeableDays + 1 + random.nextInt(3)).chargeableDays(chargeableDays)
+                    .dailyChargeUnscaled(199).dailyChargeScale(2)
+                    .baseChargeCents(baseCents).discountChargeCents(discountCents).finalChargeCents(baseCents - discountCents)
+                    .build());
+        }
+        final RentalReport expected = new RentalReport();
+        contractRecords.forEach(expected::add);
+
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        try{
+            final RentalAggregator rentalAggregator = new RentalAggregator(forkJoinPool);
+            assertSameReport(expected, rentalAggregator.aggregateRecords(contractRecords));
+
+            try(ContractJournalPrinter journalPrinter = new ContractJournalPrinter(journalDirectory, 256 * 1024)){
+                contractRecords.forEach(journalPrinter::append);
+            }
+            final ContractJournalReader contractJournalReader = new ContractJournalReader(journalDirectory);
+            assertTrue(contractJournalReader.listSegments().size() > 1);
+            assertSameReport(expected, rentalAggregator.aggregateJournal(contractJournalReader));
+        }finally{
+            forkJoinPool.shutdown();
+        }
+        assertEquals(12, expected.getTotalsByMonth().size());
+        assertEquals(LocalDate.of(2024, 1, 1), expected.getFirstCheckoutDate());
+    }
+
+    @Test
+    void testSplitsSegmentsIntoRecordRanges(@TempDir Path journalDirectory) throws IOException {
+        final Random random = new Random(190L);
+        final int recordCount = 20 * RentalAggregator.CONTRACTS_PER_TASK;
+        //a single default-size segment, which is split into many ranges.
+        //Every record encodes to the same length, so a record in the middle is easy to find
+        try(ContractJournalPrinter journalPrinter = new ContractJournalPrinter(journalDirectory)){
+            for(int i = 0; i < recordCount; i++){
+                final int chargeableDays = random.nextInt(10);
+                journalPrinter.append(ContractRecord.builder().toolCode(String.format("T%06d", i))
+                        .toolType(Tool.LADDER).toolBrand(random.nextBoolean() ? "Werner" : "Ridgid")
+                        .checkoutEpochDay(LocalDate.of(2024, 1, 1).toEpochDay() + random.nextInt(366))
+                        .rentalDayCount(chargeableDays + 1).chargeableDays(chargeableDays)
+                        .dailyChargeUnscaled(199).dailyChargeScale(2)
+                        .baseChargeCents(chargeableDays * 199L).finalChargeCents(chargeableDays * 199L)
+                        .build());
+            }
+        }
+        final ContractJournalReader contractJournalReader = new ContractJournalReader(journalDirectory);
+        assertEquals(1, contractJournalReader.listSegments().size());
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        try{
+            final RentalAggregator rentalAggregator = new RentalAggregator(forkJoinPool);
+            final RentalReport expected = new RentalReport();
+            contractJournalReader.forEachRecord(expected::add);
+            assertSameReport(expected, rentalAggregator.aggregateJournal(contractJournalReader));
+
+            //damage a record in the middle, which ends the segment's valid records there
+            final Path segment = contractJournalReader.listSegments().get(0);
+            try(RandomAccessFile segmentFile = new RandomAccessFile(segment.toFile(), "rw")){
+                //the first record's payload length follows the 8 byte segment header
+                segmentFile.seek(8);
+                final long recordBytes = 8 + segmentFile.readInt();
+                final long damagedByteOffset = 8 + (recordCount / 2 + 100) * recordBytes + 8;
+                segmentFile.seek(damagedByteOffset);
+                final int damagedByte = segmentFile.read();
+                segmentFile.seek(damagedByteOffset);
+                segmentFile.write(damagedByte ^ 0xFF);
+            }
+            final RentalReport expectedAfterDamage = new RentalReport();
+            assertEquals(recordCount / 2 + 100, contractJournalReader.forEachRecord(expectedAfterDamage::add));
+            assertSameReport(expectedAfterDamage, rentalAggregator.aggregateJournal(contractJournalReader));
+        }finally{
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Test
+    void testContractTotals(){
+        final ChargeListing ladderListing = ChargeListing.builder().toolType(Tool.LADDER).dailyCharge(new BigDecimal("1.99"))
+                                                         .weekdayChargeable(true).weekendChargeable(true).build();
+        final List<ToolRentalContract> contracts = new ArrayList<>();
+        for(String checkoutDate : new String[]{"7/2/20", "7/30/20", "8/10/20"}){
+            contracts.add(ToolRentalContract.builder()
+                                            .tool(Tool.builder().code("LADW").type(Tool.LADDER).brand("Werner").build())
+                                            .rentalPeriod(new RentalPeriod(checkoutDate, 3))
+                                            .chargeListing(ladderListing).discountPercent(10)
+                                            .chargeableDayCounter(new HolidayChargeableDayCounter())
+                                            .chargeCalculator(new UnroundedChargeCalculator())
+                                            .build());
+        }
+        final RentalReport report = new RentalAggregator().aggregateContracts(contracts);
+
+        //7/2/20 has the 4th of July (observed on the 3rd) in it, so only 2 of its 3 days are charged
+        final RentalTotals total = report.getTotal();
+        assertEquals(3, total.getContractCount());
+        assertEquals(9, total.getRentedDays());
+        assertEquals(8, total.getChargeableDays());
+        assertEquals(398 + 597 + 597, total.getBaseChargeCents());
+        assertEquals(40 + 60 + 60, total.getDiscountCents());
+        assertEquals(total.getBaseChargeCents() - total.getDiscountCents(), total.getRevenueCents());
+        assertEquals(8.0 / 9, total.getChargeableShare(), 1e-9);
+
+        assertEquals(2, report.getTotalsByMonth().get(YearMonth.of(20, 7)).getContractCount());
+        assertEquals(597 - 60, report.getTotalsByMonth().get(YearMonth.of(20, 8)).getRevenueCents());
+        assertEquals(report.getTotalsByToolType().get(Tool.LADDER).getRevenueCents(), report.getTotalsByBrand().get("Werner").getRevenueCents());
+        //7/2 to 8/13 is 42 days, and one ladder was out 9 of them
+        assertEquals(42, report.getPeriodDays());
+        assertEquals(9.0 / 42, total.getUtilization(1, report.getPeriodDays()), 1e-9);
+    }
+
+    private void assertSameReport(RentalReport expected, RentalReport actual){
+        assertSameTotals(expected.getTotal(), actual.getTotal());
+        assertSameGroups(expected.getTotalsByToolType(), actual.getTotalsByToolType());
+        assertSameGroups(expected.getTotalsByBrand(), actual.getTotalsByBrand());
+        assertSameGroups(expected.getTotalsByMonth(), actual.getTotalsByMonth());
+        assertEquals(expected.getPeriodDays(), actual.getPeriodDays());
+    }
+
+    private <K> void assertSameGroups(Map<K, RentalTotals> expected, Map<K, RentalTotals> actual){
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((key, totals) -> assertSameTotals(totals, actual.get(key)));
+    }
+
+    private void assertSameTotals(RentalTotals expected, RentalTotals actual){
+        assertEquals(expected.getContractCount(), actual.getContractCount());
+        assertEquals(expected.getRentedDays(), actual.getRentedDays());
+        assertEquals(expected.getChargeableDays(), actual.getChargeableDays());
+        assertEquals(expected.getBaseChargeCents(), actual.getBaseChargeCents());
+        assertEquals(expected.getDiscountCents(), actual.getDiscountCents());
+        assertEquals(expected.getRevenueCents(), actual.getRevenueCents());
+    }
+}
@@ -0,0 +1,59 @@
+package org.nateorlow.tool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdTableTest {
+
+    @Test
+    void testIdsAreDenseAndStable(){
+        final IdTable idTable = new IdTable();
+        for(int i = 0; i < 10_000; i++){
+            assertEquals(i, idTable.intern("SKU" + i));
+        }
+        assertEquals(10_000, idTable.size());
+        for(int i = 0; i < 10_000; i++){
+            assertEquals(i, idTable.intern("SKU" + i));
+            assertEquals(i, idTable.idOf(new String("SKU" + i)));
+            assertEquals("SKU" + i, idTable.keyOf(i));
+        }
+        assertEquals(IdTable.NO_ID, idTable.idOf("SKU10000"));
+        assertEquals(IdTable.NO_ID, idTable.idOf(null));
+        assertNull(idTable.keyOf(10_000));
+        assertThrows(IllegalArgumentException.class, () -> idTable.intern(null));
+    }
+
+    @Test
+    void testReadsWhileAdding() throws Exception {
+        //readers never lock, so check they always see a complete entry while the table grows underneath them
+        final IdTable idTable = new IdTable();
+        final int keyCount = 200_000;
+        final AtomicBoolean adding = new AtomicBoolean(true);
+        try(ExecutorService executorService = Executors.newFixedThreadPool(3)){
+            final Future<Integer> mismatches = executorService.submit(() -> {
+                int mismatchCount = 0;
+                while(adding.get()){
+                    final int added = idTable.size();
+                    for(int i = Math.max(0, added - 64); i < added; i++){
+                        if(idTable.idOf("SKU" + i) != i || !("SKU" + i).equals(idTable.keyOf(i))){
+                            mismatchCount++;
+                        }
+                    }
+                }
+                return mismatchCount;
+            });
+            for(int i = 0; i < keyCount; i++){
+                idTable.intern("SKU" + i);
+            }
+            adding.set(false);
+            assertEquals(0, mismatches.get());
+        }
+        assertEquals(keyCount, idTable.size());
+    }
+}
@@ -0,0 +1,272 @@
+package org.nateorlow.tool;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nateorlow.charge.ChargeListing;
+import org.nateorlow.charge.HolidayChargeableDayCounter;
+import org.nateorlow.charge.RentalPeriod;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryTest {
+    static final String[] TOOL_CODES = {"CHNS", "LADW", "JAKD", "JAKR"};
+    Inventory inventory;
+
+    @BeforeEach
+    void setUp(){
+        inventory = new Inventory();
+        for(String toolCode : TOOL_CODES){
+            inventory.addTool(Tool.builder().code(toolCode).type("type").brand("brand").build());
+        }
+    }
+
+    @Test
+    void testReserveAndRelease(){
+        final RentalPeriod julySecondThreeDays = new RentalPeriod(LocalDate.of(2020, Month.JULY, 2), 3);
+        final RentalPeriod julyFourthTwoDays = new RentalPeriod(LocalDate.of(2020, Month.JULY, 4), 2);
+        //checking out on the due date of the first rental does not overlap it
+        final RentalPeriod julyFifthTwoDays = new RentalPeriod(LocalDate.of(2020, Month.JULY, 5), 2);
+
+        assertTrue(inventory.reserveTool("LADW", julySecondThreeDays));
+        assertFalse(inventory.reserveTool("LADW", julyFourthTwoDays));
+        assertTrue(inventory.reserveTool("CHNS", julyFourthTwoDays), "other tools are not affected");
+        assertTrue(inventory.reserveTool("LADW", julyFifthTwoDays));
+
+        assertTrue(inventory.releaseTool("LADW", new RentalPeriod(LocalDate.of(2020, Month.JULY, 2), 3)));
+        assertFalse(inventory.releaseTool("LADW", julySecondThreeDays), "already released");
+        assertTrue(inventory.isToolAvailable("LADW", new RentalPeriod(LocalDate.of(2020, Month.JULY, 3), 2)));
+        assertThrows(IllegalArgumentException.class, () -> inventory.reserveTool("NOPE", julySecondThreeDays));
+        final RentalPeriod noDays = new RentalPeriod(LocalDate.of(2020, Month.JULY, 2), 0);
+        assertThrows(IllegalArgumentException.class, () -> inventory.reserveTool("CHNS", noDays));
+        assertThrows(IllegalArgumentException.class, () -> inventory.releaseTool("CHNS", noDays));
+        assertThrows(IllegalArgumentException.class, () -> inventory.isToolAvailable("CHNS", noDays));
+
+        //a period with no charged days would break the free runs, so the bookings refuse it
+        final ToolBookings toolBookings = new ToolBookings();
+        assertThrows(IllegalArgumentException.class, () -> toolBookings.book(new RentalPeriod(LocalDate.of(2020, Month.JULY, 2), 0)));
+        assertThrows(IllegalArgumentException.class, () -> toolBookings.book(new RentalPeriod(LocalDate.of(2020, Month.JULY, 2), -3)));
+        assertEquals(0, toolBookings.size());
+        assertEquals(LocalDate.of(2020, Month.JULY, 2), toolBookings.earliestFreeCheckoutDate(LocalDate.of(2020, Month.JULY, 2), 1));
+    }
+
+    @Test
+    void testAvailabilityByType(){
+        inventory.addTool(Tool.builder().code("JAKD").type(Tool.JACKHAMMER).brand("DeWalt").build());
+        inventory.addTool(Tool.builder().code("JAKR").type(Tool.JACKHAMMER).brand("Ridgid").build());
+        //Labor Day weekend 2015 is Saturday 9/5 to Monday 9/7
+        final RentalPeriod laborDayWeekend = new RentalPeriod(LocalDate.of(2015, Month.SEPTEMBER, 4), 3);
+        assertTrue(inventory.reserveTool("JAKD", new RentalPeriod(LocalDate.of(2015, Month.SEPTEMBER, 1), 5)));
+        assertEquals(List.of("JAKR"),
+                inventory.findAvailableTools(Tool.JACKHAMMER, laborDayWeekend).stream().map(Tool::getCode).toList());
+
+        //JAKR is booked 7/3 to 7/12 and 7/15 to 7/30, JAKD is booked 7/5 to 7/20
+        assertTrue(inventory.reserveTool("JAKR", new RentalPeriod(LocalDate.of(2015, Month.JULY, 2), 10)));
+        assertTrue(inventory.reserveTool("JAKR", new RentalPeriod(LocalDate.of(2015, Month.JULY, 14), 16)));
+        assertTrue(inventory.reserveTool("JAKD", new RentalPeriod(LocalDate.of(2015, Month.JULY, 4), 16)));
+        //JAKR's gap from 7/13 to 7/14 is too short for 10 days, so JAKD is free first (checking out on 7/20)
+        final ToolAvailability earliestAvailability =
+                inventory.findEarliestAvailability(Tool.JACKHAMMER, LocalDate.of(2015, Month.JULY, 2), 10);
+        assertEquals("JAKD", earliestAvailability.getTool().getCode());
+        assertEquals(LocalDate.of(2015, Month.JULY, 20), earliestAvailability.getRentalPeriod().getStartDate());
+        //a two day rental fits in JAKR's gap, once JAKD's booking has started
+        final ToolAvailability shortRentalAvailability =
+                inventory.findEarliestAvailability(Tool.JACKHAMMER, LocalDate.of(2015, Month.JULY, 4), 2);
+        assertEquals("JAKR", shortRentalAvailability.getTool().getCode());
+        assertEquals(LocalDate.of(2015, Month.JULY, 12), shortRentalAvailability.getRentalPeriod().getStartDate());
+        assertNull(inventory.findEarliestAvailability("Backhoe", LocalDate.of(2015, Month.JULY, 2), 2));
+    }
+
+    @Test
+    void testFleetSearchBeforeEpochAndAtEndOfTime(){
+        inventory.addTool(Tool.builder().code("JAKR").type(Tool.JACKHAMMER).brand("Ridgid").build());
+        //"9/3/15" is the year 15, so its epoch days are far below 0
+        assertTrue(inventory.reserveTool("JAKR", new RentalPeriod("9/3/15", 5)));
+        for(int year : new int[]{15, 1915, 2015}){
+            final ToolAvailability afterBooking = inventory.findEarliestAvailability(Tool.JACKHAMMER, LocalDate.of(year, Month.SEPTEMBER, 20), 2);
+            assertEquals(LocalDate.of(year, Month.SEPTEMBER, 20), afterBooking.getRentalPeriod().getStartDate());
+        }
+        final ToolAvailability overBooking = inventory.findEarliestAvailability(Tool.JACKHAMMER, LocalDate.of(15, Month.SEPTEMBER, 1), 4);
+        assertEquals(LocalDate.of(15, Month.SEPTEMBER, 8), overBooking.getRentalPeriod().getStartDate());
+
+        //there is no room for a rental that would end after the last date LocalDate can hold
+        assertNull(inventory.findEarliestAvailability(Tool.JACKHAMMER, LocalDate.MAX.minusDays(1), 5));
+        assertNull(new ToolBookings().earliestFreeCheckoutDate(LocalDate.MAX.minusDays(1), 5));
+
+        //the cheapest search's window stops at the last date too, and can't be made arbitrarily wide
+        final ChargeListing jackhammerListing = ChargeListing.builder().toolType(Tool.JACKHAMMER).dailyCharge(new BigDecimal("2.99"))
+                                                             .weekdayChargeable(true).build();
+        final HolidayChargeableDayCounter chargeableDayCounter = new HolidayChargeableDayCounter();
+        final ToolAvailability atEndOfTime = inventory.findCheapestAvailability(Tool.JACKHAMMER, LocalDate.MAX.minusDays(10), 2,
+                Inventory.MAX_FLEXIBLE_DAYS, jackhammerListing, chargeableDayCounter);
+        assertNotNull(atEndOfTime);
+        assertFalse(atEndOfTime.getRentalPeriod().getStartDate().isBefore(LocalDate.MAX.minusDays(10)));
+        assertThrows(IllegalArgumentException.class, () -> inventory.findCheapestAvailability(Tool.JACKHAMMER, LocalDate.of(2015, Month.JULY, 2), 2,
+                Integer.MAX_VALUE, jackhammerListing, chargeableDayCounter));
+    }
+
+    @Test
+    void testFleetSearchMatchesTryingEveryDate(){
+        final Random random = new Random(20L);
+        final ChargeListing jackhammerListing = ChargeListing.builder().toolType(Tool.JACKHAMMER).dailyCharge(new BigDecimal("2.99"))
+                                                             .weekdayChargeable(true).build();
+        final HolidayChargeableDayCounter chargeableDayCounter = new HolidayChargeableDayCounter();
+        final LocalDate firstDate = LocalDate.of(2015, Month.JUNE, 1);
+        for(int i = 0; i < 40; i++){
+            inventory.addTool(Tool.builder().code("JAK" + i).type(Tool.JACKHAMMER).build());
+        }
+        final List<Tool> jackhammers = inventory.lookupToolsByType(Tool.JACKHAMMER);
+        for(int round = 0; round < 30; round++){
+            //book the fleet more and more, with some cancellations leaving gaps between bookings
+            for(int booking = 0; booking < 60; booking++){
+                final String toolCode = jackhammers.get(random.nextInt(jackhammers.size())).getCode();
+                final RentalPeriod rentalPeriod = new RentalPeriod(firstDate.plusDays(random.nextInt(120)), 1 + random.nextInt(8));
+                if(inventory.reserveTool(toolCode, rentalPeriod) && random.nextInt(4) == 0){
+                    assertTrue(inventory.releaseTool(toolCode, rentalPeriod));
+                }
+            }
+            final LocalDate notBefore = firstDate.plusDays(random.nextInt(100));
+            final int rentalDayCount = 1 + random.nextInt(12);
+
+            LocalDate expectedDate = notBefore;
+            String expectedCode = null;
+            while(expectedCode == null){
+                expectedCode = firstFreeTool(jackhammers, new RentalPeriod(expectedDate, rentalDayCount));
+                expectedDate = expectedCode == null ? expectedDate.plusDays(1) : expectedDate;
+            }
+            final ToolAvailability earliest = inventory.findEarliestAvailability(Tool.JACKHAMMER, notBefore, rentalDayCount);
+            assertEquals(expectedDate, earliest.getRentalPeriod().getStartDate());
+            assertEquals(expectedCode, earliest.getTool().getCode());
+
+            final int flexibleDays = random.nextInt(10);
+            ToolAvailability expectedCheapest = null;
+            for(LocalDate checkoutDate = expectedDate; !checkoutDate.isAfter(expectedDate.plusDays(flexibleDays)); checkoutDate = checkoutDate.plusDays(1)){
+                final RentalPeriod rentalPeriod = new RentalPeriod(checkoutDate, rentalDayCount);
+                final String toolCode = firstFreeTool(jackhammers, rentalPeriod);
+                final int chargeableDays = chargeableDayCounter.chargeableDaysForListing(rentalPeriod, jackhammerListing);
+                if(toolCode != null && (expectedCheapest == null || chargeableDays < expectedCheapest.getChargeableDays())){
+                    expectedCheapest = new ToolAvailability(inventory.lookupToolByCode(toolCode), rentalPeriod, chargeableDays);
+                }
+            }
+            final ToolAvailability cheapest = inventory.findCheapestAvailability(Tool.JACKHAMMER, notBefore, rentalDayCount,
+                    flexibleDays, jackhammerListing, chargeableDayCounter);
+            assertEquals(expectedCheapest.getRentalPeriod().getStartDate(), cheapest.getRentalPeriod().getStartDate());
+            assertEquals(expectedCheapest.getTool().getCode(), cheapest.getTool().getCode());
+            assertEquals(expectedCheapest.getChargeableDays(), cheapest.getChargeableDays());
+        }
+    }
+
+    private String firstFreeTool(List<Tool> tools, RentalPeriod rentalPeriod){
+        for(Tool tool : tools){
+            if(inventory.isToolAvailable(tool.getCode(), rentalPeriod)){
+                return tool.getCode();
+            }
+        }
+        return null;
+    }
+
+    @Test
+    void testToolsAreListedUnderTheirCurrentType() throws InterruptedException, ExecutionException {
+        final String[] toolTypes = {Tool.LADDER, Tool.CHAINSAW};
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try{
+            //one thread keeps moving tools between types and adding new ones while the other reads
+            final Future<?> writer = executorService.submit(() -> {
+                for(int i = 0; i < 20000; i++){
+                    inventory.addTool(Tool.builder().code("FLIP" + (i % 10)).type(toolTypes[i % 2]).build());
+                    if(i % 100 == 0){
+                        inventory.addTool(Tool.builder().code("NEW" + i).type(toolTypes[i % 2]).build());
+                    }
+                }
+            });
+            final Future<?> reader = executorService.submit(() -> {
+                while(!writer.isDone()){
+                    for(String toolType : toolTypes){
+                        for(Tool tool : inventory.lookupToolsByType(toolType)){
+                            assertEquals(toolType, tool.getType(), tool.getCode() + " listed under the wrong type");
+                        }
+                    }
+                }
+                return null;
+            });
+            writer.get();
+            reader.get();
+        }finally{
+            executorService.shutdownNow();
+        }
+        assertEquals(TOOL_CODES.length + 10 + 200, inventory.lookupToolsByType(Tool.LADDER).size()
+                + inventory.lookupToolsByType(Tool.CHAINSAW).size() + inventory.lookupToolsByType("type").size());
+    }
+
+    @Test
+    void testConcurrentReservationsNeverDoubleBook() throws InterruptedException, ExecutionException {
+        final int threadCount = 8;
+        final int attemptsPerThread = 2000;
+        final Map<String, ConcurrentLinkedQueue<RentalPeriod>> heldReservations = new ConcurrentHashMap<>();
+        for(String toolCode : TOOL_CODES){
+            heldReservations.put(toolCode, new ConcurrentLinkedQueue<>());
+        }
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        final List<Future<?>> futures = new ArrayList<>();
+        try{
+            for(int threadIndex = 0; threadIndex < threadCount; threadIndex++){
+                final Random random = new Random(threadIndex);
+                //a Callable, so a failed assertion or an interrupt comes back through its Future
+                futures.add(executorService.submit(() -> {
+                    startLatch.await();
+                    for(int attempt = 0; attempt < attemptsPerThread; attempt++){
+                        final String toolCode = TOOL_CODES[random.nextInt(TOOL_CODES.length)];
+                        //a small window of dates, so most attempts collide
+                        final RentalPeriod rentalPeriod =
+                                new RentalPeriod(LocalDate.of(2020, Month.JULY, 1).plusDays(random.nextInt(60)), random.nextInt(5) + 1);
+                        if(inventory.reserveTool(toolCode, rentalPeriod)){
+                            heldReservations.get(toolCode).add(rentalPeriod);
+                            //give some back, so the tools keep changing hands
+                            if(random.nextInt(3) == 0 && heldReservations.get(toolCode).remove(rentalPeriod)){
+                                assertTrue(inventory.releaseTool(toolCode, rentalPeriod));
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            startLatch.countDown();
+            //get rethrows anything a worker threw, so it fails the test here on the test thread
+            for(Future<?> future : futures){
+                future.get();
+            }
+        }finally{
+            executorService.shutdownNow();
+        }
+
+        for(String toolCode : TOOL_CODES){
+            final List<RentalPeriod> reservations = new ArrayList<>(heldReservations.get(toolCode));
+            assertFalse(reservations.isEmpty());
+            for(int first = 0; first < reservations.size(); first++){
+                for(int second = first + 1; second < reservations.size(); second++){
+                    final RentalPeriod firstPeriod = reservations.get(first);
+                    final RentalPeriod secondPeriod = reservations.get(second);
+                    assertTrue(firstPeriod.getEndDate().isBefore(secondPeriod.getFirstChargeDate())
+                                    || secondPeriod.getEndDate().isBefore(firstPeriod.getFirstChargeDate()),
+                            toolCode + " double booked");
+                }
+                assertFalse(inventory.isToolAvailable(toolCode, reservations.get(first)));
+            }
+        }
+    }
+}
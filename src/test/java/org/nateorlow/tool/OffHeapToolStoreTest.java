@@ -0,0 +1,133 @@
+package org.nateorlow.tool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nateorlow.charge.RentalPeriod;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapToolStoreTest {
+    private static final String[] TYPES = {Tool.CHAINSAW, Tool.LADDER, Tool.JACKHAMMER, "Tile saw", null};
+    private static final String[] BRANDS = {"Stihl", "Werner", "DeWalt", "Ridgid", "Makita", null};
+
+    @Test
+    void testSameLookupsAsHeapInventory() throws Exception {
+        try(OffHeapToolStore offHeapToolStore = OffHeapToolStore.builder().capacity(5000).maxNames(16).build()){
+            final Inventory heapInventory = new Inventory();
+            final Inventory offHeapInventory = new Inventory(offHeapToolStore);
+            final Random random = new Random(16L);
+            for(int i = 0; i < 6000; i++){
+                //some codes come up again, which replaces the tool
+                final Tool tool = Tool.builder().code("SKU-" + random.nextInt(4000) + (i % 7 == 0 ? "é" : ""))
+                                      .type(TYPES[random.nextInt(TYPES.length)])
+                                      .brand(BRANDS[random.nextInt(BRANDS.length)]).build();
+                heapInventory.addTool(tool);
+                offHeapInventory.addTool(tool);
+            }
+            assertSameLookups(heapInventory, offHeapInventory, random);
+
+            final RentalPeriod rentalPeriod = new RentalPeriod("9/3/15", 5);
+            final String toolCode = offHeapInventory.lookupToolsByType(Tool.LADDER).get(0).getCode();
+            assertTrue(offHeapInventory.reserveTool(toolCode, rentalPeriod));
+            assertFalse(offHeapInventory.isToolAvailable(toolCode, rentalPeriod));
+        }
+    }
+
+    @Test
+    void testMappedFileSurvivesReopening(@TempDir Path tempDir) throws Exception {
+        final Path file = tempDir.resolve("tools.store");
+        final Inventory heapInventory = new Inventory();
+        final Random random = new Random(22L);
+        try(OffHeapToolStore offHeapToolStore = OffHeapToolStore.builder().capacity(1000).file(file).build()){
+            for(int i = 0; i < 800; i++){
+                final Tool tool = Tool.builder().code("T" + i).type(TYPES[i % TYPES.length]).brand(BRANDS[i % BRANDS.length]).build();
+                heapInventory.addTool(tool);
+                offHeapToolStore.addTool(tool);
+            }
+        }
+        //options given when opening an existing file are ignored in favor of the file's own
+        try(OffHeapToolStore reopenedToolStore = OffHeapToolStore.builder().capacity(10).file(file).build()){
+            assertEquals(1000, reopenedToolStore.getCapacity());
+            final Inventory reopenedInventory = new Inventory(reopenedToolStore);
+            assertSameLookups(heapInventory, reopenedInventory, random);
+            final Tool tool = Tool.builder().code("T800").type("Tile saw").brand("Makita").build();
+            heapInventory.addTool(tool);
+            reopenedInventory.addTool(tool);
+            assertSameLookups(heapInventory, reopenedInventory, random);
+        }
+    }
+
+    @Test
+    void testFullStore() throws Exception {
+        try(OffHeapToolStore offHeapToolStore = OffHeapToolStore.builder().capacity(2).build()){
+            offHeapToolStore.addTool(Tool.builder().code("A").type(Tool.LADDER).build());
+            offHeapToolStore.addTool(Tool.builder().code("B").type(Tool.LADDER).build());
+            //replacing a tool doesn't need a new row
+            offHeapToolStore.addTool(Tool.builder().code("A").type(Tool.CHAINSAW).build());
+            assertThrows(IllegalStateException.class, () -> offHeapToolStore.addTool(Tool.builder().code("C").build()));
+            assertEquals(2, offHeapToolStore.size());
+            assertEquals(Tool.CHAINSAW, offHeapToolStore.lookupToolById(offHeapToolStore.lookupToolCodeId("A")).getType());
+        }
+    }
+
+    @Test
+    void testReplacedToolIsSeenAllAtOnce() throws Exception {
+        try(OffHeapToolStore offHeapToolStore = OffHeapToolStore.builder().capacity(16).build()){
+            final Tool ladder = Tool.builder().code("A").type(Tool.LADDER).brand("Werner").build();
+            final Tool chainsaw = Tool.builder().code("A").type(Tool.CHAINSAW).brand("Stihl").build();
+            offHeapToolStore.addTool(ladder);
+            final Thread writer = new Thread(() -> {
+                for(int i = 0; i < 200_000; i++){
+                    offHeapToolStore.addTool(i % 2 == 0 ? chainsaw : ladder);
+                }
+            });
+            writer.start();
+            while(writer.isAlive()){
+                final Tool tool = offHeapToolStore.lookupToolById(0);
+                assertEquals(Tool.LADDER.equals(tool.getType()) ? "Werner" : "Stihl", tool.getBrand());
+                for(Tool typeTool : offHeapToolStore.lookupToolsByType(Tool.LADDER)){
+                    assertEquals(Tool.LADDER, typeTool.getType());
+                }
+            }
+            writer.join();
+            //the last add put it back to a ladder
+            assertEquals(List.of(), offHeapToolStore.lookupToolsByType(Tool.CHAINSAW));
+            assertEquals(1, offHeapToolStore.lookupToolsByType(Tool.LADDER).size());
+            assertEquals("Werner", offHeapToolStore.lookupToolsByType(Tool.LADDER).get(0).getBrand());
+        }
+    }
+
+    private void assertSameLookups(Inventory expectedInventory, Inventory actualInventory, Random random){
+        for(int i = 0; i < 5000; i++){
+            final String toolCode = random.nextInt(3) == 0 ? "T" + random.nextInt(1200) : "SKU-" + random.nextInt(4200) + (i % 7 == 0 ? "é" : "");
+            final Tool expected = expectedInventory.lookupToolByCode(toolCode);
+            final Tool actual = actualInventory.lookupToolByCode(toolCode);
+            if(expected == null){
+                assertNull(actual, toolCode);
+                assertEquals(IdTable.NO_ID, actualInventory.lookupToolCodeId(toolCode));
+                continue;
+            }
+            assertSameTool(expected, actual);
+            final int expectedTypeId = expectedInventory.lookupToolTypeId(expectedInventory.lookupToolCodeId(toolCode));
+            assertEquals(expectedTypeId, actualInventory.lookupToolTypeId(actualInventory.lookupToolCodeId(toolCode)));
+        }
+        for(String toolType : TYPES){
+            final List<Tool> expectedTools = expectedInventory.lookupToolsByType(toolType);
+            final List<Tool> actualTools = actualInventory.lookupToolsByType(toolType);
+            assertEquals(expectedTools.size(), actualTools.size());
+            for(int i = 0; i < expectedTools.size(); i++){
+                assertSameTool(expectedTools.get(i), actualTools.get(i));
+            }
+        }
+    }
+
+    private void assertSameTool(Tool expected, Tool actual){
+        assertEquals(expected.getCode(), actual.getCode());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getBrand(), actual.getBrand());
+    }
+}